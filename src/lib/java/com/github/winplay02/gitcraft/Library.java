@@ -6,6 +6,7 @@ import com.github.winplay02.gitcraft.config.IntegrityConfiguration;
 import com.github.winplay02.gitcraft.integrity.GitBlobSHA1Algorithm;
 import com.github.winplay02.gitcraft.integrity.IntegrityAlgorithm;
 import com.github.winplay02.gitcraft.integrity.SHA1Algorithm;
+import com.github.winplay02.gitcraft.util.FileSystemNetworkManager;
 import com.github.winplay02.gitcraft.util.MiscHelper;
 import com.github.winplay02.gitcraft.util.RemoteHelper;
 
@@ -94,6 +95,7 @@ public class Library {
 		System.setProperty("jdk.httpclient.connectionPoolSize", String.valueOf(CONF_GLOBAL.maxConcurrentHttpConnections()));
 		System.setProperty("jdk.httpclient.maxstreams", String.valueOf(CONF_GLOBAL.maxConcurrentHttpStreams()));
 		System.setProperty("jdk.httpclient.bufsize", String.valueOf(Short.MAX_VALUE * 2));
+		FileSystemNetworkManager.configureNetworkMirror(CONF_GLOBAL.networkMirrorMode(), CONF_GLOBAL.networkMirrorPath().isEmpty() ? LibraryPaths.NETWORK_MIRROR : LibraryPaths.CURRENT_WORKING_DIRECTORY.resolve(CONF_GLOBAL.networkMirrorPath()));
 	}
 
 	public static Logger getSubLogger(String name) {
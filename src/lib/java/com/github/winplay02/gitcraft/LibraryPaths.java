@@ -14,7 +14,10 @@ public class LibraryPaths {
 	public static Path CURRENT_WORKING_DIRECTORY = null;
 	public static Path MAIN_ARTIFACT_STORE = null;
 	public static Path MAVEN_CACHE = null;
+	public static Path STEP_DURATIONS = null;
+	public static Path NETWORK_MIRROR = null;
 	public static Path TMP_DIR = null;
+	public static Path TRACES_DIR = null;
 
 	public static void init(Path currentWorkingDirectory) throws IOException {
 		if (CURRENT_WORKING_DIRECTORY != null) {
@@ -23,7 +26,10 @@ public class LibraryPaths {
 		CURRENT_WORKING_DIRECTORY = currentWorkingDirectory;
 		MAIN_ARTIFACT_STORE = CURRENT_WORKING_DIRECTORY.resolve("artifact-store");
 		MAVEN_CACHE = MAIN_ARTIFACT_STORE.resolve("maven-cache.json");
+		STEP_DURATIONS = MAIN_ARTIFACT_STORE.resolve("step-durations.json");
+		NETWORK_MIRROR = MAIN_ARTIFACT_STORE.resolve("network-mirror");
 		TMP_DIR = CURRENT_WORKING_DIRECTORY.resolve("tmp");
+		TRACES_DIR = CURRENT_WORKING_DIRECTORY.resolve("traces");
 		Files.createDirectories(MAIN_ARTIFACT_STORE);
 		Files.createDirectories(TMP_DIR);
 	}
@@ -1,10 +1,12 @@
 package com.github.winplay02.gitcraft.config;
 
 import com.github.winplay02.gitcraft.util.MiscHelper;
+import com.github.winplay02.gitcraft.util.NetworkMirror;
 import com.google.gson.JsonElement;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import static com.github.winplay02.gitcraft.config.Configuration.Utils.prim;
@@ -24,6 +26,16 @@ import static com.github.winplay02.gitcraft.config.Configuration.Utils.prim;
  * @param maxConcurrentHttpConnections Max amount of HTTP/1.1 connections can be used
  * @param maxConcurrentHttpRequestsPerOrigin Max amount of HTTP Requests that are in flight at a given time per origin
  * @param maxParallelPipelineSteps Max amount of pipeline steps that can be processed in parallel (0 means unlimited)
+ * @param fuseJarTransforms Whether all class transformations of a jar (patching, remapping, unpicking, nesting, preening) are fused into a single step, without writing intermediate jars
+ * @param incrementalDecompilation Whether only classes that changed compared to the previous version (or depend on changed classes) are decompiled, reusing all other sources of the previous version
+ * @param exportPipelineTrace Whether a trace of each pipeline run (step executions, queue and lock waits, artifact sizes) is written to the traces directory, in the Chrome trace event format
+ * @param pipelineMemoryBudget Heap budget in MiB, that memory-intensive pipeline steps (e.g. decompilation) are admitted against concurrently (0 means three quarters of the max heap size)
+ * @param maxParallelCpuSteps Max amount of CPU-bound pipeline steps that can be processed in parallel (0 means unlimited)
+ * @param maxParallelDiskSteps Max amount of disk-bound pipeline steps that can be processed in parallel (0 means unlimited)
+ * @param maxParallelNetworkSteps Max amount of network-bound pipeline steps that can be processed in parallel (0 means unlimited)
+ * @param maxParallelGitSteps Max amount of pipeline steps operating on the repository that can be processed in parallel (0 means unlimited)
+ * @param networkMirrorMode Whether all fetched resources are recorded into the network mirror, or read from it without accessing the network (off, record, offline)
+ * @param networkMirrorPath Directory of the network mirror (empty means the default location in the artifact store)
  */
 public record GlobalConfiguration(boolean checksumRemoveInvalidFiles,
 								  boolean printExistingFileChecksumMatching,
@@ -36,7 +48,17 @@ public record GlobalConfiguration(boolean checksumRemoveInvalidFiles,
 								  int maxConcurrentHttpStreams,
 								  int maxConcurrentHttpConnections,
 								  int maxConcurrentHttpRequestsPerOrigin,
-								  int maxParallelPipelineSteps)
+								  int maxParallelPipelineSteps,
+								  boolean fuseJarTransforms,
+								  boolean incrementalDecompilation,
+								  boolean exportPipelineTrace,
+								  int pipelineMemoryBudget,
+								  int maxParallelCpuSteps,
+								  int maxParallelDiskSteps,
+								  int maxParallelNetworkSteps,
+								  int maxParallelGitSteps,
+								  NetworkMirror.Mode networkMirrorMode,
+								  String networkMirrorPath)
 	implements Configuration {
 
 	public static final int DEFAULT_FETCH_RETRY_INTERVAL = 500;
@@ -58,7 +80,17 @@ public record GlobalConfiguration(boolean checksumRemoveInvalidFiles,
 		DEFAULT_MAX_CONCURRENT_HTTP_STREAMS,
 		DEFAULT_MAX_CONCURRENT_HTTP_CONNECTIONS,
 		DEFAULT_MAX_CONCURRENT_HTTP_REQUESTS_PER_ORIGIN,
-		0
+		0,
+		false,
+		false,
+		false,
+		0,
+		0,
+		0,
+		0,
+		0,
+		NetworkMirror.Mode.OFF,
+		""
 	);
 
 	public GlobalConfiguration {
@@ -89,6 +121,34 @@ public record GlobalConfiguration(boolean checksumRemoveInvalidFiles,
 		if (maxParallelPipelineSteps < 0) {
 			maxParallelPipelineSteps = DEFAULT.maxParallelPipelineSteps();
 		}
+
+		if (pipelineMemoryBudget < 0) {
+			pipelineMemoryBudget = DEFAULT.pipelineMemoryBudget();
+		}
+
+		if (maxParallelCpuSteps < 0) {
+			maxParallelCpuSteps = DEFAULT.maxParallelCpuSteps();
+		}
+
+		if (maxParallelDiskSteps < 0) {
+			maxParallelDiskSteps = DEFAULT.maxParallelDiskSteps();
+		}
+
+		if (maxParallelNetworkSteps < 0) {
+			maxParallelNetworkSteps = DEFAULT.maxParallelNetworkSteps();
+		}
+
+		if (maxParallelGitSteps < 0) {
+			maxParallelGitSteps = DEFAULT.maxParallelGitSteps();
+		}
+
+		if (networkMirrorMode == null) {
+			networkMirrorMode = NetworkMirror.Mode.OFF;
+		}
+
+		if (networkMirrorPath == null) {
+			networkMirrorPath = "";
+		}
 	}
 
 	@Override
@@ -109,7 +169,19 @@ public record GlobalConfiguration(boolean checksumRemoveInvalidFiles,
 			),
 			Map.of(
 				"maxConcurrentHttpRequestsPerOrigin", prim(this.maxConcurrentHttpRequestsPerOrigin()),
-				"maxParallelPipelineSteps", prim(this.maxParallelPipelineSteps())
+				"maxParallelPipelineSteps", prim(this.maxParallelPipelineSteps()),
+				"fuseJarTransforms", prim(this.fuseJarTransforms()),
+				"incrementalDecompilation", prim(this.incrementalDecompilation()),
+				"exportPipelineTrace", prim(this.exportPipelineTrace()),
+				"pipelineMemoryBudget", prim(this.pipelineMemoryBudget()),
+				"maxParallelCpuSteps", prim(this.maxParallelCpuSteps()),
+				"maxParallelDiskSteps", prim(this.maxParallelDiskSteps()),
+				"maxParallelNetworkSteps", prim(this.maxParallelNetworkSteps()),
+				"maxParallelGitSteps", prim(this.maxParallelGitSteps())
+			),
+			Map.of(
+				"networkMirrorMode", prim(this.networkMirrorMode().toString().toLowerCase(Locale.ROOT)),
+				"networkMirrorPath", prim(this.networkMirrorPath())
 			)
 		);
 	}
@@ -119,7 +191,9 @@ public record GlobalConfiguration(boolean checksumRemoveInvalidFiles,
 		return List.of(
 			String.format("Remapping Threads: %s", this.remappingThreads()),
 			String.format("Decompiling Threads: %s", this.decompilingThreads()),
-			String.format("Max Concurrent Https Requests / Streams / Connections: %s / %s / %s", this.maxConcurrentHttpRequestsPerOrigin(), this.maxConcurrentHttpStreams(), this.maxConcurrentHttpConnections())
+			String.format("Max Concurrent Https Requests / Streams / Connections: %s / %s / %s", this.maxConcurrentHttpRequestsPerOrigin(), this.maxConcurrentHttpStreams(), this.maxConcurrentHttpConnections()),
+			String.format("Max Parallel CPU / Disk / Network / Git Steps: %s / %s / %s / %s", this.maxParallelCpuSteps(), this.maxParallelDiskSteps(), this.maxParallelNetworkSteps(), this.maxParallelGitSteps()),
+			String.format("Network Mirror: %s", this.networkMirrorMode() == NetworkMirror.Mode.OFF ? "off" : "%s (%s)".formatted(this.networkMirrorMode().toString().toLowerCase(Locale.ROOT), this.networkMirrorPath().isEmpty() ? "default location" : this.networkMirrorPath()))
 		);
 	}
 
@@ -136,7 +210,17 @@ public record GlobalConfiguration(boolean checksumRemoveInvalidFiles,
 			Utils.getInt(map, "maxConcurrentHttpStreams", DEFAULT.maxConcurrentHttpStreams()),
 			Utils.getInt(map, "maxConcurrentHttpConnections", DEFAULT.maxConcurrentHttpConnections()),
 			Utils.getInt(map, "maxConcurrentHttpRequestsPerOrigin", DEFAULT.maxConcurrentHttpRequestsPerOrigin()),
-			Utils.getInt(map, "maxParallelPipelineSteps", DEFAULT.maxParallelPipelineSteps())
+			Utils.getInt(map, "maxParallelPipelineSteps", DEFAULT.maxParallelPipelineSteps()),
+			Utils.getBoolean(map, "fuseJarTransforms", DEFAULT.fuseJarTransforms()),
+			Utils.getBoolean(map, "incrementalDecompilation", DEFAULT.incrementalDecompilation()),
+			Utils.getBoolean(map, "exportPipelineTrace", DEFAULT.exportPipelineTrace()),
+			Utils.getInt(map, "pipelineMemoryBudget", DEFAULT.pipelineMemoryBudget()),
+			Utils.getInt(map, "maxParallelCpuSteps", DEFAULT.maxParallelCpuSteps()),
+			Utils.getInt(map, "maxParallelDiskSteps", DEFAULT.maxParallelDiskSteps()),
+			Utils.getInt(map, "maxParallelNetworkSteps", DEFAULT.maxParallelNetworkSteps()),
+			Utils.getInt(map, "maxParallelGitSteps", DEFAULT.maxParallelGitSteps()),
+			NetworkMirror.Mode.valueOf(Utils.getString(map, "networkMirrorMode", DEFAULT.networkMirrorMode().toString()).toUpperCase(Locale.ROOT)),
+			Utils.getString(map, "networkMirrorPath", DEFAULT.networkMirrorPath())
 		);
 	}
 }
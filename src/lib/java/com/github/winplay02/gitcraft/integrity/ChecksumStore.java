@@ -0,0 +1,233 @@
+package com.github.winplay02.gitcraft.integrity;
+
+import com.github.winplay02.gitcraft.util.MiscHelper;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Persistent store of calculated checksums, so that unchanged files do not need to be hashed again after a restart.
+ * <p>
+ * The store is an append-only binary log of records, each identifying a file by its absolute path, size, last-modified timestamp and file key (inode), followed by its checksum.
+ * Later records override earlier records for the same path. A record with an empty checksum removes the entry.
+ * An incomplete record at the end of the log (e.g. caused by an interrupted process) is discarded when the store is opened,
+ * as is everything after a record that cannot be read.
+ * The log is compacted when it is opened and contains significantly more records than entries.
+ * <p>
+ * Appending is guarded by a lock and therefore safe to be used from any amount of (virtual) threads.
+ */
+final class ChecksumStore {
+	private static final int MAGIC = 0x47435331; // GCS1
+	private static final int MIN_COMPACTION_RECORDS = 1024;
+
+	/**
+	 * Identity of a file at the time its checksum was calculated.
+	 *
+	 * @param size             Size in bytes
+	 * @param lastModifiedSecs Last-modified timestamp, seconds since epoch
+	 * @param lastModifiedNano Last-modified timestamp, nanosecond adjustment
+	 * @param fileKey          File key (e.g. device and inode), or an empty string if not supported by the filesystem
+	 */
+	record FileState(long size, long lastModifiedSecs, int lastModifiedNano, String fileKey) {
+	}
+
+	/**
+	 * A persisted checksum.
+	 *
+	 * @param state     File identity the checksum belongs to
+	 * @param hashValue Checksum
+	 */
+	record Entry(FileState state, String hashValue) {
+	}
+
+	private final Path storePath;
+	private final ReentrantLock writeLock = new ReentrantLock();
+	private FileChannel channel = null;
+
+	ChecksumStore(Path storePath) {
+		this.storePath = storePath;
+	}
+
+	/**
+	 * Reads all entries of this store and (re-)opens the store for appending. Stores that cannot be read are discarded.
+	 * If a record cannot be read, the store is truncated after the last valid record.
+	 *
+	 * @return Entries, keyed by absolute path
+	 */
+	Map<String, Entry> open() {
+		Map<String, Entry> entries = new ConcurrentHashMap<>();
+		this.writeLock.lock();
+		try {
+			this.closeNoExcept();
+			long validLength = 0;
+			long records = 0;
+			if (Files.exists(this.storePath)) {
+				long storeLength = Files.size(this.storePath);
+				try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.storePath)))) {
+					if (input.readInt() != MAGIC) {
+						throw new IOException("Unknown checksum store format");
+					}
+					validLength = Integer.BYTES;
+					while (true) {
+						int recordLength;
+						byte[] record;
+						try {
+							recordLength = input.readInt();
+							if (recordLength < 0 || recordLength > storeLength - validLength - Integer.BYTES) {
+								// Incomplete trailing record or corrupted length
+								break;
+							}
+							record = new byte[recordLength];
+							input.readFully(record);
+						} catch (EOFException e) {
+							break;
+						}
+						try {
+							readRecord(new ByteArrayInputStream(record), entries);
+						} catch (IOException | RuntimeException e) {
+							MiscHelper.println("WARNING: Checksum store %s contains an unreadable record, records after it will be discarded", this.storePath);
+							break;
+						}
+						validLength += Integer.BYTES + recordLength;
+						++records;
+					}
+				} catch (IOException | RuntimeException e) {
+					MiscHelper.println("WARNING: Checksum store %s cannot be read and will be discarded", this.storePath);
+					entries.clear();
+					validLength = 0;
+					records = 0;
+				}
+			}
+			if (validLength == 0 || (records > MIN_COMPACTION_RECORDS && records > entries.size() * 2L)) {
+				this.rewrite(entries);
+			} else {
+				this.channel = FileChannel.open(this.storePath, StandardOpenOption.WRITE);
+				// Discard incomplete or unreadable trailing records
+				this.channel.truncate(validLength);
+				this.channel.position(validLength);
+			}
+		} catch (IOException e) {
+			MiscHelper.println("WARNING: Checksum store %s cannot be opened, checksums will not be persisted: %s", this.storePath, e.getMessage());
+			this.channel = null;
+		} finally {
+			this.writeLock.unlock();
+		}
+		return entries;
+	}
+
+	private void rewrite(Map<String, Entry> entries) throws IOException {
+		if (this.channel != null) {
+			this.channel.close();
+		}
+		Files.createDirectories(this.storePath.toAbsolutePath().getParent());
+		Path tmpPath = this.storePath.resolveSibling(this.storePath.getFileName().toString() + ".tmp");
+		try (FileChannel tmpChannel = FileChannel.open(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			tmpChannel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, MAGIC));
+			for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+				ByteBuffer buffer = encodeRecord(entry.getKey(), entry.getValue());
+				while (buffer.hasRemaining()) {
+					tmpChannel.write(buffer);
+				}
+			}
+		}
+		Files.move(tmpPath, this.storePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		this.channel = FileChannel.open(this.storePath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+	}
+
+	/**
+	 * Appends an entry to this store.
+	 *
+	 * @param path  Absolute path
+	 * @param entry Entry, or null to remove the entry
+	 */
+	void append(String path, Entry entry) {
+		ByteBuffer buffer = encodeRecord(path, entry);
+		this.writeLock.lock();
+		try {
+			if (this.channel == null) {
+				return;
+			}
+			while (buffer.hasRemaining()) {
+				this.channel.write(buffer);
+			}
+		} catch (IOException e) {
+			MiscHelper.println("WARNING: Checksum store %s cannot be written, checksums will no longer be persisted: %s", this.storePath, e.getMessage());
+			this.closeNoExcept();
+		} finally {
+			this.writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Removes all entries of this store.
+	 */
+	void clear() {
+		this.writeLock.lock();
+		try {
+			this.rewrite(Map.of());
+		} catch (IOException e) {
+			MiscHelper.println("WARNING: Checksum store %s cannot be cleared, checksums will no longer be persisted: %s", this.storePath, e.getMessage());
+			this.closeNoExcept();
+		} finally {
+			this.writeLock.unlock();
+		}
+	}
+
+	private void closeNoExcept() {
+		try {
+			if (this.channel != null) {
+				this.channel.close();
+			}
+		} catch (IOException ignored) {
+		}
+		this.channel = null;
+	}
+
+	private static ByteBuffer encodeRecord(String path, Entry entry) {
+		ByteArrayOutputStream record = new ByteArrayOutputStream(128);
+		try (DataOutputStream output = new DataOutputStream(record)) {
+			output.writeInt(0); // length placeholder
+			output.writeUTF(path);
+			output.writeLong(entry != null ? entry.state().size() : -1);
+			output.writeLong(entry != null ? entry.state().lastModifiedSecs() : 0);
+			output.writeInt(entry != null ? entry.state().lastModifiedNano() : 0);
+			output.writeUTF(entry != null ? entry.state().fileKey() : "");
+			output.writeUTF(entry != null ? entry.hashValue() : "");
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(record.toByteArray());
+		buffer.putInt(0, buffer.remaining() - Integer.BYTES);
+		return buffer;
+	}
+
+	private static void readRecord(InputStream record, Map<String, Entry> entries) throws IOException {
+		DataInputStream input = new DataInputStream(record);
+		String path = input.readUTF();
+		FileState state = new FileState(input.readLong(), input.readLong(), input.readInt(), input.readUTF());
+		String hashValue = input.readUTF();
+		if (input.available() > 0) {
+			throw new IOException("Trailing data in checksum record");
+		}
+		if (hashValue.isEmpty()) {
+			entries.remove(path);
+		} else {
+			entries.put(path, new Entry(state, hashValue));
+		}
+	}
+}
@@ -31,13 +31,25 @@ public class GitBlobSHA1Algorithm extends IntegrityAlgorithm {
 
 	@Override
 	protected <T> byte[] calculateChecksum(T object, BiConsumer<T, BiConsumer<byte[], Integer>> objectBytesExtractor, Function<T, Long> objectLengthExtractor) {
+		MessageDigest digest = this.createDigest(objectLengthExtractor.apply(object));
+		objectBytesExtractor.accept(object, (bytes, length) -> digest.update(bytes, 0, length));
+		return digest.digest();
+	}
+
+	/**
+	 * The length of the data is part of the blob header, which precedes the data. Data of unknown length can therefore not be hashed incrementally.
+	 */
+	@Override
+	protected MessageDigest createDigest(long length) {
+		if (length < 0) {
+			return null;
+		}
 		try {
 			MessageDigest digest = MessageDigest.getInstance("SHA1");
 			digest.update(BLOB_BYTES);
-			digest.update(String.valueOf(objectLengthExtractor.apply(object)).getBytes(StandardCharsets.US_ASCII));
+			digest.update(String.valueOf(length).getBytes(StandardCharsets.US_ASCII));
 			digest.update((byte) 0);
-			objectBytesExtractor.accept(object, (bytes, length) -> digest.update(bytes, 0, length));
-			return digest.digest();
+			return digest;
 		} catch (NoSuchAlgorithmException e) {
 			throw new RuntimeException(e);
 		}
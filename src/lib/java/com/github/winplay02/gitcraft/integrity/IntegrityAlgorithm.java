@@ -1,14 +1,22 @@
 package com.github.winplay02.gitcraft.integrity;
 
+import com.github.winplay02.gitcraft.LibraryPaths;
 import com.github.winplay02.gitcraft.config.IntegrityConfiguration;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.nio.file.FileSystems;
 import java.nio.file.Path;
-import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 
@@ -18,7 +26,9 @@ import java.util.function.Function;
  * How this value is calculated is up to the implementing algorithm.
  * <p>
  * Calculated checksums may be cached to improve performance, if allowed by the {@link IntegrityConfiguration}.
- * Cached checksums are always checked to be up to date by comparing with the last-modified timestamp of the file.
+ * Cached checksums are always checked to be up to date by comparing with the size, last-modified timestamp and file key (inode) of the file.
+ * Checksums of files on the default filesystem are additionally persisted in a {@link ChecksumStore} inside the main artifact store,
+ * so that unchanged files are not hashed again in subsequent runs.
  */
 public abstract class IntegrityAlgorithm {
 
@@ -35,10 +45,10 @@ public abstract class IntegrityAlgorithm {
 	/**
 	 * An entry for the checksum cache.
 	 *
-	 * @param hashValue    Checksum
-	 * @param lastModified Last-modified timestamp
+	 * @param hashValue Checksum
+	 * @param state     Size, last-modified timestamp and file key of the file, when the checksum was calculated
 	 */
-	private record HashValue(String hashValue, FileTime lastModified) {
+	private record HashValue(String hashValue, ChecksumStore.FileState state) {
 	}
 
 	/**
@@ -46,6 +56,16 @@ public abstract class IntegrityAlgorithm {
 	 */
 	private final ConcurrentHashMap<Path, HashValue> cachedHashes = new ConcurrentHashMap<>();
 
+	/**
+	 * Persistent checksum cache, opened on first use
+	 */
+	private volatile ChecksumStore persistentStore = null;
+
+	/**
+	 * Lock for opening the persistent checksum cache
+	 */
+	private final ReentrantLock persistentStoreLock = new ReentrantLock();
+
 	/**
 	 * Construct a new abstract integrity algorithms with a configuration.
 	 *
@@ -73,6 +93,57 @@ public abstract class IntegrityAlgorithm {
 	 */
 	protected abstract <T> byte[] calculateChecksum(T object, BiConsumer<T, BiConsumer<byte[], Integer>> objectBytesExtractor, Function<T, Long> objectLengthExtractor);
 
+	/**
+	 * Create a digest, that is fed with the data to hash incrementally.
+	 *
+	 * @param length Exact length of the data, or -1 if unknown
+	 * @return Digest, or null if the algorithm cannot hash data of the provided length incrementally
+	 */
+	protected abstract MessageDigest createDigest(long length);
+
+	/**
+	 * A checksum of data, that is fed incrementally instead of being read from a file (e.g. while the data is downloaded).
+	 */
+	public static final class StreamingChecksum {
+		private final MessageDigest digest;
+
+		private StreamingChecksum(MessageDigest digest) {
+			this.digest = digest;
+		}
+
+		/**
+		 * Feed data into the checksum. The position of the buffer is advanced to its limit.
+		 *
+		 * @param data Next block of data
+		 */
+		public void update(ByteBuffer data) {
+			this.digest.update(data);
+		}
+
+		/**
+		 * Complete the checksum. No more data may be fed afterward.
+		 *
+		 * @return Calculated checksum as a hexadecimal string
+		 */
+		public String checksum() {
+			return formatBytesHex(this.digest.digest());
+		}
+	}
+
+	/**
+	 * Create a checksum of data, that is fed incrementally.
+	 *
+	 * @param length Exact length of the data, or -1 if unknown
+	 * @return Streaming checksum, or null if checksums are not verified or the algorithm cannot hash data of the provided length incrementally
+	 */
+	public StreamingChecksum createStreamingChecksum(long length) {
+		if (!configuration.verifyChecksums()) {
+			return null;
+		}
+		MessageDigest digest = this.createDigest(length);
+		return digest != null ? new StreamingChecksum(digest) : null;
+	}
+
 	/**
 	 * Calculate the checksum of a file, which is identified by the provided path.
 	 *
@@ -99,20 +170,67 @@ public abstract class IntegrityAlgorithm {
 	}
 
 	/**
-	 * Check whether the cached checksum is up to date, by comparing it with the provided last-modified timestamp.
+	 * Check whether the cached checksum is up to date, by comparing it with the provided file attributes.
 	 *
-	 * @param path         Path of the file
-	 * @param lastModified Last-modified timestamp
-	 * @return True if the cached entry contains the same last-modified timestamp, otherwise false
+	 * @param path       Path of the file
+	 * @param attributes Current attributes of the file
+	 * @return True if the cached entry contains the same size, last-modified timestamp and file key, otherwise false
 	 */
-	protected boolean isCachedHashUpToDate(Path path, FileTime lastModified) {
-		HashValue value = cachedHashes.get(path);
+	protected boolean isCachedHashUpToDate(Path path, BasicFileAttributes attributes) {
+		HashValue value = cachedHashes.get(cacheKey(path));
 		if (value != null) {
-			return value.lastModified().equals(lastModified);
+			return value.state().equals(fileState(attributes));
 		}
 		return false;
 	}
 
+	private static ChecksumStore.FileState fileState(BasicFileAttributes attributes) {
+		Instant lastModified = attributes.lastModifiedTime().toInstant();
+		return new ChecksumStore.FileState(attributes.size(), lastModified.getEpochSecond(), lastModified.getNano(), attributes.fileKey() != null ? attributes.fileKey().toString() : "");
+	}
+
+	private static Path cacheKey(Path path) {
+		return path.toAbsolutePath().normalize();
+	}
+
+	private static boolean isPersistable(Path path) {
+		return path.getFileSystem() == FileSystems.getDefault();
+	}
+
+	/**
+	 * Opens the persistent checksum cache and loads its entries into the checksum cache, if this did not happen yet.
+	 *
+	 * @return Persistent checksum cache or null if there is none
+	 */
+	private ChecksumStore persistentStore() {
+		ChecksumStore store = this.persistentStore;
+		if (store != null || LibraryPaths.MAIN_ARTIFACT_STORE == null) {
+			return store;
+		}
+		this.persistentStoreLock.lock();
+		try {
+			if (this.persistentStore == null) {
+				store = new ChecksumStore(LibraryPaths.MAIN_ARTIFACT_STORE.resolve(String.format("checksums-%s.bin", this.getAlgorithmName().toLowerCase(Locale.ROOT))));
+				this.loadPersistentStore(store);
+				this.persistentStore = store;
+			}
+			return this.persistentStore;
+		} finally {
+			this.persistentStoreLock.unlock();
+		}
+	}
+
+	/**
+	 * (Re-)opens the persistent checksum cache and loads its entries into the checksum cache.
+	 *
+	 * @param store Persistent checksum cache
+	 */
+	private void loadPersistentStore(ChecksumStore store) {
+		for (Map.Entry<String, ChecksumStore.Entry> entry : store.open().entrySet()) {
+			this.cachedHashes.putIfAbsent(Path.of(entry.getKey()), new HashValue(entry.getValue().hashValue(), entry.getValue().state()));
+		}
+	}
+
 	/**
 	 * Get the checksum of a file by either calculating the file or looking up the file in the cache, if caching is enabled by the configuration.
 	 *
@@ -123,19 +241,54 @@ public abstract class IntegrityAlgorithm {
 		if (!configuration.verifyChecksums()) {
 			return null;
 		}
-		FileTime lastModified;
+		if (!cacheHashes) {
+			return calculateChecksumFile(path);
+		}
+		BasicFileAttributes attributes;
 		try {
-			lastModified = Files.getLastModifiedTime(path);
+			attributes = Files.readAttributes(path, BasicFileAttributes.class);
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
-		if (!cachedHashes.containsKey(path) || !cacheHashes || !isCachedHashUpToDate(path, lastModified)) {
-			String hash = calculateChecksumFile(path);
-			if (cacheHashes) {
-				cachedHashes.put(path, new HashValue(hash, lastModified));
-			}
+		Path key = cacheKey(path);
+		ChecksumStore store = isPersistable(key) ? persistentStore() : null;
+		ChecksumStore.FileState state = fileState(attributes);
+		HashValue cached = cachedHashes.get(key);
+		if (cached != null && cached.state().equals(state)) {
+			return cached.hashValue();
+		}
+		String hash = calculateChecksumFile(path);
+		cachedHashes.put(key, new HashValue(hash, state));
+		if (store != null) {
+			store.append(key.toString(), new ChecksumStore.Entry(state, hash));
+		}
+		return hash;
+	}
+
+	/**
+	 * Record the checksum of a file, that was calculated while the file was written (see {@link StreamingChecksum}),
+	 * so that it does not need to be calculated again by reading the file, if caching is enabled by the configuration.
+	 *
+	 * @param path     Path of the file
+	 * @param checksum Checksum of the current contents of the file as a hexadecimal string
+	 */
+	public void recordChecksumFile(Path path, String checksum) {
+		if (!configuration.verifyChecksums() || !cacheHashes) {
+			return;
+		}
+		BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		Path key = cacheKey(path);
+		ChecksumStore store = isPersistable(key) ? persistentStore() : null;
+		ChecksumStore.FileState state = fileState(attributes);
+		cachedHashes.put(key, new HashValue(checksum, state));
+		if (store != null) {
+			store.append(key.toString(), new ChecksumStore.Entry(state, checksum));
 		}
-		return cachedHashes.get(path).hashValue();
 	}
 
 	/**
@@ -150,16 +303,29 @@ public abstract class IntegrityAlgorithm {
 	}
 
 	/**
-	 * Enable or disable the checksum cache.
+	 * Enable or disable the checksum cache. Disabling the cache drops the cached checksums held in memory,
+	 * the persistent checksum cache is kept (see {@link #flushCache()} to remove it as well).
+	 * Enabling the cache again reloads the checksums from the persistent checksum cache.
 	 *
 	 * @param enabled True to enable the cache, false to disable the cache
 	 */
 	public void setCacheState(boolean enabled) {
-		if (this.cacheHashes != enabled) {
-			this.cacheHashes = enabled;
+		if (!enabled) {
+			this.cacheHashes = false;
+			cachedHashes.clear();
+			return;
+		}
+		if (this.cacheHashes) {
+			return;
 		}
-		if (!this.cacheHashes) {
-			this.flushCache();
+		this.persistentStoreLock.lock();
+		try {
+			if (this.persistentStore != null) {
+				this.loadPersistentStore(this.persistentStore);
+			}
+			this.cacheHashes = true;
+		} finally {
+			this.persistentStoreLock.unlock();
 		}
 	}
 
@@ -169,14 +335,20 @@ public abstract class IntegrityAlgorithm {
 	 * @param path Path of entry to invalidate
 	 */
 	public void invalidateFile(Path path) {
-		cachedHashes.remove(path);
+		Path key = cacheKey(path);
+		if (cachedHashes.remove(key) != null && isPersistable(key) && this.persistentStore != null) {
+			this.persistentStore.append(key.toString(), null);
+		}
 	}
 
 	/**
-	 * Flush the entire checksum cache.
+	 * Flush the entire checksum cache, including the persistent checksum cache.
 	 */
 	public void flushCache() {
 		cachedHashes.clear();
+		if (this.persistentStore != null) {
+			this.persistentStore.clear();
+		}
 	}
 
 	/// Integrity Checking Utility Functions
@@ -28,10 +28,15 @@ public class SHA1Algorithm extends IntegrityAlgorithm {
 
 	@Override
 	protected <T> byte[] calculateChecksum(T object, BiConsumer<T, BiConsumer<byte[], Integer>> objectBytesExtractor, Function<T, Long> objectLengthExtractor) {
+		MessageDigest digest = this.createDigest(-1);
+		objectBytesExtractor.accept(object, (bytes, length) -> digest.update(bytes, 0, length));
+		return digest.digest();
+	}
+
+	@Override
+	protected MessageDigest createDigest(long length) {
 		try {
-			MessageDigest digest = MessageDigest.getInstance("SHA1");
-			objectBytesExtractor.accept(object, (bytes, length) -> digest.update(bytes, 0, length));
-			return digest.digest();
+			return MessageDigest.getInstance("SHA1");
 		} catch (NoSuchAlgorithmException e) {
 			throw new RuntimeException(e);
 		}
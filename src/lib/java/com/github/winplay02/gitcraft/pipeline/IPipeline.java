@@ -1,6 +1,7 @@
 package com.github.winplay02.gitcraft.pipeline;
 
 import com.github.winplay02.gitcraft.Library;
+import com.github.winplay02.gitcraft.LibraryPaths;
 import com.github.winplay02.gitcraft.graph.AbstractVersion;
 import com.github.winplay02.gitcraft.graph.AbstractVersionGraph;
 import com.github.winplay02.gitcraft.pipeline.key.StorageKey;
@@ -8,13 +9,17 @@ import com.github.winplay02.gitcraft.util.MiscHelper;
 import com.github.winplay02.gitcraft.util.RepoWrapper;
 import com.github.winplay02.gitcraft.util.Tuple2;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 public final class IPipeline<T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig> {
 
@@ -23,6 +28,12 @@ public final class IPipeline<T extends AbstractVersion<T>, C extends IStepContex
 	private final Map<Tuple2<StorageKey, T>, Tuple2<T, D>> overriddenPaths = new ConcurrentHashMap<>();
 	private final Map<T, StepResults<T, C, D>> versionedResults = new ConcurrentHashMap<>();
 	private Semaphore threadLimiter = null;
+	private Map<ResourceClass, Semaphore> resourceLimiters = Map.of();
+	private PipelineMetrics<T, C, D> metrics = null;
+	private MemoryBudget memoryBudget = null;
+	private StepDurationHistory durationHistory = null;
+	// running steps by ordinal of their resource class
+	private final AtomicIntegerArray runningSteps = new AtomicIntegerArray(ResourceClass.values().length);
 
 	public IPipeline(PipelineDescription<T, C, D> pipelineDescription, PipelineFilesystemStorage<T, C, D> pipelineFilesystemStorage) {
 		this.pipelineDescription = pipelineDescription;
@@ -51,10 +62,61 @@ public final class IPipeline<T extends AbstractVersion<T>, C extends IStepContex
 		this.overriddenPaths.put(Tuple2.tuple(key, context.targetVersion()), Tuple2.tuple(version, config));
 	}
 
+	/**
+	 * @param key         Key of the result
+	 * @param context     Context
+	 * @param config      Config
+	 * @param fingerprint Fingerprint of the current inputs of the result
+	 * @return Whether the result exists and was produced from inputs with the same fingerprint
+	 */
+	public final boolean isResultUpToDate(StorageKey key, C context, D config, StepFingerprint fingerprint) throws IOException {
+		return StepFingerprint.isUpToDate(this.getStoragePath(key, context, config), fingerprint);
+	}
+
+	/**
+	 * Invalidates the stored fingerprint of a result, which should be called before the result is (re-)produced.
+	 */
+	public final void beginResult(StorageKey key, C context, D config) throws IOException {
+		StepFingerprint.markPending(this.getStoragePath(key, context, config));
+	}
+
+	/**
+	 * Stores the fingerprint of a result, after it has been produced successfully.
+	 */
+	public final void completeResult(StorageKey key, C context, D config, StepFingerprint fingerprint) throws IOException {
+		StepFingerprint.store(this.getStoragePath(key, context, config), fingerprint);
+	}
+
 	public Semaphore threadLimiter() {
 		return threadLimiter;
 	}
 
+	/**
+	 * @return Limiter of concurrently executing steps of the provided resource class, or null if unlimited
+	 */
+	public Semaphore resourceLimiter(ResourceClass resourceClass) {
+		return this.resourceLimiters.get(resourceClass);
+	}
+
+	public MemoryBudget memoryBudget() {
+		return this.memoryBudget;
+	}
+
+	/**
+	 * Splits the configured remapping threads evenly between the CPU-bound steps that are currently running.
+	 * Steps that parallelize their own work should not use more threads than this, a step that runs alone gets all of them.
+	 *
+	 * @return Threads for the parallel work of the calling CPU-bound step
+	 */
+	public int threadsPerCpuStep() {
+		int runningCpuSteps = Math.max(1, this.runningSteps.get(ResourceClass.CPU.ordinal()));
+		return Math.max(1, Library.CONF_GLOBAL.remappingThreads() / runningCpuSteps);
+	}
+
+	PipelineMetrics<T, C, D> metrics() {
+		return this.metrics;
+	}
+
 	protected record TupleVersionStep<T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig>(IStep<T, ?, C, D> step, T version) {
 	}
 
@@ -65,18 +127,29 @@ public final class IPipeline<T extends AbstractVersion<T>, C extends IStepContex
 
 		StepOutput<T, C, D> status = null;
 		Exception exception = null;
+		StepInput input = null;
 
+		PipelineMetrics.StepExecutionEvent executionEvent = PipelineMetrics.beginExecution();
 		long timeStart = System.nanoTime();
 
 		try {
 			IStepWorker<T, ?, C, D> worker = versionStep.step().createWorker(config);
 			if (worker.shouldExecute(this, context)) {
-				status = worker.runGeneric(
-					this,
-					context,
-					this.getDescription().stepInputMap().get(versionStep.step()).apply(this.getFilesystemStorage(), results),
-					results
-				);
+				input = this.getDescription().stepInputMap().get(versionStep.step()).apply(this.getFilesystemStorage(), results);
+				long heapEstimate = this.memoryBudget != null ? worker.estimateHeapUsageGeneric(this, context, input) : 0L;
+				try (MemoryBudget.Grant ignored = heapEstimate > 0 ? this.acquireMemory(versionStep, heapEstimate) : null) {
+					this.runningSteps.incrementAndGet(versionStep.step().getResourceClass().ordinal());
+					try {
+						status = worker.runGeneric(
+							this,
+							context,
+							input,
+							results
+						);
+					} finally {
+						this.runningSteps.decrementAndGet(versionStep.step().getResourceClass().ordinal());
+					}
+				}
 				if (status.results() != results) {
 					results.addAll(status.results());
 				}
@@ -89,6 +162,22 @@ public final class IPipeline<T extends AbstractVersion<T>, C extends IStepContex
 		}
 
 		long timeEnd = System.nanoTime();
+		if (this.durationHistory != null && status.status() == StepStatus.SUCCESS) {
+			this.durationHistory.record(versionStep.step(), Duration.ofNanos(timeEnd - timeStart).toMillis());
+		}
+		if (this.metrics != null) {
+			Map<StorageKey, Path> inputPaths = new HashMap<>();
+			Map<StorageKey, Path> outputPaths = new HashMap<>();
+			if (input != null) {
+				for (StorageKey key : PipelineMetrics.inputKeys(input)) {
+					inputPaths.put(key, this.getStoragePath(key, context, config));
+				}
+			}
+			for (StorageKey key : status.results().result()) {
+				outputPaths.put(key, this.getStoragePath(key, context, config));
+			}
+			this.metrics.taskExecuted(versionStep, executionEvent, timeStart, timeEnd, status.status(), inputPaths, outputPaths);
+		}
 		long delta = timeEnd - timeStart;
 		Duration deltaDuration = Duration.ofNanos(delta);
 		String timeInfo = String.format("elapsed: %dm %02ds", deltaDuration.toMinutes(), deltaDuration.toSecondsPart());
@@ -117,14 +206,53 @@ public final class IPipeline<T extends AbstractVersion<T>, C extends IStepContex
 		}
 	}
 
+	private MemoryBudget.Grant acquireMemory(TupleVersionStep<T, C, D> versionStep, long heapEstimate) throws InterruptedException {
+		PipelineMetrics<T, C, D>.Wait wait = this.metrics != null ? this.metrics.beginWait(versionStep, PipelineMetrics.WAIT_MEMORY_BUDGET) : null;
+		try {
+			return this.memoryBudget.acquire(heapEstimate);
+		} finally {
+			if (wait != null) {
+				wait.end();
+			}
+		}
+	}
+
+	private static int maxParallelSteps(ResourceClass resourceClass) {
+		return switch (resourceClass) {
+			case CPU -> Library.CONF_GLOBAL.maxParallelCpuSteps();
+			case DISK_IO -> Library.CONF_GLOBAL.maxParallelDiskSteps();
+			case NETWORK -> Library.CONF_GLOBAL.maxParallelNetworkSteps();
+			case GIT -> Library.CONF_GLOBAL.maxParallelGitSteps();
+		};
+	}
+
 	public void runFully(RepoWrapper repository, AbstractVersionGraph<T> versionGraph) {
-		InFlightExecutionPlan<T, C, D> executionPlan = InFlightExecutionPlan.create(this.getDescription(), versionGraph);
+		this.durationHistory = StepDurationHistory.load(LibraryPaths.STEP_DURATIONS);
+		InFlightExecutionPlan<T, C, D> executionPlan = InFlightExecutionPlan.create(this.getDescription(), versionGraph, this.durationHistory);
+		this.metrics = new PipelineMetrics<>(this.getDescription().descriptionName());
+		this.memoryBudget = MemoryBudget.of(Library.CONF_GLOBAL.pipelineMemoryBudget());
 		try (ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Pipeline-Executor-" + this.getDescription().descriptionName()).factory())) {
 			if (Library.CONF_GLOBAL.maxParallelPipelineSteps() > 0) {
 				this.threadLimiter = new Semaphore(Library.CONF_GLOBAL.maxParallelPipelineSteps());
 			}
+			Map<ResourceClass, Semaphore> resourceLimiters = new EnumMap<>(ResourceClass.class);
+			for (ResourceClass resourceClass : ResourceClass.values()) {
+				int limit = maxParallelSteps(resourceClass);
+				if (limit > 0) {
+					resourceLimiters.put(resourceClass, new Semaphore(limit));
+				}
+			}
+			this.resourceLimiters = resourceLimiters;
 			executionPlan.run(executor, this, repository, versionGraph);
 		}
+		this.durationHistory.save();
+		if (Library.CONF_GLOBAL.exportPipelineTrace()) {
+			try {
+				MiscHelper.println("Pipeline trace written to %s", this.metrics.exportTrace(LibraryPaths.TRACES_DIR));
+			} catch (IOException e) {
+				MiscHelper.println("WARNING: Pipeline trace cannot be written: %s", e.getMessage());
+			}
+		}
 		if (!executionPlan.failedTasks().isEmpty()) {
 			executionPlan.failedTasks().forEach((key, value) -> {
 				MiscHelper.println("Step %s for version %s failed: %s", key.step().getName(), key.version().friendlyVersion(), value);
@@ -8,5 +8,9 @@ public interface IStep<T extends AbstractVersion<T>, S extends StepInput, C exte
 
 	ParallelismPolicy getParallelismPolicy();
 
+	default ResourceClass getResourceClass() {
+		return ResourceClass.CPU;
+	}
+
 	IStepWorker<T, S, C, D> createWorker(D config);
 }
@@ -13,6 +13,22 @@ public interface IStepWorker<T extends AbstractVersion<T>, S extends StepInput,
 		return this.run(pipeline, context, castInput, results);
 	}
 
+	/**
+	 * Estimates the peak heap usage of running this worker. Executions with an estimate are only admitted while the estimates
+	 * of all running executions fit the {@link MemoryBudget} of the pipeline.
+	 *
+	 * @return Estimated heap usage in bytes, or 0 if the worker does not need to be accounted for
+	 */
+	default long estimateHeapUsage(IPipeline<T, C, D> pipeline, C context, S input) throws Exception {
+		return 0L;
+	}
+
+	default long estimateHeapUsageGeneric(IPipeline<T, C, D> pipeline, C context, StepInput input) throws Exception {
+		@SuppressWarnings("unchecked")
+		S castInput = (S) input;
+		return this.estimateHeapUsage(pipeline, context, castInput);
+	}
+
 	default boolean shouldExecute(IPipeline<T, C, D> pipeline, C context) {
 		return true;
 	}
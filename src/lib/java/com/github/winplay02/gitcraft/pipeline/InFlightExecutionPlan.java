@@ -9,7 +9,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.function.Predicate;
+import java.util.concurrent.Semaphore;
 
 public record InFlightExecutionPlan<T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig>(PipelineExecutionGraph<T, C, D> executionGraph,
 																			Set<IPipeline.TupleVersionStep<T, C, D>> completedSubset,
@@ -18,11 +18,13 @@ public record InFlightExecutionPlan<T extends AbstractVersion<T>, C extends ISte
 																			Map<IPipeline.TupleVersionStep<T, C, D>, Exception> failedTasks,
 																			Map<T, C> versionedContexts,
 																			Map<T, D> versionedConfigs,
+																			PipelineExecutionScheduler<T, C, D> scheduler,
 																			Object executionLock,
 																			Object conditionalVar) {
 
-	public static <T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig> InFlightExecutionPlan<T, C, D> create(PipelineDescription<T, C, D> description, AbstractVersionGraph<T> versionGraph) {
-		return new InFlightExecutionPlan<>(PipelineExecutionGraph.populate(description, versionGraph), ConcurrentHashMap.newKeySet(), ConcurrentHashMap.newKeySet(), ConcurrentHashMap.newKeySet(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new Object(), new Object());
+	public static <T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig> InFlightExecutionPlan<T, C, D> create(PipelineDescription<T, C, D> description, AbstractVersionGraph<T> versionGraph, StepDurationHistory durationHistory) {
+		PipelineExecutionGraph<T, C, D> executionGraph = PipelineExecutionGraph.populate(description, versionGraph);
+		return new InFlightExecutionPlan<>(executionGraph, ConcurrentHashMap.newKeySet(), ConcurrentHashMap.newKeySet(), ConcurrentHashMap.newKeySet(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new PipelineExecutionScheduler<>(executionGraph, durationHistory::estimate), new Object(), new Object());
 	}
 
 	private void runSingleTask(ExecutorService executor, IPipeline.TupleVersionStep<T, C, D> task, IPipeline<T, C, D> pipeline, RepoWrapper repository, AbstractVersionGraph<T> versionGraph) {
@@ -30,22 +32,15 @@ public record InFlightExecutionPlan<T extends AbstractVersion<T>, C extends ISte
 			return;
 		}
 
+		PipelineMetrics<T, C, D> metrics = pipeline.metrics();
+		if (metrics != null) {
+			metrics.taskQueued(task);
+		}
 		executor.execute(() -> {
-			synchronized (executionLock) {
-				if (executingSubset.contains(task) || completedSubset.contains(task)) {
-					return;
-				}
-				if (task.step().getParallelismPolicy().isRestrictedToSequential() && activeSteps.contains(task.step())) {
-					return;
-				}
-
-				activeSteps.add(task.step());
-				executingSubset.add(task);
-			}
-
-			if (pipeline.threadLimiter() != null) {
-				pipeline.threadLimiter().acquireUninterruptibly();
-			}
+			// the pool of the resource class is acquired first, so that waiting steps don't block the thread limiter for other resource classes
+			Semaphore resourceLimiter = pipeline.resourceLimiter(task.step().getResourceClass());
+			acquire(resourceLimiter, metrics, task, PipelineMetrics.WAIT_RESOURCE_LIMITER_PREFIX + task.step().getResourceClass());
+			acquire(pipeline.threadLimiter(), metrics, task, PipelineMetrics.WAIT_THREAD_LIMITER);
 
 			C context = this.versionedContexts().computeIfAbsent(task.version(), ctxVersion -> pipeline.getDescription().contextCreator().getContext(ctxVersion, repository, versionGraph, executor));
 			D config = this.versionedConfigs().computeIfAbsent(task.version(), pipeline.getDescription().configCreator());
@@ -57,9 +52,6 @@ public record InFlightExecutionPlan<T extends AbstractVersion<T>, C extends ISte
 				} else {
 					MiscHelper.println("Skipping step '%s' for %s (%s)...", task.step().getName(), context, config);
 				}
-				executingSubset.remove(task);
-				completedSubset.add(task);
-				activeSteps.remove(task.step());
 			} catch (Exception e) {
 				storedException = e;
 				MiscHelper.println("Step '%s' for %s (%s) failed: %s", task.step().getName(), context, config, e);
@@ -68,13 +60,21 @@ public record InFlightExecutionPlan<T extends AbstractVersion<T>, C extends ISte
 			if (pipeline.threadLimiter() != null) {
 				pipeline.threadLimiter().release();
 			}
+			if (resourceLimiter != null) {
+				resourceLimiter.release();
+			}
 
+			PipelineMetrics<T, C, D>.Wait lockWait = metrics != null ? metrics.beginWait(task, PipelineMetrics.WAIT_EXECUTION_LOCK) : null;
 			synchronized (executionLock) {
+				if (lockWait != null) {
+					lockWait.end();
+				}
 				if (storedException == null) {
 					// success :)
 					executingSubset.remove(task);
 					activeSteps.remove(task.step());
 					completedSubset.add(task);
+					scheduler.complete(task);
 				} else {
 					// failure :(
 					failedTasks.put(task, storedException);
@@ -91,15 +91,31 @@ public record InFlightExecutionPlan<T extends AbstractVersion<T>, C extends ISte
 		});
 	}
 
+	private static <T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig> void acquire(Semaphore limiter, PipelineMetrics<T, C, D> metrics, IPipeline.TupleVersionStep<T, C, D> task, String resource) {
+		if (limiter == null) {
+			return;
+		}
+		PipelineMetrics<T, C, D>.Wait wait = metrics != null ? metrics.beginWait(task, resource) : null;
+		limiter.acquireUninterruptibly();
+		if (wait != null) {
+			wait.end();
+		}
+	}
+
+	// Needs to be called while holding the execution lock
 	private void scanForTasks(ExecutorService executor, IPipeline<T, C, D> pipeline, RepoWrapper repository, AbstractVersionGraph<T> versionGraph) {
-		// These are approximations of the set of tasks to execute; they should be equal or greater than the actual set; duplicate tasks get discarded later
-		for (IPipeline.TupleVersionStep<T, C, D> task : this.executionGraph.nextTuples(this.completedSubset)) {
+		IPipeline.TupleVersionStep<T, C, D> task;
+		while (!executor.isShutdown() && (task = this.scheduler.poll(this.activeSteps)) != null) {
+			activeSteps.add(task.step());
+			executingSubset.add(task);
 			this.runSingleTask(executor, task, pipeline, repository, versionGraph);
 		}
 	}
 
 	public void run(ExecutorService executor, IPipeline<T, C, D> pipeline, RepoWrapper repository, AbstractVersionGraph<T> versionGraph) {
-		scanForTasks(executor, pipeline, repository, versionGraph);
+		synchronized (executionLock) {
+			scanForTasks(executor, pipeline, repository, versionGraph);
+		}
 		await();
 	}
 
@@ -0,0 +1,96 @@
+package com.github.winplay02.gitcraft.pipeline;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Heap budget of a pipeline run, shared by all steps that declare an estimated heap usage (see {@link IStepWorker#estimateHeapUsage}).
+ * <p>
+ * Executions are admitted in order of arrival, as long as the sum of the estimates of all admitted executions fits the budget.
+ * An estimate that exceeds the whole budget is clamped to the budget, such an execution is therefore run exclusively.
+ */
+public final class MemoryBudget {
+	private final long capacity;
+	private long available;
+	private int admitted = 0;
+	private final Queue<Object> waiting = new ArrayDeque<>();
+
+	public MemoryBudget(long capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Memory budget needs to be positive");
+		}
+		this.capacity = capacity;
+		this.available = capacity;
+	}
+
+	/**
+	 * @param budgetMegabytes Configured budget in MiB, or 0 to derive the budget from the max heap size
+	 * @return Memory budget
+	 */
+	public static MemoryBudget of(int budgetMegabytes) {
+		if (budgetMegabytes > 0) {
+			return new MemoryBudget(budgetMegabytes * 1024L * 1024L);
+		}
+		// leave some headroom for everything that is not accounted for (caches, steps without estimate)
+		return new MemoryBudget(Math.max(1L, Runtime.getRuntime().maxMemory() / 4 * 3));
+	}
+
+	/**
+	 * @return Capacity of this budget in bytes
+	 */
+	public long capacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * @return Number of executions that are currently admitted, i.e. whose grants were not closed yet
+	 */
+	public synchronized int admittedExecutions() {
+		return this.admitted;
+	}
+
+	/**
+	 * Admitted share of a budget, which needs to be closed once the execution completed.
+	 *
+	 * @param bytes Reserved bytes
+	 */
+	public record Grant(MemoryBudget budget, long bytes) implements AutoCloseable {
+		@Override
+		public void close() {
+			this.budget.release(this.bytes);
+		}
+	}
+
+	/**
+	 * Blocks until the requested amount fits the budget, and all earlier requests were admitted.
+	 *
+	 * @param bytes Estimated heap usage in bytes
+	 * @return Grant
+	 */
+	public synchronized Grant acquire(long bytes) throws InterruptedException {
+		long reserved = Math.min(Math.max(bytes, 0L), this.capacity);
+		Object ticket = new Object();
+		this.waiting.add(ticket);
+		try {
+			while (this.waiting.peek() != ticket || this.available < reserved) {
+				this.wait();
+			}
+		} catch (InterruptedException e) {
+			this.waiting.remove(ticket);
+			this.notifyAll();
+			throw e;
+		}
+		this.waiting.remove();
+		this.available -= reserved;
+		this.admitted += 1;
+		// the next request may fit as well
+		this.notifyAll();
+		return new Grant(this, reserved);
+	}
+
+	private synchronized void release(long bytes) {
+		this.available += bytes;
+		this.admitted -= 1;
+		this.notifyAll();
+	}
+}
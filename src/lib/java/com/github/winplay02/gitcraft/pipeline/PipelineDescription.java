@@ -49,8 +49,11 @@ public record PipelineDescription<T extends AbstractVersion<T>, C extends IStepC
 		return this.stepDependencies.getOrDefault(step, StepDependencies.empty()).dependencyTypes().keySet();
 	}
 
+	/**
+	 * Conditional inter-version dependencies are evaluated on every call, this should only be called while building an execution graph.
+	 */
 	public Set<IStep<T, ?, C, D>> getInterVersionDependencies(IStep<T, ?, C, D> step) {
-		return this.stepDependencies.getOrDefault(step, StepDependencies.empty()).interVersionDependency();
+		return this.stepDependencies.getOrDefault(step, StepDependencies.empty()).activeInterVersionDependencies();
 	}
 
 	public Set<IStep<T, ?, C, D>> getDependenciesOfRequirement(IStep<T, ?, C, D> step, DependencyRelation type) {
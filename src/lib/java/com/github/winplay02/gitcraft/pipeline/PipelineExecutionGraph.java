@@ -9,10 +9,9 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 public record PipelineExecutionGraph<T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig>
-	(Set<IPipeline.TupleVersionStep<T, C, D>> stepVersionSubsetVertices, Map<IPipeline.TupleVersionStep<T, C, D>, Set<IPipeline.TupleVersionStep<T, C, D>>> stepVersionSubsetEdges) {
+	(Set<IPipeline.TupleVersionStep<T, C, D>> stepVersionSubsetVertices, Map<IPipeline.TupleVersionStep<T, C, D>, Set<IPipeline.TupleVersionStep<T, C, D>>> stepVersionSubsetEdges, Map<IPipeline.TupleVersionStep<T, C, D>, Set<IPipeline.TupleVersionStep<T, C, D>>> stepVersionSubsetDependents) {
 
 	public static <T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig> PipelineExecutionGraph<T, C, D> populate(PipelineDescription<T, C, D> description, AbstractVersionGraph<T> versionGraph) {
 		Set<IPipeline.TupleVersionStep<T, C, D>> stepVersionSubsetVertices = new HashSet<>();
@@ -33,17 +32,43 @@ public record PipelineExecutionGraph<T extends AbstractVersion<T>, C extends ISt
 				// Intra-Version dependency
 				for (IStep<T, ?, C, D> intraVersionDependencyStep : description.getIntraVersionDependencies(step)) {
 					DependencyRelation depType = description.getDependencyType(step, intraVersionDependencyStep);
+					// optional dependencies only need to run first, if they are part of the pipeline
+					if (depType == DependencyRelation.NOT_REQUIRED && !description.steps().contains(intraVersionDependencyStep)) {
+						continue;
+					}
 					if (depType != null && depType.isDependency()) {
 						stepVersionSubsetEdges.get(node).add(new IPipeline.TupleVersionStep<>(intraVersionDependencyStep, version));
 					}
 				}
 			}
 		}
-		// TODO validate execution graph
-		return new PipelineExecutionGraph<>(Collections.unmodifiableSet(stepVersionSubsetVertices), Collections.unmodifiableMap(stepVersionSubsetEdges));
+		// directed: (source, target)
+		Map<IPipeline.TupleVersionStep<T, C, D>, Set<IPipeline.TupleVersionStep<T, C, D>>> stepVersionSubsetDependents = new HashMap<>();
+		for (Map.Entry<IPipeline.TupleVersionStep<T, C, D>, Set<IPipeline.TupleVersionStep<T, C, D>>> entry : stepVersionSubsetEdges.entrySet()) {
+			for (IPipeline.TupleVersionStep<T, C, D> dependency : entry.getValue()) {
+				// any other dependency on a step that is not part of the pipeline would never complete, the pipeline would wait forever
+				if (!stepVersionSubsetVertices.contains(dependency)) {
+					MiscHelper.panic("Step '%s' depends on step '%s', which is not part of pipeline '%s'", entry.getKey().step().getName(), dependency.step().getName(), description.descriptionName());
+				}
+				stepVersionSubsetDependents.computeIfAbsent(dependency, __ -> new HashSet<>()).add(entry.getKey());
+			}
+		}
+		return new PipelineExecutionGraph<>(Collections.unmodifiableSet(stepVersionSubsetVertices), Collections.unmodifiableMap(stepVersionSubsetEdges), Collections.unmodifiableMap(stepVersionSubsetDependents));
+	}
+
+	/**
+	 * @param node Node of this graph
+	 * @return Amount of dependencies of the provided node, which need to complete before the node can be executed
+	 */
+	protected int countDependencies(IPipeline.TupleVersionStep<T, C, D> node) {
+		return this.stepVersionSubsetEdges.getOrDefault(node, Set.of()).size();
 	}
 
-	protected Set<IPipeline.TupleVersionStep<T, C, D>> nextTuples(Set<IPipeline.TupleVersionStep<T, C, D>> completedSubset) {
-		return stepVersionSubsetEdges.entrySet().stream().filter(entry -> !completedSubset.contains(entry.getKey())).filter(entry -> MiscHelper.calculateAsymmetricSetDifference(entry.getValue(), completedSubset).isEmpty()).map(java.util.Map.Entry::getKey).collect(Collectors.toUnmodifiableSet());
+	/**
+	 * @param node Node of this graph
+	 * @return Nodes directly depending on the provided node
+	 */
+	protected Set<IPipeline.TupleVersionStep<T, C, D>> getDependents(IPipeline.TupleVersionStep<T, C, D> node) {
+		return this.stepVersionSubsetDependents.getOrDefault(node, Set.of());
 	}
 }
@@ -0,0 +1,130 @@
+package com.github.winplay02.gitcraft.pipeline;
+
+import com.github.winplay02.gitcraft.graph.AbstractVersion;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+/**
+ * Incremental scheduler for a {@link PipelineExecutionGraph}.
+ * <p>
+ * Every node keeps a counter of its dependencies that have not yet completed. Once the last dependency of a node completes,
+ * the node is pushed onto a ready queue. Completing a node therefore only touches its direct dependents, instead of re-evaluating the whole graph.
+ * <p>
+ * Ready nodes are dispatched in order of their remaining critical path, which is the longest (by expected duration) path from the node
+ * to the end of the graph, including the node itself. This way, long chains (e.g. sequential commits of all versions) are started as early as possible.
+ * <p>
+ * Nodes of steps that are {@link ParallelismPolicy#isRestrictedToSequential() restricted to sequential execution} are held back
+ * while another node of the same step is active, and are released once that step is no longer active.
+ * <p>
+ * This class is not thread-safe, callers need to synchronize access (e.g. by using the execution lock of an {@link InFlightExecutionPlan}).
+ */
+public final class PipelineExecutionScheduler<T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig> {
+	private final PipelineExecutionGraph<T, C, D> executionGraph;
+	private final Map<IPipeline.TupleVersionStep<T, C, D>, Integer> pendingDependencies = new HashMap<>();
+	private final Map<IPipeline.TupleVersionStep<T, C, D>, Long> criticalPaths;
+	private final Queue<IPipeline.TupleVersionStep<T, C, D>> readyQueue;
+	private final Map<IStep<T, ?, C, D>, Queue<IPipeline.TupleVersionStep<T, C, D>>> heldBackTasks = new HashMap<>();
+
+	public PipelineExecutionScheduler(PipelineExecutionGraph<T, C, D> executionGraph) {
+		this(executionGraph, step -> 1L);
+	}
+
+	/**
+	 * @param executionGraph Execution graph
+	 * @param stepDuration   Expected duration of a step, used to prioritize ready nodes
+	 */
+	public PipelineExecutionScheduler(PipelineExecutionGraph<T, C, D> executionGraph, ToLongFunction<IStep<T, ?, C, D>> stepDuration) {
+		this.executionGraph = executionGraph;
+		this.criticalPaths = calculateCriticalPaths(executionGraph, stepDuration);
+		this.readyQueue = new PriorityQueue<>(Comparator.comparingLong((IPipeline.TupleVersionStep<T, C, D> node) -> this.criticalPaths.getOrDefault(node, 0L)).reversed());
+		for (IPipeline.TupleVersionStep<T, C, D> node : executionGraph.stepVersionSubsetVertices()) {
+			int dependencies = executionGraph.countDependencies(node);
+			if (dependencies == 0) {
+				this.readyQueue.add(node);
+			} else {
+				this.pendingDependencies.put(node, dependencies);
+			}
+		}
+	}
+
+	private static <T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig> Map<IPipeline.TupleVersionStep<T, C, D>, Long> calculateCriticalPaths(PipelineExecutionGraph<T, C, D> executionGraph, ToLongFunction<IStep<T, ?, C, D>> stepDuration) {
+		// topological order (Kahn), iterative to not overflow the stack on long version chains
+		Map<IPipeline.TupleVersionStep<T, C, D>, Integer> remainingDependencies = new HashMap<>();
+		Queue<IPipeline.TupleVersionStep<T, C, D>> queue = new ArrayDeque<>();
+		for (IPipeline.TupleVersionStep<T, C, D> node : executionGraph.stepVersionSubsetVertices()) {
+			int dependencies = executionGraph.countDependencies(node);
+			remainingDependencies.put(node, dependencies);
+			if (dependencies == 0) {
+				queue.add(node);
+			}
+		}
+		List<IPipeline.TupleVersionStep<T, C, D>> order = new ArrayList<>(executionGraph.stepVersionSubsetVertices().size());
+		IPipeline.TupleVersionStep<T, C, D> node;
+		while ((node = queue.poll()) != null) {
+			order.add(node);
+			for (IPipeline.TupleVersionStep<T, C, D> dependent : executionGraph.getDependents(node)) {
+				if (remainingDependencies.merge(dependent, -1, Integer::sum) == 0) {
+					queue.add(dependent);
+				}
+			}
+		}
+		// dependents are always evaluated before their dependencies, when walking the topological order backwards
+		Map<IPipeline.TupleVersionStep<T, C, D>, Long> criticalPaths = new HashMap<>();
+		for (int i = order.size() - 1; i >= 0; --i) {
+			IPipeline.TupleVersionStep<T, C, D> current = order.get(i);
+			long longestDependentPath = 0L;
+			for (IPipeline.TupleVersionStep<T, C, D> dependent : executionGraph.getDependents(current)) {
+				longestDependentPath = Math.max(longestDependentPath, criticalPaths.getOrDefault(dependent, 0L));
+			}
+			criticalPaths.put(current, stepDuration.applyAsLong(current.step()) + longestDependentPath);
+		}
+		return criticalPaths;
+	}
+
+	/**
+	 * Retrieves the next task that is allowed to be dispatched.
+	 *
+	 * @param activeSteps Steps that are currently executing
+	 * @return Next task or null, if no task can be dispatched at the moment
+	 */
+	public IPipeline.TupleVersionStep<T, C, D> poll(Set<IStep<T, ?, C, D>> activeSteps) {
+		IPipeline.TupleVersionStep<T, C, D> task;
+		while ((task = this.readyQueue.poll()) != null) {
+			if (task.step().getParallelismPolicy().isRestrictedToSequential() && activeSteps.contains(task.step())) {
+				this.heldBackTasks.computeIfAbsent(task.step(), __ -> new ArrayDeque<>()).add(task);
+				continue;
+			}
+			return task;
+		}
+		return null;
+	}
+
+	/**
+	 * Marks a task as completed, which makes dependents with no other outstanding dependencies ready.
+	 * Tasks that were held back, as they belong to the same sequential step, are made ready again.
+	 *
+	 * @param task Completed task
+	 */
+	public void complete(IPipeline.TupleVersionStep<T, C, D> task) {
+		Queue<IPipeline.TupleVersionStep<T, C, D>> heldBack = this.heldBackTasks.remove(task.step());
+		if (heldBack != null) {
+			this.readyQueue.addAll(heldBack);
+		}
+		for (IPipeline.TupleVersionStep<T, C, D> dependent : this.executionGraph.getDependents(task)) {
+			Integer remaining = this.pendingDependencies.computeIfPresent(dependent, (__, count) -> count - 1);
+			if (remaining != null && remaining == 0) {
+				this.pendingDependencies.remove(dependent);
+				this.readyQueue.add(dependent);
+			}
+		}
+	}
+}
@@ -0,0 +1,319 @@
+package com.github.winplay02.gitcraft.pipeline;
+
+import com.github.winplay02.gitcraft.graph.AbstractVersion;
+import com.github.winplay02.gitcraft.pipeline.key.ArtifactKey;
+import com.github.winplay02.gitcraft.pipeline.key.DirectoryKey;
+import com.github.winplay02.gitcraft.pipeline.key.StorageKey;
+import com.github.winplay02.gitcraft.util.SerializationHelper;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.io.IOException;
+import java.lang.reflect.RecordComponent;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Instrumentation of a pipeline run.
+ * <p>
+ * For every executed step of a version, the time spent queued (ready to run, but not yet started), waiting for the thread limiter,
+ * waiting for the memory budget, running and waiting for the execution lock is recorded, as well as the size of the artifacts read and written, per storage key.
+ * <p>
+ * Executions and waits are emitted as JFR events ({@code gitcraft.PipelineStep}, {@code gitcraft.PipelineWait}), so they show up in any
+ * flight recording. Additionally, the whole run can be exported as a trace in the Chrome trace event format, which can be opened using Perfetto.
+ */
+public final class PipelineMetrics<T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig> {
+	public static final String WAIT_THREAD_LIMITER = "threadLimiter";
+	public static final String WAIT_EXECUTION_LOCK = "executionLock";
+	public static final String WAIT_MEMORY_BUDGET = "memoryBudget";
+	public static final String WAIT_RESOURCE_LIMITER_PREFIX = "resourceLimiter:";
+
+	@Name("gitcraft.PipelineStep")
+	@Label("Pipeline Step")
+	@Category("GitCraft")
+	@Description("Execution of a pipeline step for a single version")
+	static final class StepExecutionEvent extends Event {
+		@Label("Step")
+		String step;
+		@Label("Version")
+		String version;
+		@Label("Status")
+		String status;
+		@Label("Queue Wait")
+		@Timespan
+		long queueWait;
+		@Label("Bytes Read")
+		long bytesRead;
+		@Label("Bytes Written")
+		long bytesWritten;
+	}
+
+	@Name("gitcraft.PipelineWait")
+	@Label("Pipeline Wait")
+	@Category("GitCraft")
+	@Description("Time a pipeline step waited for a shared resource")
+	static final class StepWaitEvent extends Event {
+		@Label("Step")
+		String step;
+		@Label("Version")
+		String version;
+		@Label("Resource")
+		String resource;
+	}
+
+	private static final class TaskTrace {
+		private final String step;
+		private final String version;
+		private volatile long queuedNanos = -1;
+		private volatile long startNanos = -1;
+		private volatile long endNanos = -1;
+		private volatile long threadId = 0;
+		private volatile StepStatus status = null;
+		private volatile Map<String, Long> bytesRead = Map.of();
+		private volatile Map<String, Long> bytesWritten = Map.of();
+		private final List<long[]> waits = new ArrayList<>();
+		private final List<String> waitResources = new ArrayList<>();
+
+		private TaskTrace(String step, String version) {
+			this.step = step;
+			this.version = version;
+		}
+	}
+
+	private final String name;
+	private final long originNanos = System.nanoTime();
+	private final Map<IPipeline.TupleVersionStep<T, C, D>, TaskTrace> traces = new ConcurrentHashMap<>();
+
+	PipelineMetrics(String name) {
+		this.name = name;
+	}
+
+	private TaskTrace trace(IPipeline.TupleVersionStep<T, C, D> task) {
+		return this.traces.computeIfAbsent(task, key -> new TaskTrace(key.step().getName(), key.version().friendlyVersion()));
+	}
+
+	/**
+	 * Records that a task became ready and was handed to the executor.
+	 */
+	void taskQueued(IPipeline.TupleVersionStep<T, C, D> task) {
+		this.trace(task).queuedNanos = System.nanoTime();
+	}
+
+	/**
+	 * A wait of a task for a shared resource, that ends when {@link #end()} is called.
+	 */
+	final class Wait {
+		private final TaskTrace trace;
+		private final String resource;
+		private final long beginNanos = System.nanoTime();
+		private final StepWaitEvent event = new StepWaitEvent();
+
+		private Wait(TaskTrace trace, String resource) {
+			this.trace = trace;
+			this.resource = resource;
+			this.event.begin();
+		}
+
+		void end() {
+			long endNanos = System.nanoTime();
+			synchronized (this.trace) {
+				this.trace.waits.add(new long[]{this.beginNanos, endNanos, Thread.currentThread().threadId()});
+				this.trace.waitResources.add(this.resource);
+			}
+			this.event.end();
+			if (this.event.shouldCommit()) {
+				this.event.step = this.trace.step;
+				this.event.version = this.trace.version;
+				this.event.resource = this.resource;
+				this.event.commit();
+			}
+		}
+	}
+
+	/**
+	 * Records that a task starts waiting for a shared resource.
+	 *
+	 * @param resource Name of the resource
+	 * @return Wait, which needs to be ended once the resource was acquired
+	 */
+	Wait beginWait(IPipeline.TupleVersionStep<T, C, D> task, String resource) {
+		return new Wait(this.trace(task), resource);
+	}
+
+	/**
+	 * Records the execution of a task.
+	 *
+	 * @param event        Started execution event, created using {@link #beginExecution()}
+	 * @param startNanos   Begin of the execution, as returned by {@link System#nanoTime()}
+	 * @param endNanos     End of the execution, as returned by {@link System#nanoTime()}
+	 * @param status       Resulting status
+	 * @param inputPaths   Storage paths of the inputs of the task
+	 * @param outputPaths  Storage paths of the outputs of the task
+	 */
+	void taskExecuted(IPipeline.TupleVersionStep<T, C, D> task, StepExecutionEvent event, long startNanos, long endNanos, StepStatus status, Map<StorageKey, Path> inputPaths, Map<StorageKey, Path> outputPaths) {
+		TaskTrace trace = this.trace(task);
+		trace.startNanos = startNanos;
+		trace.endNanos = endNanos;
+		trace.threadId = Thread.currentThread().threadId();
+		trace.status = status;
+		trace.bytesRead = sizes(inputPaths);
+		trace.bytesWritten = sizes(outputPaths);
+		event.end();
+		if (event.shouldCommit()) {
+			event.step = trace.step;
+			event.version = trace.version;
+			event.status = String.valueOf(status);
+			event.queueWait = trace.queuedNanos >= 0 ? startNanos - trace.queuedNanos : 0;
+			event.bytesRead = trace.bytesRead.values().stream().mapToLong(Long::longValue).sum();
+			event.bytesWritten = trace.bytesWritten.values().stream().mapToLong(Long::longValue).sum();
+			event.commit();
+		}
+	}
+
+	static StepExecutionEvent beginExecution() {
+		StepExecutionEvent event = new StepExecutionEvent();
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Collects all storage keys that are referenced by the components of a step input record.
+	 */
+	static List<StorageKey> inputKeys(StepInput input) {
+		List<StorageKey> keys = new ArrayList<>();
+		RecordComponent[] components = input.getClass().getRecordComponents();
+		if (components == null) {
+			return keys;
+		}
+		for (RecordComponent component : components) {
+			Object value;
+			try {
+				component.getAccessor().trySetAccessible();
+				value = component.getAccessor().invoke(input);
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				continue;
+			}
+			if (value instanceof Optional<?> optional) {
+				value = optional.orElse(null);
+			}
+			if (value instanceof StorageKey key) {
+				keys.add(key);
+			} else if (value instanceof Collection<?> collection) {
+				collection.stream().filter(StorageKey.class::isInstance).map(StorageKey.class::cast).forEach(keys::add);
+			}
+		}
+		return keys;
+	}
+
+	private static Map<String, Long> sizes(Map<StorageKey, Path> paths) {
+		Map<String, Long> sizes = new LinkedHashMap<>();
+		paths.forEach((key, path) -> {
+			// only files are measured, walking directories (e.g. repositories) would be too expensive
+			try {
+				if (path != null && Files.isRegularFile(path)) {
+					sizes.put(keyName(key), Files.size(path));
+				}
+			} catch (IOException ignored) {
+			}
+		});
+		return sizes;
+	}
+
+	private static String keyName(StorageKey key) {
+		if (key instanceof ArtifactKey artifactKey) {
+			return String.join("/", artifactKey.keys());
+		}
+		if (key instanceof DirectoryKey directoryKey) {
+			return directoryKey.type();
+		}
+		return String.valueOf(key);
+	}
+
+	private double micros(long nanos) {
+		return (nanos - this.originNanos) / 1000.0;
+	}
+
+	private JsonObject traceEvent(String name, String category, String phase, long timestampNanos, long threadId) {
+		JsonObject event = new JsonObject();
+		event.addProperty("name", name);
+		event.addProperty("cat", category);
+		event.addProperty("ph", phase);
+		event.addProperty("ts", this.micros(timestampNanos));
+		event.addProperty("pid", 1);
+		event.addProperty("tid", threadId);
+		return event;
+	}
+
+	private static JsonObject sizesObject(Map<String, Long> sizes) {
+		JsonObject object = new JsonObject();
+		sizes.forEach(object::addProperty);
+		return object;
+	}
+
+	/**
+	 * Writes all recorded tasks as a trace in the Chrome trace event format.
+	 * Executions and waits are complete events on the track of the executing thread, queue times are async events.
+	 *
+	 * @param directory Directory to write the trace into
+	 * @return Path of the written trace
+	 */
+	Path exportTrace(Path directory) throws IOException {
+		JsonArray events = new JsonArray();
+		long asyncId = 0;
+		for (TaskTrace trace : this.traces.values()) {
+			String taskName = "%s (%s)".formatted(trace.step, trace.version);
+			if (trace.queuedNanos >= 0 && trace.startNanos >= 0) {
+				JsonObject begin = this.traceEvent(taskName, "queue", "b", trace.queuedNanos, 0);
+				begin.addProperty("id", asyncId);
+				events.add(begin);
+				JsonObject end = this.traceEvent(taskName, "queue", "e", trace.startNanos, 0);
+				end.addProperty("id", asyncId);
+				events.add(end);
+				++asyncId;
+			}
+			synchronized (trace) {
+				for (int i = 0; i < trace.waits.size(); ++i) {
+					long[] wait = trace.waits.get(i);
+					JsonObject waitEvent = this.traceEvent("wait " + trace.waitResources.get(i), "wait", "X", wait[0], wait[2]);
+					waitEvent.addProperty("dur", (wait[1] - wait[0]) / 1000.0);
+					JsonObject args = new JsonObject();
+					args.addProperty("task", taskName);
+					waitEvent.add("args", args);
+					events.add(waitEvent);
+				}
+			}
+			if (trace.startNanos >= 0) {
+				JsonObject execution = this.traceEvent(taskName, "step", "X", trace.startNanos, trace.threadId);
+				execution.addProperty("dur", (trace.endNanos - trace.startNanos) / 1000.0);
+				JsonObject args = new JsonObject();
+				args.addProperty("step", trace.step);
+				args.addProperty("version", trace.version);
+				args.addProperty("status", String.valueOf(trace.status));
+				args.add("bytesRead", sizesObject(trace.bytesRead));
+				args.add("bytesWritten", sizesObject(trace.bytesWritten));
+				execution.add("args", args);
+				events.add(execution);
+			}
+		}
+		JsonObject root = new JsonObject();
+		root.add("traceEvents", events);
+		root.addProperty("displayTimeUnit", "ms");
+		Files.createDirectories(directory);
+		Path tracePath = directory.resolve("%s-%d.json".formatted(this.name.replaceAll("[^A-Za-z0-9._-]", "_"), System.currentTimeMillis()));
+		SerializationHelper.writeAllToPath(tracePath, SerializationHelper.serialize(root));
+		return tracePath;
+	}
+}
@@ -0,0 +1,27 @@
+package com.github.winplay02.gitcraft.pipeline;
+
+/**
+ * Resource a step is mainly bound by. Every resource class has a separate pool of concurrently executing steps,
+ * so that e.g. fetching artifacts of later versions can overlap with decompiling earlier versions, without oversubscribing the CPUs.
+ */
+public enum ResourceClass {
+	/**
+	 * Computation, e.g. remapping or decompiling.
+	 */
+	CPU,
+
+	/**
+	 * Reading and writing (large) files, e.g. unpacking or merging jars.
+	 */
+	DISK_IO,
+
+	/**
+	 * Downloading artifacts.
+	 */
+	NETWORK,
+
+	/**
+	 * Operations on the git repository.
+	 */
+	GIT
+}
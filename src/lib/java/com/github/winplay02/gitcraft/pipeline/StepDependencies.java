@@ -9,13 +9,21 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
-public record StepDependencies<T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig>(Map<IStep<T, ?, C, D>, DependencyRelation> dependencyTypes, Set<IStep<T, ?, C, D>> interVersionDependency) {
+/**
+ * @param conditionalInterVersionDependency Inter-version dependencies, that only exist if their condition holds once the execution graph is built (e.g. depending on the configuration)
+ */
+public record StepDependencies<T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig>(Map<IStep<T, ?, C, D>, DependencyRelation> dependencyTypes, Set<IStep<T, ?, C, D>> interVersionDependency, Map<IStep<T, ?, C, D>, BooleanSupplier> conditionalInterVersionDependency) {
 	// interVersionDependency are always NOT_REQUIRED; otherwise the pipeline would never execute, as the first step doesn't have any predecessor
 	public static final StepDependencies<?, ?, ?> EMPTY = new StepDependencies<>(Map.of(), Set.of());
 
+	public StepDependencies(Map<IStep<T, ?, C, D>, DependencyRelation> dependencyTypes, Set<IStep<T, ?, C, D>> interVersionDependency) {
+		this(dependencyTypes, interVersionDependency, Map.of());
+	}
+
 	@SuppressWarnings("unchecked")
 	public static <T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig> StepDependencies<T, C, D> empty() {
 		return (StepDependencies<T, C, D>) EMPTY;
@@ -45,6 +53,11 @@ public record StepDependencies<T extends AbstractVersion<T>, C extends IStepCont
 		return new StepDependencies<>(Map.of(), Arrays.stream(dependencies).collect(Collectors.toSet()));
 	}
 
+	@SafeVarargs
+	public static <T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig> StepDependencies<T, C, D> ofConditionalInterVersion(BooleanSupplier condition, IStep<T, ?, C, D>... dependencies) {
+		return new StepDependencies<>(Map.of(), Set.of(), Arrays.stream(dependencies).collect(Collectors.toMap(Function.identity(), __ -> condition)));
+	}
+
 	public static <T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig> StepDependencies<T, C, D> merge(StepDependencies<T, C, D> d1, StepDependencies<T, C, D> d2) {
 		Set<IStep<T, ?, C, D>> intersection = MiscHelper.calculateSetIntersection(d1.dependencyTypes().keySet(), d2.dependencyTypes().keySet());
 		for (IStep<T, ?, C, D> step : intersection) {
@@ -56,7 +69,25 @@ public record StepDependencies<T extends AbstractVersion<T>, C extends IStepCont
 		dependencyTypes.putAll(d2.dependencyTypes());
 		Set<IStep<T, ?, C, D>> interVersionDependencies = new HashSet<>(d1.interVersionDependency());
 		interVersionDependencies.addAll(d2.interVersionDependency());
-		return new StepDependencies<>(dependencyTypes, interVersionDependencies);
+		Map<IStep<T, ?, C, D>, BooleanSupplier> conditionalInterVersionDependencies = new HashMap<>(d1.conditionalInterVersionDependency());
+		d2.conditionalInterVersionDependency().forEach((step, condition) -> conditionalInterVersionDependencies.merge(step, condition, (condition1, condition2) -> () -> condition1.getAsBoolean() || condition2.getAsBoolean()));
+		return new StepDependencies<>(dependencyTypes, interVersionDependencies, conditionalInterVersionDependencies);
+	}
+
+	/**
+	 * @return Inter-version dependencies including all conditional dependencies, whose condition currently holds
+	 */
+	public Set<IStep<T, ?, C, D>> activeInterVersionDependencies() {
+		if (this.conditionalInterVersionDependency.isEmpty()) {
+			return this.interVersionDependency;
+		}
+		Set<IStep<T, ?, C, D>> interVersionDependencies = new HashSet<>(this.interVersionDependency);
+		this.conditionalInterVersionDependency.forEach((step, condition) -> {
+			if (condition.getAsBoolean()) {
+				interVersionDependencies.add(step);
+			}
+		});
+		return interVersionDependencies;
 	}
 
 	public void validate() {
@@ -68,7 +99,7 @@ public record StepDependencies<T extends AbstractVersion<T>, C extends IStepCont
 	}
 
 	public StepDependencies<T, C, D> filterRelation(DependencyRelation relation) {
-		return new StepDependencies<>(this.dependencyTypes.entrySet().stream().filter(dep -> dep.getValue() == relation).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)), this.interVersionDependency);
+		return new StepDependencies<>(this.dependencyTypes.entrySet().stream().filter(dep -> dep.getValue() == relation).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)), this.interVersionDependency, this.conditionalInterVersionDependency);
 	}
 
 	public DependencyRelation getRelation(IStep<T, ?, C, D> step) {
@@ -76,7 +107,7 @@ public record StepDependencies<T extends AbstractVersion<T>, C extends IStepCont
 	}
 
 	public StepDependencies<T, C, D> filterInterOnly() {
-		return new StepDependencies<>(Map.of(), this.interVersionDependency);
+		return new StepDependencies<>(Map.of(), this.interVersionDependency, this.conditionalInterVersionDependency);
 	}
 
 	public StepDependencies<T, C, D> filterIntraOnly() {
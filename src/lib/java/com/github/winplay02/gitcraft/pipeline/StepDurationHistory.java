@@ -0,0 +1,78 @@
+package com.github.winplay02.gitcraft.pipeline;
+
+import com.github.winplay02.gitcraft.util.MiscHelper;
+import com.github.winplay02.gitcraft.util.SerializationHelper;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Durations of previous executions of each step, persisted across runs. Used to prioritize tasks on the critical path of a pipeline.
+ * <p>
+ * For every step, an exponential moving average of the durations of successful executions is stored.
+ * Steps that were never executed successfully are estimated with a default duration.
+ */
+public final class StepDurationHistory {
+	private static final long DEFAULT_DURATION_MILLIS = 1000L;
+	// weight of the newest duration
+	private static final double SMOOTHING = 0.3d;
+
+	private final Path path;
+	private final Map<String, Long> durations;
+
+	private StepDurationHistory(Path path, Map<String, Long> durations) {
+		this.path = path;
+		this.durations = new ConcurrentHashMap<>(durations);
+	}
+
+	/**
+	 * @param path Path of the persisted history, or null to not persist the history
+	 * @return History
+	 */
+	public static StepDurationHistory load(Path path) {
+		if (path == null || !Files.exists(path)) {
+			return new StepDurationHistory(path, Map.of());
+		}
+		try {
+			Map<String, Long> durations = SerializationHelper.deserialize(SerializationHelper.fetchAllFromPath(path), new TypeToken<Map<String, Long>>() {});
+			return new StepDurationHistory(path, durations != null ? durations : Map.of());
+		} catch (IOException | RuntimeException e) {
+			MiscHelper.println("WARNING: Step duration history %s cannot be read, ignoring: %s", path, e.getMessage());
+			return new StepDurationHistory(path, Map.of());
+		}
+	}
+
+	/**
+	 * @param step Step
+	 * @return Expected duration of an execution of the step in milliseconds
+	 */
+	public long estimate(IStep<?, ?, ?, ?> step) {
+		return this.durations.getOrDefault(step.getName(), DEFAULT_DURATION_MILLIS);
+	}
+
+	/**
+	 * Records a successful execution of a step.
+	 *
+	 * @param step           Step
+	 * @param durationMillis Duration of the execution in milliseconds
+	 */
+	public void record(IStep<?, ?, ?, ?> step, long durationMillis) {
+		this.durations.merge(step.getName(), Math.max(durationMillis, 0L), (previous, current) -> Math.round(previous * (1.0d - SMOOTHING) + current * SMOOTHING));
+	}
+
+	public void save() {
+		if (this.path == null) {
+			return;
+		}
+		try {
+			SerializationHelper.writeAllToPath(this.path, SerializationHelper.serialize(new TreeMap<>(this.durations)));
+		} catch (IOException e) {
+			MiscHelper.println("WARNING: Step duration history %s cannot be written: %s", this.path, e.getMessage());
+		}
+	}
+}
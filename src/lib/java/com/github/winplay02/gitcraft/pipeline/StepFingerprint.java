@@ -0,0 +1,145 @@
+package com.github.winplay02.gitcraft.pipeline;
+
+import com.github.winplay02.gitcraft.Library;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Digest over everything a step result depends on: input artifacts, relevant configuration values and the versions of the tools producing the result.
+ * <p>
+ * The fingerprint of a result is stored next to the result itself (see {@link IPipeline#isResultUpToDate}).
+ * A result is only considered up-to-date if the stored fingerprint matches the fingerprint of the current inputs.
+ * <p>
+ * Results without a stored fingerprint are out-of-date, as nothing is known about the inputs they were produced from.
+ * While a result is being produced, a placeholder fingerprint is stored, so that a result that was left behind by an interrupted run is never considered up-to-date.
+ */
+public final class StepFingerprint {
+	private static final String FINGERPRINT_SUFFIX = ".fingerprint";
+	private static final String PENDING = "pending";
+
+	private final MessageDigest digest;
+
+	private StepFingerprint(String stepName) {
+		try {
+			this.digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+		this.value("step", stepName);
+	}
+
+	public static StepFingerprint of(String stepName) {
+		return new StepFingerprint(stepName);
+	}
+
+	/**
+	 * Adds a configuration value to this fingerprint. The value is identified by its string representation.
+	 *
+	 * @param name  Name of the value
+	 * @param value Value, may be null
+	 * @return this
+	 */
+	public StepFingerprint value(String name, Object value) {
+		this.update(name);
+		this.update(String.valueOf(value));
+		return this;
+	}
+
+	/**
+	 * Adds the contents of a file to this fingerprint.
+	 * If checksum verification is disabled, the size and last-modified timestamp of the file are used instead of its contents.
+	 *
+	 * @param name Name of the input
+	 * @param path Path to a file, may be null or point to a file that does not exist
+	 * @return this
+	 */
+	public StepFingerprint file(String name, Path path) {
+		this.update(name);
+		if (path == null || !Files.isRegularFile(path)) {
+			this.update("<absent>");
+			return this;
+		}
+		String checksum = Library.IA_SHA1 != null ? Library.IA_SHA1.getChecksumFile(path) : null;
+		if (checksum == null) {
+			try {
+				checksum = String.format("%d:%s", Files.size(path), Files.getLastModifiedTime(path).toMillis());
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		this.update(checksum);
+		return this;
+	}
+
+	/**
+	 * Adds the version of a tool to this fingerprint, identified by the implementation version of its package,
+	 * as well as the name of the jar it was loaded from (which usually includes the version for maven artifacts).
+	 *
+	 * @param toolClass Any class of the tool
+	 * @return this
+	 */
+	public StepFingerprint tool(Class<?> toolClass) {
+		this.update(toolClass.getName());
+		this.update(String.valueOf(toolClass.getPackage() != null ? toolClass.getPackage().getImplementationVersion() : null));
+		CodeSource codeSource = toolClass.getProtectionDomain().getCodeSource();
+		String location = null;
+		if (codeSource != null && codeSource.getLocation() != null) {
+			try {
+				location = Path.of(codeSource.getLocation().toURI()).getFileName().toString();
+			} catch (URISyntaxException | IllegalArgumentException e) {
+				location = codeSource.getLocation().toString();
+			}
+		}
+		this.update(String.valueOf(location));
+		return this;
+	}
+
+	private void update(String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		this.digest.update((byte) (bytes.length >>> 24));
+		this.digest.update((byte) (bytes.length >>> 16));
+		this.digest.update((byte) (bytes.length >>> 8));
+		this.digest.update((byte) bytes.length);
+		this.digest.update(bytes);
+	}
+
+	/**
+	 * @return Hexadecimal digest of all values added up to this point
+	 */
+	public String digest() {
+		try {
+			return HexFormat.of().formatHex(((MessageDigest) this.digest.clone()).digest());
+		} catch (CloneNotSupportedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static Path fingerprintPath(Path result) {
+		return result.resolveSibling(result.getFileName().toString() + FINGERPRINT_SUFFIX);
+	}
+
+	static boolean isUpToDate(Path result, StepFingerprint fingerprint) throws IOException {
+		Path fingerprintPath = fingerprintPath(result);
+		if (!Files.exists(result) || !Files.exists(fingerprintPath)) {
+			return false;
+		}
+		return Files.readString(fingerprintPath, StandardCharsets.UTF_8).trim().equals(fingerprint.digest());
+	}
+
+	static void markPending(Path result) throws IOException {
+		Files.createDirectories(result.toAbsolutePath().getParent());
+		Files.writeString(fingerprintPath(result), PENDING, StandardCharsets.UTF_8);
+	}
+
+	static void store(Path result, StepFingerprint fingerprint) throws IOException {
+		Files.writeString(fingerprintPath(result), fingerprint.digest(), StandardCharsets.UTF_8);
+	}
+}
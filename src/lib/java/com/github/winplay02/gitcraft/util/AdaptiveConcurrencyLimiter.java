@@ -0,0 +1,100 @@
+package com.github.winplay02.gitcraft.util;
+
+/**
+ * Limit of concurrent requests to a single origin, that adapts to the observed latency.
+ * <p>
+ * As long as the latency of requests stays close to the lowest observed latency, the limit is raised, as the origin is not saturated.
+ * Once requests queue up (latency rises), the limit is lowered proportionally. Failed requests halve the limit.
+ * The limit is bounded by a maximum, which depends on whether requests are multiplexed over a single connection (HTTP/2) or not.
+ */
+public final class AdaptiveConcurrencyLimiter {
+	// weight of the newest sample in the smoothed latency
+	private static final double SMOOTHING = 0.1d;
+	// weight of the newly calculated limit
+	private static final double LIMIT_SMOOTHING = 0.2d;
+	// the lowest latency is re-measured after this amount of samples, as the conditions of the network may change
+	private static final int MIN_LATENCY_WINDOW = 1000;
+
+	private final int minLimit;
+	private int maxLimit;
+	private double limit;
+	private int inFlight = 0;
+	private long minLatencyNanos = Long.MAX_VALUE;
+	private double smoothedLatencyNanos = 0.0d;
+	private int samples = 0;
+
+	/**
+	 * @param initialLimit Initial limit, which is also the maximum until {@link #raiseMaxLimit(int)} is called
+	 */
+	public AdaptiveConcurrencyLimiter(int initialLimit) {
+		this.minLimit = 1;
+		this.maxLimit = Math.max(1, initialLimit);
+		this.limit = this.maxLimit;
+	}
+
+	/**
+	 * Blocks until a request may be sent.
+	 */
+	public synchronized void acquireUninterruptibly() {
+		boolean interrupted = false;
+		while (this.inFlight >= (int) this.limit) {
+			try {
+				this.wait();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		++this.inFlight;
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Completes a request, that was admitted using {@link #acquireUninterruptibly()}.
+	 *
+	 * @param latencyNanos Time until the response arrived, or a negative value if unknown
+	 * @param success      Whether the request succeeded, failed requests (including overload responses) lower the limit
+	 */
+	public synchronized void release(long latencyNanos, boolean success) {
+		--this.inFlight;
+		if (!success) {
+			this.limit = Math.max(this.minLimit, this.limit / 2.0d);
+		} else if (latencyNanos >= 0) {
+			this.update(latencyNanos);
+		}
+		this.notifyAll();
+	}
+
+	private void update(long latencyNanos) {
+		if (++this.samples >= MIN_LATENCY_WINDOW) {
+			this.samples = 0;
+			this.minLatencyNanos = Long.MAX_VALUE;
+		}
+		this.minLatencyNanos = Math.min(this.minLatencyNanos, Math.max(latencyNanos, 1L));
+		this.smoothedLatencyNanos = this.smoothedLatencyNanos == 0.0d ? latencyNanos : this.smoothedLatencyNanos * (1.0d - SMOOTHING) + latencyNanos * SMOOTHING;
+		double gradient = Math.max(0.5d, Math.min(1.0d, this.minLatencyNanos / Math.max(this.smoothedLatencyNanos, 1.0d)));
+		// the square root allows a small queue, so that the limit can grow while the latency is stable
+		double newLimit = this.limit * gradient + Math.sqrt(this.limit);
+		this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, this.limit * (1.0d - LIMIT_SMOOTHING) + newLimit * LIMIT_SMOOTHING));
+	}
+
+	/**
+	 * Raises the maximum limit, e.g. once it is known that requests are multiplexed. The maximum is never lowered.
+	 *
+	 * @param maxLimit New maximum limit
+	 */
+	public synchronized void raiseMaxLimit(int maxLimit) {
+		if (maxLimit > this.maxLimit) {
+			this.maxLimit = maxLimit;
+			this.notifyAll();
+		}
+	}
+
+	/**
+	 * @return Current limit
+	 */
+	public synchronized int limit() {
+		return (int) this.limit;
+	}
+}
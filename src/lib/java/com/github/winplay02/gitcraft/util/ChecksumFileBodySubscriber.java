@@ -0,0 +1,67 @@
+package com.github.winplay02.gitcraft.util;
+
+import com.github.winplay02.gitcraft.integrity.IntegrityAlgorithm;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Body subscriber, that writes the body to a file and calculates its checksum while writing, so that the file does not need to be read again to verify it.
+ */
+final class ChecksumFileBodySubscriber implements HttpResponse.BodySubscriber<ChecksumFileBodySubscriber.DownloadedFile> {
+	/**
+	 * @param file     Written file
+	 * @param checksum Checksum of the written file as a hexadecimal string, or null if it was not calculated
+	 */
+	record DownloadedFile(Path file, String checksum) {
+	}
+
+	private final HttpResponse.BodySubscriber<Path> delegate;
+	private final IntegrityAlgorithm.StreamingChecksum checksum;
+
+	/**
+	 * @param file     File to write the body to
+	 * @param checksum Checksum to feed the body into, or null to not calculate a checksum
+	 * @param options  Options to open the file with
+	 */
+	ChecksumFileBodySubscriber(Path file, IntegrityAlgorithm.StreamingChecksum checksum, OpenOption... options) {
+		this.delegate = HttpResponse.BodySubscribers.ofFile(file, options);
+		this.checksum = checksum;
+	}
+
+	@Override
+	public CompletionStage<DownloadedFile> getBody() {
+		return this.delegate.getBody().thenApply(file -> new DownloadedFile(file, this.checksum != null ? this.checksum.checksum() : null));
+	}
+
+	@Override
+	public void onSubscribe(Flow.Subscription subscription) {
+		this.delegate.onSubscribe(subscription);
+	}
+
+	@Override
+	public void onNext(List<ByteBuffer> items) {
+		if (this.checksum != null) {
+			for (ByteBuffer item : items) {
+				// the file subscriber consumes the original buffers
+				this.checksum.update(item.duplicate());
+			}
+		}
+		this.delegate.onNext(items);
+	}
+
+	@Override
+	public void onError(Throwable throwable) {
+		this.delegate.onError(throwable);
+	}
+
+	@Override
+	public void onComplete() {
+		this.delegate.onComplete();
+	}
+}
@@ -0,0 +1,222 @@
+package com.github.winplay02.gitcraft.util;
+
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persistent index from commit messages to commits, covering all commits reachable from any ref of a repository.
+ * Additionally, branches are indexed by the message of their tip commit.
+ * <p>
+ * The index is stored together with the ref tips it was built from. Once refs have changed, only the commits between the stored tips
+ * and the current tips are walked: commits that became reachable are added, commits that are no longer reachable are removed.
+ * All commits with the same message are kept, so that removing one of them does not lose the others.
+ * Branches are not persisted, as all refs are read on every update anyway.
+ * <p>
+ * Lookups are safe from multiple threads: they read an immutable state, which is replaced by a single thread once refs have changed.
+ */
+final class CommitMessageIndex {
+	private static final String INDEX_DIRECTORY = "gitcraft";
+	private static final String INDEX_FILE = "commit-messages.json";
+
+	private final Repository repository;
+	private final Path indexPath;
+	// incremented whenever refs were changed, the state is up-to-date if it was built at the current generation
+	private final AtomicLong generation = new AtomicLong();
+	private volatile State state;
+
+	/**
+	 * Immutable state of the index. Lookups only read the current state, updates replace it.
+	 *
+	 * @param tips              Ref tips the state was built from
+	 * @param commitsByMessage  All reachable commits, by their full message
+	 * @param branchesByMessage Short names of all branches, by the full message of their tip commit
+	 * @param generation        Generation of refs the state was built at, -1 if unknown
+	 */
+	private record State(Set<ObjectId> tips, Map<String, List<ObjectId>> commitsByMessage, Map<String, List<String>> branchesByMessage, long generation) {
+	}
+
+	/**
+	 * @param tips     Commits all refs point to, after peeling
+	 * @param branches Tip commits of all branches, by the short name of the branch
+	 */
+	private record Refs(Set<ObjectId> tips, Map<String, RevCommit> branches) {
+	}
+
+	private record Snapshot(List<String> tips, Map<String, List<String>> commits) {
+	}
+
+	CommitMessageIndex(Repository repository) {
+		this.repository = repository;
+		this.indexPath = repository.getDirectory().toPath().resolve(INDEX_DIRECTORY).resolve(INDEX_FILE);
+		this.state = this.load();
+	}
+
+	private State load() {
+		State empty = new State(Set.of(), Map.of(), Map.of(), -1L);
+		if (!Files.exists(this.indexPath)) {
+			return empty;
+		}
+		try {
+			Snapshot snapshot = SerializationHelper.deserialize(SerializationHelper.fetchAllFromPath(this.indexPath), Snapshot.class);
+			Set<ObjectId> tips = new HashSet<>();
+			for (String tip : snapshot.tips()) {
+				tips.add(ObjectId.fromString(tip));
+			}
+			Map<String, List<ObjectId>> commitsByMessage = new HashMap<>();
+			for (Map.Entry<String, List<String>> entry : snapshot.commits().entrySet()) {
+				commitsByMessage.put(entry.getKey(), entry.getValue().stream().map(ObjectId::fromString).toList());
+			}
+			return new State(Set.copyOf(tips), Map.copyOf(commitsByMessage), Map.of(), -1L);
+		} catch (IOException | RuntimeException e) {
+			MiscHelper.println("WARNING: Commit message index %s cannot be read, rebuilding...", this.indexPath);
+			return empty;
+		}
+	}
+
+	/**
+	 * Marks the index as outdated, which should be called whenever refs of the repository were changed.
+	 * The index is brought up-to-date on the next lookup.
+	 */
+	void invalidate() {
+		this.generation.incrementAndGet();
+	}
+
+	/**
+	 * @param message Full commit message
+	 * @return Id of a reachable commit with the provided message, or null if there is none
+	 */
+	ObjectId find(String message) throws IOException {
+		List<ObjectId> commits = this.currentState().commitsByMessage().get(message);
+		return commits != null ? commits.getFirst() : null;
+	}
+
+	/**
+	 * @param message Full commit message
+	 * @return Short names of all branches, whose tip is a commit with the provided message, sorted by name
+	 */
+	List<String> findBranches(String message) throws IOException {
+		return this.currentState().branchesByMessage().getOrDefault(message, List.of());
+	}
+
+	void save() throws IOException {
+		State state = this.currentState();
+		Map<String, List<String>> commits = new TreeMap<>();
+		state.commitsByMessage().forEach((message, commitIds) -> commits.put(message, commitIds.stream().map(ObjectId::name).toList()));
+		Files.createDirectories(this.indexPath.getParent());
+		SerializationHelper.writeAllToPath(this.indexPath, SerializationHelper.serialize(new Snapshot(state.tips().stream().map(ObjectId::name).sorted().toList(), commits)));
+	}
+
+	private State currentState() throws IOException {
+		State state = this.state;
+		if (state.generation() == this.generation.get()) {
+			return state;
+		}
+		synchronized (this) {
+			state = this.state;
+			// refs changed after this point are covered by a later generation
+			long generation = this.generation.get();
+			if (state.generation() != generation) {
+				state = this.update(state, generation);
+				this.state = state;
+			}
+			return state;
+		}
+	}
+
+	private State update(State previous, long generation) throws IOException {
+		Refs currentRefs = this.currentRefs();
+		Set<ObjectId> currentTips = currentRefs.tips();
+		Map<String, List<ObjectId>> commitsByMessage = new HashMap<>();
+		previous.commitsByMessage().forEach((message, commitIds) -> commitsByMessage.put(message, new ArrayList<>(commitIds)));
+		try {
+			this.walkDifference(previous.tips(), currentTips, commitsByMessage);
+		} catch (MissingObjectException e) {
+			// objects of the stored index do not exist anymore (e.g. pruned), rebuild from scratch
+			commitsByMessage.clear();
+			this.walkDifference(Set.of(), currentTips, commitsByMessage);
+		}
+		commitsByMessage.replaceAll((message, commitIds) -> List.copyOf(commitIds));
+		Map<String, List<String>> branchesByMessage = new HashMap<>();
+		currentRefs.branches().forEach((branch, commit) -> branchesByMessage.computeIfAbsent(commit.getFullMessage(), $ -> new ArrayList<>()).add(branch));
+		branchesByMessage.replaceAll((message, branches) -> branches.stream().sorted().toList());
+		return new State(Set.copyOf(currentTips), Map.copyOf(commitsByMessage), Map.copyOf(branchesByMessage), generation);
+	}
+
+	private void walkDifference(Set<ObjectId> previousTips, Set<ObjectId> currentTips, Map<String, List<ObjectId>> commitsByMessage) throws IOException {
+		// Commits that are no longer reachable, other commits with the same message stay
+		if (!previousTips.isEmpty()) {
+			try (RevWalk walk = new RevWalk(this.repository)) {
+				for (ObjectId tip : previousTips) {
+					walk.markStart(walk.parseCommit(tip));
+				}
+				for (ObjectId tip : currentTips) {
+					walk.markUninteresting(walk.parseCommit(tip));
+				}
+				for (RevCommit commit : walk) {
+					List<ObjectId> commitIds = commitsByMessage.get(commit.getFullMessage());
+					if (commitIds != null && commitIds.remove(commit.getId()) && commitIds.isEmpty()) {
+						commitsByMessage.remove(commit.getFullMessage());
+					}
+				}
+			}
+		}
+		// Commits that became reachable
+		try (RevWalk walk = new RevWalk(this.repository)) {
+			for (ObjectId tip : currentTips) {
+				walk.markStart(walk.parseCommit(tip));
+			}
+			for (ObjectId tip : previousTips) {
+				walk.markUninteresting(walk.parseCommit(tip));
+			}
+			for (RevCommit commit : walk) {
+				commitsByMessage.computeIfAbsent(commit.getFullMessage(), $ -> new ArrayList<>()).add(commit.getId().copy());
+			}
+		}
+	}
+
+	private Refs currentRefs() throws IOException {
+		List<Ref> refs = new ArrayList<>(this.repository.getRefDatabase().getRefs());
+		Ref head = this.repository.exactRef(Constants.HEAD);
+		if (head != null) {
+			refs.add(head);
+		}
+		Set<ObjectId> currentTips = new HashSet<>();
+		Map<String, RevCommit> branches = new HashMap<>();
+		try (RevWalk walk = new RevWalk(this.repository)) {
+			for (Ref ref : refs) {
+				if (ref.getObjectId() == null) {
+					continue;
+				}
+				try {
+					RevObject object = walk.peel(walk.parseAny(ref.getObjectId()));
+					if (object instanceof RevCommit commit) {
+						currentTips.add(commit.getId().copy());
+						if (!ref.isSymbolic() && ref.getName().startsWith(Constants.R_HEADS)) {
+							branches.put(Repository.shortenRefName(ref.getName()), commit);
+						}
+					}
+				} catch (MissingObjectException ignored) {
+				}
+			}
+		}
+		return new Refs(currentTips, branches);
+	}
+}
@@ -0,0 +1,197 @@
+package com.github.winplay02.gitcraft.util;
+
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Builds the tree of a commit directly in the object database of a repository, without using its working tree.
+ * <p>
+ * Blobs are only inserted if their content differs from the blob at the same path in the tree of the parent commit,
+ * unchanged paths reuse the blob of the parent. All objects of a commit are written into a single pack.
+ */
+public final class CommitTreeBuilder implements Closeable {
+	private final Repository repository;
+	private final ObjectInserter inserter;
+	private final ObjectInserter.Formatter formatter = new ObjectInserter.Formatter();
+	private final Map<String, ObjectId> parentBlobs = new HashMap<>();
+	private final NavigableMap<String, ObjectId> entries = new TreeMap<>();
+	private MiscHelper.PathContentTransformer contentTransformer = null;
+	private ExecutorService executorService = null;
+
+	private static final int FILES_PER_BATCH = 256;
+
+	private record FileContent(String repoPath, byte[] content) {
+	}
+
+	CommitTreeBuilder(Repository repository, ObjectId parentCommit) throws IOException {
+		this.repository = repository;
+		// a pack per commit instead of a loose object per blob, small packs are rolled up by repository maintenance
+		this.inserter = repository instanceof FileRepository fileRepository ? fileRepository.getObjectDatabase().newPackInserter() : repository.newObjectInserter();
+		if (parentCommit != null) {
+			try (RevWalk walk = new RevWalk(repository); TreeWalk treeWalk = new TreeWalk(repository)) {
+				treeWalk.addTree(walk.parseCommit(parentCommit).getTree());
+				treeWalk.setRecursive(true);
+				while (treeWalk.next()) {
+					this.parentBlobs.put(treeWalk.getPathString(), treeWalk.getObjectId(0));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param contentTransformer Transformer that is applied to the content of all files that are added after this call, may be null.
+	 *                           It is given the path of a file inside the repository, as the source of a file may be named differently (e.g. by its hash).
+	 */
+	public void setContentTransformer(MiscHelper.PathContentTransformer contentTransformer) {
+		this.contentTransformer = contentTransformer;
+	}
+
+	/**
+	 * @param executorService Executor to read and transform the files of added directories on concurrently, may be null to do so on the calling thread
+	 */
+	public void setExecutorService(ExecutorService executorService) {
+		this.executorService = executorService;
+	}
+
+	/**
+	 * Adds a file to the tree. An existing entry with the same path is replaced.
+	 *
+	 * @param repoPath Path of the file inside the repository, separated by '/'
+	 * @param source   File to read the content from
+	 */
+	public void addFile(String repoPath, Path source) throws IOException {
+		this.addContent(repoPath, this.readContent(repoPath, source));
+	}
+
+	private byte[] readContent(String repoPath, Path source) throws IOException {
+		byte[] content = Files.readAllBytes(source);
+		if (this.contentTransformer != null) {
+			Path transformedPath = Path.of(repoPath);
+			if (this.contentTransformer.shouldTransform(transformedPath)) {
+				content = this.contentTransformer.transform(transformedPath, content);
+			}
+		}
+		return content;
+	}
+
+	private void addContent(String repoPath, byte[] content) throws IOException {
+		ObjectId blobId = this.formatter.idFor(Constants.OBJ_BLOB, content);
+		if (!blobId.equals(this.parentBlobs.get(repoPath))) {
+			this.inserter.insert(Constants.OBJ_BLOB, content);
+		}
+		this.entries.put(repoPath, blobId);
+	}
+
+	/**
+	 * Adds all files of a directory to the tree.
+	 *
+	 * @param source          Directory to add (e.g. the root of a jar file system)
+	 * @param targetDirectory Directory inside the repository, separated by '/'
+	 */
+	public void addDirectory(Path source, String targetDirectory) throws IOException {
+		this.addDirectory(source, targetDirectory, path -> true);
+	}
+
+	/**
+	 * Adds all files of a directory to the tree, which are accepted by the provided filter.
+	 *
+	 * @param source          Directory to add (e.g. the root of a jar file system)
+	 * @param targetDirectory Directory inside the repository, separated by '/'
+	 * @param filter          Filter for files of the source directory
+	 */
+	public void addDirectory(Path source, String targetDirectory, Predicate<Path> filter) throws IOException {
+		List<Path> files;
+		try (Stream<Path> walk = Files.walk(source)) {
+			files = walk.filter(path -> Files.isRegularFile(path) && filter.test(path)).toList();
+		}
+		if (this.executorService == null) {
+			for (Path path : files) {
+				this.addFile(repoPath(source, targetDirectory, path), path);
+			}
+			return;
+		}
+		// files are read and transformed (e.g. sorted) concurrently, the object inserter is only used by the calling thread
+		// batches bound the amount of file contents held in memory
+		for (int batchStart = 0; batchStart < files.size(); batchStart += FILES_PER_BATCH) {
+			List<Callable<FileContent>> tasks = new ArrayList<>();
+			for (Path path : files.subList(batchStart, Math.min(batchStart + FILES_PER_BATCH, files.size()))) {
+				String repoPath = repoPath(source, targetDirectory, path);
+				tasks.add(() -> new FileContent(repoPath, this.readContent(repoPath, path)));
+			}
+			for (FileContent fileContent : MiscHelper.runTasksInParallelAndAwaitResult(Runtime.getRuntime().availableProcessors(), this.executorService, tasks)) {
+				this.addContent(fileContent.repoPath(), fileContent.content());
+			}
+		}
+	}
+
+	private static String repoPath(Path source, String targetDirectory, Path path) {
+		Path relativePath = source.relativize(path);
+		return targetDirectory + "/" + relativePath.toString().replace(relativePath.getFileSystem().getSeparator(), "/");
+	}
+
+	/**
+	 * Writes the tree and a commit referencing it. The index of the repository is updated to match the new tree.
+	 *
+	 * @param parents Parent commits
+	 * @param author  Author and committer
+	 * @param message Commit message
+	 * @return Id of the created commit
+	 */
+	ObjectId commit(List<ObjectId> parents, PersonIdent author, String message) throws IOException {
+		DirCache index = this.repository.lockDirCache();
+		try {
+			DirCacheBuilder builder = index.builder();
+			for (Map.Entry<String, ObjectId> entry : this.entries.entrySet()) {
+				DirCacheEntry dirCacheEntry = new DirCacheEntry(entry.getKey());
+				dirCacheEntry.setFileMode(FileMode.REGULAR_FILE);
+				dirCacheEntry.setObjectId(entry.getValue());
+				builder.add(dirCacheEntry);
+			}
+			builder.finish();
+			CommitBuilder commit = new CommitBuilder();
+			commit.setTreeId(index.writeTree(this.inserter));
+			commit.setParentIds(parents);
+			commit.setAuthor(author);
+			commit.setCommitter(author);
+			commit.setMessage(message);
+			ObjectId commitId = this.inserter.insert(commit);
+			this.inserter.flush();
+			index.write();
+			index.commit();
+			return commitId;
+		} finally {
+			index.unlock();
+		}
+	}
+
+	@Override
+	public void close() {
+		this.inserter.close();
+	}
+}
@@ -10,12 +10,16 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
-import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
@@ -23,9 +27,12 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class FileSystemNetworkManager {
 
@@ -37,25 +44,31 @@ public class FileSystemNetworkManager {
 										 IntegrityAlgorithm integrityAlgorithm, String integrityChecksum) {
 	}
 
-	protected static final Map<Path, NetworkProgressInfo> downloadJobs = new HashMap<>();
-	protected static final ReadWriteLock downloadJobsLock = new ReentrantReadWriteLock();
+	/**
+	 * All requested downloads by target file, used to deduplicate concurrent requests of the same file. Entries are never removed.
+	 */
+	protected static final Map<Path, NetworkProgressInfo> downloadJobs = new ConcurrentHashMap<>();
 
-	private interface LockGuard extends AutoCloseable {
-		@Override
-		void close();
-	}
+	protected static final Map<Path, NetworkProgressInfo> completedJobs = new ConcurrentHashMap<>();
 
-	private static LockGuard acquireDownloadJobsWriteLock() {
-		downloadJobsLock.writeLock().lock();
-		return downloadJobsLock.writeLock()::unlock;
-	}
+	private static final AtomicInteger inFlightDownloads = new AtomicInteger();
+	private static final LongAdder completedDownloads = new LongAdder();
+	private static final LongAdder failedDownloads = new LongAdder();
 
-	private static LockGuard acquireDownloadJobsReadLock() {
-		downloadJobsLock.readLock().lock();
-		return downloadJobsLock.readLock()::unlock;
+	/**
+	 * @param inFlight  Downloads that are currently running (including checking an already existing file)
+	 * @param completed Downloads that completed successfully, including files that were already up-to-date
+	 * @param failed    Downloads that failed
+	 */
+	public record DownloadStatistics(int inFlight, long completed, long failed) {
 	}
 
-	protected static final Map<Path, NetworkProgressInfo> completedJobs = new ConcurrentHashMap<>();
+	/**
+	 * @return Counters of all downloads requested since startup
+	 */
+	public static DownloadStatistics getDownloadStatistics() {
+		return new DownloadStatistics(inFlightDownloads.get(), completedDownloads.sum(), failedDownloads.sum());
+	}
 
 	public static CompletableFuture<StepStatus> fetchRemoteSerialFSAccess(Executor executor, URI url, LocalFileInfo localFileInfo, boolean retry, boolean tolerateHashUnavailable) {
 		if (completedJobs.containsKey(localFileInfo.targetFile()) &&
@@ -68,60 +81,273 @@ public class FileSystemNetworkManager {
 			Objects.equals(completedJobs.get(localFileInfo.targetFile()).integrityAlgorithm, localFileInfo.integrityAlgorithm())) {
 			MiscHelper.panic("Cannot fulfill download to %s, there are multiple requests with different outcomes to the same file", localFileInfo.targetFile());
 		}
-		try (LockGuard $ = acquireDownloadJobsWriteLock()) {
-			if (downloadJobs.containsKey(localFileInfo.targetFile())) {
-				return downloadJobs.get(localFileInfo.targetFile()).future();
+		CompletableFuture<StepStatus> job = new CompletableFuture<>();
+		NetworkProgressInfo networkProgressInfo = downloadJobs.computeIfAbsent(localFileInfo.targetFile(), $ -> new NetworkProgressInfo(job, url, localFileInfo.integrityAlgorithm(), localFileInfo.checksum()));
+		if (networkProgressInfo.future() != job) {
+			// already requested
+			return networkProgressInfo.future();
+		}
+		inFlightDownloads.incrementAndGet();
+		CompletableFuture.supplyAsync(() -> {
+			if (checksumCheckFileIsValidAndExists(localFileInfo, false, tolerateHashUnavailable)) {
+				recordExisting(url, localFileInfo.targetFile());
+				return StepStatus.UP_TO_DATE;
 			}
-			CompletableFuture<StepStatus> f = CompletableFuture.supplyAsync(() -> {
-				if (checksumCheckFileIsValidAndExists(localFileInfo, false, tolerateHashUnavailable)) {
-					return StepStatus.UP_TO_DATE;
-				}
-				if (completedJobs.containsKey(localFileInfo.targetFile())) {
-					MiscHelper.panic("Cannot fulfill download to %s, there are multiple requests with different outcomes to the same file", localFileInfo.targetFile());
-				}
-				do {
+			if (completedJobs.containsKey(localFileInfo.targetFile())) {
+				MiscHelper.panic("Cannot fulfill download to %s, there are multiple requests with different outcomes to the same file", localFileInfo.targetFile());
+			}
+			String downloadedChecksum;
+			int failedAttempts = 0;
+			do {
+				downloadedChecksum = null;
+				try {
+					MiscHelper.println("Fetching %s %s from: %s", localFileInfo.outputFileKind(), localFileInfo.outputFileId(), url);
 					try {
-						MiscHelper.println("Fetching %s %s from: %s", localFileInfo.outputFileKind(), localFileInfo.outputFileId(), url);
-						try {
-							FileSystemNetworkManager.fetchFileAsync(url, localFileInfo.targetFile()).get();
-							if (!retry) {
-								break;
-							}
-						} catch (ExecutionException ee) {
-							throw ee.getCause();
+						downloadedChecksum = FileSystemNetworkManager.fetchFileAsync(url, localFileInfo.targetFile(), localFileInfo.integrityAlgorithm()).get().checksum();
+						if (!retry) {
+							break;
 						}
-					} catch (FileNotFoundException | URISyntaxException e1) {
-						MiscHelper.println("\u001B[31mFailed to fetch URL: %s (%s)\u001B[0m", url, e1);
-						MiscHelper.deleteFile(localFileInfo.targetFile());
-						MiscHelper.panicBecause(e1, "File download failed");
-					} catch (Throwable e1) {
-						MiscHelper.println("\u001B[31mFailed to fetch URL (retrying in %sms): %s (%s)\u001B[0m", Library.CONF_GLOBAL.failedFetchRetryInterval(), url, e1);
-						e1.printStackTrace();
-						MiscHelper.deleteFile(localFileInfo.targetFile());
-						MiscHelper.sleep(Library.CONF_GLOBAL.failedFetchRetryInterval());
+					} catch (ExecutionException ee) {
+						throw ee.getCause();
 					}
-				} while (!checksumCheckFileIsValidAndExists(localFileInfo, true, true));
-				if (!retry && !checksumCheckFileIsValidAndExists(localFileInfo, true, true)) {
-					MiscHelper.panic("File download failed");
+				} catch (FileNotFoundException | URISyntaxException e1) {
+					MiscHelper.println("\u001B[31mFailed to fetch URL: %s (%s)\u001B[0m", url, e1);
+					MiscHelper.deleteFile(localFileInfo.targetFile());
+					MiscHelper.panicBecause(e1, "File download failed");
+				} catch (Throwable e1) {
+					long retryDelay = retryDelay(failedAttempts++);
+					MiscHelper.println("\u001B[31mFailed to fetch URL (retrying in %sms): %s (%s)\u001B[0m", retryDelay, url, e1);
+					e1.printStackTrace();
+					MiscHelper.deleteFile(localFileInfo.targetFile());
+					MiscHelper.sleep(retryDelay);
 				}
-				try (LockGuard $$ = acquireDownloadJobsReadLock()) {
-					completedJobs.put(localFileInfo.targetFile(), downloadJobs.get(localFileInfo.targetFile()));
-				}
-				return StepStatus.SUCCESS;
-			}, executor);
-			NetworkProgressInfo networkProgressInfo = new NetworkProgressInfo(f, url, localFileInfo.integrityAlgorithm(), localFileInfo.checksum());
-			downloadJobs.put(localFileInfo.targetFile(), networkProgressInfo);
-			return networkProgressInfo.future();
+			} while (!checksumCheckDownloadedFileIsValid(localFileInfo, downloadedChecksum));
+			if (!retry && !checksumCheckDownloadedFileIsValid(localFileInfo, downloadedChecksum)) {
+				MiscHelper.panic("File download failed");
+			}
+			completedJobs.put(localFileInfo.targetFile(), networkProgressInfo);
+			return StepStatus.SUCCESS;
+		}, executor).whenComplete((status, throwable) -> {
+			inFlightDownloads.decrementAndGet();
+			if (throwable != null) {
+				failedDownloads.increment();
+				job.completeExceptionally(throwable);
+			} else {
+				completedDownloads.increment();
+				job.complete(status);
+			}
+		});
+		return job;
+	}
+
+	// HTTP/2 is negotiated where supported, concurrent requests to the same origin are then multiplexed over a single connection
+	protected static final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).followRedirects(HttpClient.Redirect.NORMAL).build();
+
+	protected static final Map<String, AdaptiveConcurrencyLimiter> connectionLimiter = new ConcurrentHashMap<>();
+
+	private static volatile UrlResolver urlResolver = UrlResolver.DIRECT;
+
+	private static volatile NetworkMirror recordingMirror = null;
+
+	/**
+	 * Sets the resolver, that determines where requested URLs are actually fetched from, e.g. a {@link NetworkMirror} in offline mode.
+	 */
+	public static void setUrlResolver(UrlResolver resolver) {
+		urlResolver = Objects.requireNonNull(resolver);
+	}
+
+	/**
+	 * @return Whether resources are fetched from their original location, so that a missing resource is actually missing at its origin
+	 */
+	public static boolean fetchesFromOrigin() {
+		return urlResolver == UrlResolver.DIRECT;
+	}
+
+	/**
+	 * Sets the mirror, that records the content of every fetched URL, or null to not record anything.
+	 */
+	public static void setRecordingMirror(NetworkMirror mirror) {
+		recordingMirror = mirror;
+	}
+
+	/**
+	 * Applies the configured network mirror mode (see {@link NetworkMirror.Mode}).
+	 *
+	 * @param mode       Mirror mode
+	 * @param mirrorRoot Directory of the mirror
+	 */
+	public static void configureNetworkMirror(NetworkMirror.Mode mode, Path mirrorRoot) throws IOException {
+		setUrlResolver(UrlResolver.DIRECT);
+		setRecordingMirror(null);
+		switch (mode) {
+			case OFF -> {
+			}
+			case RECORD -> {
+				MiscHelper.println("Recording all fetched resources into network mirror %s", mirrorRoot);
+				setRecordingMirror(NetworkMirror.open(mirrorRoot));
+			}
+			case OFFLINE -> {
+				MiscHelper.println("Offline mode, all resources are read from network mirror %s", mirrorRoot);
+				setUrlResolver(NetworkMirror.open(mirrorRoot));
+			}
 		}
 	}
 
-	protected static final HttpClient httpClient = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL).build();
+	private static void recordFetched(URI uri, Path file, byte[] content) {
+		NetworkMirror mirror = recordingMirror;
+		if (mirror == null) {
+			return;
+		}
+		try {
+			if (file != null) {
+				mirror.record(uri, file);
+			} else {
+				mirror.record(uri, content);
+			}
+		} catch (IOException e) {
+			MiscHelper.println("WARNING: %s cannot be recorded into network mirror %s: %s", uri, mirror.root(), e.getMessage());
+		}
+	}
 
-	protected static final Map<String, Semaphore> connectionLimiter = new ConcurrentHashMap<>();
+	/**
+	 * Records a resource, that was not fetched because it already exists locally, unless the mirror already contains it.
+	 * Otherwise, a mirror that was recorded while the local files already existed could not be replayed.
+	 */
+	private static void recordExisting(URI uri, Path file) {
+		NetworkMirror mirror = recordingMirror;
+		if (mirror != null && mirror.lookup(uri) == null) {
+			recordFetched(uri, file, null);
+		}
+	}
 
-	protected static CompletableFuture<HttpResponse<Path>> fetchFileAsync(URI uri, Path targetFile) {
-		HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
-		final Semaphore semaphore = connectionLimiter.computeIfAbsent(uri.getHost().toLowerCase(Locale.ROOT), $ -> new Semaphore(Library.CONF_GLOBAL.maxConcurrentHttpRequestsPerOrigin()));
+	/**
+	 * Copies a resource, that was resolved to a local file, instead of requesting it.
+	 */
+	private static CompletableFuture<ChecksumFileBodySubscriber.DownloadedFile> fetchLocalFile(URI uri, Path sourceFile, Path targetFile) {
+		if (!Files.isRegularFile(sourceFile)) {
+			return CompletableFuture.failedFuture(new FileNotFoundException(uri.toString()));
+		}
+		try {
+			Path tmpFile = targetFile.resolveSibling(targetFile.getFileName().toString() + ".tmp");
+			Files.copy(sourceFile, tmpFile, StandardCopyOption.REPLACE_EXISTING);
+			Files.move(tmpFile, targetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		// the copied file is verified by reading it again
+		return CompletableFuture.completedFuture(new ChecksumFileBodySubscriber.DownloadedFile(targetFile, null));
+	}
+
+	// Common default of the maximum concurrent streams of HTTP/2 servers
+	private static final int MAX_CONCURRENT_HTTP2_STREAMS_PER_ORIGIN = 100;
+
+	// Upper bound of the delay between retries, unless the configured interval is even larger
+	private static final long MAX_RETRY_DELAY = 60_000L;
+
+	/**
+	 * Exponential backoff with jitter, starting at the configured retry interval.
+	 *
+	 * @param failedAttempts Number of failed attempts before the current one
+	 * @return Delay before the next attempt in milliseconds
+	 */
+	private static long retryDelay(int failedAttempts) {
+		long baseDelay = Library.CONF_GLOBAL.failedFetchRetryInterval();
+		long maxDelay = Math.max(baseDelay, MAX_RETRY_DELAY);
+		long delay = Math.min(maxDelay, baseDelay << Math.min(failedAttempts, 16));
+		// spread the delay, so that failed downloads of the same origin are not retried at the same time
+		return baseDelay + ThreadLocalRandom.current().nextLong(Math.max(1L, delay - baseDelay + 1));
+	}
+
+	/**
+	 * Validators of a partially downloaded file, stored next to it, so that the download can be resumed using a range request.
+	 *
+	 * @param etag         Strong entity tag of the response, or null
+	 * @param lastModified Last-modified date of the response, or null
+	 */
+	private record PartialDownload(String etag, String lastModified) {
+		private String validator() {
+			return this.etag() != null ? this.etag() : this.lastModified();
+		}
+	}
+
+	private static PartialDownload readPartialDownload(Path partFile, Path partInfoFile) {
+		try {
+			if (!Files.exists(partFile) || Files.size(partFile) == 0 || !Files.exists(partInfoFile)) {
+				return null;
+			}
+			PartialDownload partialDownload = SerializationHelper.deserialize(SerializationHelper.fetchAllFromPath(partInfoFile), PartialDownload.class);
+			return partialDownload != null && partialDownload.validator() != null ? partialDownload : null;
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static void writePartialDownload(Path partInfoFile, HttpHeaders headers) {
+		// weak entity tags cannot be used to resume downloads
+		String etag = headers.firstValue("ETag").filter(value -> !value.startsWith("W/")).orElse(null);
+		String lastModified = headers.firstValue("Last-Modified").orElse(null);
+		try {
+			if (etag == null && lastModified == null) {
+				Files.deleteIfExists(partInfoFile);
+			} else {
+				SerializationHelper.writeAllToPath(partInfoFile, SerializationHelper.serialize(new PartialDownload(etag, lastModified)));
+			}
+		} catch (IOException e) {
+			MiscHelper.throwUnchecked(e);
+		}
+	}
+
+	private static void deletePartialDownload(Path partFile, Path partInfoFile) {
+		MiscHelper.deleteFile(partFile);
+		MiscHelper.deleteFile(partInfoFile);
+	}
+
+	/**
+	 * @return Start offset and complete length (or -1 if unknown) of a Content-Range header, or null if there is none
+	 */
+	private static long[] parseContentRange(HttpHeaders headers) {
+		Matcher matcher = headers.firstValue("Content-Range").map(CONTENT_RANGE::matcher).filter(Matcher::matches).orElse(null);
+		if (matcher == null) {
+			return null;
+		}
+		return new long[]{Long.parseLong(matcher.group(1)), matcher.group(3).equals("*") ? -1L : Long.parseLong(matcher.group(3))};
+	}
+
+	private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+|\\*)");
+
+	private static IntegrityAlgorithm.StreamingChecksum resumedChecksum(IntegrityAlgorithm integrityAlgorithm, Path partFile, long length) {
+		IntegrityAlgorithm.StreamingChecksum checksum = integrityAlgorithm != null ? integrityAlgorithm.createStreamingChecksum(length) : null;
+		if (checksum == null) {
+			return null;
+		}
+		// the already downloaded part is hashed once, instead of the whole file after the download
+		try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+			while (channel.read(buffer) >= 0) {
+				buffer.flip();
+				checksum.update(buffer);
+				buffer.clear();
+			}
+		} catch (IOException e) {
+			MiscHelper.throwUnchecked(e);
+		}
+		return checksum;
+	}
+
+	/**
+	 * Downloads a file into a {@code .part} file next to the target file, which replaces the target file once the download completed.
+	 * The checksum of the file is calculated while downloading, if the integrity algorithm supports it.
+	 * <p>
+	 * If a previous download of the same file was interrupted, it is resumed using a range request, as long as the validators (ETag or Last-Modified)
+	 * of the previous response still match. Otherwise, the server sends the whole file again.
+	 */
+	protected static CompletableFuture<ChecksumFileBodySubscriber.DownloadedFile> fetchFileAsync(URI uri, Path targetFile, IntegrityAlgorithm integrityAlgorithm) {
+		URI resolvedUri;
+		try {
+			resolvedUri = urlResolver.resolve(uri);
+		} catch (FileNotFoundException e) {
+			return CompletableFuture.failedFuture(e);
+		}
 		if (targetFile.getParent() != null) {
 			try {
 				Files.createDirectories(targetFile.getParent());
@@ -129,22 +355,125 @@ public class FileSystemNetworkManager {
 				MiscHelper.panicBecause(e, "Cannot create directories to store artifact %s in", targetFile);
 			}
 		}
-		semaphore.acquireUninterruptibly();
-		return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofFile(targetFile, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.CREATE, StandardOpenOption.WRITE)).thenApply(response -> {
-			if (response.statusCode() == 404) {
-				MiscHelper.throwUnchecked(new FileNotFoundException(uri.toString()));
+		if ("file".equals(resolvedUri.getScheme())) {
+			return fetchLocalFile(uri, Path.of(resolvedUri), targetFile).thenApply(downloadedFile -> {
+				recordFetched(uri, targetFile, null);
+				return downloadedFile;
+			});
+		}
+		HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(resolvedUri).GET();
+		final AdaptiveConcurrencyLimiter limiter = connectionLimiter.computeIfAbsent(resolvedUri.getAuthority().toLowerCase(Locale.ROOT), $ -> new AdaptiveConcurrencyLimiter(Library.CONF_GLOBAL.maxConcurrentHttpRequestsPerOrigin()));
+		Path partFile = targetFile.resolveSibling(targetFile.getFileName().toString() + ".part");
+		Path partInfoFile = targetFile.resolveSibling(targetFile.getFileName().toString() + ".part.json");
+		PartialDownload partialDownload = readPartialDownload(partFile, partInfoFile);
+		long resumeOffset = 0L;
+		if (partialDownload != null) {
+			try {
+				resumeOffset = Files.size(partFile);
+			} catch (IOException e) {
+				MiscHelper.throwUnchecked(e);
+			}
+			requestBuilder.header("Range", "bytes=%d-".formatted(resumeOffset)).header("If-Range", partialDownload.validator());
+		}
+		final long offset = resumeOffset;
+		AtomicLong responseNanos = new AtomicLong(-1L);
+		AtomicInteger responseStatus = new AtomicInteger(-1);
+		HttpResponse.BodyHandler<ChecksumFileBodySubscriber.DownloadedFile> bodyHandler = responseInfo -> {
+			responseNanos.set(System.nanoTime());
+			responseStatus.set(responseInfo.statusCode());
+			if (responseInfo.version() == HttpClient.Version.HTTP_2) {
+				// requests are multiplexed, the limit is no longer bound by the number of connections
+				limiter.raiseMaxLimit(Math.max(Library.CONF_GLOBAL.maxConcurrentHttpRequestsPerOrigin(), MAX_CONCURRENT_HTTP2_STREAMS_PER_ORIGIN));
+			}
+			if (responseInfo.statusCode() == 206) {
+				long[] contentRange = parseContentRange(responseInfo.headers());
+				if (offset == 0 || contentRange == null || contentRange[0] != offset) {
+					return HttpResponse.BodySubscribers.replacing(null);
+				}
+				return new ChecksumFileBodySubscriber(partFile, resumedChecksum(integrityAlgorithm, partFile, contentRange[1]), StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+			}
+			if (responseInfo.statusCode() / 100 != 2) {
+				return HttpResponse.BodySubscribers.replacing(null);
+			}
+			// the whole file is sent, either because nothing was downloaded yet, or because it changed since
+			writePartialDownload(partInfoFile, responseInfo.headers());
+			return new ChecksumFileBodySubscriber(
+				partFile,
+				integrityAlgorithm != null ? integrityAlgorithm.createStreamingChecksum(responseInfo.headers().firstValueAsLong("Content-Length").orElse(-1L)) : null,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.CREATE, StandardOpenOption.WRITE
+			);
+		};
+		limiter.acquireUninterruptibly();
+		long requestNanos = System.nanoTime();
+		CompletableFuture<HttpResponse<ChecksumFileBodySubscriber.DownloadedFile>> responseFuture;
+		try {
+			responseFuture = httpClient.sendAsync(requestBuilder.build(), bodyHandler);
+		} catch (RuntimeException e) {
+			// the request was never sent, so it does not tell anything about the origin
+			limiter.release(-1L, true);
+			return CompletableFuture.failedFuture(e);
+		}
+		return responseFuture.thenApply(response -> {
+			if (response.body() == null) {
+				// nothing usable was received, the next attempt starts from scratch
+				deletePartialDownload(partFile, partInfoFile);
+				if (response.statusCode() == 404) {
+					MiscHelper.throwUnchecked(new FileNotFoundException(uri.toString()));
+				}
+				MiscHelper.throwUnchecked(new IOException("Unexpected response status %d".formatted(response.statusCode())));
+			}
+			try {
+				Files.move(partFile, targetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				Files.deleteIfExists(partInfoFile);
+			} catch (IOException e) {
+				MiscHelper.throwUnchecked(e);
 			}
-			return response;
-		}).whenComplete(($, $$) -> semaphore.release());
+			recordFetched(uri, targetFile, null);
+			return new ChecksumFileBodySubscriber.DownloadedFile(targetFile, response.body().checksum());
+		}).whenComplete(($, throwable) -> {
+			// the time until the response arrived is independent of the size of the file
+			long latencyNanos = responseNanos.get() >= 0 ? responseNanos.get() - requestNanos : -1L;
+			boolean overloaded = responseStatus.get() == 429 || responseStatus.get() == 503;
+			limiter.release(latencyNanos, !overloaded && (throwable == null || responseStatus.get() == 404));
+		});
 	}
 
 	public static String fetchAllFromURLSync(URL url) throws IOException, URISyntaxException, InterruptedException {
-		HttpRequest request = HttpRequest.newBuilder(url.toURI()).GET().build();
-		HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+		URI uri = url.toURI();
+		URI resolvedUri = urlResolver.resolve(uri);
+		if ("file".equals(resolvedUri.getScheme())) {
+			Path sourceFile = Path.of(resolvedUri);
+			if (!Files.isRegularFile(sourceFile)) {
+				throw new FileNotFoundException(url.toString());
+			}
+			byte[] content = Files.readAllBytes(sourceFile);
+			recordFetched(uri, null, content);
+			return new String(content, StandardCharsets.UTF_8);
+		}
+		HttpRequest request = HttpRequest.newBuilder(resolvedUri).GET().build();
+		HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
 		if (response.statusCode() == 404) {
 			throw new FileNotFoundException(url.toString());
 		}
-		return response.body();
+		// error responses are passed on as before, but never recorded
+		if (response.statusCode() / 100 == 2) {
+			recordFetched(uri, null, response.body());
+		}
+		return new String(response.body(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Checks a downloaded file using the checksum calculated while downloading, if available. Otherwise, the file is read again.
+	 */
+	private static boolean checksumCheckDownloadedFileIsValid(LocalFileInfo localFileInfo, String downloadedChecksum) {
+		if (downloadedChecksum != null && localFileInfo.checksum() != null && Library.CONF_INTEGRITY.verifyChecksums() &&
+			downloadedChecksum.equalsIgnoreCase(localFileInfo.checksum()) && Files.exists(localFileInfo.targetFile())) {
+			localFileInfo.integrityAlgorithm().recordChecksumFile(localFileInfo.targetFile(), downloadedChecksum);
+			MiscHelper.println("Downloaded %s %s is valid \u001B[32m(checksums match)\u001B[0m", localFileInfo.outputFileKind(), localFileInfo.outputFileId());
+			return true;
+		}
+		// mismatches are handled as before, depending on the configuration the mismatching file is removed
+		return checksumCheckFileIsValidAndExists(localFileInfo, true, true);
 	}
 
 	private static boolean checksumCheckFileIsValidAndExists(LocalFileInfo localFileInfo, boolean useRemote, boolean tolerateHashUnavailable) {
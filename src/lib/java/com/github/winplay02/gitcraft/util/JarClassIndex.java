@@ -0,0 +1,319 @@
+package com.github.winplay02.gitcraft.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Index of the classes contained in a single jar, mapping internal class names to the location of their (compressed) data inside the jar.
+ * <p>
+ * The index is read from the central directory of the jar once and persisted in a file next to the jar. Class bytes are read on demand,
+ * directly from the recorded offsets, without opening the jar as a zip file system.
+ * Jars that cannot be indexed directly (e.g. ZIP64 archives) fall back to {@link ZipFile} lookups.
+ */
+final class JarClassIndex implements Closeable {
+	private static final int INDEX_MAGIC = 0x47434349; // GCCI
+	private static final int INDEX_VERSION = 1;
+	private static final String INDEX_EXTENSION = ".classindex";
+
+	private static final int EOCD_SIGNATURE = 0x06054b50;
+	private static final int EOCD_LENGTH = 22;
+	private static final int CEN_SIGNATURE = 0x02014b50;
+	private static final int CEN_LENGTH = 46;
+	private static final int LOC_SIGNATURE = 0x04034b50;
+	private static final int LOC_LENGTH = 30;
+	private static final int METHOD_STORED = 0;
+	private static final int METHOD_DEFLATED = 8;
+
+	/**
+	 * @param offset         Offset of the local file header, or -1 if the entry has to be looked up using {@link ZipFile}
+	 * @param method         Compression method
+	 * @param compressedSize Size of the compressed data
+	 * @param size           Size of the uncompressed data
+	 * @param crc            CRC-32 of the uncompressed data
+	 */
+	record Entry(long offset, int method, long compressedSize, long size, long crc) {
+	}
+
+	private final Path jar;
+	private final Map<String, Entry> entries;
+	private FileChannel channel = null;
+	private ZipFile zipFile = null;
+
+	private JarClassIndex(Path jar, Map<String, Entry> entries) {
+		this.jar = jar;
+		this.entries = entries;
+	}
+
+	/**
+	 * Loads the persisted index of a jar, or creates (and persists) it if it does not exist or is outdated.
+	 *
+	 * @param jar Jar file
+	 * @return Index
+	 */
+	static JarClassIndex load(Path jar) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+		Path indexPath = jar.resolveSibling(jar.getFileName().toString() + INDEX_EXTENSION);
+		Map<String, Entry> entries = readIndex(indexPath, attributes);
+		if (entries == null) {
+			try {
+				entries = indexCentralDirectory(jar);
+			} catch (IOException e) {
+				entries = indexZipFile(jar);
+			}
+			try {
+				writeIndex(indexPath, attributes, entries);
+			} catch (IOException e) {
+				MiscHelper.println("WARNING: Class index %s cannot be written: %s", indexPath, e.getMessage());
+			}
+		}
+		return new JarClassIndex(jar, entries);
+	}
+
+	Path jar() {
+		return this.jar;
+	}
+
+	Set<String> classNames() {
+		return Collections.unmodifiableSet(this.entries.keySet());
+	}
+
+	Entry entry(String internalName) {
+		return this.entries.get(internalName);
+	}
+
+	/**
+	 * @param internalName Internal name of a class (e.g. {@code java/lang/Object})
+	 * @return Class bytes, or null if the class is not contained in the jar
+	 */
+	byte[] readClass(String internalName) throws IOException {
+		Entry entry = this.entries.get(internalName);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.offset() < 0) {
+			ZipFile zip = this.zipFile();
+			try (InputStream input = zip.getInputStream(zip.getEntry(internalName + ".class"))) {
+				return input.readAllBytes();
+			}
+		}
+		FileChannel channel = this.channel();
+		ByteBuffer header = ByteBuffer.allocate(LOC_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(channel, header, entry.offset());
+		if (header.getInt(0) != LOC_SIGNATURE) {
+			throw new IOException("Invalid local file header for %s in %s".formatted(internalName, this.jar));
+		}
+		long dataOffset = entry.offset() + LOC_LENGTH + Short.toUnsignedInt(header.getShort(26)) + Short.toUnsignedInt(header.getShort(28));
+		ByteBuffer data = ByteBuffer.allocate(Math.toIntExact(entry.compressedSize()));
+		readFully(channel, data, dataOffset);
+		byte[] bytes = switch (entry.method()) {
+			case METHOD_STORED -> data.array();
+			case METHOD_DEFLATED -> inflate(data.array(), Math.toIntExact(entry.size()));
+			default -> throw new IOException("Unsupported compression method %d for %s in %s".formatted(entry.method(), internalName, this.jar));
+		};
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+		if (crc.getValue() != entry.crc()) {
+			throw new IOException("CRC mismatch for %s in %s".formatted(internalName, this.jar));
+		}
+		return bytes;
+	}
+
+	private synchronized FileChannel channel() throws IOException {
+		if (this.channel == null) {
+			this.channel = FileChannel.open(this.jar, StandardOpenOption.READ);
+		}
+		return this.channel;
+	}
+
+	private synchronized ZipFile zipFile() throws IOException {
+		if (this.zipFile == null) {
+			this.zipFile = new ZipFile(this.jar.toFile());
+		}
+		return this.zipFile;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (this.channel != null) {
+			this.channel.close();
+			this.channel = null;
+		}
+		if (this.zipFile != null) {
+			this.zipFile.close();
+			this.zipFile = null;
+		}
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of file");
+			}
+		}
+	}
+
+	private static byte[] inflate(byte[] compressed, int size) throws IOException {
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(compressed);
+			byte[] bytes = new byte[size];
+			int length = 0;
+			while (length < size && !inflater.finished()) {
+				int inflated = inflater.inflate(bytes, length, size - length);
+				if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				length += inflated;
+			}
+			if (length != size) {
+				throw new IOException("Truncated deflate stream");
+			}
+			return bytes;
+		} catch (DataFormatException e) {
+			throw new IOException(e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private static String className(String entryName) {
+		if (!entryName.endsWith(".class") || entryName.startsWith("META-INF/")) {
+			return null;
+		}
+		return entryName.substring(0, entryName.length() - ".class".length());
+	}
+
+	private static Map<String, Entry> indexCentralDirectory(Path jar) throws IOException {
+		try (FileChannel channel = FileChannel.open(jar, StandardOpenOption.READ)) {
+			long size = channel.size();
+			int tailLength = (int) Math.min(size, EOCD_LENGTH + 0xFFFF);
+			ByteBuffer tail = ByteBuffer.allocate(tailLength).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(channel, tail, size - tailLength);
+			int eocd = -1;
+			for (int i = tailLength - EOCD_LENGTH; i >= 0; --i) {
+				if (tail.getInt(i) == EOCD_SIGNATURE) {
+					eocd = i;
+					break;
+				}
+			}
+			if (eocd < 0) {
+				throw new IOException("No end of central directory record");
+			}
+			int entryCount = Short.toUnsignedInt(tail.getShort(eocd + 10));
+			long directorySize = Integer.toUnsignedLong(tail.getInt(eocd + 12));
+			long directoryOffset = Integer.toUnsignedLong(tail.getInt(eocd + 16));
+			if (entryCount == 0xFFFF || directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL) {
+				throw new IOException("ZIP64 archives are not supported");
+			}
+			ByteBuffer directory = ByteBuffer.allocate(Math.toIntExact(directorySize)).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(channel, directory, directoryOffset);
+			Map<String, Entry> entries = new HashMap<>();
+			int position = 0;
+			for (int i = 0; i < entryCount; ++i) {
+				if (directory.getInt(position) != CEN_SIGNATURE) {
+					throw new IOException("Invalid central directory entry");
+				}
+				int method = Short.toUnsignedInt(directory.getShort(position + 10));
+				long crc = Integer.toUnsignedLong(directory.getInt(position + 16));
+				long compressedSize = Integer.toUnsignedLong(directory.getInt(position + 20));
+				long uncompressedSize = Integer.toUnsignedLong(directory.getInt(position + 24));
+				int nameLength = Short.toUnsignedInt(directory.getShort(position + 28));
+				int extraLength = Short.toUnsignedInt(directory.getShort(position + 30));
+				int commentLength = Short.toUnsignedInt(directory.getShort(position + 32));
+				long localHeaderOffset = Integer.toUnsignedLong(directory.getInt(position + 42));
+				String name = new String(directory.array(), position + CEN_LENGTH, nameLength, StandardCharsets.UTF_8);
+				String className = className(name);
+				if (className != null) {
+					entries.putIfAbsent(className, new Entry(localHeaderOffset, method, compressedSize, uncompressedSize, crc));
+				}
+				position += CEN_LENGTH + nameLength + extraLength + commentLength;
+			}
+			return entries;
+		}
+	}
+
+	private static Map<String, Entry> indexZipFile(Path jar) throws IOException {
+		Map<String, Entry> entries = new HashMap<>();
+		try (ZipFile zip = new ZipFile(jar.toFile())) {
+			for (ZipEntry zipEntry : Collections.list(zip.entries())) {
+				String className = className(zipEntry.getName());
+				if (className != null) {
+					entries.putIfAbsent(className, new Entry(-1, zipEntry.getMethod(), zipEntry.getCompressedSize(), zipEntry.getSize(), zipEntry.getCrc()));
+				}
+			}
+		}
+		return entries;
+	}
+
+	private static Map<String, Entry> readIndex(Path indexPath, BasicFileAttributes jarAttributes) {
+		if (!Files.exists(indexPath)) {
+			return null;
+		}
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+			if (input.readInt() != INDEX_MAGIC || input.readInt() != INDEX_VERSION) {
+				return null;
+			}
+			if (input.readLong() != jarAttributes.size() || input.readLong() != jarAttributes.lastModifiedTime().toMillis()) {
+				return null;
+			}
+			int count = input.readInt();
+			Map<String, Entry> entries = new HashMap<>(count * 2);
+			for (int i = 0; i < count; ++i) {
+				entries.put(input.readUTF(), new Entry(input.readLong(), input.readUnsignedShort(), input.readLong(), input.readLong(), input.readLong()));
+			}
+			return entries;
+		} catch (IOException e) {
+			MiscHelper.println("WARNING: Class index %s cannot be read and will be recreated", indexPath);
+			return null;
+		}
+	}
+
+	private static void writeIndex(Path indexPath, BasicFileAttributes jarAttributes, Map<String, Entry> entries) throws IOException {
+		// unique per writer, the same jar may be indexed concurrently
+		Path tmpPath = Files.createTempFile(indexPath.toAbsolutePath().getParent(), indexPath.getFileName().toString(), ".tmp");
+		try {
+			try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpPath)))) {
+				output.writeInt(INDEX_MAGIC);
+				output.writeInt(INDEX_VERSION);
+				output.writeLong(jarAttributes.size());
+				output.writeLong(jarAttributes.lastModifiedTime().toMillis());
+				output.writeInt(entries.size());
+				for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+					output.writeUTF(entry.getKey());
+					output.writeLong(entry.getValue().offset());
+					output.writeShort(entry.getValue().method());
+					output.writeLong(entry.getValue().compressedSize());
+					output.writeLong(entry.getValue().size());
+					output.writeLong(entry.getValue().crc());
+				}
+			}
+			Files.move(tmpPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			// only left over if writing or moving failed
+			Files.deleteIfExists(tmpPath);
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package com.github.winplay02.gitcraft.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shared, pre-indexed classpath of library jars.
+ * <p>
+ * Every library jar is indexed once (see {@link JarClassIndex}, the index is persisted next to the jar) and shared between all consumers
+ * that acquired it. Jars are reference-counted: open file handles are released once the last classpath containing a jar is closed.
+ * Class bytes are only read when requested.
+ */
+public final class LibraryClasspath implements Closeable {
+	private static final Map<Path, SharedJar> SHARED_JARS = new HashMap<>();
+
+	/**
+	 * Location of a class.
+	 *
+	 * @param jar    Jar containing the class
+	 * @param offset Offset of the entry of the class inside the jar, or -1 if unknown
+	 * @param digest CRC-32 of the class bytes
+	 */
+	public record ClassLocation(Path jar, long offset, long digest) {
+	}
+
+	private static final class SharedJar {
+		private final Path jar;
+		private int references = 0;
+		private JarClassIndex index = null;
+
+		private SharedJar(Path jar) {
+			this.jar = jar;
+		}
+
+		private synchronized JarClassIndex index() throws IOException {
+			if (this.index == null) {
+				this.index = JarClassIndex.load(this.jar);
+			}
+			return this.index;
+		}
+
+		private synchronized void closeIndex() throws IOException {
+			if (this.index != null) {
+				this.index.close();
+			}
+		}
+	}
+
+	private final List<SharedJar> jars;
+	private final List<JarClassIndex> indices;
+	private boolean closed = false;
+
+	private LibraryClasspath(List<SharedJar> jars, List<JarClassIndex> indices) {
+		this.jars = jars;
+		this.indices = indices;
+	}
+
+	/**
+	 * Acquires a classpath consisting of the provided jars. The returned classpath must be closed after use.
+	 *
+	 * @param jars Library jars, in classpath order (classes of earlier jars shadow classes of later jars)
+	 * @return Classpath
+	 */
+	public static LibraryClasspath acquire(Collection<Path> jars) throws IOException {
+		List<SharedJar> sharedJars = new ArrayList<>();
+		synchronized (SHARED_JARS) {
+			for (Path jar : new LinkedHashSet<>(jars)) {
+				SharedJar sharedJar = SHARED_JARS.computeIfAbsent(jar.toAbsolutePath().normalize(), SharedJar::new);
+				++sharedJar.references;
+				sharedJars.add(sharedJar);
+			}
+		}
+		List<JarClassIndex> indices = new ArrayList<>();
+		try {
+			for (SharedJar sharedJar : sharedJars) {
+				indices.add(sharedJar.index());
+			}
+		} catch (IOException | RuntimeException e) {
+			release(sharedJars);
+			throw e;
+		}
+		return new LibraryClasspath(sharedJars, indices);
+	}
+
+	/**
+	 * @return Jars of this classpath, in classpath order
+	 */
+	public List<Path> jars() {
+		return this.indices.stream().map(JarClassIndex::jar).toList();
+	}
+
+	/**
+	 * @return Internal names of all classes of this classpath
+	 */
+	public Set<String> classNames() {
+		Set<String> classNames = new LinkedHashSet<>();
+		for (JarClassIndex index : this.indices) {
+			classNames.addAll(index.classNames());
+		}
+		return classNames;
+	}
+
+	/**
+	 * @param internalName Internal name of a class (e.g. {@code java/lang/Object})
+	 * @return Location of the class, or null if no jar of this classpath contains the class
+	 */
+	public ClassLocation locate(String internalName) {
+		for (JarClassIndex index : this.indices) {
+			JarClassIndex.Entry entry = index.entry(internalName);
+			if (entry != null) {
+				return new ClassLocation(index.jar(), entry.offset(), entry.crc());
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param internalName Internal name of a class (e.g. {@code java/lang/Object})
+	 * @return Class bytes, or null if no jar of this classpath contains the class
+	 */
+	public byte[] getClassBytes(String internalName) throws IOException {
+		for (JarClassIndex index : this.indices) {
+			if (index.entry(internalName) != null) {
+				return index.readClass(internalName);
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			if (this.closed) {
+				return;
+			}
+			this.closed = true;
+		}
+		release(this.jars);
+	}
+
+	private static void release(List<SharedJar> sharedJars) throws IOException {
+		List<SharedJar> unused = new ArrayList<>();
+		synchronized (SHARED_JARS) {
+			for (SharedJar sharedJar : sharedJars) {
+				if (--sharedJar.references == 0) {
+					SHARED_JARS.remove(sharedJar.jar);
+					unused.add(sharedJar);
+				}
+			}
+		}
+		for (SharedJar sharedJar : unused) {
+			sharedJar.closeIndex();
+		}
+	}
+}
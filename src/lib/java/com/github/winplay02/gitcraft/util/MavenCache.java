@@ -4,25 +4,278 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
-public record MavenCache(HashMap<String, String> shaUrlMap) {
+/**
+ * Cache of the SHA-1 checksums of maven artifacts, which are published as {@code .sha1} files next to the artifacts.
+ * <p>
+ * Resolved checksums are appended to a journal next to the cache file as soon as they are known, so that a crash does not lose them.
+ * The journal is merged into the cache file when the cache is saved, or once it grew too large.
+ * Missing artifacts are cached as well, but only for a limited time, as they may still be published.
+ * Artifacts, that are missing while resources are not fetched from their origin (e.g. in offline mode), are only remembered in memory.
+ * Concurrent requests of the same checksum are resolved only once.
+ */
+public final class MavenCache {
+	private static final String JOURNAL_SUFFIX = ".journal";
+	private static final String MISSING = "-";
+	private static final int MAX_JOURNAL_ENTRIES = 512;
+	private static final long MISSING_TTL = Duration.ofHours(24).toMillis();
+
+	/**
+	 * Persisted cache, compatible with cache files written before missing artifacts were tracked.
+	 *
+	 * @param shaUrlMap   Checksums by URL of the {@code .sha1} file
+	 * @param missingUrls Time (in epoch milliseconds) at which each URL of a {@code .sha1} file was found to be missing
+	 */
+	private record Snapshot(Map<String, String> shaUrlMap, Map<String, Long> missingUrls) {
+	}
+
+	private final Path cacheFile;
+	private final Path journalFile;
+	private final Map<String, String> sha1ByUrl = new ConcurrentHashMap<>();
+	private final Map<String, Long> missingSince = new ConcurrentHashMap<>();
+	private final Set<String> missingFromResolver = ConcurrentHashMap.newKeySet();
+	private final Map<String, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+	private final Object persistenceLock = new Object();
+	private int journalEntries = 0;
+
+	/**
+	 * Creates an empty cache, that is not persisted.
+	 */
 	public MavenCache() {
-		this(new HashMap<>());
+		this(null);
+	}
+
+	private MavenCache(Path cacheFile) {
+		this.cacheFile = cacheFile;
+		this.journalFile = cacheFile != null ? cacheFile.resolveSibling(cacheFile.getFileName().toString() + JOURNAL_SUFFIX) : null;
+	}
+
+	/**
+	 * Loads a cache including all journaled entries, the files do not need to exist.
+	 *
+	 * @param cacheFile Cache file
+	 * @return Cache, that is persisted to the given file
+	 */
+	public static MavenCache load(Path cacheFile) throws IOException {
+		MavenCache cache = new MavenCache(cacheFile);
+		if (Files.exists(cacheFile)) {
+			Snapshot snapshot = SerializationHelper.deserialize(SerializationHelper.fetchAllFromPath(cacheFile), Snapshot.class);
+			if (snapshot != null && snapshot.shaUrlMap() != null) {
+				for (Map.Entry<String, String> entry : snapshot.shaUrlMap().entrySet()) {
+					// older caches stored missing artifacts without a timestamp, they are checked again, as are invalid checksums
+					if (entry.getValue() != null && isSha1(entry.getValue())) {
+						cache.sha1ByUrl.put(entry.getKey(), entry.getValue());
+					}
+				}
+			}
+			if (snapshot != null && snapshot.missingUrls() != null) {
+				cache.missingSince.putAll(snapshot.missingUrls());
+			}
+		}
+		if (Files.exists(cache.journalFile)) {
+			for (String line : Files.readAllLines(cache.journalFile, StandardCharsets.UTF_8)) {
+				String[] components = line.split("\t", 3);
+				// the last line may be incomplete, if a previous run was interrupted while writing it
+				if (components.length != 3 || components[2].isEmpty() || (!components[1].equals(MISSING) && !isSha1(components[1]))) {
+					continue;
+				}
+				long time;
+				try {
+					time = Long.parseLong(components[0]);
+				} catch (NumberFormatException e) {
+					continue;
+				}
+				cache.apply(components[2], components[1].equals(MISSING) ? null : components[1], time);
+				++cache.journalEntries;
+			}
+		}
+		return cache;
 	}
 
+	private void apply(String urlSha1, String sha1, long time) {
+		if (sha1 != null) {
+			this.sha1ByUrl.put(urlSha1, sha1);
+			this.missingSince.remove(urlSha1);
+		} else {
+			this.sha1ByUrl.remove(urlSha1);
+			this.missingSince.put(urlSha1, time);
+		}
+	}
+
+	/**
+	 * @param urlSha1 URL of the {@code .sha1} file
+	 * @return Checksum, or null if the artifact does not exist
+	 */
 	public String getSha1ForURL(String urlSha1) throws IOException {
-		if (!this.shaUrlMap.containsKey(urlSha1)) {
-			String sha1 = null;
+		// resolved on the calling thread
+		return join(this.getSha1ForURLAsync(Runnable::run, urlSha1));
+	}
+
+	/**
+	 * Resolves the checksums of multiple artifacts concurrently.
+	 *
+	 * @param executor Executor to fetch missing checksums on
+	 * @param urlsSha1 URLs of the {@code .sha1} files
+	 * @return Checksums by URL of the {@code .sha1} file, the checksum is null if the artifact does not exist
+	 */
+	public Map<String, String> getSha1ForURLs(Executor executor, Collection<String> urlsSha1) throws IOException {
+		Map<String, CompletableFuture<String>> futures = new LinkedHashMap<>();
+		for (String urlSha1 : urlsSha1) {
+			futures.computeIfAbsent(urlSha1, $ -> this.getSha1ForURLAsync(executor, urlSha1));
+		}
+		Map<String, String> sha1s = new HashMap<>();
+		for (Map.Entry<String, CompletableFuture<String>> entry : futures.entrySet()) {
+			sha1s.put(entry.getKey(), join(entry.getValue()));
+		}
+		return sha1s;
+	}
+
+	/**
+	 * @param executor Executor to fetch the checksum on, if it is not cached
+	 * @param urlSha1  URL of the {@code .sha1} file
+	 * @return Future of the checksum, which completes with null if the artifact does not exist
+	 */
+	public CompletableFuture<String> getSha1ForURLAsync(Executor executor, String urlSha1) {
+		String sha1 = this.sha1ByUrl.get(urlSha1);
+		if (sha1 != null) {
+			return CompletableFuture.completedFuture(sha1);
+		}
+		if (this.isKnownMissing(urlSha1)) {
+			return CompletableFuture.completedFuture(null);
+		}
+		CompletableFuture<String> future = new CompletableFuture<>();
+		CompletableFuture<String> existingFuture = this.pending.putIfAbsent(urlSha1, future);
+		if (existingFuture != null) {
+			return existingFuture;
+		}
+		CompletableFuture.runAsync(() -> {
 			try {
-				sha1 = FileSystemNetworkManager.fetchAllFromURLSync(new URL(urlSha1));
-			} catch (FileNotFoundException ignored) {
-			} catch (URISyntaxException | InterruptedException e) {
-				throw new IOException(e);
+				future.complete(this.fetch(urlSha1));
+			} catch (Throwable t) {
+				future.completeExceptionally(t);
+			} finally {
+				this.pending.remove(urlSha1, future);
 			}
-			this.shaUrlMap.put(urlSha1, sha1);
+		}, executor);
+		return future;
+	}
+
+	private boolean isKnownMissing(String urlSha1) {
+		if (this.missingFromResolver.contains(urlSha1)) {
+			return true;
 		}
+		Long missingSince = this.missingSince.get(urlSha1);
+		return missingSince != null && System.currentTimeMillis() - missingSince < MISSING_TTL;
+	}
+
+	private String fetch(String urlSha1) throws IOException {
+		// another request may have completed in the meantime
+		String cachedSha1 = this.sha1ByUrl.get(urlSha1);
+		if (cachedSha1 != null) {
+			return cachedSha1;
+		}
+		String sha1 = null;
+		try {
+			String content = FileSystemNetworkManager.fetchAllFromURLSync(new URL(urlSha1)).trim();
+			// some repositories append the file name to the checksum
+			int separator = content.indexOf(' ');
+			sha1 = separator >= 0 ? content.substring(0, separator) : content;
+		} catch (FileNotFoundException ignored) {
+		} catch (URISyntaxException | InterruptedException e) {
+			throw new IOException(e);
+		}
+		if (sha1 != null) {
+			// e.g. an error page of a repository, that is not cached, so that it is fetched again next time
+			if (!isSha1(sha1)) {
+				throw new IOException("Invalid checksum in %s".formatted(urlSha1));
+			}
+			sha1 = sha1.toLowerCase(Locale.ROOT);
+		}
+		if (sha1 == null && !FileSystemNetworkManager.fetchesFromOrigin()) {
+			// e.g. not recorded into the offline network mirror, which does not mean that the artifact is missing in the repository
+			this.missingFromResolver.add(urlSha1);
+			return null;
+		}
+		long time = System.currentTimeMillis();
+		this.apply(urlSha1, sha1, time);
+		this.appendToJournal(urlSha1, sha1, time);
+		return sha1;
+	}
+
+	private static boolean isSha1(String sha1) {
+		return sha1.length() == 40 && sha1.chars().allMatch(HexFormat::isHexDigit);
+	}
+
+	private void appendToJournal(String urlSha1, String sha1, long time) {
+		if (this.journalFile == null) {
+			return;
+		}
+		synchronized (this.persistenceLock) {
+			try {
+				Files.writeString(this.journalFile, "%d\t%s\t%s\n".formatted(time, sha1 != null ? sha1 : MISSING, urlSha1), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+				if (++this.journalEntries >= MAX_JOURNAL_ENTRIES) {
+					this.compact();
+				}
+			} catch (IOException e) {
+				MiscHelper.println("WARNING: Maven cache journal %s cannot be written: %s", this.journalFile, e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Merges the journal into the cache file.
+	 */
+	public void save() throws IOException {
+		if (this.cacheFile == null) {
+			return;
+		}
+		synchronized (this.persistenceLock) {
+			this.compact();
+		}
+	}
 
-		return this.shaUrlMap.get(urlSha1);
+	private void compact() throws IOException {
+		Map<String, Long> missingUrls = new TreeMap<>();
+		long now = System.currentTimeMillis();
+		for (Map.Entry<String, Long> entry : this.missingSince.entrySet()) {
+			if (now - entry.getValue() < MISSING_TTL) {
+				missingUrls.put(entry.getKey(), entry.getValue());
+			}
+		}
+		Path tmpFile = this.cacheFile.resolveSibling(this.cacheFile.getFileName().toString() + ".tmp");
+		SerializationHelper.writeAllToPath(tmpFile, SerializationHelper.serialize(new Snapshot(new TreeMap<>(this.sha1ByUrl), missingUrls)));
+		Files.move(tmpFile, this.cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		// all journaled entries are contained in the cache file now
+		Files.deleteIfExists(this.journalFile);
+		this.journalEntries = 0;
+	}
+
+	private static String join(CompletableFuture<String> future) throws IOException {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof IOException ioException) {
+				throw ioException;
+			}
+			throw e;
+		}
 	}
 }
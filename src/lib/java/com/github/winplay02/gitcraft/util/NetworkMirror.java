@@ -0,0 +1,180 @@
+package com.github.winplay02.gitcraft.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content-addressed store of resources fetched from the network, so that runs can be replayed without network access.
+ * <p>
+ * While recording, the content of each fetched URL is stored under its SHA-256 digest, identical content of different URLs is stored only once.
+ * The mapping of URLs to digests is appended to an index file, later lines override earlier ones.
+ * In offline mode, the mirror is used as {@link UrlResolver}, which resolves each URL to the stored content, or fails if the URL was never recorded.
+ */
+public final class NetworkMirror implements UrlResolver {
+	public enum Mode {
+		/**
+		 * The mirror is not used
+		 */
+		OFF,
+		/**
+		 * All fetched resources are recorded into the mirror
+		 */
+		RECORD,
+		/**
+		 * All resources are read from the mirror, the network is not accessed
+		 */
+		OFFLINE
+	}
+
+	private static final String INDEX_FILE = "index.tsv";
+	private static final String OBJECTS_DIRECTORY = "objects";
+
+	private final Path root;
+	private final Path indexFile;
+	private final Map<String, String> digestsByUrl = new ConcurrentHashMap<>();
+
+	private NetworkMirror(Path root) {
+		this.root = root;
+		this.indexFile = root.resolve(INDEX_FILE);
+	}
+
+	/**
+	 * Opens a mirror, the directory is created if it does not exist yet.
+	 *
+	 * @param root Directory of the mirror
+	 * @return Mirror
+	 */
+	public static NetworkMirror open(Path root) throws IOException {
+		NetworkMirror mirror = new NetworkMirror(root);
+		Files.createDirectories(root.resolve(OBJECTS_DIRECTORY));
+		if (Files.exists(mirror.indexFile)) {
+			for (String line : Files.readAllLines(mirror.indexFile, StandardCharsets.UTF_8)) {
+				int separator = line.indexOf('\t');
+				// the last line may be incomplete, if a previous run was interrupted while recording
+				if (separator <= 0 || separator == line.length() - 1) {
+					continue;
+				}
+				mirror.digestsByUrl.put(line.substring(separator + 1), line.substring(0, separator));
+			}
+		}
+		return mirror;
+	}
+
+	/**
+	 * @return Directory of this mirror
+	 */
+	public Path root() {
+		return this.root;
+	}
+
+	private Path objectPath(String digest) {
+		return this.root.resolve(OBJECTS_DIRECTORY).resolve(digest.substring(0, 2)).resolve(digest);
+	}
+
+	/**
+	 * @param uri Requested URL
+	 * @return Stored content of the URL, or null if it was not recorded
+	 */
+	public Path lookup(URI uri) {
+		String digest = this.digestsByUrl.get(uri.toString());
+		if (digest == null) {
+			return null;
+		}
+		Path object = this.objectPath(digest);
+		return Files.isRegularFile(object) ? object : null;
+	}
+
+	@Override
+	public URI resolve(URI uri) throws FileNotFoundException {
+		Path object = this.lookup(uri);
+		if (object == null) {
+			throw new FileNotFoundException("%s is not contained in network mirror %s".formatted(uri, this.root));
+		}
+		return object.toUri();
+	}
+
+	/**
+	 * Records the content of a URL, that was downloaded to a file.
+	 *
+	 * @param uri  Requested URL
+	 * @param file Downloaded content
+	 */
+	public void record(URI uri, Path file) throws IOException {
+		String digest;
+		try (InputStream inputStream = Files.newInputStream(file)) {
+			digest = digest(inputStream);
+		}
+		this.store(digest, file, null);
+		this.index(uri, digest);
+	}
+
+	/**
+	 * Records the content of a URL, that was read into memory.
+	 *
+	 * @param uri     Requested URL
+	 * @param content Content
+	 */
+	public void record(URI uri, byte[] content) throws IOException {
+		String digest = digest(new ByteArrayInputStream(content));
+		this.store(digest, null, content);
+		this.index(uri, digest);
+	}
+
+	private void store(String digest, Path file, byte[] content) throws IOException {
+		Path object = this.objectPath(digest);
+		if (Files.exists(object)) {
+			return;
+		}
+		Files.createDirectories(object.getParent());
+		Path tmpFile = object.resolveSibling("%s-%d.tmp".formatted(digest, System.nanoTime()));
+		try {
+			if (file != null) {
+				Files.copy(file, tmpFile);
+			} else {
+				Files.write(tmpFile, content);
+			}
+			// concurrent recordings of the same content are identical, the last one wins
+			Files.move(tmpFile, object, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmpFile);
+		}
+	}
+
+	private void index(URI uri, String digest) throws IOException {
+		String url = uri.toString();
+		if (digest.equals(this.digestsByUrl.put(url, digest))) {
+			return;
+		}
+		synchronized (this.indexFile) {
+			Files.writeString(this.indexFile, "%s\t%s\n".formatted(digest, url), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		}
+	}
+
+	private static String digest(InputStream inputStream) throws IOException {
+		MessageDigest messageDigest;
+		try {
+			messageDigest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+		byte[] buffer = new byte[1 << 16];
+		int read;
+		while ((read = inputStream.read(buffer)) >= 0) {
+			messageDigest.update(buffer, 0, read);
+		}
+		return HexFormat.of().formatHex(messageDigest.digest());
+	}
+}
@@ -0,0 +1,331 @@
+package com.github.winplay02.gitcraft.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writer of zip archives, that can be fed from multiple threads concurrently.
+ * <p>
+ * Entries are compressed on the thread that adds them and appended to a temporary spill file next to the archive, in the order they were added.
+ * Only the names and sizes of entries are kept in memory. On close, all entries are copied from the spill file into the archive in order of their names,
+ * followed by the central directory, so that the resulting archive does not depend on the order in which entries were added.
+ * The archive is only written, if the writer was {@link #finish() finished} before closing it. Otherwise, e.g. if adding entries failed, all entries are discarded
+ * and an existing archive is left untouched, instead of being replaced by an incomplete one.
+ * Timestamps of all entries are fixed for the same reason. Adding an entry with the same name twice replaces the previous entry.
+ * ZIP64 records are written, once an archive has too many entries or is too large for the regular format.
+ */
+public final class ParallelZipWriter implements Closeable {
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int CENTRAL_HEADER_SIZE = 46;
+	private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE = 56;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE = 20;
+	private static final short ZIP64_EXTRA_TAG = 0x0001;
+	private static final short VERSION = 20;
+	private static final short VERSION_ZIP64 = 45;
+	private static final short FLAG_UTF8 = 0x0800;
+	private static final short METHOD_STORED = 0;
+	private static final short METHOD_DEFLATED = 8;
+	// 1980-01-01 00:00:00, the earliest representable DOS timestamp
+	private static final short DOS_TIME = 0;
+	private static final short DOS_DATE = (1 << 5) | 1;
+	private static final int ATTRIBUTE_DIRECTORY = 0x10;
+	private static final long ZIP64_MAGIC_INT = 0xFFFFFFFFL;
+	private static final int ZIP64_MAGIC_SHORT = 0xFFFF;
+	private static final int COPY_BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * @param spillOffset Position of the compressed data in the spill file
+	 */
+	private record Entry(byte[] name, short method, long crc, long size, long compressedSize, long spillOffset, boolean directory) {
+		private boolean requiresZip64() {
+			return this.size() >= ZIP64_MAGIC_INT || this.compressedSize() >= ZIP64_MAGIC_INT;
+		}
+	}
+
+	private final Path target;
+	private final int level;
+	private final Map<String, Entry> entries = new ConcurrentSkipListMap<>();
+	private final Path spillFile;
+	private final FileChannel spillChannel;
+	private final AtomicLong spillSize = new AtomicLong();
+	private volatile boolean closed = false;
+	private volatile boolean finished = false;
+
+	/**
+	 * @param target Path of the archive, which is written once this writer is closed
+	 * @param level  Compression level of the {@link Deflater}
+	 */
+	public ParallelZipWriter(Path target, int level) throws IOException {
+		this.target = target;
+		this.level = level;
+		Path parent = this.target.toAbsolutePath().getParent();
+		Files.createDirectories(parent);
+		this.spillFile = Files.createTempFile(parent, this.target.getFileName().toString(), ".spill");
+		this.spillChannel = FileChannel.open(this.spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+	}
+
+	public ParallelZipWriter(Path target) throws IOException {
+		this(target, Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * Compresses and adds a file entry. Missing parent directories do not need to be added explicitly.
+	 *
+	 * @param name    Name of the entry, using '/' as separator
+	 * @param content Content of the entry
+	 */
+	public void addEntry(String name, byte[] content) {
+		String entryName = normalize(name);
+		CRC32 crc = new CRC32();
+		crc.update(content);
+		Deflater deflater = new Deflater(this.level, true);
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, content.length / 4));
+		try {
+			deflater.setInput(content);
+			deflater.finish();
+			byte[] buffer = new byte[8192];
+			while (!deflater.finished()) {
+				int length = deflater.deflate(buffer);
+				compressed.write(buffer, 0, length);
+			}
+		} finally {
+			deflater.end();
+		}
+		// incompressible content (e.g. images) is stored
+		boolean deflated = compressed.size() < content.length;
+		byte[] data = deflated ? compressed.toByteArray() : content;
+		this.put(entryName, new Entry(entryName.getBytes(StandardCharsets.UTF_8), deflated ? METHOD_DEFLATED : METHOD_STORED, crc.getValue(), content.length, data.length, this.spill(data), false));
+	}
+
+	public void addEntry(String name, String content) {
+		this.addEntry(name, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Adds a directory entry.
+	 *
+	 * @param name Name of the directory, using '/' as separator
+	 */
+	public void addDirectory(String name) {
+		String entryName = normalize(name);
+		if (entryName.isEmpty()) {
+			return;
+		}
+		entryName = entryName.endsWith("/") ? entryName : entryName + "/";
+		this.put(entryName, new Entry(entryName.getBytes(StandardCharsets.UTF_8), METHOD_STORED, 0L, 0L, 0L, 0L, true));
+	}
+
+	/**
+	 * Appends data to the spill file. Each caller reserves its own range of the file, so that multiple threads can write concurrently.
+	 *
+	 * @return Position of the data in the spill file
+	 */
+	private long spill(byte[] data) {
+		if (this.closed) {
+			throw new IllegalStateException("Zip writer for %s is already closed".formatted(this.target));
+		}
+		long offset = this.spillSize.getAndAdd(data.length);
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		try {
+			while (buffer.hasRemaining()) {
+				this.spillChannel.write(buffer, offset + buffer.position());
+			}
+		} catch (IOException e) {
+			MiscHelper.panicBecause(e, "Could not spill entry of zip archive %s", this.target);
+		}
+		return offset;
+	}
+
+	private void put(String entryName, Entry entry) {
+		if (this.closed) {
+			throw new IllegalStateException("Zip writer for %s is already closed".formatted(this.target));
+		}
+		this.entries.put(entryName, entry);
+	}
+
+	private static String normalize(String name) {
+		String normalized = name.replace('\\', '/');
+		while (normalized.startsWith("/")) {
+			normalized = normalized.substring(1);
+		}
+		return normalized;
+	}
+
+	/**
+	 * Marks that all entries were added, so that the archive is written once this writer is closed.
+	 */
+	public void finish() {
+		this.finished = true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			if (this.closed) {
+				return;
+			}
+			this.closed = true;
+		}
+		try (FileChannel spill = this.spillChannel) {
+			if (!this.finished) {
+				this.entries.clear();
+				return;
+			}
+			List<Entry> sortedEntries = new ArrayList<>(this.entries.values());
+			this.entries.clear();
+			Path tmpFile = Files.createTempFile(this.target.toAbsolutePath().getParent(), this.target.getFileName().toString(), ".tmp");
+			try {
+				try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(tmpFile), COPY_BUFFER_SIZE)) {
+					this.writeArchive(output, spill, sortedEntries);
+				}
+				Files.move(tmpFile, this.target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(tmpFile);
+			}
+		} finally {
+			Files.deleteIfExists(this.spillFile);
+		}
+	}
+
+	private void writeArchive(OutputStream output, FileChannel spill, List<Entry> sortedEntries) throws IOException {
+		long[] offsets = new long[sortedEntries.size()];
+		long offset = 0L;
+		ByteBuffer copyBuffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+		for (int i = 0; i < sortedEntries.size(); ++i) {
+			Entry entry = sortedEntries.get(i);
+			offsets[i] = offset;
+			boolean zip64 = entry.requiresZip64();
+			int extraLength = zip64 ? 20 : 0;
+			ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_SIZE + entry.name().length + extraLength).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(LOCAL_HEADER_SIGNATURE);
+			header.putShort(zip64 ? VERSION_ZIP64 : VERSION);
+			header.putShort(FLAG_UTF8);
+			header.putShort(entry.method());
+			header.putShort(DOS_TIME);
+			header.putShort(DOS_DATE);
+			header.putInt((int) entry.crc());
+			header.putInt((int) (zip64 ? ZIP64_MAGIC_INT : entry.compressedSize()));
+			header.putInt((int) (zip64 ? ZIP64_MAGIC_INT : entry.size()));
+			header.putShort((short) entry.name().length);
+			header.putShort((short) extraLength);
+			header.put(entry.name());
+			if (zip64) {
+				header.putShort(ZIP64_EXTRA_TAG);
+				header.putShort((short) 16);
+				header.putLong(entry.size());
+				header.putLong(entry.compressedSize());
+			}
+			output.write(header.array());
+			copySpilled(spill, entry.spillOffset(), entry.compressedSize(), copyBuffer, output);
+			offset += header.capacity() + entry.compressedSize();
+		}
+		long centralDirectoryOffset = offset;
+		for (int i = 0; i < sortedEntries.size(); ++i) {
+			Entry entry = sortedEntries.get(i);
+			boolean zip64Sizes = entry.requiresZip64();
+			boolean zip64Offset = offsets[i] >= ZIP64_MAGIC_INT;
+			int extraLength = (zip64Sizes || zip64Offset ? 4 : 0) + (zip64Sizes ? 16 : 0) + (zip64Offset ? 8 : 0);
+			ByteBuffer header = ByteBuffer.allocate(CENTRAL_HEADER_SIZE + entry.name().length + extraLength).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(CENTRAL_HEADER_SIGNATURE);
+			header.putShort(extraLength > 0 ? VERSION_ZIP64 : VERSION);
+			header.putShort(extraLength > 0 ? VERSION_ZIP64 : VERSION);
+			header.putShort(FLAG_UTF8);
+			header.putShort(entry.method());
+			header.putShort(DOS_TIME);
+			header.putShort(DOS_DATE);
+			header.putInt((int) entry.crc());
+			header.putInt((int) (zip64Sizes ? ZIP64_MAGIC_INT : entry.compressedSize()));
+			header.putInt((int) (zip64Sizes ? ZIP64_MAGIC_INT : entry.size()));
+			header.putShort((short) entry.name().length);
+			header.putShort((short) extraLength);
+			header.putShort((short) 0); // comment length
+			header.putShort((short) 0); // disk number
+			header.putShort((short) 0); // internal attributes
+			header.putInt(entry.directory() ? ATTRIBUTE_DIRECTORY : 0);
+			header.putInt((int) (zip64Offset ? ZIP64_MAGIC_INT : offsets[i]));
+			header.put(entry.name());
+			if (extraLength > 0) {
+				// only fields that do not fit into the header are part of the extra field, in this order
+				header.putShort(ZIP64_EXTRA_TAG);
+				header.putShort((short) (extraLength - 4));
+				if (zip64Sizes) {
+					header.putLong(entry.size());
+					header.putLong(entry.compressedSize());
+				}
+				if (zip64Offset) {
+					header.putLong(offsets[i]);
+				}
+			}
+			output.write(header.array());
+			offset += header.capacity();
+		}
+		long centralDirectorySize = offset - centralDirectoryOffset;
+		boolean zip64End = sortedEntries.size() >= ZIP64_MAGIC_SHORT || centralDirectoryOffset >= ZIP64_MAGIC_INT || centralDirectorySize >= ZIP64_MAGIC_INT;
+		if (zip64End) {
+			ByteBuffer zip64EndRecord = ByteBuffer.allocate(ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE + ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			zip64EndRecord.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+			zip64EndRecord.putLong(ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE - 12); // size of the remaining record
+			zip64EndRecord.putShort(VERSION_ZIP64);
+			zip64EndRecord.putShort(VERSION_ZIP64);
+			zip64EndRecord.putInt(0); // disk number
+			zip64EndRecord.putInt(0); // disk of central directory
+			zip64EndRecord.putLong(sortedEntries.size());
+			zip64EndRecord.putLong(sortedEntries.size());
+			zip64EndRecord.putLong(centralDirectorySize);
+			zip64EndRecord.putLong(centralDirectoryOffset);
+			zip64EndRecord.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE);
+			zip64EndRecord.putInt(0); // disk of zip64 end of central directory
+			zip64EndRecord.putLong(offset);
+			zip64EndRecord.putInt(1); // total number of disks
+			output.write(zip64EndRecord.array());
+		}
+		ByteBuffer end = ByteBuffer.allocate(END_OF_CENTRAL_DIRECTORY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		end.putInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+		end.putShort((short) 0); // disk number
+		end.putShort((short) 0); // disk of central directory
+		end.putShort((short) Math.min(sortedEntries.size(), ZIP64_MAGIC_SHORT));
+		end.putShort((short) Math.min(sortedEntries.size(), ZIP64_MAGIC_SHORT));
+		end.putInt((int) Math.min(centralDirectorySize, ZIP64_MAGIC_INT));
+		end.putInt((int) Math.min(centralDirectoryOffset, ZIP64_MAGIC_INT));
+		end.putShort((short) 0); // comment length
+		output.write(end.array());
+	}
+
+	private static void copySpilled(FileChannel spill, long position, long length, ByteBuffer buffer, OutputStream output) throws IOException {
+		long remaining = length;
+		while (remaining > 0) {
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), remaining));
+			int read = spill.read(buffer, position + (length - remaining));
+			if (read < 0) {
+				throw new IOException("Spill file of zip archive ended unexpectedly");
+			}
+			output.write(buffer.array(), 0, read);
+			remaining -= read;
+		}
+	}
+}
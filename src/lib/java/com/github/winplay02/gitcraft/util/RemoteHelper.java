@@ -16,10 +16,13 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.github.winplay02.gitcraft.util.FileSystemNetworkManager.LocalFileInfo;
 
@@ -64,22 +67,43 @@ public class RemoteHelper {
 
 	public static void saveMavenCache() throws IOException {
 		try {
-			SerializationHelper.writeAllToPath(LibraryPaths.MAVEN_CACHE, SerializationHelper.serialize(mavenCache));
+			mavenCache.save();
 		} catch (NoSuchFileException ignored) {}
 		// If it can't save, it probably means, we're in a testing environment, after cleaning up
 		// If this occurs during normal use, it just won't cache anything. Too bad.
 	}
 
 	public static void loadMavenCache() throws IOException {
-		if (Files.exists(LibraryPaths.MAVEN_CACHE)) {
-			mavenCache = SerializationHelper.deserialize(SerializationHelper.fetchAllFromPath(LibraryPaths.MAVEN_CACHE), MavenCache.class);
-		}
+		mavenCache = MavenCache.load(LibraryPaths.MAVEN_CACHE);
 	}
 
 	public static ArtifactMetadata createMavenURLFromMavenArtifact(String mavenUrl) throws IOException {
 		return new ArtifactMetadata(mavenCache.getSha1ForURL(urlencodedURL(mavenUrl + ".sha1")), -1, urlencodedURL(mavenUrl));
 	}
 
+	/**
+	 * Same as {@link #createMavenURLFromMavenArtifact(String)} for multiple artifacts, the checksums of which are resolved concurrently.
+	 */
+	public static List<ArtifactMetadata> createMavenURLsFromMavenArtifacts(List<String> mavenUrls) throws IOException {
+		if (mavenUrls.isEmpty()) {
+			return List.of();
+		}
+		Map<String, String> sha1s;
+		try (ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Maven-Checksum-Resolution-", 0).factory())) {
+			sha1s = mavenCache.getSha1ForURLs(executor, mavenUrls.stream().map(mavenUrl -> urlencodedURL(mavenUrl + ".sha1")).toList());
+		}
+		return mavenUrls.stream().map(mavenUrl -> new ArtifactMetadata(sha1s.get(urlencodedURL(mavenUrl + ".sha1")), -1, urlencodedURL(mavenUrl))).toList();
+	}
+
+	/**
+	 * Starts resolving the checksums of maven artifacts, that are downloaded later on, so that their lookups do not happen one after another.
+	 */
+	public static void prefetchMavenChecksums(Executor executor, String... mavenUrls) {
+		for (String mavenUrl : mavenUrls) {
+			mavenCache.getSha1ForURLAsync(executor, urlencodedURL(mavenUrl + ".sha1"));
+		}
+	}
+
 	public static StepStatus downloadToFileWithChecksumIfNotExistsNoRetryMaven(Executor executor, String url, LocalFileInfo localFileInfo) {
 		try {
 			String sha1 = mavenCache.getSha1ForURL(urlencodedURL(url + ".sha1"));
@@ -0,0 +1,255 @@
+package com.github.winplay02.gitcraft.util;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.GC;
+import org.eclipse.jgit.internal.storage.file.Pack;
+import org.eclipse.jgit.internal.storage.pack.PackExt;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.storage.pack.PackConfig;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Maintenance of the object database of a repository, which avoids rewriting packs that are already in a good shape.
+ * <p>
+ * Packs are kept in a geometric progression: sorted by size, each pack must be at least twice as large as all smaller packs combined.
+ * Only the packs violating the progression are rolled up into a new pack together with all loose objects, while larger packs are marked as kept during the repack and are not rewritten.
+ * Everything is repacked (including a bitmap index) only if no pack satisfies the progression, or if the bitmap index covers too few objects.
+ * <p>
+ * While commits are created concurrently, replaced packs are only deleted once they expire. Until then, they are remembered in a file next to the repository
+ * and do not take part in the progression, as their objects are already contained in a newer pack.
+ */
+public final class RepoMaintenance {
+	private static final int GEOMETRIC_FACTOR = 2;
+	// versions of the same decompiled class differ only slightly, a larger window finds these bases across many versions
+	private static final int DELTA_SEARCH_WINDOW = 64;
+	private static final int MAX_DELTA_DEPTH = 64;
+	private static final long DELTA_CACHE_SIZE = 256L * 1024 * 1024;
+	// loose objects alone are only packed once there are enough of them
+	private static final long MIN_LOOSE_OBJECTS = 256;
+	static final String KEEP_MESSAGE = "gitcraft: retained by geometric repack\n";
+	private static final String REPLACED_PACKS_FILE = "gitcraft-replaced-packs";
+	// same default as gc.autoPackLimit of git
+	private static final int DEFAULT_AUTO_PACK_LIMIT = 50;
+
+	public enum Strategy {
+		/**
+		 * The object database is already in a good shape
+		 */
+		SKIPPED,
+		/**
+		 * Small packs and loose objects were rolled up into a new pack, large packs were retained
+		 */
+		GEOMETRIC,
+		/**
+		 * All objects were repacked into a single pack with a bitmap index
+		 */
+		FULL
+	}
+
+	/**
+	 * @param packFiles     Number of packs
+	 * @param packedObjects Number of objects in packs
+	 * @param packedBytes   Size of all packs
+	 * @param looseObjects  Number of loose objects
+	 * @param looseBytes    Size of all loose objects
+	 * @param bitmaps       Number of bitmaps
+	 */
+	public record PackStatistics(long packFiles, long packedObjects, long packedBytes, long looseObjects, long looseBytes, long bitmaps) {
+		private static PackStatistics of(GC.RepoStatistics statistics) {
+			return new PackStatistics(statistics.numberOfPackFiles, statistics.numberOfPackedObjects, statistics.sizeOfPackedObjects, statistics.numberOfLooseObjects, statistics.sizeOfLooseObjects, statistics.numberOfBitmaps);
+		}
+
+		@Override
+		public String toString() {
+			return "%d packs (%d objects, %.1f MiB), %d loose objects (%.1f MiB), %d bitmaps".formatted(this.packFiles(), this.packedObjects(), this.packedBytes() / 1048576.0d, this.looseObjects(), this.looseBytes() / 1048576.0d, this.bitmaps());
+		}
+	}
+
+	/**
+	 * @param strategy       Performed maintenance
+	 * @param before         Statistics before maintenance
+	 * @param after          Statistics after maintenance
+	 * @param durationMillis Duration of maintenance
+	 */
+	public record Result(Strategy strategy, PackStatistics before, PackStatistics after, long durationMillis) {
+		@Override
+		public String toString() {
+			return "Repository maintenance (%s) took %d ms%n\tbefore: %s%n\tafter:  %s".formatted(this.strategy(), this.durationMillis(), this.before(), this.after());
+		}
+	}
+
+	private RepoMaintenance() {
+	}
+
+	/**
+	 * Runs maintenance. Callers must ensure that maintenance does not run multiple times concurrently on the same repository.
+	 *
+	 * @param repository Repository
+	 * @param concurrent Whether commits may be created concurrently. Refs are not packed then, and only unreachable objects older than the prune expiry are removed.
+	 * @return Result of maintenance
+	 */
+	public static Result run(FileRepository repository, boolean concurrent) throws IOException {
+		long start = System.nanoTime();
+		Path packDirectory = repository.getObjectDatabase().getPackDirectory().toPath();
+		Path replacedPacksFile = repository.getDirectory().toPath().resolve(REPLACED_PACKS_FILE);
+		removeRetainingKeepFiles(packDirectory);
+		Set<String> replacedPacks = readReplacedPacks(replacedPacksFile, packDirectory);
+		GC gc = new GC(repository);
+		gc.setPackConfig(packConfig(repository));
+		GC.RepoStatistics statisticsBefore = gc.getStatistics();
+		PackStatistics before = PackStatistics.of(statisticsBefore);
+		// packs kept by someone else are never rewritten and do not take part in the progression, neither do packs that were already replaced
+		List<Pack> packs = new ArrayList<>();
+		for (Pack pack : repository.getObjectDatabase().getPacks()) {
+			if (!pack.shouldBeKept() && !replacedPacks.contains(pack.getPackFile().getName())) {
+				packs.add(pack);
+			}
+		}
+		packs.sort(Comparator.comparingLong(pack -> pack.getPackFile().length()));
+		int rollUp = geometricRollUp(packs.stream().mapToLong(pack -> pack.getPackFile().length()).toArray());
+		if (rollUp == 0 && before.looseObjects() < MIN_LOOSE_OBJECTS) {
+			return new Result(Strategy.SKIPPED, before, before, (System.nanoTime() - start) / 1_000_000L);
+		}
+		// packs written while others are kept do not get a bitmap index, the existing one is only replaced by a full repack
+		boolean bitmapOutdated = statisticsBefore.numberOfObjectsSinceBitmap > statisticsBefore.numberOfPackedObjects / 2;
+		Strategy strategy = rollUp >= packs.size() || bitmapOutdated ? Strategy.FULL : Strategy.GEOMETRIC;
+		if (!concurrent) {
+			// nobody else accesses the repository, replaced packs do not need to stay around for concurrent readers
+			gc.setPackExpireAgeMillis(0L);
+		}
+		List<Path> keepFiles = new ArrayList<>();
+		try {
+			if (strategy == Strategy.GEOMETRIC) {
+				// objects of kept packs would otherwise be duplicated into the new pack, as bitmaps are built
+				gc.setPackKeptObjects(false);
+				for (Pack pack : packs.subList(rollUp, packs.size())) {
+					Path keepFile = pack.getPackFile().create(PackExt.KEEP).toPath();
+					Files.writeString(keepFile, KEEP_MESSAGE);
+					keepFiles.add(keepFile);
+				}
+			}
+			if (concurrent) {
+				gc.repack();
+				gc.prune(Set.of());
+			} else {
+				gc.gc().get();
+			}
+		} catch (GitAPIException | ParseException | ExecutionException e) {
+			throw new IOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} finally {
+			for (Path keepFile : keepFiles) {
+				Files.deleteIfExists(keepFile);
+			}
+		}
+		for (Pack pack : strategy == Strategy.GEOMETRIC ? packs.subList(0, rollUp) : packs) {
+			replacedPacks.add(pack.getPackFile().getName());
+		}
+		writeReplacedPacks(replacedPacksFile, packDirectory, replacedPacks);
+		PackStatistics after = PackStatistics.of(gc.getStatistics());
+		return new Result(strategy, before, after, (System.nanoTime() - start) / 1_000_000L);
+	}
+
+	/**
+	 * Every commit is written as its own pack, so that a long run accumulates packs, even if maintenance is not run after each commit.
+	 * The limit is read from {@code gc.autoPackLimit} of the repository, like git does; a limit of 0 disables the check.
+	 *
+	 * @param repository Repository
+	 * @return Whether there are more packs taking part in the progression than the limit
+	 */
+	public static boolean tooManyPacks(FileRepository repository) throws IOException {
+		int limit = repository.getConfig().getInt(ConfigConstants.CONFIG_GC_SECTION, ConfigConstants.CONFIG_KEY_AUTOPACKLIMIT, DEFAULT_AUTO_PACK_LIMIT);
+		if (limit <= 0) {
+			return false;
+		}
+		Set<String> replacedPacks = readReplacedPacks(repository.getDirectory().toPath().resolve(REPLACED_PACKS_FILE), repository.getObjectDatabase().getPackDirectory().toPath());
+		long packs = repository.getObjectDatabase().getPacks().stream()
+			.filter(pack -> !pack.shouldBeKept() && !replacedPacks.contains(pack.getPackFile().getName()))
+			.count();
+		return packs > limit;
+	}
+
+	/**
+	 * Removes keep files, that were written by a geometric repack, which was interrupted before it could remove them.
+	 * Otherwise, their packs would never take part in maintenance again.
+	 */
+	private static void removeRetainingKeepFiles(Path packDirectory) throws IOException {
+		if (!Files.isDirectory(packDirectory)) {
+			return;
+		}
+		try (DirectoryStream<Path> keepFiles = Files.newDirectoryStream(packDirectory, "*." + PackExt.KEEP.getExtension())) {
+			for (Path keepFile : keepFiles) {
+				if (KEEP_MESSAGE.equals(new String(Files.readAllBytes(keepFile), StandardCharsets.UTF_8))) {
+					Files.deleteIfExists(keepFile);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return File names of packs, which were replaced by a previous repack and still exist
+	 */
+	private static Set<String> readReplacedPacks(Path replacedPacksFile, Path packDirectory) throws IOException {
+		Set<String> replacedPacks = new TreeSet<>();
+		if (Files.exists(replacedPacksFile)) {
+			for (String packName : Files.readAllLines(replacedPacksFile, StandardCharsets.UTF_8)) {
+				if (!packName.isBlank() && Files.exists(packDirectory.resolve(packName))) {
+					replacedPacks.add(packName);
+				}
+			}
+		}
+		return replacedPacks;
+	}
+
+	private static void writeReplacedPacks(Path replacedPacksFile, Path packDirectory, Set<String> replacedPacks) throws IOException {
+		// expired packs were deleted by the repack
+		replacedPacks.removeIf(packName -> !Files.exists(packDirectory.resolve(packName)));
+		if (replacedPacks.isEmpty()) {
+			Files.deleteIfExists(replacedPacksFile);
+		} else {
+			Files.write(replacedPacksFile, replacedPacks, StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * @param ascendingPackSizes Sizes of all packs in ascending order
+	 * @return Number of smallest packs, that violate the geometric progression and need to be rolled up
+	 */
+	static int geometricRollUp(long[] ascendingPackSizes) {
+		int rollUp = 0;
+		long smallerBytes = 0L;
+		for (int i = 0; i < ascendingPackSizes.length; ++i) {
+			if (ascendingPackSizes[i] < GEOMETRIC_FACTOR * smallerBytes) {
+				rollUp = i + 1;
+			}
+			smallerBytes += ascendingPackSizes[i];
+		}
+		return rollUp;
+	}
+
+	private static PackConfig packConfig(FileRepository repository) {
+		// explicitly configured values of the repository are only ever raised
+		PackConfig packConfig = new PackConfig(repository);
+		packConfig.setDeltaSearchWindowSize(Math.max(packConfig.getDeltaSearchWindowSize(), DELTA_SEARCH_WINDOW));
+		packConfig.setMaxDeltaDepth(Math.max(packConfig.getMaxDeltaDepth(), MAX_DELTA_DEPTH));
+		packConfig.setDeltaCacheSize(Math.max(packConfig.getDeltaCacheSize(), DELTA_CACHE_SIZE));
+		packConfig.setThreads(Runtime.getRuntime().availableProcessors());
+		packConfig.setBuildBitmaps(true);
+		return packConfig;
+	}
+}
@@ -1,14 +1,17 @@
 package com.github.winplay02.gitcraft.util;
 
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.errors.IncorrectObjectTypeException;
 import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.revwalk.filter.RevFilter;
@@ -20,14 +23,18 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.TimeZone;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 
 public class RepoWrapper implements Closeable {
 	private final Git git;
 	private final Path root_path;
+	private final CommitMessageIndex commitMessageIndex;
+	// held while maintenance runs, which may be in the background
+	private final Semaphore maintenancePermit = new Semaphore(1);
 
 	public Git getGit() {
 		return this.git;
@@ -36,11 +43,20 @@ public class RepoWrapper implements Closeable {
 	public RepoWrapper(Path root_path, String initial_branch) throws Exception {
 		this.root_path = Objects.requireNonNull(root_path);
 		this.git = Git.init().setInitialBranch(initial_branch).setDirectory(this.root_path.toFile()).call();
+		this.commitMessageIndex = new CommitMessageIndex(this.git.getRepository());
 	}
 
 	@Override
 	public void close() {
+		// background maintenance must not outlive the repository
+		this.maintenancePermit.acquireUninterruptibly();
+		try {
+			this.commitMessageIndex.save();
+		} catch (IOException e) {
+			MiscHelper.println("WARNING: Commit message index could not be saved: %s", e.getMessage());
+		}
 		this.git.close();
+		this.maintenancePermit.release();
 	}
 
 	public Path getRootPath() {
@@ -63,7 +79,7 @@ public class RepoWrapper implements Closeable {
 		if (this.git.getRepository().resolve(Constants.HEAD) == null) {
 			return false;
 		}
-		return this.git.log().all().setRevFilter(new CommitMsgFilter(commitMessage)).call().iterator().hasNext();
+		return this.commitMessageIndex.find(commitMessage) != null;
 	}
 
 	public boolean existsRevWithCommitMessageNoExcept(String commitMessage) {
@@ -76,11 +92,18 @@ public class RepoWrapper implements Closeable {
 	}
 
 	public RevCommit findRevByCommitMessage(String commitMessage) throws GitAPIException, IOException {
-		Iterator<RevCommit> iterator = this.git.log().all().setRevFilter(new CommitMsgFilter(commitMessage)).call().iterator();
-		if (iterator.hasNext()) {
-			return iterator.next();
+		ObjectId commitId = this.commitMessageIndex.find(commitMessage);
+		if (commitId == null) {
+			return null;
 		}
-		return null;
+		return this.git.getRepository().parseCommit(commitId);
+	}
+
+	/**
+	 * @return Names of all branches, whose tip is a commit with the provided message
+	 */
+	public List<String> findBranchesByCommitMessage(String commitMessage) throws IOException {
+		return this.commitMessageIndex.findBranches(commitMessage);
 	}
 
 	public boolean doesBranchExist(String target_branch) throws IOException {
@@ -90,6 +113,7 @@ public class RepoWrapper implements Closeable {
 
 	public void checkoutNewOrphanBranch(String target_branch) throws GitAPIException {
 		this.git.checkout().setOrphan(true).setName(target_branch).call();
+		this.commitMessageIndex.invalidate();
 	}
 
 	public void switchHEAD(Ref ref) throws IOException {
@@ -98,6 +122,7 @@ public class RepoWrapper implements Closeable {
 		if (result != RefUpdate.Result.FORCED) {
 			MiscHelper.panic("Unsuccessfully changed HEAD to %s, result was: %s", ref, result);
 		}
+		this.commitMessageIndex.invalidate();
 	}
 
 	public void writeMERGE_HEAD(HashSet<RevCommit> commits) throws IOException {
@@ -115,6 +140,57 @@ public class RepoWrapper implements Closeable {
 		this.git.add().addFilepattern(".").setRenormalize(false).call();
 		PersonIdent author = new PersonIdent(authorName, authorMail, authoredDateTime.toInstant(), authoredTimeZone.toZoneId());
 		this.git.commit().setMessage(message).setAuthor(author).setCommitter(author).setSign(false).call();
+		this.commitMessageIndex.invalidate();
+	}
+
+	/**
+	 * @return Builder for the tree of a new commit, which reuses blobs of the current HEAD commit
+	 */
+	public CommitTreeBuilder newCommitTree() throws IOException {
+		return new CommitTreeBuilder(this.git.getRepository(), this.git.getRepository().resolve(Constants.HEAD));
+	}
+
+	/**
+	 * Creates a commit from a tree that was built directly, without staging any changes of the working tree.
+	 * The parents of the commit are the current HEAD commit (if any) and all commits in MERGE_HEAD, which is cleared afterwards.
+	 * The index is updated to match the new commit, while the working tree is only updated by {@link #updateWorkingTree()}.
+	 */
+	public void createCommitFromTree(CommitTreeBuilder tree, String authorName, String authorMail, Date authoredDateTime, TimeZone authoredTimeZone, String message) throws IOException {
+		Repository repository = this.git.getRepository();
+		ObjectId headId = repository.resolve(Constants.HEAD);
+		List<ObjectId> parents = new ArrayList<>();
+		if (headId != null) {
+			parents.add(headId);
+		}
+		List<ObjectId> mergeHeads = repository.readMergeHeads();
+		if (mergeHeads != null) {
+			parents.addAll(mergeHeads);
+		}
+		PersonIdent author = new PersonIdent(authorName, authorMail, authoredDateTime.toInstant(), authoredTimeZone.toZoneId());
+		ObjectId commitId = tree.commit(parents, author, message);
+		RefUpdate refUpdate = repository.updateRef(Constants.HEAD);
+		refUpdate.setNewObjectId(commitId);
+		refUpdate.setExpectedOldObjectId(headId != null ? headId : ObjectId.zeroId());
+		refUpdate.setRefLogMessage("commit: " + message.lines().findFirst().orElse(""), false);
+		RefUpdate.Result result = refUpdate.update();
+		if (result != RefUpdate.Result.NEW && result != RefUpdate.Result.FAST_FORWARD && result != RefUpdate.Result.FORCED) {
+			MiscHelper.panic("Unsuccessfully updated HEAD to commit %s, result was: %s", commitId.name(), result);
+		}
+		repository.writeMergeHeads(null);
+		this.commitMessageIndex.invalidate();
+	}
+
+	/**
+	 * Updates the working tree to match the HEAD commit, which should be called once all commits have been created.
+	 * Files that are not part of the HEAD commit are removed, ignored files are kept.
+	 */
+	public void updateWorkingTree() throws GitAPIException, IOException {
+		if (this.isHeadless()) {
+			return;
+		}
+		// only files differing from the HEAD commit are written
+		this.git.reset().setMode(ResetCommand.ResetType.HARD).call();
+		this.git.clean().setCleanDirectories(true).call();
 	}
 
 	public void createBranchFromCurrentCommit(String branchName) throws GitAPIException, IOException {
@@ -123,6 +199,7 @@ public class RepoWrapper implements Closeable {
 			RevCommit commit = walk.parseCommit(commitId);
 			this.git.branchCreate().setName(branchName).setStartPoint(commit).call();
 		}
+		this.commitMessageIndex.invalidate();
 	}
 
 	public void resetRef(String targetRefName, RevCommit targetCommit) throws IOException {
@@ -134,6 +211,7 @@ public class RepoWrapper implements Closeable {
 		if (result != RefUpdate.Result.FORCED && result != RefUpdate.Result.NO_CHANGE) {
 			MiscHelper.panic("Unsuccessfully changed ref %s to %s, result was: %s", targetRefName, targetCommit.getId(), result);
 		}
+		this.commitMessageIndex.invalidate();
 	}
 
 	public void deleteRef(String targetRefName) throws IOException {
@@ -144,6 +222,7 @@ public class RepoWrapper implements Closeable {
 		if (result != RefUpdate.Result.FORCED) {
 			MiscHelper.panic("Unsuccessfully deleted ref %s, result was: %s", targetRefName, result);
 		}
+		this.commitMessageIndex.invalidate();
 	}
 
 	public void checkoutBranch(String targetBranch) throws IOException {
@@ -198,8 +277,58 @@ public class RepoWrapper implements Closeable {
 		}
 	}
 
-	public void gc() throws GitAPIException {
-		this.git.gc().call();
+	/**
+	 * Runs maintenance of the object database (see {@link RepoMaintenance}), after waiting for maintenance running in the background.
+	 *
+	 * @return Result of maintenance
+	 */
+	public RepoMaintenance.Result gc() throws IOException {
+		this.maintenancePermit.acquireUninterruptibly();
+		try {
+			return RepoMaintenance.run((FileRepository) this.git.getRepository(), false);
+		} finally {
+			this.maintenancePermit.release();
+		}
+	}
+
+	/**
+	 * Starts maintenance of the object database in the background, which is safe while commits are created concurrently.
+	 * Nothing is started if maintenance is already running.
+	 *
+	 * @param executor Executor to run maintenance on
+	 */
+	public void gcInBackground(Executor executor) {
+		if (!this.maintenancePermit.tryAcquire()) {
+			return;
+		}
+		try {
+			executor.execute(() -> {
+				try {
+					RepoMaintenance.Result result = RepoMaintenance.run((FileRepository) this.git.getRepository(), true);
+					if (result.strategy() != RepoMaintenance.Strategy.SKIPPED) {
+						MiscHelper.println("%s", result);
+					}
+				} catch (IOException e) {
+					MiscHelper.println("WARNING: Background repository maintenance failed: %s", e.getMessage());
+				} finally {
+					this.maintenancePermit.release();
+				}
+			});
+		} catch (RuntimeException e) {
+			this.maintenancePermit.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Starts maintenance of the object database in the background, once there are too many packs (see {@link RepoMaintenance#tooManyPacks(FileRepository)}).
+	 *
+	 * @param executor Executor to run maintenance on
+	 */
+	public void gcInBackgroundIfTooManyPacks(Executor executor) throws IOException {
+		if (this.git.getRepository() instanceof FileRepository repository && RepoMaintenance.tooManyPacks(repository)) {
+			this.gcInBackground(executor);
+		}
 	}
 
 	public static final class CommitMsgFilter extends RevFilter {
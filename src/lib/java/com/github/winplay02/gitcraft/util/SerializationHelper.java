@@ -2,20 +2,23 @@ package com.github.winplay02.gitcraft.util;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.Strictness;
 import com.google.gson.TypeAdapter;
 import com.google.gson.TypeAdapterFactory;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
 
 import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -25,10 +28,9 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Queue;
+import java.util.TreeMap;
 import java.util.function.Function;
 
 public class SerializationHelper {
@@ -128,25 +130,116 @@ public class SerializationHelper {
 		return outStream.toString(StandardCharsets.UTF_8);
 	}
 
-	private static JsonElement sortJsonElement(JsonElement element) {
-		Queue<JsonElement> queue = new LinkedList<>();
-		queue.add(element);
-		while (!queue.isEmpty()) {
-			JsonElement subject = queue.poll();
-			if (subject instanceof final JsonObject object) {
-				Map<String, JsonElement> mappings = new HashMap<>(object.asMap());
-				object.asMap().clear();
-				mappings.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach((entry) -> object.add(entry.getKey(), entry.getValue()));
-				mappings.values().stream().filter(entry -> entry instanceof JsonObject || entry instanceof JsonArray).forEach(queue::add);
+	/**
+	 * Sorts the keys of all objects of a JSON document. The result is pretty-printed exactly like {@link #serialize(Object)} would print the sorted document.
+	 * <p>
+	 * The document is streamed instead of being parsed into a tree. Only the members of the objects that are currently being sorted are kept,
+	 * as already formatted text.
+	 * <p>
+	 * An empty document (or one consisting only of whitespace) is rejected like any other invalid document.
+	 * Gson parses it as null, which could not be serialized either, so such files were never sorted successfully.
+	 *
+	 * @throws JsonSyntaxException if the document is empty or invalid
+	 */
+	public static String sortJSON(String json) {
+		try {
+			JsonReader reader = new JsonReader(new StringReader(json));
+			// same as parsing using gson: the document is read leniently, but trailing content is checked strictly
+			reader.setStrictness(Strictness.LENIENT);
+			String sortedJson = sortedJsonValue(reader);
+			reader.setStrictness(Strictness.LEGACY_STRICT);
+			if (reader.peek() != JsonToken.END_DOCUMENT) {
+				throw new JsonSyntaxException("JSON document was not fully consumed.");
 			}
-			if (subject instanceof final JsonArray array) {
-				array.asList().stream().filter(entry -> entry instanceof JsonObject || entry instanceof JsonArray).forEach(queue::add);
+			return sortedJson != null ? sortedJson : "null";
+		} catch (MalformedJsonException | EOFException e) {
+			throw new JsonSyntaxException(e);
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+	}
+
+	/**
+	 * @return Next value of the reader, formatted as if it was written at the top level, or null if the value is null
+	 */
+	private static String sortedJsonValue(JsonReader reader) throws IOException {
+		switch (reader.peek()) {
+			case BEGIN_OBJECT -> {
+				// sorted by key, later members replace earlier members with the same key, like in parsed objects
+				Map<String, String> members = new TreeMap<>();
+				reader.beginObject();
+				while (reader.hasNext()) {
+					String key = reader.nextName();
+					members.put(key, sortedJsonValue(reader));
+				}
+				reader.endObject();
+				StringWriter writer = new StringWriter();
+				JsonWriter jsonWriter = newSortedJsonWriter(writer);
+				jsonWriter.beginObject();
+				for (Map.Entry<String, String> member : members.entrySet()) {
+					// members with null values are omitted, as nulls are not serialized
+					if (member.getValue() != null) {
+						jsonWriter.name(member.getKey()).jsonValue(indentNested(member.getValue()));
+					}
+				}
+				jsonWriter.endObject();
+				return writer.toString();
+			}
+			case BEGIN_ARRAY -> {
+				StringWriter writer = new StringWriter();
+				JsonWriter jsonWriter = newSortedJsonWriter(writer);
+				jsonWriter.beginArray();
+				reader.beginArray();
+				while (reader.hasNext()) {
+					String element = sortedJsonValue(reader);
+					if (element != null) {
+						jsonWriter.jsonValue(indentNested(element));
+					} else {
+						jsonWriter.nullValue();
+					}
+				}
+				reader.endArray();
+				jsonWriter.endArray();
+				return writer.toString();
+			}
+			case STRING -> {
+				StringWriter writer = new StringWriter();
+				newSortedJsonWriter(writer).value(reader.nextString());
+				return writer.toString();
+			}
+			case NUMBER -> {
+				// numbers are kept as they are written in the document
+				return reader.nextString();
 			}
+			case BOOLEAN -> {
+				return String.valueOf(reader.nextBoolean());
+			}
+			case NULL -> {
+				reader.nextNull();
+				return null;
+			}
+			default -> throw new JsonSyntaxException("Unexpected token %s at %s".formatted(reader.peek(), reader.getPath()));
 		}
-		return element;
+	}
+
+	private static JsonWriter newSortedJsonWriter(StringWriter writer) {
+		JsonWriter jsonWriter = new JsonWriter(writer);
+		// same settings as used by serialize()
+		jsonWriter.setIndent("\t");
+		jsonWriter.setHtmlSafe(gson.htmlSafe());
+		jsonWriter.setSerializeNulls(gson.serializeNulls());
+		jsonWriter.setStrictness(Strictness.LENIENT);
+		return jsonWriter;
+	}
+
+	/**
+	 * Indents a formatted value by one level, so that it can be nested into an object or array. Line breaks never occur inside of formatted strings.
+	 */
+	private static String indentNested(String formattedValue) {
+		return formattedValue.indexOf('\n') >= 0 ? formattedValue.replace("\n", "\n\t") : formattedValue;
 	}
 
 	public static void sortJSONFile(Path path) throws IOException {
-		writeAllToPath(path, serialize(sortJsonElement(gson.fromJson(fetchAllFromPath(path), JsonElement.class))));
+		writeAllToPath(path, sortJSON(fetchAllFromPath(path)));
 	}
 }
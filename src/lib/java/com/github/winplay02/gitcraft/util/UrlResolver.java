@@ -0,0 +1,24 @@
+package com.github.winplay02.gitcraft.util;
+
+import java.io.FileNotFoundException;
+import java.net.URI;
+
+/**
+ * Resolves the URL of a requested resource to the location it is actually fetched from (see {@link FileSystemNetworkManager#setUrlResolver(UrlResolver)}).
+ * <p>
+ * The resolved location may be a {@code file:} URI, in which case the content is read locally instead of being requested.
+ */
+@FunctionalInterface
+public interface UrlResolver {
+	/**
+	 * Fetches every resource from its original location.
+	 */
+	UrlResolver DIRECT = uri -> uri;
+
+	/**
+	 * @param uri Requested URL
+	 * @return Location to fetch the resource from
+	 * @throws FileNotFoundException if the resource is not available at all
+	 */
+	URI resolve(URI uri) throws FileNotFoundException;
+}
@@ -52,6 +52,8 @@ public class GitCraft extends GitCraftApplication {
 				IPipeline.run(GitCraftPipelineDescription.GC_PIPELINE, GitCraftPipelineFilesystemStorage.DEFAULT.get(), repo, versionGraph);
 			}
 			if (repo != null) {
+				// commits are created without touching the working tree
+				repo.updateWorkingTree();
 				MiscHelper.println("Repo can be found at: %s", repo.getRootPath().toString());
 			}
 		}
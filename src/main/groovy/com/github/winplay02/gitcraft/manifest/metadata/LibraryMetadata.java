@@ -10,16 +10,9 @@ import java.util.Map;
 public record LibraryMetadata(String name, Downloads downloads, List<VersionInfo.VersionArgumentRule> rules, Extract extract, Map<String, String> natives) {
 	public List<ArtifactMetadata> getArtifact() {
 		if (this.downloads() != null) {
-			List<ArtifactMetadata> artifacts = new ArrayList<>();
-			if (this.downloads().artifact() != null) {
-				artifacts.add(this.downloads().artifact());
-			}
-			if (this.downloads().classifiers() != null) {
-				artifacts.addAll(this.downloads().classifiers().values());
-			}
-			return artifacts;
+			return this.getDownloadArtifacts();
 		}
-		final String mavenUrl = RemoteHelper.createMavenURLFromMavenArtifact("https://libraries.minecraft.net", this.name());
+		final String mavenUrl = this.getMavenUrl();
 		try {
 			return List.of(RemoteHelper.createMavenURLFromMavenArtifact(mavenUrl));
 		} catch (IOException e) {
@@ -27,6 +20,42 @@ public record LibraryMetadata(String name, Downloads downloads, List<VersionInfo
 		}
 	}
 
+	/**
+	 * Same as {@link #getArtifact()} for all given libraries, checksums of libraries without download information are resolved concurrently.
+	 */
+	public static List<ArtifactMetadata> getArtifacts(List<LibraryMetadata> libraries) {
+		List<ArtifactMetadata> artifacts = new ArrayList<>();
+		List<String> mavenUrls = new ArrayList<>();
+		for (LibraryMetadata library : libraries) {
+			if (library.downloads() != null) {
+				artifacts.addAll(library.getDownloadArtifacts());
+			} else {
+				mavenUrls.add(library.getMavenUrl());
+			}
+		}
+		try {
+			artifacts.addAll(RemoteHelper.createMavenURLsFromMavenArtifacts(mavenUrls));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		return artifacts;
+	}
+
+	private List<ArtifactMetadata> getDownloadArtifacts() {
+		List<ArtifactMetadata> artifacts = new ArrayList<>();
+		if (this.downloads().artifact() != null) {
+			artifacts.add(this.downloads().artifact());
+		}
+		if (this.downloads().classifiers() != null) {
+			artifacts.addAll(this.downloads().classifiers().values());
+		}
+		return artifacts;
+	}
+
+	private String getMavenUrl() {
+		return RemoteHelper.createMavenURLFromMavenArtifact("https://libraries.minecraft.net", this.name());
+	}
+
 	public record Downloads(ArtifactMetadata artifact, Map<String, ArtifactMetadata> classifiers) {
 	}
 
@@ -0,0 +1,379 @@
+package com.github.winplay02.gitcraft.mappings;
+
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.MappingVisitor;
+import net.fabricmc.mappingio.tree.MappingTreeView;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary serialization of prepared mapping trees.
+ * <p>
+ * A file contains a string table (every name, descriptor and comment is stored once) followed by the sequence of visitor events
+ * that is produced when the tree is visited, with all strings replaced by their index into the string table.
+ * Files are read using a memory mapping and replayed into any {@link MappingVisitor}, which is considerably faster than parsing text formats.
+ * <p>
+ * Each file carries a stamp describing the inputs it was created from; files with a different stamp are treated as absent.
+ */
+final class BinaryMappingFormat {
+	private static final int MAGIC = 0x47434D42; // GCMB
+	private static final int FORMAT_VERSION = 1;
+
+	private static final byte EVENT_HEADER = 0;
+	private static final byte EVENT_NAMESPACES = 1;
+	private static final byte EVENT_METADATA = 2;
+	private static final byte EVENT_CONTENT = 3;
+	private static final byte EVENT_CLASS = 4;
+	private static final byte EVENT_FIELD = 5;
+	private static final byte EVENT_METHOD = 6;
+	private static final byte EVENT_METHOD_ARG = 7;
+	private static final byte EVENT_METHOD_VAR = 8;
+	private static final byte EVENT_DST_NAME = 9;
+	private static final byte EVENT_DST_DESC = 10;
+	private static final byte EVENT_ELEMENT_CONTENT = 11;
+	private static final byte EVENT_COMMENT = 12;
+	private static final byte EVENT_END = 13;
+
+	private static final MappedElementKind[] ELEMENT_KINDS = MappedElementKind.values();
+
+	private BinaryMappingFormat() {
+	}
+
+	/**
+	 * Writes a mapping tree. The file is replaced atomically.
+	 *
+	 * @param tree  Tree to write
+	 * @param path  Target file
+	 * @param stamp Description of the inputs of the tree
+	 */
+	static void write(MappingTreeView tree, Path path, String stamp) throws IOException {
+		EventWriter writer = new EventWriter();
+		tree.accept(writer);
+		Path directory = Files.createDirectories(path.toAbsolutePath().getParent());
+		// unique per writer, the same tree may be prepared concurrently
+		Path tmpPath = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+		try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(tmpPath))) {
+			output.writeInt(MAGIC);
+			output.writeInt(FORMAT_VERSION);
+			writeString(output, stamp);
+			output.writeInt(writer.strings.size());
+			for (String string : writer.strings) {
+				writeString(output, string);
+			}
+			writer.events.writeTo(output);
+		}
+		Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Replays a mapping tree into a visitor, if the file exists and was created with the provided stamp.
+	 *
+	 * @param path    File to read
+	 * @param stamp   Expected description of the inputs of the tree
+	 * @param visitor Visitor
+	 * @return true if the file was replayed, false if it does not exist or has a different stamp or format
+	 */
+	static boolean read(Path path, String stamp, MappingVisitor visitor) throws IOException {
+		if (!Files.isRegularFile(path)) {
+			return false;
+		}
+		// the mapping is released once the arena is closed, rather than once the buffer is collected, which would keep the file locked on Windows
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ); Arena arena = Arena.ofConfined()) {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena).asByteBuffer();
+			if (buffer.remaining() < Integer.BYTES * 2 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+				return false;
+			}
+			if (!stamp.equals(readString(buffer))) {
+				return false;
+			}
+			String[] strings = new String[buffer.getInt()];
+			for (int i = 0; i < strings.length; ++i) {
+				strings[i] = readString(buffer);
+			}
+			int eventsStart = buffer.position();
+			do {
+				buffer.position(eventsStart);
+				replay(buffer, strings, visitor);
+			} while (!visitor.visitEnd());
+			return true;
+		}
+	}
+
+	private static void writeString(DataOutputStream output, String string) throws IOException {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static String string(String[] strings, int index) {
+		return index < 0 ? null : strings[index];
+	}
+
+	/**
+	 * Replays one pass of events up to (excluding) the end event. Elements the visitor declines are skipped together with their children.
+	 */
+	private static void replay(ByteBuffer buffer, String[] strings, MappingVisitor visitor) throws IOException {
+		// structural events have a nesting level, all events until the next structural event with a level <= skipLevel are skipped
+		int skipLevel = Integer.MAX_VALUE;
+		int currentLevel = 0;
+		while (true) {
+			byte event = buffer.get();
+			int level = switch (event) {
+				case EVENT_HEADER, EVENT_CONTENT, EVENT_END -> 0;
+				case EVENT_CLASS -> 1;
+				case EVENT_FIELD, EVENT_METHOD -> 2;
+				case EVENT_METHOD_ARG, EVENT_METHOD_VAR -> 3;
+				default -> -1;
+			};
+			if (level >= 0) {
+				if (level <= skipLevel) {
+					skipLevel = Integer.MAX_VALUE;
+				}
+				currentLevel = level;
+			}
+			boolean skip = skipLevel != Integer.MAX_VALUE;
+			switch (event) {
+				case EVENT_HEADER -> {
+					if (!visitor.visitHeader()) {
+						skipLevel = level;
+					}
+				}
+				case EVENT_NAMESPACES -> {
+					String srcNamespace = string(strings, buffer.getInt());
+					List<String> dstNamespaces = new ArrayList<>();
+					for (int i = buffer.getInt(); i > 0; --i) {
+						dstNamespaces.add(string(strings, buffer.getInt()));
+					}
+					if (!skip) {
+						visitor.visitNamespaces(srcNamespace, dstNamespaces);
+					}
+				}
+				case EVENT_METADATA -> {
+					String key = string(strings, buffer.getInt());
+					String value = string(strings, buffer.getInt());
+					if (!skip) {
+						visitor.visitMetadata(key, value);
+					}
+				}
+				case EVENT_CONTENT -> {
+					if (!visitor.visitContent()) {
+						skipLevel = level;
+					}
+				}
+				case EVENT_CLASS -> {
+					String srcName = string(strings, buffer.getInt());
+					if (!skip && !visitor.visitClass(srcName)) {
+						skipLevel = level;
+					}
+				}
+				case EVENT_FIELD, EVENT_METHOD -> {
+					String srcName = string(strings, buffer.getInt());
+					String srcDesc = string(strings, buffer.getInt());
+					if (!skip && !(event == EVENT_FIELD ? visitor.visitField(srcName, srcDesc) : visitor.visitMethod(srcName, srcDesc))) {
+						skipLevel = level;
+					}
+				}
+				case EVENT_METHOD_ARG -> {
+					int argPosition = buffer.getInt();
+					int lvIndex = buffer.getInt();
+					String srcName = string(strings, buffer.getInt());
+					if (!skip && !visitor.visitMethodArg(argPosition, lvIndex, srcName)) {
+						skipLevel = level;
+					}
+				}
+				case EVENT_METHOD_VAR -> {
+					int lvtRowIndex = buffer.getInt();
+					int lvIndex = buffer.getInt();
+					int startOpIdx = buffer.getInt();
+					int endOpIdx = buffer.getInt();
+					String srcName = string(strings, buffer.getInt());
+					if (!skip && !visitor.visitMethodVar(lvtRowIndex, lvIndex, startOpIdx, endOpIdx, srcName)) {
+						skipLevel = level;
+					}
+				}
+				case EVENT_DST_NAME, EVENT_DST_DESC -> {
+					MappedElementKind kind = ELEMENT_KINDS[buffer.get()];
+					int namespace = buffer.getInt();
+					String value = string(strings, buffer.getInt());
+					if (!skip) {
+						if (event == EVENT_DST_NAME) {
+							visitor.visitDstName(kind, namespace, value);
+						} else {
+							visitor.visitDstDesc(kind, namespace, value);
+						}
+					}
+				}
+				case EVENT_ELEMENT_CONTENT -> {
+					MappedElementKind kind = ELEMENT_KINDS[buffer.get()];
+					if (!skip && !visitor.visitElementContent(kind)) {
+						skipLevel = currentLevel;
+					}
+				}
+				case EVENT_COMMENT -> {
+					MappedElementKind kind = ELEMENT_KINDS[buffer.get()];
+					String comment = string(strings, buffer.getInt());
+					if (!skip) {
+						visitor.visitComment(kind, comment);
+					}
+				}
+				case EVENT_END -> {
+					return;
+				}
+				default -> throw new IOException("Unknown mapping event %d".formatted(event));
+			}
+		}
+	}
+
+	/**
+	 * Records all visited events, accepting every element.
+	 */
+	private static final class EventWriter implements MappingVisitor {
+		private final Map<String, Integer> stringIndices = new HashMap<>();
+		private final List<String> strings = new ArrayList<>();
+		private final ByteArrayOutputStream events = new ByteArrayOutputStream(1 << 16);
+		private final DataOutputStream output = new DataOutputStream(this.events);
+
+		private void writeString(String string) throws IOException {
+			if (string == null) {
+				this.output.writeInt(-1);
+				return;
+			}
+			Integer index = this.stringIndices.get(string);
+			if (index == null) {
+				index = this.strings.size();
+				this.strings.add(string);
+				this.stringIndices.put(string, index);
+			}
+			this.output.writeInt(index);
+		}
+
+		@Override
+		public boolean visitHeader() throws IOException {
+			this.output.writeByte(EVENT_HEADER);
+			return true;
+		}
+
+		@Override
+		public void visitNamespaces(String srcNamespace, List<String> dstNamespaces) throws IOException {
+			this.output.writeByte(EVENT_NAMESPACES);
+			this.writeString(srcNamespace);
+			this.output.writeInt(dstNamespaces.size());
+			for (String dstNamespace : dstNamespaces) {
+				this.writeString(dstNamespace);
+			}
+		}
+
+		@Override
+		public void visitMetadata(String key, String value) throws IOException {
+			this.output.writeByte(EVENT_METADATA);
+			this.writeString(key);
+			this.writeString(value);
+		}
+
+		@Override
+		public boolean visitContent() throws IOException {
+			this.output.writeByte(EVENT_CONTENT);
+			return true;
+		}
+
+		@Override
+		public boolean visitClass(String srcName) throws IOException {
+			this.output.writeByte(EVENT_CLASS);
+			this.writeString(srcName);
+			return true;
+		}
+
+		@Override
+		public boolean visitField(String srcName, String srcDesc) throws IOException {
+			this.output.writeByte(EVENT_FIELD);
+			this.writeString(srcName);
+			this.writeString(srcDesc);
+			return true;
+		}
+
+		@Override
+		public boolean visitMethod(String srcName, String srcDesc) throws IOException {
+			this.output.writeByte(EVENT_METHOD);
+			this.writeString(srcName);
+			this.writeString(srcDesc);
+			return true;
+		}
+
+		@Override
+		public boolean visitMethodArg(int argPosition, int lvIndex, String srcName) throws IOException {
+			this.output.writeByte(EVENT_METHOD_ARG);
+			this.output.writeInt(argPosition);
+			this.output.writeInt(lvIndex);
+			this.writeString(srcName);
+			return true;
+		}
+
+		@Override
+		public boolean visitMethodVar(int lvtRowIndex, int lvIndex, int startOpIdx, int endOpIdx, String srcName) throws IOException {
+			this.output.writeByte(EVENT_METHOD_VAR);
+			this.output.writeInt(lvtRowIndex);
+			this.output.writeInt(lvIndex);
+			this.output.writeInt(startOpIdx);
+			this.output.writeInt(endOpIdx);
+			this.writeString(srcName);
+			return true;
+		}
+
+		@Override
+		public void visitDstName(MappedElementKind targetKind, int namespace, String name) throws IOException {
+			this.output.writeByte(EVENT_DST_NAME);
+			this.output.writeByte(targetKind.ordinal());
+			this.output.writeInt(namespace);
+			this.writeString(name);
+		}
+
+		@Override
+		public void visitDstDesc(MappedElementKind targetKind, int namespace, String desc) throws IOException {
+			this.output.writeByte(EVENT_DST_DESC);
+			this.output.writeByte(targetKind.ordinal());
+			this.output.writeInt(namespace);
+			this.writeString(desc);
+		}
+
+		@Override
+		public boolean visitElementContent(MappedElementKind targetKind) throws IOException {
+			this.output.writeByte(EVENT_ELEMENT_CONTENT);
+			this.output.writeByte(targetKind.ordinal());
+			return true;
+		}
+
+		@Override
+		public void visitComment(MappedElementKind targetKind, String comment) throws IOException {
+			this.output.writeByte(EVENT_COMMENT);
+			this.output.writeByte(targetKind.ordinal());
+			this.writeString(comment);
+		}
+
+		@Override
+		public boolean visitEnd() throws IOException {
+			this.output.writeByte(EVENT_END);
+			this.output.flush();
+			return true;
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package com.github.winplay02.gitcraft.mappings;
+
+import com.github.winplay02.gitcraft.pipeline.GitCraftPipelineFilesystemRoot;
+import com.github.winplay02.gitcraft.pipeline.GitCraftPipelineFilesystemStorage;
+import com.github.winplay02.gitcraft.pipeline.key.MinecraftJar;
+import com.github.winplay02.gitcraft.types.OrderedVersion;
+import com.github.winplay02.gitcraft.util.MiscHelper;
+import net.fabricmc.mappingio.tree.MappingTreeView;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+import net.fabricmc.mappingio.tree.VisitableMappingTree;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide cache of prepared mapping trees.
+ * <p>
+ * Trees of a mapping flavour are stored per version and jar in a compact binary form (see {@link BinaryMappingFormat}), so that
+ * mapping files only need to be parsed once. Loaded trees, as well as trees derived from cached trees (inverted, renamed, fused),
+ * are kept in memory up to a bounded estimated size, evicting the least recently used trees first.
+ * <p>
+ * Cached trees are shared and must not be modified.
+ */
+final class MappingTreeCache {
+	private static final String PREPARED_DIRECTORY = "prepared";
+	private static final String PREPARED_EXTENSION = ".mapbin";
+	// rough estimate of the heap usage of a single mapped element per namespace
+	private static final long BYTES_PER_ELEMENT = 96;
+	private static final long MAX_WEIGHT = Runtime.getRuntime().maxMemory() / 8 / BYTES_PER_ELEMENT;
+
+	@FunctionalInterface
+	interface TreeFactory {
+		VisitableMappingTree create() throws IOException;
+	}
+
+	private record FlavourKey(String mapping, String version, MinecraftJar jar, String stamp) {
+	}
+
+	private record FlavourVersionKey(String mapping, String version) {
+	}
+
+	private record DerivedKey(String operation, List<Object> inputs, List<Object> arguments) {
+	}
+
+	private record CachedTree(VisitableMappingTree tree, long weight) {
+	}
+
+	private static final LinkedHashMap<Object, CachedTree> TREES = new LinkedHashMap<>(16, 0.75f, true);
+	private static final Map<VisitableMappingTree, Object> KEYS = new IdentityHashMap<>();
+	private static long totalWeight = 0;
+	private static final Map<FlavourVersionKey, Map<MinecraftJar, Path>> RESOLVED_PATHS = new ConcurrentHashMap<>();
+
+	private MappingTreeCache() {
+	}
+
+	/**
+	 * @return Tree of the provided mapping flavour for the provided version and jar, either from memory, from a prepared binary file or by visiting the mapping
+	 */
+	static VisitableMappingTree getOrLoad(Mapping mapping, OrderedVersion version, MinecraftJar mcJar) throws IOException {
+		String stamp = stamp(mapping, version);
+		FlavourKey key = new FlavourKey(mapping.getName(), version.launcherFriendlyVersionName(), mcJar, Objects.requireNonNullElse(stamp, ""));
+		VisitableMappingTree cached = get(key);
+		if (cached != null) {
+			return cached;
+		}
+		MemoryMappingTree tree = new MemoryMappingTree();
+		if (stamp == null) {
+			// no mapping files to derive a stamp from, only keep in memory
+			mapping.visit(version, mcJar, tree);
+			return put(key, tree);
+		}
+		Path preparedPath = preparedPath(mapping, version, mcJar);
+		boolean prepared = false;
+		try {
+			prepared = BinaryMappingFormat.read(preparedPath, stamp, tree);
+		} catch (IOException | RuntimeException e) {
+			MiscHelper.println("WARNING: Prepared mappings %s cannot be read and will be recreated", preparedPath);
+			tree = new MemoryMappingTree();
+		}
+		if (!prepared) {
+			mapping.visit(version, mcJar, tree);
+			try {
+				BinaryMappingFormat.write(tree, preparedPath, stamp);
+			} catch (IOException e) {
+				MiscHelper.println("WARNING: Prepared mappings %s cannot be written: %s", preparedPath, e.getMessage());
+			}
+		}
+		return put(key, tree);
+	}
+
+	/**
+	 * Derives a tree from other trees. If all input trees are cached, the derived tree is cached as well and reused for identical derivations.
+	 *
+	 * @param operation Name of the derivation
+	 * @param inputs    Input trees
+	 * @param arguments Further arguments of the derivation, must implement equals and hashCode
+	 * @param factory   Creates the derived tree
+	 * @return Derived tree
+	 */
+	static VisitableMappingTree derive(String operation, List<VisitableMappingTree> inputs, List<Object> arguments, TreeFactory factory) throws IOException {
+		List<Object> inputKeys;
+		synchronized (MappingTreeCache.class) {
+			inputKeys = inputs.stream().map(KEYS::get).toList();
+		}
+		if (inputKeys.contains(null)) {
+			return factory.create();
+		}
+		DerivedKey key = new DerivedKey(operation, inputKeys, arguments);
+		VisitableMappingTree cached = get(key);
+		if (cached != null) {
+			return cached;
+		}
+		return put(key, factory.create());
+	}
+
+	private static synchronized VisitableMappingTree get(Object key) {
+		CachedTree cached = TREES.get(key);
+		return cached != null ? cached.tree() : null;
+	}
+
+	private static synchronized VisitableMappingTree put(Object key, VisitableMappingTree tree) {
+		CachedTree existing = TREES.get(key);
+		if (existing != null) {
+			// loaded concurrently
+			return existing.tree();
+		}
+		long weight = weight(tree);
+		if (weight > MAX_WEIGHT) {
+			return tree;
+		}
+		TREES.put(key, new CachedTree(tree, weight));
+		KEYS.put(tree, key);
+		totalWeight += weight;
+		Iterator<CachedTree> it = TREES.values().iterator();
+		while (totalWeight > MAX_WEIGHT && it.hasNext()) {
+			CachedTree eldest = it.next();
+			it.remove();
+			KEYS.remove(eldest.tree());
+			totalWeight -= eldest.weight();
+		}
+		return tree;
+	}
+
+	private static long weight(MappingTreeView tree) {
+		long elements = 1;
+		for (MappingTreeView.ClassMappingView classMapping : tree.getClasses()) {
+			elements += 1 + classMapping.getFields().size() + classMapping.getMethods().size();
+		}
+		return elements * (1 + tree.getDstNamespaces().size());
+	}
+
+	private static Path preparedPath(Mapping mapping, OrderedVersion version, MinecraftJar mcJar) {
+		String fileName = "%s-%s-%s".formatted(version.launcherFriendlyVersionName(), mcJar.name().toLowerCase(), mapping.getName()).replaceAll("[^A-Za-z0-9._-]", "_");
+		return GitCraftPipelineFilesystemRoot.getMappings().apply(GitCraftPipelineFilesystemStorage.DEFAULT.get().rootFilesystem()).resolve(PREPARED_DIRECTORY).resolve(fileName + PREPARED_EXTENSION);
+	}
+
+	/**
+	 * @return Description of the mapping files that may be read when visiting the mapping, or null if none of them exist
+	 */
+	private static String stamp(Mapping mapping, OrderedVersion version) throws IOException {
+		Map<MinecraftJar, Path> resolvedPaths = RESOLVED_PATHS.computeIfAbsent(new FlavourVersionKey(mapping.getName(), version.launcherFriendlyVersionName()), __ -> new ConcurrentHashMap<>());
+		StringBuilder stamp = new StringBuilder(mapping.getName());
+		boolean anyFile = false;
+		for (MinecraftJar jar : MinecraftJar.values()) {
+			Path path = resolvedPaths.get(jar);
+			if (path == null) {
+				// resolving a path may require looking up metadata, it is only repeated until the flavour can resolve the path
+				path = mapping.getMappingsPath(version, jar).orElse(null);
+				if (path == null) {
+					continue;
+				}
+				resolvedPaths.put(jar, path);
+			}
+			BasicFileAttributes attributes;
+			try {
+				attributes = Files.readAttributes(path, BasicFileAttributes.class);
+			} catch (NoSuchFileException e) {
+				continue;
+			}
+			if (!attributes.isRegularFile()) {
+				continue;
+			}
+			stamp.append('|').append(jar.name()).append(':').append(attributes.size()).append(':').append(attributes.lastModifiedTime().toMillis());
+			anyFile = true;
+		}
+		return anyFile ? stamp.toString() : null;
+	}
+}
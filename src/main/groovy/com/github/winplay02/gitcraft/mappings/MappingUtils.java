@@ -22,6 +22,7 @@ import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
@@ -80,6 +81,9 @@ public class MappingUtils {
 		return createTreeFromMappingFlavour(mapping, versionContext.targetVersion(), mcJar);
 	}
 
+	/**
+	 * Returned trees (as well as trees derived from them by this class) are cached and shared, they must not be modified.
+	 */
 	public static VisitableMappingTree createTreeFromMappingFlavour(MappingFlavour mapping, OrderedVersion version, MinecraftJar mcJar) {
 		return createTreeFromMappingFlavour(mapping.getImpl(), version, mcJar);
 	}
@@ -88,13 +92,12 @@ public class MappingUtils {
 		if (!mapping.canMappingsBeUsedOn(version, mcJar)) {
 			MiscHelper.panic("Tried to use %s-mappings for version %s, %s jar. These mappings can not be used for this version.", mapping, version.launcherFriendlyVersionName(), mcJar.name().toLowerCase());
 		}
-		MemoryMappingTree mappings = new MemoryMappingTree();
 		try {
-			mapping.visit(version, mcJar, mappings);
+			return MappingTreeCache.getOrLoad(mapping, version, mcJar);
 		} catch (IOException e) {
 			MiscHelper.panicBecause(e, "An error occurred while getting mapping information for %s (version %s)", mapping, version.launcherFriendlyVersionName());
+			return null;
 		}
-		return mappings;
 	}
 
 	public static Stream<String> getNamespaces(VisitableMappingTree mapping) {
@@ -113,9 +116,11 @@ public class MappingUtils {
 	}
 
 	public static VisitableMappingTree renameNamespace(VisitableMappingTree mapping, Map<String, String> renames) throws IOException {
-		MemoryMappingTree outMappingTree = new MemoryMappingTree();
-		mapping.accept(new MappingNsRenamer(outMappingTree, renames));
-		return outMappingTree;
+		return MappingTreeCache.derive("renameNamespace", List.of(mapping), List.of(renames), () -> {
+			MemoryMappingTree outMappingTree = new MemoryMappingTree();
+			mapping.accept(new MappingNsRenamer(outMappingTree, renames));
+			return outMappingTree;
+		});
 	}
 
 	public static VisitableMappingTree invert(VisitableMappingTree mapping) throws IOException {
@@ -127,12 +132,18 @@ public class MappingUtils {
 	}
 
 	public static VisitableMappingTree invert(VisitableMappingTree mapping, String newSrc, boolean allowNamespaceMerge) throws IOException {
-		MemoryMappingTree outMappingTree = new MemoryMappingTree();
-		mapping.accept(new MappingSourceNsSwitch(outMappingTree, newSrc, !allowNamespaceMerge));
-		return outMappingTree;
+		return MappingTreeCache.derive("invert", List.of(mapping), Arrays.asList(newSrc, allowNamespaceMerge), () -> {
+			MemoryMappingTree outMappingTree = new MemoryMappingTree();
+			mapping.accept(new MappingSourceNsSwitch(outMappingTree, newSrc, !allowNamespaceMerge));
+			return outMappingTree;
+		});
 	}
 
 	public static VisitableMappingTree fuseKeep(VisitableMappingTree mappingAtoB, VisitableMappingTree mappingBtoC, boolean allowNamespaceMerge) throws IOException {
+		return MappingTreeCache.derive("fuseKeep", List.of(mappingAtoB, mappingBtoC), List.of(allowNamespaceMerge), () -> fuseKeepUncached(mappingAtoB, mappingBtoC, allowNamespaceMerge));
+	}
+
+	private static VisitableMappingTree fuseKeepUncached(VisitableMappingTree mappingAtoB, VisitableMappingTree mappingBtoC, boolean allowNamespaceMerge) throws IOException {
 		MemoryMappingTree intermediateMappingTree = new MemoryMappingTree();
 		mappingBtoC.accept(intermediateMappingTree);
 		Set<String> nsToRename = getNamespaces(mappingBtoC).collect(Collectors.toSet());
@@ -148,6 +159,10 @@ public class MappingUtils {
 	}
 
 	public static VisitableMappingTree fuse(VisitableMappingTree mappingAtoB, VisitableMappingTree mappingBtoC, boolean allowNamespaceMerge) throws IOException {
+		return MappingTreeCache.derive("fuse", List.of(mappingAtoB, mappingBtoC), List.of(allowNamespaceMerge), () -> fuseUncached(mappingAtoB, mappingBtoC, allowNamespaceMerge));
+	}
+
+	private static VisitableMappingTree fuseUncached(VisitableMappingTree mappingAtoB, VisitableMappingTree mappingBtoC, boolean allowNamespaceMerge) throws IOException {
 		MemoryMappingTree intermediateMappingTree = new MemoryMappingTree();
 		// do not create unwanted mixtures of mappings
 		Map<String, String> fallbackMappingsToCommon = MiscHelper.concatStreams(
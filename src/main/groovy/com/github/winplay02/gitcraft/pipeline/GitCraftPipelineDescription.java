@@ -1,6 +1,7 @@
 package com.github.winplay02.gitcraft.pipeline;
 
 import com.github.winplay02.gitcraft.GitCraft;
+import com.github.winplay02.gitcraft.Library;
 import com.github.winplay02.gitcraft.exceptions.ExceptionsFlavour;
 import com.github.winplay02.gitcraft.graph.AbstractVersionGraph;
 import com.github.winplay02.gitcraft.launcher.LaunchPrepareLaunchableFile;
@@ -68,6 +69,12 @@ public final class GitCraftPipelineDescription {
 		);
 	}
 
+	// Decompilations run concurrently (limited by the memory budget), except if incremental decompilation is used, which reuses sources of the previous version
+	// The configuration is only checked once the execution graph is built, as it is not yet applied when this class is initialized
+	private static StepDependencies<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> decompileInterVersionDependencies() {
+		return StepDependencies.ofConditionalInterVersion(() -> Library.CONF_GLOBAL != null && Library.CONF_GLOBAL.incrementalDecompilation(), GitCraftStep.DECOMPILE_JARS);
+	}
+
 	// Reset is not in the default pipeline, as parallelization would be even trickier, since every step (more or less) depends on it
 	public static final PipelineDescription<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> RESET_PIPELINE = new PipelineDescription<>(
 		"Reset",
@@ -99,6 +106,7 @@ public final class GitCraftPipelineDescription {
 			GitCraftStep.PROVIDE_NESTS,
 			GitCraftStep.APPLY_NESTS,
 			GitCraftStep.PREEN_JARS,
+			GitCraftStep.TRANSFORM_JARS,
 			GitCraftStep.DECOMPILE_JARS,
 			GitCraftStep.COMMIT
 		),
@@ -128,7 +136,8 @@ public final class GitCraftPipelineDescription {
 				GitCraftStep.PREEN_JARS, (storage, results) -> new GitCraftStepWorker.JarTupleInput(results.getKeyByPriority(NESTED_MERGED_JAR, UNPICKED_MERGED_JAR, REMAPPED_MERGED_JAR), results.getKeyByPriority(NESTED_CLIENT_JAR, UNPICKED_CLIENT_JAR, REMAPPED_CLIENT_JAR), results.getKeyByPriority(NESTED_SERVER_JAR, UNPICKED_SERVER_JAR, REMAPPED_SERVER_JAR))
 			),
 			Map.of(
-				GitCraftStep.DECOMPILE_JARS, (storage, results) -> new GitCraftStepWorker.JarTupleInput(results.getKeyByPriority(PREENED_MERGED_JAR, NESTED_MERGED_JAR, UNPICKED_MERGED_JAR, REMAPPED_MERGED_JAR), results.getKeyByPriority(PREENED_CLIENT_JAR, NESTED_CLIENT_JAR, UNPICKED_CLIENT_JAR, REMAPPED_CLIENT_JAR), results.getKeyByPriority(PREENED_SERVER_JAR, NESTED_SERVER_JAR, UNPICKED_SERVER_JAR, REMAPPED_SERVER_JAR)),
+				GitCraftStep.TRANSFORM_JARS, (storage, results) -> new GitCraftStepWorker.JarTupleInput(results.getKeyIfExists(ARTIFACTS_MERGED_JAR), results.getKeyIfExists(ARTIFACTS_CLIENT_JAR), results.getKeyByPriority(ARTIFACTS_SERVER_JAR, UNPACKED_SERVER_JAR)),
+				GitCraftStep.DECOMPILE_JARS, (storage, results) -> new GitCraftStepWorker.JarTupleInput(results.getKeyByPriority(TRANSFORMED_MERGED_JAR, PREENED_MERGED_JAR, NESTED_MERGED_JAR, UNPICKED_MERGED_JAR, REMAPPED_MERGED_JAR), results.getKeyByPriority(TRANSFORMED_CLIENT_JAR, PREENED_CLIENT_JAR, NESTED_CLIENT_JAR, UNPICKED_CLIENT_JAR, REMAPPED_CLIENT_JAR), results.getKeyByPriority(TRANSFORMED_SERVER_JAR, PREENED_SERVER_JAR, NESTED_SERVER_JAR, UNPICKED_SERVER_JAR, REMAPPED_SERVER_JAR)),
 				GitCraftStep.COMMIT, (storage, results) -> new Committer.Inputs(
 					results.getKeyIfExists(DECOMPILED_MERGED_JAR), results.getKeyIfExists(DECOMPILED_CLIENT_JAR), results.getKeyIfExists(DECOMPILED_SERVER_JAR),
 					results.getKeyIfExists(ARTIFACTS_SERVER_ZIP), results.getKeyByPriority(ARTIFACTS_MERGED_JAR, ARTIFACTS_CLIENT_JAR),
@@ -145,7 +154,8 @@ public final class GitCraftPipelineDescription {
 				GitCraftStep.DATAGEN, StepDependencies.ofIntraVersion(Set.of(GitCraftStep.FETCH_ARTIFACTS), Set.of(GitCraftStep.UNPACK_ARTIFACTS, GitCraftStep.MERGE_OBFUSCATED_JARS)),
 				GitCraftStep.PATCH_LOCAL_VARIABLE_TABLES, StepDependencies.ofIntraVersion(Set.of(GitCraftStep.FETCH_ARTIFACTS, GitCraftStep.FETCH_LIBRARIES), Set.of(GitCraftStep.UNPACK_ARTIFACTS, GitCraftStep.MERGE_OBFUSCATED_JARS)),
 				GitCraftStep.APPLY_EXCEPTIONS, StepDependencies.ofIntraVersion(Set.of(GitCraftStep.FETCH_ARTIFACTS, GitCraftStep.PROVIDE_EXCEPTIONS), Set.of(GitCraftStep.UNPACK_ARTIFACTS, GitCraftStep.MERGE_OBFUSCATED_JARS, GitCraftStep.PATCH_LOCAL_VARIABLE_TABLES)),
-				GitCraftStep.APPLY_SIGNATURES, StepDependencies.ofIntraVersion(Set.of(GitCraftStep.FETCH_ARTIFACTS, GitCraftStep.PROVIDE_SIGNATURES), Set.of(GitCraftStep.UNPACK_ARTIFACTS, GitCraftStep.MERGE_OBFUSCATED_JARS, GitCraftStep.PATCH_LOCAL_VARIABLE_TABLES, GitCraftStep.APPLY_EXCEPTIONS))
+				GitCraftStep.APPLY_SIGNATURES, StepDependencies.ofIntraVersion(Set.of(GitCraftStep.FETCH_ARTIFACTS, GitCraftStep.PROVIDE_SIGNATURES), Set.of(GitCraftStep.UNPACK_ARTIFACTS, GitCraftStep.MERGE_OBFUSCATED_JARS, GitCraftStep.PATCH_LOCAL_VARIABLE_TABLES, GitCraftStep.APPLY_EXCEPTIONS)),
+				GitCraftStep.TRANSFORM_JARS, StepDependencies.ofIntraVersion(Set.of(GitCraftStep.FETCH_ARTIFACTS, GitCraftStep.FETCH_LIBRARIES, GitCraftStep.PROVIDE_MAPPINGS, GitCraftStep.PROVIDE_UNPICK, GitCraftStep.PROVIDE_EXCEPTIONS, GitCraftStep.PROVIDE_SIGNATURES, GitCraftStep.PROVIDE_NESTS), Set.of(GitCraftStep.UNPACK_ARTIFACTS, GitCraftStep.MERGE_OBFUSCATED_JARS))
 			),
 			Map.of(
 				GitCraftStep.REMAP_JARS, StepDependencies.ofIntraVersion(Set.of(GitCraftStep.FETCH_ARTIFACTS, GitCraftStep.PROVIDE_MAPPINGS), Set.of(GitCraftStep.UNPACK_ARTIFACTS, GitCraftStep.MERGE_OBFUSCATED_JARS, GitCraftStep.PATCH_LOCAL_VARIABLE_TABLES, GitCraftStep.APPLY_EXCEPTIONS, GitCraftStep.APPLY_SIGNATURES)),
@@ -154,7 +164,7 @@ public final class GitCraftPipelineDescription {
 				GitCraftStep.PROVIDE_NESTS, StepDependencies.ofHardIntraVersionOnly(GitCraftStep.PROVIDE_MAPPINGS),
 				GitCraftStep.APPLY_NESTS, StepDependencies.ofIntraVersion(Set.of(GitCraftStep.REMAP_JARS, GitCraftStep.PROVIDE_NESTS), Set.of(GitCraftStep.MERGE_REMAPPED_JARS, GitCraftStep.UNPICK_JARS)),
 				GitCraftStep.PREEN_JARS, StepDependencies.ofIntraVersion(Set.of(GitCraftStep.REMAP_JARS), Set.of(GitCraftStep.MERGE_REMAPPED_JARS, GitCraftStep.UNPICK_JARS, GitCraftStep.APPLY_NESTS)),
-				GitCraftStep.DECOMPILE_JARS, StepDependencies.merge(StepDependencies.ofIntraVersion(Set.of(GitCraftStep.FETCH_ARTIFACTS, GitCraftStep.FETCH_LIBRARIES), Set.of(GitCraftStep.UNPACK_ARTIFACTS, GitCraftStep.MERGE_OBFUSCATED_JARS, GitCraftStep.PATCH_LOCAL_VARIABLE_TABLES, GitCraftStep.APPLY_EXCEPTIONS, GitCraftStep.APPLY_SIGNATURES, GitCraftStep.REMAP_JARS, GitCraftStep.MERGE_REMAPPED_JARS, GitCraftStep.UNPICK_JARS, GitCraftStep.APPLY_NESTS, GitCraftStep.PREEN_JARS)), StepDependencies.ofInterVersion(GitCraftStep.DECOMPILE_JARS)), // only allow one decompile job concurrently
+				GitCraftStep.DECOMPILE_JARS, StepDependencies.merge(StepDependencies.ofIntraVersion(Set.of(GitCraftStep.FETCH_ARTIFACTS, GitCraftStep.FETCH_LIBRARIES), Set.of(GitCraftStep.UNPACK_ARTIFACTS, GitCraftStep.MERGE_OBFUSCATED_JARS, GitCraftStep.PATCH_LOCAL_VARIABLE_TABLES, GitCraftStep.APPLY_EXCEPTIONS, GitCraftStep.APPLY_SIGNATURES, GitCraftStep.REMAP_JARS, GitCraftStep.MERGE_REMAPPED_JARS, GitCraftStep.UNPICK_JARS, GitCraftStep.APPLY_NESTS, GitCraftStep.PREEN_JARS, GitCraftStep.TRANSFORM_JARS)), decompileInterVersionDependencies()),
 				GitCraftStep.COMMIT, StepDependencies.merge(StepDependencies.ofIntraVersion(Set.of(GitCraftStep.FETCH_ARTIFACTS, GitCraftStep.DECOMPILE_JARS), Set.of(GitCraftStep.UNPACK_ARTIFACTS, GitCraftStep.FETCH_ASSETS, GitCraftStep.DATAGEN)), StepDependencies.ofInterVersion(GitCraftStep.COMMIT))
 			)
 		),
@@ -37,6 +37,7 @@ public final class GitCraftPipelineFilesystemStorage {
 	private static final String HINT_SIGNATURES = "signatures";
 	private static final String HINT_NESTED = "nested";
 	private static final String HINT_PREENED = "preened";
+	private static final String HINT_TRANSFORMED = "transformed";
 
 	public static final DirectoryKey ARTIFACTS = new DirectoryKey("artifacts");
 	public static final DirectoryKey LIBRARIES = new DirectoryKey("libraries");
@@ -107,6 +108,11 @@ public final class GitCraftPipelineFilesystemStorage {
 	public static final ArtifactKey PREENED_SERVER_JAR = new ArtifactKey(REMAPPED, SIDE_SERVER, DIST_JAR, HINT_PREENED);
 	public static final ArtifactKey PREENED_MERGED_JAR = new ArtifactKey(REMAPPED, SIDE_MERGED, DIST_JAR, HINT_PREENED);
 
+	// For fused Transformation Step
+	public static final ArtifactKey TRANSFORMED_CLIENT_JAR = new ArtifactKey(REMAPPED, SIDE_CLIENT, DIST_JAR, HINT_TRANSFORMED);
+	public static final ArtifactKey TRANSFORMED_SERVER_JAR = new ArtifactKey(REMAPPED, SIDE_SERVER, DIST_JAR, HINT_TRANSFORMED);
+	public static final ArtifactKey TRANSFORMED_MERGED_JAR = new ArtifactKey(REMAPPED, SIDE_MERGED, DIST_JAR, HINT_TRANSFORMED);
+
 	// Launching Step
 	public static final DirectoryKey LAUNCH_VERSIONS = new DirectoryKey("launch/versions");
 	public static final DirectoryKey LAUNCH_GAME = new DirectoryKey("launch/game");
@@ -123,6 +129,7 @@ public final class GitCraftPipelineFilesystemStorage {
 		Set.of(
 			REMAPPED_CLIENT_JAR, REMAPPED_SERVER_JAR, REMAPPED_MERGED_JAR,
 			UNPICKED_CLIENT_JAR, UNPICKED_SERVER_JAR, UNPICKED_MERGED_JAR,
+			TRANSFORMED_CLIENT_JAR, TRANSFORMED_SERVER_JAR, TRANSFORMED_MERGED_JAR,
 			DECOMPILED_CLIENT_JAR, DECOMPILED_SERVER_JAR, DECOMPILED_MERGED_JAR
 		),
 		Map.of(
@@ -185,7 +192,10 @@ public final class GitCraftPipelineFilesystemStorage {
 			NESTED_MERGED_JAR, createFromKeyWithConfig(REMAPPED, "merged-nested-%s.jar", MinecraftJar.MERGED, FlavourMatcher.LVT, FlavourMatcher.EXCEPTIONS, FlavourMatcher.SIGNATURES, FlavourMatcher.MAPPING, FlavourMatcher.UNPICK, FlavourMatcher.NESTS),
 			PREENED_CLIENT_JAR, createFromKeyWithConfig(REMAPPED, "client-preened-%s.jar", MinecraftJar.CLIENT, FlavourMatcher.LVT, FlavourMatcher.EXCEPTIONS, FlavourMatcher.SIGNATURES, FlavourMatcher.MAPPING, FlavourMatcher.UNPICK, FlavourMatcher.NESTS),
 			PREENED_SERVER_JAR, createFromKeyWithConfig(REMAPPED, "server-preened-%s.jar", MinecraftJar.SERVER, FlavourMatcher.LVT, FlavourMatcher.EXCEPTIONS, FlavourMatcher.SIGNATURES, FlavourMatcher.MAPPING, FlavourMatcher.UNPICK, FlavourMatcher.NESTS),
-			PREENED_MERGED_JAR, createFromKeyWithConfig(REMAPPED, "merged-preened-%s.jar", MinecraftJar.MERGED, FlavourMatcher.LVT, FlavourMatcher.EXCEPTIONS, FlavourMatcher.SIGNATURES, FlavourMatcher.MAPPING, FlavourMatcher.UNPICK, FlavourMatcher.NESTS)
+			PREENED_MERGED_JAR, createFromKeyWithConfig(REMAPPED, "merged-preened-%s.jar", MinecraftJar.MERGED, FlavourMatcher.LVT, FlavourMatcher.EXCEPTIONS, FlavourMatcher.SIGNATURES, FlavourMatcher.MAPPING, FlavourMatcher.UNPICK, FlavourMatcher.NESTS),
+			TRANSFORMED_CLIENT_JAR, createFromKeyWithConfig(REMAPPED, "client-transformed-%s.jar", MinecraftJar.CLIENT, FlavourMatcher.LVT, FlavourMatcher.EXCEPTIONS, FlavourMatcher.SIGNATURES, FlavourMatcher.MAPPING, FlavourMatcher.UNPICK, FlavourMatcher.NESTS, FlavourMatcher.PREEN),
+			TRANSFORMED_SERVER_JAR, createFromKeyWithConfig(REMAPPED, "server-transformed-%s.jar", MinecraftJar.SERVER, FlavourMatcher.LVT, FlavourMatcher.EXCEPTIONS, FlavourMatcher.SIGNATURES, FlavourMatcher.MAPPING, FlavourMatcher.UNPICK, FlavourMatcher.NESTS, FlavourMatcher.PREEN),
+			TRANSFORMED_MERGED_JAR, createFromKeyWithConfig(REMAPPED, "merged-transformed-%s.jar", MinecraftJar.MERGED, FlavourMatcher.LVT, FlavourMatcher.EXCEPTIONS, FlavourMatcher.SIGNATURES, FlavourMatcher.MAPPING, FlavourMatcher.UNPICK, FlavourMatcher.NESTS, FlavourMatcher.PREEN)
 		),
 		Map.of(
 			LAUNCH_VERSIONS, rootPathVersioned(pipelineFsRoot -> GitCraftPipelineFilesystemRoot.getRuntimeDirectory().apply(pipelineFsRoot).resolve("launch_versions")),
@@ -19,6 +19,7 @@ import com.github.winplay02.gitcraft.pipeline.StepStatus;
 import com.github.winplay02.gitcraft.pipeline.GitCraftStepWorker;
 import com.github.winplay02.gitcraft.types.AssetsIndex;
 import com.github.winplay02.gitcraft.types.OrderedVersion;
+import com.github.winplay02.gitcraft.util.FileSystemNetworkManager;
 import com.github.winplay02.gitcraft.util.MiscHelper;
 import com.github.winplay02.gitcraft.util.SerializationHelper;
 
@@ -52,6 +53,8 @@ public record AssetsFetcher(GitCraftStepConfig config) implements GitCraftStepWo
 				assetsIndex.assets().stream().<Callable<StepOutput<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig>>>map(assetObject -> () -> StepOutput.ofEmptyResultSet(assetObject.fetchArtifact(context.executorService(), assetsObjectsDir, "asset"))).toList()
 			)
 		);
+		FileSystemNetworkManager.DownloadStatistics downloadStatistics = FileSystemNetworkManager.getDownloadStatistics();
+		MiscHelper.println("Fetched %d assets of %s (downloads: %d in flight, %d completed, %d failed)", assetsIndex.assets().size(), context.targetVersion().friendlyVersion(), downloadStatistics.inFlight(), downloadStatistics.completed(), downloadStatistics.failed());
 		return StepOutput.merge(statuses);
 	}
 }
@@ -1,7 +1,6 @@
 package com.github.winplay02.gitcraft.pipeline.workers;
 
 import com.github.winplay02.gitcraft.GitCraft;
-import com.github.winplay02.gitcraft.Library;
 import com.github.winplay02.gitcraft.graph.AbstractVersionGraph;
 import com.github.winplay02.gitcraft.manifest.metadata.AssetsIndexMetadata;
 import com.github.winplay02.gitcraft.pipeline.IPipeline;
@@ -15,6 +14,7 @@ import com.github.winplay02.gitcraft.pipeline.GitCraftStepWorker;
 import com.github.winplay02.gitcraft.pipeline.key.StorageKey;
 import com.github.winplay02.gitcraft.types.AssetsIndex;
 import com.github.winplay02.gitcraft.types.OrderedVersion;
+import com.github.winplay02.gitcraft.util.CommitTreeBuilder;
 import com.github.winplay02.gitcraft.util.MiscHelper;
 import com.github.winplay02.gitcraft.util.RepoWrapper;
 import com.github.winplay02.gitcraft.util.SerializationHelper;
@@ -26,17 +26,15 @@ import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.revwalk.RevCommit;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.Date;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.NavigableSet;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
 import java.util.TimeZone;
 import java.util.TreeSet;
 import java.util.stream.StreamSupport;
@@ -55,31 +53,29 @@ public record Committer(GitCraftStepConfig config) implements GitCraftStepWorker
 		}
 		// Check validity of prepared args
 		Objects.requireNonNull(context.repository());
-		// Clean First
-		MiscHelper.executeTimedStep("Clearing working directory...", context.repository()::clearWorkingTree);
 		// Switch Branch
 		Optional<String> target_branch = switchBranchIfNeeded(context.targetVersion(), context.versionGraph(), context.repository());
 		if (target_branch.isEmpty()) {
 			return StepOutput.ofEmptyResultSet(StepStatus.UP_TO_DATE);
 		}
-		// Copy to repository
-		MiscHelper.executeTimedStep("Moving files to repo...", () -> {
-			// Copy decompiled MC code to repo directory
-			copyCode(pipeline, context, input);
-			// Copy assets & data (it makes sense to track them, atleast the data)
-			copyAssets(pipeline, context, input);
-			// External Assets
-			copyExternalAssets(pipeline, context, input);
-		});
-		// Optionally sort copied JSON files
-		if (GitCraft.getDataConfiguration().sortJsonObjects()) {
-			MiscHelper.executeTimedStep("Sorting JSON files...", () -> {
-				// Sort them
-				sortJSONFiles(context.repository());
+		// Build the tree directly in the object database, the working tree is not touched
+		try (CommitTreeBuilder tree = context.repository().newCommitTree()) {
+			// Optionally sort JSON files while they are added
+			if (GitCraft.getDataConfiguration().sortJsonObjects()) {
+				tree.setContentTransformer(new SortJSONTransformer());
+			}
+			tree.setExecutorService(context.executorService());
+			MiscHelper.executeTimedStep("Adding files to tree...", () -> {
+				// Add decompiled MC code
+				addCode(pipeline, context, input, tree);
+				// Add assets & data (it makes sense to track them, atleast the data)
+				addAssets(pipeline, context, input, tree);
+				// External Assets
+				addExternalAssets(pipeline, context, input, tree);
 			});
+			// Commit
+			MiscHelper.executeTimedStep("Committing files to repo...", () -> createCommit(context.targetVersion(), context.repository(), tree));
 		}
-		// Commit
-		MiscHelper.executeTimedStep("Committing files to repo...", () -> createCommit(context.targetVersion(), context.repository()));
 		MiscHelper.println("Committed %s to the repository! (Target Branch is %s)", context.targetVersion().launcherFriendlyVersionName(), target_branch.orElseThrow() + (GitCraft.versionGraph.isOnMainBranch(context.targetVersion()) ? "" : " (non-linear)"));
 
 		// Create branch for linear version
@@ -94,6 +90,14 @@ public record Committer(GitCraftStepConfig config) implements GitCraftStepWorker
 			MiscHelper.println("Created branch for stable linear version %s", context.targetVersion().launcherFriendlyVersionName());
 		}
 
+		// Keep the object database in shape during long runs, commits of further versions may proceed meanwhile
+		if (GitCraft.getRepositoryConfiguration().gcDuringCommits()) {
+			context.repository().gcInBackground(context.executorService());
+		} else {
+			// each commit is written as its own pack, which must not pile up during a long run either
+			context.repository().gcInBackgroundIfTooManyPacks(context.executorService());
+		}
+
 		return StepOutput.ofEmptyResultSet(StepStatus.SUCCESS);
 	}
 
@@ -191,22 +195,21 @@ public record Committer(GitCraftStepConfig config) implements GitCraftStepWorker
 		return resultRevs;
 	}
 
-	private void copyCode(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context, Committer.Inputs input) throws IOException {
-		RepoWrapper repo = context.repository();
+	private void addCode(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context, Committer.Inputs input, CommitTreeBuilder tree) throws IOException {
 		if (input.decompiledMerged().isPresent()) {
 			try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(pipeline.getStoragePath(input.decompiledMerged().orElseThrow(), context, this.config))) {
-				MiscHelper.copyLargeDir(fs.get().getPath("."), repo.getRootPath().resolve("minecraft").resolve("src"));
+				tree.addDirectory(fs.get().getPath("."), "minecraft/src");
 			}
 			return;
 		}
 		if (input.decompiledClientOnly().isPresent()) {
 			try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(pipeline.getStoragePath(input.decompiledClientOnly().orElseThrow(), context, this.config))) {
-				MiscHelper.copyLargeDir(fs.get().getPath("."), repo.getRootPath().resolve("minecraft").resolve("client"));
+				tree.addDirectory(fs.get().getPath("."), "minecraft/client");
 			}
 		}
 		if (input.decompiledServerOnly().isPresent()) {
 			try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(pipeline.getStoragePath(input.decompiledServerOnly().orElseThrow(), context, this.config))) {
-				MiscHelper.copyLargeDir(fs.get().getPath("."), repo.getRootPath().resolve("minecraft").resolve("server"));
+				tree.addDirectory(fs.get().getPath("."), "minecraft/server");
 			}
 		}
 		if (input.decompiledClientOnly().isEmpty() && input.decompiledServerOnly().isEmpty()) {
@@ -214,15 +217,15 @@ public record Committer(GitCraftStepConfig config) implements GitCraftStepWorker
 		}
 	}
 
-	private void copyAssets(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context, Committer.Inputs input) throws IOException {
-		RepoWrapper repo = context.repository();
+	private void addAssets(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context, Committer.Inputs input, CommitTreeBuilder tree) throws IOException {
 		if (GitCraft.getDataConfiguration().loadAssets() || GitCraft.getDataConfiguration().loadIntegratedDatapack()) {
 			if (input.serverZip().isPresent()) {
 				Path artifactRootPath = pipeline.getStoragePath(input.serverZip().orElseThrow(), context, this.config);
 
 				try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(artifactRootPath)) {
 					for (Path rootPath : fs.get().getRootDirectories()) {
-						MiscHelper.copyLargeDirExcept(rootPath, repo.getRootPath().resolve("server-info"), List.of(rootPath.resolve(ArtifactsUnpacker.SERVER_ZIP_JAR_NAME)));
+						Path serverJarPath = rootPath.resolve(ArtifactsUnpacker.SERVER_ZIP_JAR_NAME);
+						tree.addDirectory(rootPath, "server-info", path -> !path.startsWith(serverJarPath));
 					}
 				}
 			}
@@ -231,18 +234,19 @@ public record Committer(GitCraftStepConfig config) implements GitCraftStepWorker
 					if (GitCraft.getDataConfiguration().loadAssets()) {
 						Path assetsSrcPath = fs.get().getPath("assets");
 						if (Files.exists(assetsSrcPath)) {
-							MiscHelper.copyLargeDir(fs.get().getPath("assets"), repo.getRootPath().resolve("minecraft").resolve("resources").resolve("assets"));
+							tree.addDirectory(assetsSrcPath, "minecraft/resources/assets");
 						} else {
-							// Copy old (unstructured) assets
+							// Add old (unstructured) assets
 							for (Path rootPath : fs.get().getRootDirectories()) {
-								MiscHelper.copyLargeDirExceptNoFileExt(rootPath, repo.getRootPath().resolve("minecraft").resolve("resources").resolve("assets"), List.of(rootPath.resolve("META-INF")), Set.of("class"));
+								Path metaInfPath = rootPath.resolve("META-INF");
+								tree.addDirectory(rootPath, "minecraft/resources/assets", path -> !path.startsWith(metaInfPath) && !path.toString().endsWith(".class"));
 							}
 						}
 					}
 					if (GitCraft.getDataConfiguration().loadIntegratedDatapack()) {
 						Path dataSrcPath = fs.get().getPath("data");
 						if (Files.exists(dataSrcPath)) {
-							MiscHelper.copyLargeDir(fs.get().getPath("data"), repo.getRootPath().resolve("minecraft").resolve("resources").resolve("data"));
+							tree.addDirectory(dataSrcPath, "minecraft/resources/data");
 						}
 					}
 				}
@@ -252,36 +256,42 @@ public record Committer(GitCraftStepConfig config) implements GitCraftStepWorker
 			if (GitCraft.getDataConfiguration().loadDatagenRegistry() && input.datagenArtifactsReportsJar().isPresent()) {
 				Path datagenReportsArchive = pipeline.getStoragePath(input.datagenArtifactsReportsJar().orElseThrow(), context, this.config);
 				try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(datagenReportsArchive)) {
-					MiscHelper.copyLargeDir(fs.getPath("reports"), repo.getRootPath().resolve("minecraft").resolve("resources").resolve("datagen-reports"));
+					tree.addDirectory(fs.getPath("reports"), "minecraft/resources/datagen-reports");
 				}
 				if (input.datagenExperimentalVanillaDatapack().isPresent()) {
 					Path experimentalWorldgenPackPath = pipeline.getStoragePath(input.datagenExperimentalVanillaDatapack().orElseThrow(), context, this.config);
 					try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(experimentalWorldgenPackPath)) {
-						MiscHelper.copyLargeDir(fs.get().getPath("."), repo.getRootPath().resolve("minecraft").resolve("resources").resolve("exp-vanilla-worldgen"));
+						tree.addDirectory(fs.get().getPath("."), "minecraft/resources/exp-vanilla-worldgen");
 					}
 				}
 			}
 			if (GitCraft.getDataConfiguration().readableNbt() && GitCraft.getDataConfiguration().loadIntegratedDatapack() && input.datagenArtifactsSnbtJar().isPresent()) {
 				Path datagenSnbtArchive = pipeline.getStoragePath(input.datagenArtifactsSnbtJar().orElseThrow(), context, this.config);
 				try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(datagenSnbtArchive)) {
-					MiscHelper.copyLargeDir(fs.getPath("data"), repo.getRootPath().resolve("minecraft").resolve("resources").resolve("datagen-snbt"));
+					tree.addDirectory(fs.getPath("data"), "minecraft/resources/datagen-snbt");
 				}
 			}
 		}
 	}
 
-	private void sortJSONFiles(final RepoWrapper repo) throws IOException {
-		final List<Path> jsonFiles = MiscHelper.listRecursivelyFilteredExtension(repo.getRootPath(), ".json");
-		for (final Path jsonFile : jsonFiles) {
+	static final class SortJSONTransformer implements MiscHelper.PathContentTransformer {
+		@Override
+		public boolean shouldTransform(Path path) {
+			return path.toString().endsWith(".json");
+		}
+
+		@Override
+		public byte[] transform(Path path, byte[] content) {
 			try {
-				SerializationHelper.sortJSONFile(jsonFile);
+				return SerializationHelper.sortJSON(new String(content, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
 			} catch (final JsonSyntaxException e) {
-				MiscHelper.println("WARNING: File %s cannot be sorted, skipping...", jsonFile);
+				MiscHelper.println("WARNING: File %s cannot be sorted, skipping...", path);
+				return content;
 			}
 		}
 	}
 
-	private void copyExternalAssets(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context, Committer.Inputs input) throws IOException {
+	private void addExternalAssets(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context, Committer.Inputs input, CommitTreeBuilder tree) throws IOException {
 		if (GitCraft.getDataConfiguration().loadAssets() && GitCraft.getDataConfiguration().loadAssetsExtern()) {
 			if (input.assetsIndexPath().isEmpty() || input.assetsObjectStore().isEmpty()) {
 				MiscHelper.panic("Assets for version %s do not exist", context.targetVersion().launcherFriendlyVersionName());
@@ -290,28 +300,15 @@ public record Committer(GitCraftStepConfig config) implements GitCraftStepWorker
 			Path artifactObjectStore = pipeline.getStoragePath(input.assetsObjectStore().orElseThrow(), context, this.config);
 
 			AssetsIndex assetsIndex = AssetsIndex.from(SerializationHelper.deserialize(SerializationHelper.fetchAllFromPath(assetsIndexPath), AssetsIndexMetadata.class));
-			// Copy Assets
-			Path targetRoot = context.repository().getRootPath().resolve("minecraft").resolve("external-resources").resolve("assets");
-			if (Library.CONF_GLOBAL.useHardlinks() && artifactObjectStore.getFileSystem().equals(targetRoot.getFileSystem()) && !GitCraft.getDataConfiguration().sortJsonObjects()) {
-				for (Map.Entry<String, AssetsIndexMetadata.Asset> entry : assetsIndex.assetsIndex().objects().entrySet()) {
-					Path sourcePath = artifactObjectStore.resolve(entry.getValue().hash());
-					Path targetPath = targetRoot.resolve(entry.getKey());
-					Files.createDirectories(targetPath.getParent());
-					Files.createLink(targetPath, sourcePath);
-				}
-			} else {
-				for (Map.Entry<String, AssetsIndexMetadata.Asset> entry : assetsIndex.assetsIndex().objects().entrySet()) {
-					Path sourcePath = artifactObjectStore.resolve(entry.getValue().hash());
-					Path targetPath = targetRoot.resolve(entry.getKey());
-					Files.createDirectories(targetPath.getParent());
-					Files.copy(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
-				}
+			// Add Assets
+			for (Map.Entry<String, AssetsIndexMetadata.Asset> entry : assetsIndex.assetsIndex().objects().entrySet()) {
+				tree.addFile("minecraft/external-resources/assets/" + entry.getKey(), artifactObjectStore.resolve(entry.getValue().hash()));
 			}
 		}
 	}
 
-	private void createCommit(OrderedVersion mcVersion, RepoWrapper repo) throws GitAPIException {
-		repo.createCommitUsingAllChanges(GitCraft.getRepositoryConfiguration().gitUser(), GitCraft.getRepositoryConfiguration().gitMail(), new Date(Objects.requireNonNull(mcVersion.timestamp()).toInstant().toEpochMilli()), TimeZone.getTimeZone(Objects.requireNonNull(mcVersion.timestamp()).getZone()), mcVersion.toCommitMessage());
+	private void createCommit(OrderedVersion mcVersion, RepoWrapper repo, CommitTreeBuilder tree) throws IOException {
+		repo.createCommitFromTree(tree, GitCraft.getRepositoryConfiguration().gitUser(), GitCraft.getRepositoryConfiguration().gitMail(), new Date(Objects.requireNonNull(mcVersion.timestamp()).toInstant().toEpochMilli()), TimeZone.getTimeZone(Objects.requireNonNull(mcVersion.timestamp()).getZone()), mcVersion.toCommitMessage());
 	}
 
 	private void createBranchFromCurrentCommit(OrderedVersion mcVersion, RepoWrapper repo) throws GitAPIException, IOException {
@@ -8,17 +8,21 @@ import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.ZipFile;
 
 import com.github.winplay02.gitcraft.Library;
 import com.github.winplay02.gitcraft.pipeline.GitCraftPipelineFilesystemStorage;
 import com.github.winplay02.gitcraft.pipeline.IPipeline;
 import com.github.winplay02.gitcraft.pipeline.IStepContext;
 import com.github.winplay02.gitcraft.pipeline.GitCraftStepConfig;
+import com.github.winplay02.gitcraft.pipeline.StepFingerprint;
 import com.github.winplay02.gitcraft.pipeline.StepOutput;
 import com.github.winplay02.gitcraft.pipeline.StepResults;
 import com.github.winplay02.gitcraft.pipeline.key.MinecraftJar;
@@ -32,8 +36,13 @@ import org.jetbrains.java.decompiler.main.decompiler.PrintStreamLogger;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 
 import com.github.winplay02.gitcraft.types.Artifact;
-import com.github.winplay02.gitcraft.util.FFNIODirectoryResultSaver;
+import com.github.winplay02.gitcraft.util.DecompilationIndex;
+import com.github.winplay02.gitcraft.util.FFLibraryContextSource;
+import com.github.winplay02.gitcraft.util.FFPathContextSource;
+import com.github.winplay02.gitcraft.util.FFZipResultSaver;
+import com.github.winplay02.gitcraft.util.LibraryClasspath;
 import com.github.winplay02.gitcraft.util.MiscHelper;
+import com.github.winplay02.gitcraft.util.ParallelZipWriter;
 
 import net.fabricmc.fernflower.api.IFabricJavadocProvider;
 import net.fabricmc.loom.decompilers.vineflower.TinyJavadocProvider;
@@ -58,6 +67,79 @@ public record Decompiler(GitCraftStepConfig config) implements GitCraftStepWorke
 		return StepOutput.merge(clientStatus, serverStatus);
 	}
 
+	// Rough heap usage of a decompilation, the structure of every class of the jar is kept in memory while sources are generated
+	private static final long HEAP_BASE = 256L * 1024L * 1024L;
+	private static final long HEAP_PER_CLASS = 256L * 1024L;
+	private static final long HEAP_PER_JAR_BYTE = 32L;
+
+	@Override
+	public long estimateHeapUsage(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline,
+								  IStepContext.SimpleStepContext<OrderedVersion> context,
+								  GitCraftStepWorker.JarTupleInput input) throws IOException {
+		// Jars are decompiled one after another, so the largest jar that is not up-to-date determines the peak
+		long estimate = 0L;
+		estimate = Math.max(estimate, this.estimateHeapUsage(pipeline, context, MinecraftJar.MERGED, input.mergedJar().orElse(null), GitCraftPipelineFilesystemStorage.DECOMPILED_MERGED_JAR));
+		estimate = Math.max(estimate, this.estimateHeapUsage(pipeline, context, MinecraftJar.CLIENT, input.clientJar().orElse(null), GitCraftPipelineFilesystemStorage.DECOMPILED_CLIENT_JAR));
+		estimate = Math.max(estimate, this.estimateHeapUsage(pipeline, context, MinecraftJar.SERVER, input.serverJar().orElse(null), GitCraftPipelineFilesystemStorage.DECOMPILED_SERVER_JAR));
+		return estimate;
+	}
+
+	private long estimateHeapUsage(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline,
+								   IStepContext.SimpleStepContext<OrderedVersion> context, MinecraftJar inFile, StorageKey inputFile, StorageKey outputFile) throws IOException {
+		Path jarIn = inputFile == null ? null : pipeline.getStoragePath(inputFile, context, this.config);
+		if (jarIn == null || !Files.isRegularFile(jarIn)) {
+			return 0L;
+		}
+		if (isUpToDate(pipeline, context, outputFile, pipeline.getStoragePath(outputFile, context, this.config), this.fingerprint(context, inFile, jarIn))) {
+			return 0L;
+		}
+		return estimateHeapUsage(pipeline, jarIn);
+	}
+
+	private static long estimateHeapUsage(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, Path jarIn) throws IOException {
+		long classCount;
+		try (ZipFile zipFile = new ZipFile(jarIn.toFile())) {
+			classCount = zipFile.stream().filter(entry -> entry.getName().endsWith(".class")).count();
+		}
+		long estimate = HEAP_BASE + classCount * HEAP_PER_CLASS + Files.size(jarIn) * HEAP_PER_JAR_BYTE;
+		// Never admit more concurrent decompilations than there are decompiler threads, each one needs at least one thread
+		if (pipeline.memoryBudget() != null) {
+			estimate = Math.max(estimate, pipeline.memoryBudget().capacity() / Library.CONF_GLOBAL.decompilingThreads());
+		}
+		return estimate;
+	}
+
+	/**
+	 * Splits the decompiler threads evenly between the decompilations that are admitted to the memory budget when this decompilation starts.
+	 * A decompilation that runs alone gets all threads.
+	 */
+	private static int decompilerThreads(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline) {
+		int threads = Library.CONF_GLOBAL.decompilingThreads();
+		if (pipeline.memoryBudget() == null) {
+			return threads;
+		}
+		// decompilations are the only steps with a heap estimate, this decompilation holds one of the grants itself
+		int concurrentDecompilations = Math.max(1, pipeline.memoryBudget().admittedExecutions());
+		return Math.max(1, threads / concurrentDecompilations);
+	}
+
+	private StepFingerprint fingerprint(IStepContext.SimpleStepContext<OrderedVersion> context, MinecraftJar inFile, Path jarIn) {
+		return StepFingerprint.of("decompile")
+			.file("input", jarIn)
+			.value("libraries", context.targetVersion().libraries().stream().map(Artifact::name).toList())
+			.value("javaVersion", context.targetVersion().javaVersion())
+			.value("mappings", config.mappingFlavour())
+			.file("mappingsFile", config.mappingFlavour().supportsComments() ? config.mappingFlavour().getPath(context.targetVersion(), inFile).orElse(null) : null)
+			// reused sources are not guaranteed to be identical to decompiling them again in the context of this version
+			.value("incrementalDecompilation", Library.CONF_GLOBAL.incrementalDecompilation())
+			.tool(Fernflower.class);
+	}
+
+	private boolean isUpToDate(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline,
+							   IStepContext.SimpleStepContext<OrderedVersion> context, StorageKey outputFile, Path jarOut, StepFingerprint fingerprint) throws IOException {
+		return Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut) && pipeline.isResultUpToDate(outputFile, context, this.config, fingerprint);
+	}
+
 	private static final PrintStream NULL_IS = new PrintStream(OutputStream.nullOutputStream());
 
 	private StepOutput<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> decompileJar(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline,
@@ -70,17 +152,20 @@ public record Decompiler(GitCraftStepConfig config) implements GitCraftStepWorke
 			return StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
 		}
 		Path jarOut = pipeline.getStoragePath(outputFile, context, this.config);
+		Path librariesDir = pipeline.getStoragePath(GitCraftPipelineFilesystemStorage.LIBRARIES, context, this.config);
+		if (librariesDir == null) {
+			return StepOutput.ofEmptyResultSet(StepStatus.FAILED);
+		}
+		StepFingerprint fingerprint = this.fingerprint(context, inFile, jarIn);
 
-		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut)) {
+		if (isUpToDate(pipeline, context, outputFile, jarOut, fingerprint)) {
 			return StepOutput.ofSingle(StepStatus.UP_TO_DATE, outputFile);
 		}
 		if (Files.exists(jarOut)) {
 			Files.delete(jarOut);
 		}
-		Path librariesDir = pipeline.getStoragePath(GitCraftPipelineFilesystemStorage.LIBRARIES, context, this.config);
-		if (librariesDir == null) {
-			return StepOutput.ofEmptyResultSet(StepStatus.FAILED);
-		}
+		Files.deleteIfExists(DecompilationIndex.indexPath(jarOut));
+		pipeline.beginResult(outputFile, context, this.config);
 		// Adapted from loom-quiltflower by Juuxel
 		Map<String, Object> options = new HashMap<>();
 
@@ -89,47 +174,109 @@ public record Decompiler(GitCraftStepConfig config) implements GitCraftStepWorke
 		options.put(IFernflowerPreferences.BYTECODE_SOURCE_MAPPING, "1");
 		options.put(IFernflowerPreferences.REMOVE_SYNTHETIC, "1");
 		options.put(IFernflowerPreferences.LOG_LEVEL, "trace");
-		options.put(IFernflowerPreferences.THREADS, Integer.toString(Library.CONF_GLOBAL.decompilingThreads()));
+		options.put(IFernflowerPreferences.THREADS, Integer.toString(decompilerThreads(pipeline)));
 
 		// Experimental QF preferences
 		options.put(IFernflowerPreferences.PATTERN_MATCHING, "1");
 		options.put(IFernflowerPreferences.TRY_LOOP_FIX, "1");
+
+		// Incremental decompilation: only decompile sources that are affected by changes compared to a previous version
+		DecompilationIndex index = null;
+		Path previousJarOut = null;
+		Set<String> reusedSources = Set.of();
+		if (Library.CONF_GLOBAL.incrementalDecompilation()) {
+			Map<String, Object> keyOptions = new TreeMap<>(options);
+			keyOptions.remove(IFernflowerPreferences.THREADS);
+			String globalKey = StepFingerprint.of("decompile-sources")
+				.value("options", keyOptions)
+				.value("javaVersion", context.targetVersion().javaVersion())
+				.value("mappings", config.mappingFlavour())
+				.tool(Fernflower.class)
+				.digest();
+			Path commentsFile = config.mappingFlavour().supportsComments() ? config.mappingFlavour().getPath(context.targetVersion(), inFile).orElse(null) : null;
+			index = DecompilationIndex.create(jarIn, librariesDir, context.targetVersion().libraries(), commentsFile, globalKey);
+			for (OrderedVersion previousVersion : context.versionGraph().getPreviousVertices(context.targetVersion())) {
+				Path previousCandidate = pipeline.getStoragePath(outputFile, context.withDifferingVersion(previousVersion), this.config);
+				Set<String> reusableSources = existingSources(previousCandidate, index.reusableSources(DecompilationIndex.read(previousCandidate)));
+				if (reusableSources.size() > reusedSources.size()) {
+					previousJarOut = previousCandidate;
+					reusedSources = reusableSources;
+				}
+			}
+			MiscHelper.println("Reusing %d of %d sources of a previously decompiled version", reusedSources.size(), index.sourceDigests().size());
+		}
+
 		if (config.mappingFlavour().supportsComments()) {
 			// TODO: this will break for mapping flavours that support unpicking but for the client and server separately
 			options.put(IFabricJavadocProvider.PROPERTY_NAME, new TinyJavadocProvider(config.mappingFlavour().getPath(context.targetVersion(), inFile).orElseThrow().toFile()));
 		}
 
-		try (FileSystemUtil.Delegate decompiledJar = FileSystemUtil.getJarFileSystem(jarOut, true)) {
-			Iterator<Path> resultFsIt = decompiledJar.get().getRootDirectories().iterator();
-			if (!resultFsIt.hasNext()) {
-				throw new RuntimeException("Zip FileSystem does not have any root directories");
-			}
-			Path targetJarRootPath = resultFsIt.next();
-
-			Fernflower ff = new Fernflower(new FFNIODirectoryResultSaver(targetJarRootPath, null), options, new PrintStreamLogger(NULL_IS)); // System.out
-			if (librariesDir != null) {
-				for (Artifact library : context.targetVersion().libraries()) {
-					Path lib_file = library.resolve(librariesDir);
-					// TODO add library via NIO
-					ff.addLibrary(lib_file.toFile());
-				}
+		List<Path> libraries = context.targetVersion().libraries().stream().map(library -> library.resolve(librariesDir)).filter(Files::isRegularFile).toList();
+		// The decompiled jar is written once all entries were added, entries are compressed by the decompiler threads
+		// Classes are fed from the already indexed library classpath and the zip filesystem of the input, instead of letting the decompiler open every jar again
+		try (ParallelZipWriter decompiledJar = new ParallelZipWriter(jarOut);
+			 FFZipResultSaver resultSaver = new FFZipResultSaver(decompiledJar);
+			 LibraryClasspath libraryClasspath = LibraryClasspath.acquire(libraries);
+			 FileSystemUtil.Delegate inFs = FileSystemUtil.getJarFileSystem(jarIn)) {
+			Fernflower ff = new Fernflower(resultSaver, options, new PrintStreamLogger(NULL_IS)); // System.out
+			ff.addLibrary(new FFLibraryContextSource(libraryClasspath));
+			Path inRoot = inFs.getPath("/");
+			String sourceName = jarIn.getFileName().toString();
+			if (reusedSources.isEmpty()) {
+				ff.addSource(new FFPathContextSource(sourceName, inRoot));
+			} else {
+				// Unaffected classes are still required as context
+				Set<String> classNames = classNames(inRoot);
+				Set<String> finalReusedSources = reusedSources;
+				Predicate<String> reused = className -> finalReusedSources.contains(DecompilationIndex.topLevelClass(className, classNames));
+				ff.addSource(new FFPathContextSource(sourceName, inRoot, reused.negate(), true));
+				ff.addLibrary(new FFPathContextSource(sourceName + " (context)", inRoot, reused, false));
 			}
-			// TODO add source via NIO
-			ff.addSource(jarIn.toFile());
 			MiscHelper.executeTimedStep(String.format("Decompiling %s...", artifactKind), ff::decompileContext);
 			// Should release file handles, if exists
 			ff.clearContext();
 
+			if (!reusedSources.isEmpty()) {
+				try (FileSystemUtil.Delegate previousJar = FileSystemUtil.getJarFileSystem(previousJarOut)) {
+					for (String source : reusedSources) {
+						decompiledJar.addEntry(source + ".java", Files.readAllBytes(previousJar.getPath(source + ".java")));
+					}
+				}
+			}
+
 			MiscHelper.println("Writing dependencies file...");
-			Path p = targetJarRootPath.resolve("dependencies.json");
 
 			List<Artifact.DependencyArtifact> c = Stream.concat(
 							Arrays.stream(new Artifact.DependencyArtifact[]{Artifact.DependencyArtifact.ofVirtual("Java " + context.targetVersion().javaVersion())}),
 							context.targetVersion().libraries().stream().map(Artifact.DependencyArtifact::new).sorted(Comparator.comparing(artifact -> String.join("", artifact.name().split("-")))))
 					.collect(Collectors.toList());
 
-			SerializationHelper.writeAllToPath(p, SerializationHelper.serialize(c));
+			decompiledJar.addEntry("dependencies.json", SerializationHelper.serialize(c));
+			decompiledJar.finish();
 		}
+		if (index != null) {
+			index.write(jarOut);
+		}
+		pipeline.completeResult(outputFile, context, this.config, fingerprint);
 		return StepOutput.ofSingle(StepStatus.SUCCESS, outputFile);
 	}
+
+	private static Set<String> existingSources(Path decompiledJar, Set<String> sources) throws IOException {
+		if (sources.isEmpty()) {
+			return sources;
+		}
+		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(decompiledJar)) {
+			return sources.stream().filter(source -> Files.exists(fs.getPath(source + ".java"))).collect(Collectors.toSet());
+		}
+	}
+
+	private static Set<String> classNames(Path root) throws IOException {
+		try (Stream<Path> walk = Files.walk(root)) {
+			return walk.filter(Files::isRegularFile)
+				.map(path -> root.relativize(path).toString())
+				.filter(name -> name.endsWith(".class"))
+				.map(name -> name.substring(0, name.length() - ".class".length()))
+				.collect(Collectors.toSet());
+		}
+	}
 }
@@ -9,6 +9,7 @@ import com.github.winplay02.gitcraft.pipeline.GitCraftPipelineFilesystemStorage;
 import com.github.winplay02.gitcraft.pipeline.IPipeline;
 import com.github.winplay02.gitcraft.pipeline.IStepContext;
 import com.github.winplay02.gitcraft.pipeline.GitCraftStepConfig;
+import com.github.winplay02.gitcraft.pipeline.StepFingerprint;
 import com.github.winplay02.gitcraft.pipeline.StepOutput;
 import com.github.winplay02.gitcraft.pipeline.StepResults;
 import com.github.winplay02.gitcraft.pipeline.StepStatus;
@@ -23,7 +24,7 @@ public record JarsExceptor(GitCraftStepConfig config) implements GitCraftStepWor
 
 	@Override
 	public boolean shouldExecute(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context) {
-		return this.config().exceptionsFlavour() != ExceptionsFlavour.NONE; // optimization
+		return this.config().exceptionsFlavour() != ExceptionsFlavour.NONE && !JarsTransformer.isFused(pipeline, this.config, context.targetVersion()); // optimization
 	}
 
 	@Override
@@ -53,12 +54,19 @@ public record JarsExceptor(GitCraftStepConfig config) implements GitCraftStepWor
 			return StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
 		}
 		Path jarOut = pipeline.getStoragePath(outputFile, context, this.config);
-		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut)) {
+		StepFingerprint fingerprint = StepFingerprint.of("exceptions")
+			.file("input", jarIn)
+			.value("exceptions", config.exceptionsFlavour())
+			.file("exceptionsFile", config.exceptionsFlavour().getPath(context.targetVersion(), inFile).orElse(null))
+			.tool(Exceptor.class);
+		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut) && pipeline.isResultUpToDate(outputFile, context, this.config, fingerprint)) {
 			return StepOutput.ofSingle(StepStatus.UP_TO_DATE, outputFile);
 		}
 		Files.deleteIfExists(jarOut);
+		pipeline.beginResult(outputFile, context, this.config);
 		Files.copy(jarIn, jarOut);
 		Exceptor.apply(jarOut, config.exceptionsFlavour().getExceptions(context.targetVersion(), inFile));
+		pipeline.completeResult(outputFile, context, this.config, fingerprint);
 		return StepOutput.ofSingle(StepStatus.SUCCESS, outputFile);
 	}
 }
@@ -9,6 +9,7 @@ import com.github.winplay02.gitcraft.pipeline.GitCraftPipelineFilesystemStorage;
 import com.github.winplay02.gitcraft.pipeline.IPipeline;
 import com.github.winplay02.gitcraft.pipeline.IStepContext;
 import com.github.winplay02.gitcraft.pipeline.GitCraftStepConfig;
+import com.github.winplay02.gitcraft.pipeline.StepFingerprint;
 import com.github.winplay02.gitcraft.pipeline.StepOutput;
 import com.github.winplay02.gitcraft.pipeline.StepResults;
 import com.github.winplay02.gitcraft.pipeline.StepStatus;
@@ -23,7 +24,7 @@ public record JarsNester(GitCraftStepConfig config) implements GitCraftStepWorke
 
 	@Override
 	public boolean shouldExecute(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context) {
-		return this.config().nestsFlavour() != NestsFlavour.NONE; // optimization
+		return this.config().nestsFlavour() != NestsFlavour.NONE && !JarsTransformer.isFused(pipeline, this.config, context.targetVersion()); // optimization
 	}
 
 	@Override
@@ -53,11 +54,19 @@ public record JarsNester(GitCraftStepConfig config) implements GitCraftStepWorke
 			return StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
 		}
 		Path jarOut = pipeline.getStoragePath(outputFile, context, this.config);
-		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut)) {
+		StepFingerprint fingerprint = StepFingerprint.of("nests")
+			.file("input", jarIn)
+			.value("mappings", config.mappingFlavour())
+			.value("nests", config.nestsFlavour())
+			.file("nestsFile", config.nestsFlavour().getPath(context.targetVersion(), inFile, config.mappingFlavour()).orElse(null))
+			.tool(Nester.class);
+		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut) && pipeline.isResultUpToDate(outputFile, context, this.config, fingerprint)) {
 			return StepOutput.ofSingle(StepStatus.UP_TO_DATE, outputFile);
 		}
 		Files.deleteIfExists(jarOut);
+		pipeline.beginResult(outputFile, context, this.config);
 		Nester.nestJar(jarIn, jarOut, config.nestsFlavour().getNests(context.targetVersion(), inFile, config.mappingFlavour()));
+		pipeline.completeResult(outputFile, context, this.config, fingerprint);
 		return StepOutput.ofSingle(StepStatus.SUCCESS, outputFile);
 	}
 }
@@ -9,6 +9,7 @@ import com.github.winplay02.gitcraft.pipeline.GitCraftPipelineFilesystemStorage;
 import com.github.winplay02.gitcraft.pipeline.IPipeline;
 import com.github.winplay02.gitcraft.pipeline.IStepContext;
 import com.github.winplay02.gitcraft.pipeline.GitCraftStepConfig;
+import com.github.winplay02.gitcraft.pipeline.StepFingerprint;
 import com.github.winplay02.gitcraft.pipeline.StepOutput;
 import com.github.winplay02.gitcraft.pipeline.StepResults;
 import com.github.winplay02.gitcraft.pipeline.StepStatus;
@@ -24,7 +25,7 @@ public record JarsSignatureChanger(GitCraftStepConfig config) implements GitCraf
 
 	@Override
 	public boolean shouldExecute(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context) {
-		return this.config().signaturesFlavour() != SignaturesFlavour.NONE; // optimization
+		return this.config().signaturesFlavour() != SignaturesFlavour.NONE && !JarsTransformer.isFused(pipeline, this.config, context.targetVersion()); // optimization
 	}
 
 	@Override
@@ -54,12 +55,19 @@ public record JarsSignatureChanger(GitCraftStepConfig config) implements GitCraf
 			return StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
 		}
 		Path jarOut = pipeline.getStoragePath(outputFile, context, this.config);
-		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut)) {
+		StepFingerprint fingerprint = StepFingerprint.of("signatures")
+			.file("input", jarIn)
+			.value("signatures", config.signaturesFlavour())
+			.file("signaturesFile", config.signaturesFlavour().getPath(context.targetVersion(), inFile).orElse(null))
+			.tool(ApplyAction.class);
+		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut) && pipeline.isResultUpToDate(outputFile, context, this.config, fingerprint)) {
 			return StepOutput.ofSingle(StepStatus.UP_TO_DATE, outputFile);
 		}
 		Files.deleteIfExists(jarOut);
+		pipeline.beginResult(outputFile, context, this.config);
 		Files.copy(jarIn, jarOut);
 		ApplyAction.run(config.signaturesFlavour().getSignatures(context.targetVersion(), inFile), List.of(jarOut));
+		pipeline.completeResult(outputFile, context, this.config, fingerprint);
 		return StepOutput.ofSingle(StepStatus.SUCCESS, outputFile);
 	}
 }
@@ -0,0 +1,231 @@
+package com.github.winplay02.gitcraft.pipeline.workers;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.github.winplay02.gitcraft.Library;
+import com.github.winplay02.gitcraft.LibraryPaths;
+import com.github.winplay02.gitcraft.exceptions.ExceptionsFlavour;
+import com.github.winplay02.gitcraft.mappings.MappingFlavour;
+import com.github.winplay02.gitcraft.mappings.MappingUtils;
+import com.github.winplay02.gitcraft.nests.NestsFlavour;
+import com.github.winplay02.gitcraft.pipeline.GitCraftPipelineFilesystemStorage;
+import com.github.winplay02.gitcraft.pipeline.GitCraftStep;
+import com.github.winplay02.gitcraft.pipeline.IPipeline;
+import com.github.winplay02.gitcraft.pipeline.IStepContext;
+import com.github.winplay02.gitcraft.pipeline.GitCraftStepConfig;
+import com.github.winplay02.gitcraft.pipeline.StepFingerprint;
+import com.github.winplay02.gitcraft.pipeline.StepOutput;
+import com.github.winplay02.gitcraft.pipeline.StepResults;
+import com.github.winplay02.gitcraft.pipeline.StepStatus;
+import com.github.winplay02.gitcraft.pipeline.GitCraftStepWorker;
+import com.github.winplay02.gitcraft.pipeline.key.MinecraftJar;
+import com.github.winplay02.gitcraft.pipeline.key.StorageKey;
+import com.github.winplay02.gitcraft.signatures.SignaturesFlavour;
+import com.github.winplay02.gitcraft.types.OrderedVersion;
+import com.github.winplay02.gitcraft.unpick.Unpick;
+import com.github.winplay02.gitcraft.unpick.UnpickDescriptionFile;
+import com.github.winplay02.gitcraft.unpick.UnpickFlavour;
+import com.github.winplay02.gitcraft.util.LibraryClasspath;
+import com.github.winplay02.gitcraft.util.MiscHelper;
+import com.github.winplay02.gitcraft.util.ParallelZipWriter;
+import daomephsta.unpick.api.ConstantUninliner;
+import daomephsta.unpick.api.classresolvers.IClassResolver;
+import io.github.gaming32.signaturechanger.cli.ApplyAction;
+import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.tinyremapper.TinyRemapper;
+import net.ornithemc.condor.Condor;
+import net.ornithemc.condor.Options;
+import net.ornithemc.exceptor.Exceptor;
+import net.ornithemc.nester.Nester;
+import net.ornithemc.preen.Preen;
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Fused variant of the class transformation steps (LVT patching, exceptions, signatures, remapping, unpicking, nesting, preening).
+ * Instead of writing a jar for every single transformation, the obfuscated patches are applied to a single working copy,
+ * remapped classes are kept in memory and unpicked before being written, so that intermediate jars are only written where a tool requires one.
+ * The tools working on jars (patching, nesting and preening) still rewrite the jar they are given.
+ */
+public record JarsTransformer(GitCraftStepConfig config) implements GitCraftStepWorker<GitCraftStepWorker.JarTupleInput> {
+
+	/**
+	 * @return Whether the fused transformation replaces the separate transformation steps for the provided pipeline and version
+	 */
+	public static boolean isFused(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, GitCraftStepConfig config, OrderedVersion version) {
+		if (!Library.CONF_GLOBAL.fuseJarTransforms() || !pipeline.getDescription().steps().contains(GitCraftStep.TRANSFORM_JARS)) {
+			return false;
+		}
+		// jars that can only be merged after remapping cannot be processed in a single pass
+		return version.hasSharedObfuscation() || !version.hasClientCode() || !version.hasServerCode() || !config.mappingFlavour().supportsMergingPre1_3Versions();
+	}
+
+	@Override
+	public boolean shouldExecute(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context) {
+		return isFused(pipeline, this.config, context.targetVersion());
+	}
+
+	@Override
+	public StepOutput<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> run(
+		IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline,
+		IStepContext.SimpleStepContext<OrderedVersion> context,
+		GitCraftStepWorker.JarTupleInput input,
+		StepResults<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> results
+	) throws Exception {
+		Files.createDirectories(results.getPathForKeyAndAdd(pipeline, context, this.config, GitCraftPipelineFilesystemStorage.REMAPPED));
+		Path librariesDir = pipeline.getStoragePath(GitCraftPipelineFilesystemStorage.LIBRARIES, context, this.config);
+		if (librariesDir == null) {
+			return StepOutput.ofEmptyResultSet(StepStatus.FAILED);
+		}
+		List<Path> libraries = context.targetVersion().libraries().stream().map(artifact -> artifact.resolve(librariesDir)).toList();
+		StepOutput<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> mergedStatus = transformJar(pipeline, context, MinecraftJar.MERGED, input.mergedJar().orElse(null), GitCraftPipelineFilesystemStorage.TRANSFORMED_MERGED_JAR, libraries);
+		if (mergedStatus.status().isSuccessful()) {
+			return mergedStatus;
+		}
+		StepOutput<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> clientStatus = transformJar(pipeline, context, MinecraftJar.CLIENT, input.clientJar().orElse(null), GitCraftPipelineFilesystemStorage.TRANSFORMED_CLIENT_JAR, libraries);
+		StepOutput<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> serverStatus = transformJar(pipeline, context, MinecraftJar.SERVER, input.serverJar().orElse(null), GitCraftPipelineFilesystemStorage.TRANSFORMED_SERVER_JAR, libraries);
+		return StepOutput.merge(clientStatus, serverStatus);
+	}
+
+	private StepOutput<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> transformJar(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline,
+																														IStepContext.SimpleStepContext<OrderedVersion> context, MinecraftJar type, StorageKey inputFile, StorageKey outputFile, List<Path> libraries) throws IOException, URISyntaxException, InterruptedException {
+		if (inputFile == null) {
+			return StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
+		}
+		OrderedVersion version = context.targetVersion();
+		if (!config.mappingFlavour().canBeUsedOn(version, type)) {
+			return StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
+		}
+		Path jarIn = pipeline.getStoragePath(inputFile, context, this.config);
+		Path jarOut = pipeline.getStoragePath(outputFile, context, this.config);
+
+		boolean applyExceptions = config.exceptionsFlavour() != ExceptionsFlavour.NONE && config.exceptionsFlavour().canBeUsedOn(version, type);
+		boolean applySignatures = config.signaturesFlavour() != SignaturesFlavour.NONE && config.signaturesFlavour().canBeUsedOn(version, type);
+		boolean applyNests = config.nestsFlavour() != NestsFlavour.NONE && config.nestsFlavour().canBeUsedOn(version, type, config.mappingFlavour());
+		Unpick.UnpickContext unpickContext = config.unpickFlavour() != UnpickFlavour.NONE && config.unpickFlavour().exists(version) ? config.unpickFlavour().getContext(version, type) : null;
+		UnpickDescriptionFile unpickDescription = unpickContext != null ? Unpicker.getUnpickDescriptionFile(unpickContext) : null;
+		MappingFlavour unpickMappingFlavour = unpickDescription != null ? config.unpickFlavour().applicableMappingFlavour(unpickDescription) : null;
+
+		StepFingerprint fingerprint = StepFingerprint.of("transform")
+			.file("input", jarIn)
+			.value("libraries", libraries.stream().map(Path::getFileName).toList())
+			.value("lvt", config.lvtPatch())
+			.value("exceptions", applyExceptions ? config.exceptionsFlavour() : null)
+			.file("exceptionsFile", applyExceptions ? config.exceptionsFlavour().getPath(version, type).orElse(null) : null)
+			.value("signatures", applySignatures ? config.signaturesFlavour() : null)
+			.file("signaturesFile", applySignatures ? config.signaturesFlavour().getPath(version, type).orElse(null) : null)
+			.value("mappings", config.mappingFlavour())
+			.file("mappingsFile", config.mappingFlavour().getPath(version, type).orElse(null))
+			.value("unpick", unpickContext != null ? config.unpickFlavour() : null)
+			.file("unpickDefinitions", unpickContext != null ? unpickContext.unpickDefinitions() : null)
+			.file("unpickConstants", unpickContext != null ? unpickContext.unpickConstants() : null)
+			.value("unpickDescription", unpickDescription)
+			.value("unpickMappings", unpickMappingFlavour)
+			.file("unpickMappingsFile", unpickMappingFlavour != null ? unpickMappingFlavour.getPath(version, type).orElse(null) : null)
+			.value("nests", applyNests ? config.nestsFlavour() : null)
+			.file("nestsFile", applyNests ? config.nestsFlavour().getPath(version, type, config.mappingFlavour()).orElse(null) : null)
+			.value("preen", config.preen())
+			.tool(Condor.class)
+			.tool(Exceptor.class)
+			.tool(ApplyAction.class)
+			.tool(TinyRemapper.class)
+			.tool(ConstantUninliner.class)
+			.tool(Nester.class)
+			.tool(Preen.class);
+		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut) && pipeline.isResultUpToDate(outputFile, context, this.config, fingerprint)) {
+			return StepOutput.ofSingle(StepStatus.UP_TO_DATE, outputFile);
+		}
+		Files.deleteIfExists(jarOut);
+		pipeline.beginResult(outputFile, context, this.config);
+
+		boolean unpickInMemory = unpickContext != null && unpickMappingFlavour == config.mappingFlavour();
+		boolean unpickFromJar = unpickContext != null && !unpickInMemory;
+		String tmpSuffix = String.join("-", type.toString(), config.mappingFlavour().toString()) + ".jar";
+		try (
+			LibraryPaths.TmpFileGuard patchedJar = LibraryPaths.getTmpFile("transform-patched", tmpSuffix);
+			LibraryPaths.TmpFileGuard remappedJar = LibraryPaths.getTmpFile("transform-remapped", tmpSuffix);
+			LibraryPaths.TmpFileGuard unpickedJar = LibraryPaths.getTmpFile("transform-unpicked", tmpSuffix)
+		) {
+			Path currentJar = jarIn;
+			// obfuscated namespace: all patches modify the same working copy in place
+			if (config.lvtPatch() || applyExceptions || applySignatures) {
+				Files.copy(jarIn, patchedJar.filePath(), StandardCopyOption.REPLACE_EXISTING);
+				currentJar = patchedJar.filePath();
+				if (config.lvtPatch()) {
+					// obfuscate variable names, so that Tiny Remapper will take care of fixing them
+					Condor.run(currentJar, libraries, Options.builder().removeInvalidEntries().obfuscateNames().build());
+				}
+				if (applyExceptions) {
+					Exceptor.apply(currentJar, config.exceptionsFlavour().getExceptions(version, type));
+				}
+				if (applySignatures) {
+					ApplyAction.run(config.signaturesFlavour().getSignatures(version, type), List.of(currentJar));
+				}
+			}
+			// named namespace: remapped classes are kept in memory and unpicked, before they are written
+			Path remapTarget = unpickFromJar ? remappedJar.filePath() : (applyNests ? unpickedJar.filePath() : jarOut);
+			remapAndUnpick(context, type, currentJar, remapTarget, unpickInMemory ? unpickContext : null, libraries, pipeline.threadsPerCpuStep());
+			currentJar = remapTarget;
+			if (unpickFromJar) {
+				// unpick information needs to be remapped first, which is only supported on jars
+				Path unpickTarget = applyNests ? unpickedJar.filePath() : jarOut;
+				Unpicker.unpickSingleJar(context, config.mappingFlavour(), config.unpickFlavour(), type, currentJar, unpickTarget, unpickContext.unpickDefinitions(), unpickContext.unpickConstants(), libraries, unpickDescription, pipeline.threadsPerCpuStep());
+				currentJar = unpickTarget;
+			}
+			if (applyNests) {
+				Nester.nestJar(currentJar, jarOut, config.nestsFlavour().getNests(version, type, config.mappingFlavour()));
+			}
+		}
+		if (config.preen()) {
+			Preen.splitMergedBridgeMethods(jarOut);
+		}
+		pipeline.completeResult(outputFile, context, this.config, fingerprint);
+		return StepOutput.ofSingle(StepStatus.SUCCESS, outputFile);
+	}
+
+	private void remapAndUnpick(IStepContext.SimpleStepContext<OrderedVersion> context, MinecraftJar type, Path jarIn, Path jarOut, Unpick.UnpickContext unpickContext, List<Path> libraries, int unpickThreads) throws IOException {
+		OrderedVersion version = context.targetVersion();
+		Map<String, byte[]> classes = new ConcurrentHashMap<>();
+		TinyRemapper remapper = MappingUtils.createTinyRemapper(config.mappingFlavour().getProvider(version, type));
+		try {
+			remapper.readInputs(jarIn);
+			remapper.apply(classes::put);
+		} finally {
+			remapper.finish();
+		}
+		// every class is written exactly once, entries are sorted by name so that the output does not depend on scheduling
+		try (ParallelZipWriter outputJarWriter = new ParallelZipWriter(jarOut)) {
+			if (unpickContext == null) {
+				classes.forEach((className, classBytes) -> outputJarWriter.addEntry(className + ".class", classBytes));
+				outputJarWriter.finish();
+				return;
+			}
+			String unpickDefinitions = Files.readString(unpickContext.unpickDefinitions());
+			try (
+				LibraryClasspath libraryClasspath = LibraryClasspath.acquire(libraries);
+				FileSystemUtil.Delegate unpickConstantsFs = unpickContext.unpickConstants() != null ? FileSystemUtil.getJarFileSystem(unpickContext.unpickConstants()) : null
+			) {
+				// the remapped classes are the input for the class resolver, they are not modified while unpicking
+				IClassResolver remappedClassResolver = internalName -> {
+					byte[] classBytes = classes.get(internalName);
+					return classBytes != null ? new ClassReader(classBytes) : null;
+				};
+				// every worker thread resolves classes and constants with its own uninliner
+				Supplier<ConstantUninliner> unInliners = () -> Unpicker.createUnInliner(
+					Unpicker.createClassResolver(libraryClasspath, unpickConstantsFs, remappedClassResolver),
+					new StringReader(unpickDefinitions)
+				);
+				Unpicker.transformClasses(context.executorService(), unpickThreads, unInliners, classes, (className, classBytes) -> outputJarWriter.addEntry(className + ".class", classBytes));
+			}
+			outputJarWriter.finish();
+		}
+	}
+}
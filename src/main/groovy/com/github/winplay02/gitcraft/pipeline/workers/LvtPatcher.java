@@ -9,6 +9,7 @@ import com.github.winplay02.gitcraft.pipeline.GitCraftPipelineFilesystemStorage;
 import com.github.winplay02.gitcraft.pipeline.IPipeline;
 import com.github.winplay02.gitcraft.pipeline.IStepContext;
 import com.github.winplay02.gitcraft.pipeline.GitCraftStepConfig;
+import com.github.winplay02.gitcraft.pipeline.StepFingerprint;
 import com.github.winplay02.gitcraft.pipeline.StepOutput;
 import com.github.winplay02.gitcraft.pipeline.StepResults;
 import com.github.winplay02.gitcraft.pipeline.StepStatus;
@@ -23,7 +24,7 @@ public record LvtPatcher(GitCraftStepConfig config) implements GitCraftStepWorke
 
 	@Override
 	public boolean shouldExecute(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context) {
-		return config.lvtPatch();
+		return config.lvtPatch() && !JarsTransformer.isFused(pipeline, this.config, context.targetVersion());
 	}
 
 	@Override
@@ -55,14 +56,20 @@ public record LvtPatcher(GitCraftStepConfig config) implements GitCraftStepWorke
 			return StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
 		}
 		Path jarOut = pipeline.getStoragePath(outputFile, context, this.config);
-		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut)) {
+		StepFingerprint fingerprint = StepFingerprint.of("lvt")
+			.file("input", jarIn)
+			.value("libraries", libraries.stream().map(Path::getFileName).toList())
+			.tool(Condor.class);
+		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut) && pipeline.isResultUpToDate(outputFile, context, this.config, fingerprint)) {
 			return StepOutput.ofSingle(StepStatus.UP_TO_DATE, outputFile);
 		}
 		Files.deleteIfExists(jarOut);
+		pipeline.beginResult(outputFile, context, this.config);
 		Files.copy(jarIn, jarOut);
 		// this step is applied before remapping, so obfuscate variable names
 		// that way Tiny Remapper will take care of fixing them
 		Condor.run(jarOut, libraries, Options.builder().removeInvalidEntries().obfuscateNames().build());
+		pipeline.completeResult(outputFile, context, this.config, fingerprint);
 		return StepOutput.ofSingle(StepStatus.SUCCESS, outputFile);
 	}
 }
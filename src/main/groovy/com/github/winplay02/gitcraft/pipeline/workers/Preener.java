@@ -8,6 +8,7 @@ import com.github.winplay02.gitcraft.pipeline.GitCraftPipelineFilesystemStorage;
 import com.github.winplay02.gitcraft.pipeline.IPipeline;
 import com.github.winplay02.gitcraft.pipeline.IStepContext;
 import com.github.winplay02.gitcraft.pipeline.GitCraftStepConfig;
+import com.github.winplay02.gitcraft.pipeline.StepFingerprint;
 import com.github.winplay02.gitcraft.pipeline.StepOutput;
 import com.github.winplay02.gitcraft.pipeline.StepResults;
 import com.github.winplay02.gitcraft.pipeline.StepStatus;
@@ -21,7 +22,7 @@ public record Preener(GitCraftStepConfig config) implements GitCraftStepWorker<G
 
 	@Override
 	public boolean shouldExecute(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context) {
-		return config.preen();
+		return config.preen() && !JarsTransformer.isFused(pipeline, this.config, context.targetVersion());
 	}
 
 	@Override
@@ -48,12 +49,17 @@ public record Preener(GitCraftStepConfig config) implements GitCraftStepWorker<G
 			return StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
 		}
 		Path jarOut = pipeline.getStoragePath(outputFile, context, this.config);
-		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut)) {
+		StepFingerprint fingerprint = StepFingerprint.of("preen")
+			.file("input", jarIn)
+			.tool(Preen.class);
+		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut) && pipeline.isResultUpToDate(outputFile, context, this.config, fingerprint)) {
 			return StepOutput.ofSingle(StepStatus.UP_TO_DATE, outputFile);
 		}
 		Files.deleteIfExists(jarOut);
+		pipeline.beginResult(outputFile, context, this.config);
 		Files.copy(jarIn, jarOut);
 		Preen.splitMergedBridgeMethods(jarOut);
+		pipeline.completeResult(outputFile, context, this.config, fingerprint);
 		return StepOutput.ofSingle(StepStatus.SUCCESS, outputFile);
 	}
 }
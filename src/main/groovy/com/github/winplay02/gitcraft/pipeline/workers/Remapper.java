@@ -9,6 +9,7 @@ import com.github.winplay02.gitcraft.pipeline.GitCraftPipelineFilesystemStorage;
 import com.github.winplay02.gitcraft.pipeline.IPipeline;
 import com.github.winplay02.gitcraft.pipeline.IStepContext;
 import com.github.winplay02.gitcraft.pipeline.GitCraftStepConfig;
+import com.github.winplay02.gitcraft.pipeline.StepFingerprint;
 import com.github.winplay02.gitcraft.pipeline.StepOutput;
 import com.github.winplay02.gitcraft.pipeline.StepResults;
 import com.github.winplay02.gitcraft.pipeline.key.MinecraftJar;
@@ -22,6 +23,11 @@ import net.fabricmc.tinyremapper.TinyRemapper;
 
 public record Remapper(GitCraftStepConfig config) implements GitCraftStepWorker<GitCraftStepWorker.JarTupleInput> {
 
+	@Override
+	public boolean shouldExecute(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context) {
+		return !JarsTransformer.isFused(pipeline, this.config, context.targetVersion());
+	}
+
 	@Override
 	public StepOutput<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> run(
 		IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline,
@@ -49,15 +55,22 @@ public record Remapper(GitCraftStepConfig config) implements GitCraftStepWorker<
 		}
 		Path jarIn = pipeline.getStoragePath(inputFile, context, this.config);
 		Path jarOut = pipeline.getStoragePath(outputFile, context, this.config);
-		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut)) {
+		StepFingerprint fingerprint = StepFingerprint.of("remap")
+			.file("input", jarIn)
+			.value("mappings", config.mappingFlavour())
+			.file("mappingsFile", config.mappingFlavour().getPath(context.targetVersion(), type).orElse(null))
+			.tool(TinyRemapper.class);
+		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut) && pipeline.isResultUpToDate(outputFile, context, this.config, fingerprint)) {
 			return StepOutput.ofSingle(StepStatus.UP_TO_DATE, outputFile);
 		}
 		if (Files.exists(jarOut)) {
 			Files.delete(jarOut);
 		}
+		pipeline.beginResult(outputFile, context, this.config);
 		IMappingProvider mappingProvider = config.mappingFlavour().getProvider(context.targetVersion(), type);
 		TinyRemapper remapper = MappingUtils.createTinyRemapper(mappingProvider);
 		MappingUtils.remapJar(remapper, jarIn, jarOut);
+		pipeline.completeResult(outputFile, context, this.config, fingerprint);
 		return StepOutput.ofSingle(StepStatus.SUCCESS, outputFile);
 	}
 }
@@ -10,6 +10,7 @@ import com.github.winplay02.gitcraft.pipeline.StepResults;
 import com.github.winplay02.gitcraft.pipeline.StepStatus;
 import com.github.winplay02.gitcraft.pipeline.GitCraftStepWorker;
 import com.github.winplay02.gitcraft.types.OrderedVersion;
+import com.github.winplay02.gitcraft.util.MiscHelper;
 
 public record RepoGarbageCollector(GitCraftStepConfig config) implements GitCraftStepWorker<StepInput.Empty> {
 
@@ -23,7 +24,7 @@ public record RepoGarbageCollector(GitCraftStepConfig config) implements GitCraf
 		if (GitCraft.getTransientApplicationConfiguration().noRepo()) {
 			return StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
 		}
-		context.repository().gc();
+		MiscHelper.println("%s", context.repository().gc());
 		return StepOutput.ofEmptyResultSet(StepStatus.SUCCESS);
 	}
 }
@@ -1,9 +1,8 @@
 package com.github.winplay02.gitcraft.pipeline.workers;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.Reader;
+import java.io.StringReader;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URISyntaxException;
@@ -11,9 +10,15 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.stream.Stream;
 
@@ -25,6 +30,7 @@ import com.github.winplay02.gitcraft.pipeline.GitCraftPipelineFilesystemStorage;
 import com.github.winplay02.gitcraft.pipeline.IPipeline;
 import com.github.winplay02.gitcraft.pipeline.IStepContext;
 import com.github.winplay02.gitcraft.pipeline.GitCraftStepConfig;
+import com.github.winplay02.gitcraft.pipeline.StepFingerprint;
 import com.github.winplay02.gitcraft.pipeline.StepOutput;
 import com.github.winplay02.gitcraft.pipeline.StepResults;
 import com.github.winplay02.gitcraft.pipeline.key.MinecraftJar;
@@ -32,10 +38,13 @@ import com.github.winplay02.gitcraft.pipeline.StepStatus;
 import com.github.winplay02.gitcraft.pipeline.GitCraftStepWorker;
 import com.github.winplay02.gitcraft.pipeline.key.StorageKey;
 import com.github.winplay02.gitcraft.types.OrderedVersion;
+import com.github.winplay02.gitcraft.unpick.RemappedUnpickCache;
 import com.github.winplay02.gitcraft.unpick.Unpick;
 import com.github.winplay02.gitcraft.unpick.UnpickDescriptionFile;
 import com.github.winplay02.gitcraft.unpick.UnpickFlavour;
+import com.github.winplay02.gitcraft.util.LibraryClasspath;
 import com.github.winplay02.gitcraft.util.MiscHelper;
+import com.github.winplay02.gitcraft.util.ParallelZipWriter;
 import com.github.winplay02.gitcraft.util.SerializationHelper;
 import daomephsta.unpick.api.ConstantUninliner;
 import daomephsta.unpick.api.classresolvers.ClassResolvers;
@@ -45,6 +54,7 @@ import daomephsta.unpick.api.classresolvers.IInheritanceChecker;
 import daomephsta.unpick.api.constantgroupers.ConstantGroupers;
 import daomephsta.unpick.constantmappers.datadriven.parser.v3.UnpickV3Reader;
 import daomephsta.unpick.constantmappers.datadriven.parser.v3.UnpickV3Remapper;
+import daomephsta.unpick.constantmappers.datadriven.parser.v3.UnpickV3Writer;
 import daomephsta.unpick.constantmappers.datadriven.tree.UnpickV3Visitor;
 import daomephsta.unpick.impl.constantmappers.datadriven.DataDrivenConstantGrouper;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
@@ -61,7 +71,7 @@ public record Unpicker(GitCraftStepConfig config) implements GitCraftStepWorker<
 
 	@Override
 	public boolean shouldExecute(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context) {
-		return this.config().unpickFlavour() != UnpickFlavour.NONE; // optimization
+		return this.config().unpickFlavour() != UnpickFlavour.NONE && !JarsTransformer.isFused(pipeline, this.config, context.targetVersion()); // optimization
 	}
 
 	@Override
@@ -94,14 +104,31 @@ public record Unpicker(GitCraftStepConfig config) implements GitCraftStepWorker<
 		}
 		Path jarIn = pipeline.getStoragePath(inputFile, context, this.config);
 		Path jarOut = pipeline.getStoragePath(outputFile, context, this.config);
-		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut)) {
-			return StepOutput.ofSingle(StepStatus.UP_TO_DATE, outputFile);
-		}
-		Files.deleteIfExists(jarOut);
 		Path librariesDir = pipeline.getStoragePath(GitCraftPipelineFilesystemStorage.LIBRARIES, context, this.config);
 		if (librariesDir == null) {
 			return StepOutput.ofEmptyResultSet(StepStatus.FAILED);
 		}
+		List<Path> libraries = context.targetVersion().libraries().stream().map(artifact -> artifact.resolve(librariesDir)).toList();
+		UnpickDescriptionFile unpickDescription = getUnpickDescriptionFile(unpickContext);
+		MappingFlavour applicableMappingFlavour = config.unpickFlavour().applicableMappingFlavour(unpickDescription);
+		StepFingerprint fingerprint = StepFingerprint.of("unpick")
+			.file("input", jarIn)
+			.value("mappings", config.mappingFlavour())
+			.file("mappingsFile", config.mappingFlavour().getPath(context.targetVersion(), type).orElse(null))
+			.value("unpick", config.unpickFlavour())
+			.file("unpickDefinitions", unpickContext.unpickDefinitions())
+			.file("unpickConstants", unpickContext.unpickConstants())
+			.value("unpickDescription", unpickDescription)
+			.value("unpickMappings", applicableMappingFlavour)
+			.file("unpickMappingsFile", applicableMappingFlavour.getPath(context.targetVersion(), type).orElse(null))
+			.value("libraries", libraries.stream().map(Path::getFileName).toList())
+			.tool(ConstantUninliner.class)
+			.tool(TinyRemapper.class);
+		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut) && pipeline.isResultUpToDate(outputFile, context, this.config, fingerprint)) {
+			return StepOutput.ofSingle(StepStatus.UP_TO_DATE, outputFile);
+		}
+		Files.deleteIfExists(jarOut);
+		pipeline.beginResult(outputFile, context, this.config);
 		unpickSingleJar(
 			context,
 			config.mappingFlavour(),
@@ -111,15 +138,17 @@ public record Unpicker(GitCraftStepConfig config) implements GitCraftStepWorker<
 			jarOut,
 			unpickContext.unpickDefinitions(),
 			unpickContext.unpickConstants(),
-			context.targetVersion().libraries().stream().map(artifact -> artifact.resolve(librariesDir)).toList(),
-			getUnpickDescriptionFile(unpickContext)
+			libraries,
+			unpickDescription,
+			pipeline.threadsPerCpuStep()
 		);
+		pipeline.completeResult(outputFile, context, this.config, fingerprint);
 		return StepOutput.ofSingle(StepStatus.SUCCESS, outputFile);
 	}
 
 	private static final UnpickDescriptionFile DEFAULT_LEGACY_UNPICK_DESCRIPTION = new UnpickDescriptionFile(1, MappingsNamespace.NAMED.toString());
 
-	private static UnpickDescriptionFile getUnpickDescriptionFile(Unpick.UnpickContext unpickContext) throws IOException {
+	static UnpickDescriptionFile getUnpickDescriptionFile(Unpick.UnpickContext unpickContext) throws IOException {
 		if (unpickContext.unpickDescription() == null || !Files.exists(unpickContext.unpickDescription())) {
 			return DEFAULT_LEGACY_UNPICK_DESCRIPTION;
 		}
@@ -147,22 +176,6 @@ public record Unpicker(GitCraftStepConfig config) implements GitCraftStepWorker<
 		}
 	}
 
-	private static FileSystemUtil.Delegate openReadNoExcept(Path zipPath) {
-		try {
-			return FileSystemUtil.getJarFileSystem(zipPath);
-		} catch (IOException e) {
-			throw new RuntimeException(e);
-		}
-	}
-
-	private static void closeNoExcept(FileSystemUtil.Delegate zipFs) {
-		try {
-			zipFs.close();
-		} catch (IOException e) {
-			throw new RuntimeException(e);
-		}
-	}
-
 	private static Consumer<UnpickV3Visitor> createUnpickV3VisitorRemapper(UnpickV3Reader unpickReader, TinyRemapper tinyRemapper, JarPackageIndex jarPackageIndex) {
 		return targetVisitor -> {
 			UnpickV3Remapper remapper = construct_net_fabricmc_loom_task_service_UnpickRemapperService$UnpickRemapper(
@@ -178,8 +191,7 @@ public record Unpicker(GitCraftStepConfig config) implements GitCraftStepWorker<
 		};
 	}
 
-	private static void unpickSingleJar(IStepContext.SimpleStepContext<OrderedVersion> context, MappingFlavour mappingFlavour, UnpickFlavour unpickFlavour, MinecraftJar type, Path inputJar, Path outputJar, Path unpickDefinition, Path unpickConstants, Collection<Path> libraries, UnpickDescriptionFile unpickDescription) throws IOException, URISyntaxException, InterruptedException {
-		List<FileSystemUtil.Delegate> openedLibraries = libraries.stream().map(Unpicker::openReadNoExcept).toList();
+	static void unpickSingleJar(IStepContext.SimpleStepContext<OrderedVersion> context, MappingFlavour mappingFlavour, UnpickFlavour unpickFlavour, MinecraftJar type, Path inputJar, Path outputJar, Path unpickDefinition, Path unpickConstants, Collection<Path> libraries, UnpickDescriptionFile unpickDescription, int threads) throws IOException, URISyntaxException, InterruptedException {
 		List<Path> jarsClasspath = new ArrayList<>(libraries);
 		final FileSystemUtil.Delegate unpickConstantsPath;
 		if (unpickConstants != null) {
@@ -189,89 +201,74 @@ public record Unpicker(GitCraftStepConfig config) implements GitCraftStepWorker<
 			unpickConstantsPath = null;
 		}
 		try (
+			LibraryClasspath libraryClasspath = LibraryClasspath.acquire(libraries);
 			FileSystemUtil.Delegate inputPath = FileSystemUtil.getJarFileSystem(inputJar);
 			unpickConstantsPath;
 			Reader unpickDefinitionReader = Files.newBufferedReader(unpickDefinition);
-			FileSystemUtil.Delegate outputPath = FileSystemUtil.getJarFileSystem(outputJar, true);
 		) {
-			IClassResolver inputClassResolver = ClassResolvers.fromDirectory(inputPath.getRoot());
 			jarsClasspath.add(inputJar);
 
-			IClassResolver unpickConstantsClassResolver = unpickConstantsPath != null ? ClassResolvers.fromDirectory(unpickConstantsPath.getRoot()) : null;
-
-			IClassResolver chainedInputClassResolver = ClassResolvers.classpath(ClassLoader.getPlatformClassLoader())
-				.chain(
-					openedLibraries.stream().map(library -> ClassResolvers.fromDirectory(library.getRoot())).toArray(IClassResolver[]::new)
-				);
-
-			if (unpickConstantsClassResolver != null) {
-				chainedInputClassResolver = chainedInputClassResolver.chain(
-					unpickConstantsClassResolver,
-					inputClassResolver
-				);
-			} else {
-				chainedInputClassResolver = chainedInputClassResolver.chain(inputClassResolver);
-			}
-
-			IConstantResolver unpickConstantResolver = chainedInputClassResolver.asConstantResolver();
-			IInheritanceChecker unpickInheritanceChecker = chainedInputClassResolver.asInheritanceChecker();
-			final ConstantUninliner unInliner;
+			final String unpickDefinitions;
 			// Remap Unpick
 			MappingFlavour applicableMappingFlavour = unpickFlavour.applicableMappingFlavour(unpickDescription);
 			if (applicableMappingFlavour != mappingFlavour) {
 				if (unpickFlavour.supportsRemapping(unpickDescription)) {
-					UnpickV3Reader unpickReader = new UnpickV3Reader(unpickDefinitionReader);
-					VisitableMappingTree applicableUnpickMappingToConfiguredMapping = MappingUtils.fuse(
-						MappingUtils.renameNamespace(
-							MappingUtils.invert(
-								MappingUtils.prepareAndCreateTreeFromMappingFlavour(applicableMappingFlavour, context, type),
-								applicableMappingFlavour.getDestinationNS()
+					// Remapped definitions are cached, remapping requires fused mapping trees and a remapped copy of the input
+					StepFingerprint remapKey = remapKey("unpick-remap-definitions", context, mappingFlavour, applicableMappingFlavour, type, inputJar, unpickDefinition, unpickConstants, libraries);
+					Path remappedDefinitions = RemappedUnpickCache.getOrCreate("definitions", remapKey, ".unpick", target -> {
+						UnpickV3Reader unpickReader = new UnpickV3Reader(unpickDefinitionReader);
+						VisitableMappingTree applicableUnpickMappingToConfiguredMapping = MappingUtils.fuse(
+							MappingUtils.renameNamespace(
+								MappingUtils.invert(
+									MappingUtils.prepareAndCreateTreeFromMappingFlavour(applicableMappingFlavour, context, type),
+									applicableMappingFlavour.getDestinationNS()
+								),
+								Map.of(
+									applicableMappingFlavour.getDestinationNS(), "remap_unpick_domain",
+									applicableMappingFlavour.getSourceNS(), "remap_unpick_common"
+								)
 							),
-							Map.of(
-								applicableMappingFlavour.getDestinationNS(), "remap_unpick_domain",
-								applicableMappingFlavour.getSourceNS(), "remap_unpick_common"
-							)
-						),
-						MappingUtils.renameNamespace(
-							MappingUtils.prepareAndCreateTreeFromMappingFlavour(mappingFlavour, context, type),
-							Map.of(
-								mappingFlavour.getSourceNS(), "remap_unpick_common",
-								mappingFlavour.getDestinationNS(), "remap_unpick_target"
-							)
-						)
-					);
-					try (
-						LibraryPaths.TmpFileGuard tmpFileRemapped = LibraryPaths.getTmpFile("unpick-remapped", String.join("-", mappingFlavour.toString(), unpickFlavour.toString(), applicableMappingFlavour.toString()) + ".jar");
-					) {
-						// Create JAR for unpick domain
-						IMappingProvider mapJarToUnpick = MappingUtils.createProvider(MappingUtils.invert(applicableUnpickMappingToConfiguredMapping, "remap_unpick_target"), "remap_unpick_target", "remap_unpick_domain");
-						MappingUtils.remapJar(MappingUtils.createTinyRemapperSkipLocals(mapJarToUnpick), inputJar, tmpFileRemapped.filePath());
-						// Remap unpick; Prepare remapper
-						TinyRemapper remapper = MappingUtils.createTinyRemapper(
-							MappingUtils.createProvider(
-								applicableUnpickMappingToConfiguredMapping,
-								"remap_unpick_domain",
-								"remap_unpick_target"
+							MappingUtils.renameNamespace(
+								MappingUtils.prepareAndCreateTreeFromMappingFlavour(mappingFlavour, context, type),
+								Map.of(
+									mappingFlavour.getSourceNS(), "remap_unpick_common",
+									mappingFlavour.getDestinationNS(), "remap_unpick_target"
+								)
 							)
 						);
-						remapper.readInputs(tmpFileRemapped.filePath());
-						remapper.readInputs(libraries.toArray(Path[]::new));
-						// Create unpick stuff
-						Consumer<UnpickV3Visitor> unpickVisitorConsumer = createUnpickV3VisitorRemapper(unpickReader, remapper, JarPackageIndex.create(jarsClasspath));
-						DataDrivenConstantGrouper constantGrouper = (DataDrivenConstantGrouper) ConstantGroupers.dataDriven().lenient(true).constantResolver(unpickConstantResolver).inheritanceChecker(unpickInheritanceChecker).mappingSource(unpickVisitorConsumer).build();
-						unInliner = ConstantUninliner.builder().logger(Library.getSubLogger("GitCraft/Unpicker", Level.ALL)).classResolver(chainedInputClassResolver).constantResolver(unpickConstantResolver).inheritanceChecker(unpickInheritanceChecker).grouper(constantGrouper).build();
-						remapper.finish();
-					}
+						try (
+							LibraryPaths.TmpFileGuard tmpFileRemapped = LibraryPaths.getTmpFile("unpick-remapped", String.join("-", mappingFlavour.toString(), unpickFlavour.toString(), applicableMappingFlavour.toString()) + ".jar");
+						) {
+							// Create JAR for unpick domain
+							IMappingProvider mapJarToUnpick = MappingUtils.createProvider(MappingUtils.invert(applicableUnpickMappingToConfiguredMapping, "remap_unpick_target"), "remap_unpick_target", "remap_unpick_domain");
+							MappingUtils.remapJar(MappingUtils.createTinyRemapperSkipLocals(mapJarToUnpick), inputJar, tmpFileRemapped.filePath());
+							// Remap unpick; Prepare remapper
+							TinyRemapper remapper = MappingUtils.createTinyRemapper(
+								MappingUtils.createProvider(
+									applicableUnpickMappingToConfiguredMapping,
+									"remap_unpick_domain",
+									"remap_unpick_target"
+								)
+							);
+							remapper.readInputs(tmpFileRemapped.filePath());
+							remapper.readInputs(libraries.toArray(Path[]::new));
+							UnpickV3Writer unpickWriter = new UnpickV3Writer();
+							createUnpickV3VisitorRemapper(unpickReader, remapper, JarPackageIndex.create(jarsClasspath)).accept(unpickWriter);
+							remapper.finish();
+							Files.writeString(target, unpickWriter.getOutput().replace(System.lineSeparator(), "\n"));
+						}
+					});
+					unpickDefinitions = Files.readString(remappedDefinitions);
 				} else {
 					// Remap Jar
 					try (
-						LibraryPaths.TmpFileGuard tmpFileRemapped = LibraryPaths.getTmpFile("unpick-remapped", String.join("-", mappingFlavour.toString(), unpickFlavour.toString(), applicableMappingFlavour.toString()) + ".jar");
 						LibraryPaths.TmpFileGuard tmpFileRemappedAndUnpicked = LibraryPaths.getTmpFile("unpick-remapped", String.join("-", mappingFlavour.toString(), unpickFlavour.toString(), applicableMappingFlavour.toString(), "unpicked") + ".jar")
 					) {
 						VisitableMappingTree jarMappings = MappingUtils.prepareAndCreateTreeFromMappingFlavour(mappingFlavour, context, type);
 						VisitableMappingTree unpickMappings = MappingUtils.prepareAndCreateTreeFromMappingFlavour(applicableMappingFlavour, context, type);
-						// Map to unpick
-						{
+						// Map to unpick, the remapped jar is cached
+						StepFingerprint remapKey = remapKey("unpick-remap-jar", context, mappingFlavour, applicableMappingFlavour, type, inputJar, null, null, List.of());
+						Path remappedJar = RemappedUnpickCache.getOrCreate("jar", remapKey, ".jar", target -> {
 							VisitableMappingTree fusedMappingsBackwards = MappingUtils.fuse(
 								MappingUtils.renameNamespace(
 									MappingUtils.invert(jarMappings, mappingFlavour.getDestinationNS()),
@@ -289,13 +286,13 @@ public record Unpicker(GitCraftStepConfig config) implements GitCraftStepWorker<
 								)
 							);
 							IMappingProvider mapJarToUnpick = MappingUtils.createProvider(fusedMappingsBackwards, "remap_unpick_src", "remap_unpick_dst");
-							MappingUtils.remapJar(MappingUtils.createTinyRemapperSkipLocals(mapJarToUnpick), inputJar, tmpFileRemapped.filePath());
-						}
+							MappingUtils.remapJar(MappingUtils.createTinyRemapperSkipLocals(mapJarToUnpick), inputJar, target);
+						});
 						// Do unpick in correct mapping space
 						if (applicableMappingFlavour != unpickFlavour.applicableMappingFlavour(unpickDescription)) {
 							MiscHelper.panic("Applicable mapping flavour does not match current mapping flavour after remapping");
 						}
-						unpickSingleJar(context, applicableMappingFlavour, unpickFlavour, type, tmpFileRemapped.filePath(), tmpFileRemappedAndUnpicked.filePath(), unpickDefinition, unpickConstants, libraries, unpickDescription);
+						unpickSingleJar(context, applicableMappingFlavour, unpickFlavour, type, remappedJar, tmpFileRemappedAndUnpicked.filePath(), unpickDefinition, unpickConstants, libraries, unpickDescription, threads);
 						// Remap unpicked to named
 						{
 							VisitableMappingTree fusedMappingsForwards = MappingUtils.fuse(
@@ -321,43 +318,133 @@ public record Unpicker(GitCraftStepConfig config) implements GitCraftStepWorker<
 					}
 				}
 			} else {
-				DataDrivenConstantGrouper constantGrouper = (DataDrivenConstantGrouper) ConstantGroupers.dataDriven().lenient(true).constantResolver(unpickConstantResolver).inheritanceChecker(unpickInheritanceChecker).mappingSource(unpickDefinitionReader).build();
-				unInliner = ConstantUninliner.builder().logger(Library.getSubLogger("GitCraft/Unpicker", Level.ALL)).classResolver(chainedInputClassResolver).constantResolver(unpickConstantResolver).inheritanceChecker(unpickInheritanceChecker).grouper(constantGrouper).build();
+				unpickDefinitions = Files.readString(unpickDefinition);
 			}
 
-			try (Stream<Path> walk = Files.walk(inputPath.getRoot())) {
+			Map<String, byte[]> classes = new HashMap<>();
+			// The output is written once all entries were added, entries are sorted by name so that the output does not depend on scheduling
+			try (ParallelZipWriter outputJarWriter = new ParallelZipWriter(outputJar);
+				 Stream<Path> walk = Files.walk(inputPath.getRoot())) {
 				for (Path path : (Iterable<? extends Path>) walk::iterator) {
 					if (!Files.isRegularFile(path)) {
 						continue;
 					}
-					Path resultPath = outputPath.getRoot().resolve(inputPath.getRoot().relativize(path).toString());
-					Files.createDirectories(resultPath.getParent());
-					if (!path.toString().endsWith(".class")) {
-						Files.copy(path, resultPath);
+					String entryName = inputPath.getRoot().relativize(path).toString();
+					if (!entryName.endsWith(".class")) {
+						outputJarWriter.addEntry(entryName, Files.readAllBytes(path));
 						continue;
 					}
-					try (
-						InputStream classInputStream = Files.newInputStream(path);
-						OutputStream classOutputStream = Files.newOutputStream(resultPath)
-					) {
-						ClassReader classReader = new ClassReader(classInputStream);
-						ClassNode classNode = new ClassNode();
-						classReader.accept(classNode, 0);
+					classes.put(entryName.substring(0, entryName.length() - ".class".length()), Files.readAllBytes(path));
+				}
+				// every worker thread resolves classes and constants with its own uninliner
+				Supplier<ConstantUninliner> unInliners = () -> createUnInliner(
+					createClassResolver(libraryClasspath, unpickConstantsPath, ClassResolvers.fromDirectory(inputPath.getRoot())),
+					new StringReader(unpickDefinitions)
+				);
+				transformClasses(context.executorService(), threads, unInliners, classes, (className, classBytes) -> outputJarWriter.addEntry(className + ".class", classBytes));
+				outputJarWriter.finish();
+			}
+		}
+	}
 
-						try {
-							unInliner.transform(classNode);
-						} catch (Exception e) {
-							MiscHelper.println("Only partially transformed class: %s; An exception occurred while unpicking: %s", inputPath.getRoot().relativize(path).toString(), e);
-						}
+	/**
+	 * @return Key of a remapped unpick artifact in the {@link RemappedUnpickCache}
+	 */
+	private static StepFingerprint remapKey(String kind, IStepContext.SimpleStepContext<OrderedVersion> context, MappingFlavour mappingFlavour, MappingFlavour applicableMappingFlavour, MinecraftJar type, Path inputJar, Path unpickDefinition, Path unpickConstants, Collection<Path> libraries) {
+		StepFingerprint fingerprint = StepFingerprint.of(kind)
+			.file("input", inputJar)
+			.value("mappings", mappingFlavour)
+			.file("mappingsFile", mappingFlavour.getPath(context.targetVersion(), type).orElse(null))
+			.value("unpickMappings", applicableMappingFlavour)
+			.file("unpickMappingsFile", applicableMappingFlavour.getPath(context.targetVersion(), type).orElse(null))
+			.file("unpickDefinitions", unpickDefinition)
+			.file("unpickConstants", unpickConstants);
+		// remapped definitions depend on the packages and members of the libraries, not only on their names
+		for (Path library : libraries) {
+			fingerprint.file("library", library);
+		}
+		return fingerprint
+			.tool(UnpickV3Reader.class)
+			.tool(TinyRemapper.class);
+	}
 
-						ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
-						classNode.accept(classWriter);
-						classOutputStream.write(classWriter.toByteArray());
+	static IClassResolver createClassResolver(LibraryClasspath libraryClasspath, FileSystemUtil.Delegate unpickConstantsPath, IClassResolver inputClassResolver) {
+		IClassResolver chainedInputClassResolver = ClassResolvers.classpath(ClassLoader.getPlatformClassLoader())
+			.chain(createClassResolver(libraryClasspath));
+		if (unpickConstantsPath != null) {
+			return chainedInputClassResolver.chain(
+				ClassResolvers.fromDirectory(unpickConstantsPath.getRoot()),
+				inputClassResolver
+			);
+		}
+		return chainedInputClassResolver.chain(inputClassResolver);
+	}
+
+	static IClassResolver createClassResolver(LibraryClasspath libraryClasspath) {
+		return internalName -> {
+			try {
+				byte[] classBytes = libraryClasspath.getClassBytes(internalName);
+				return classBytes != null ? new ClassReader(classBytes) : null;
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		};
+	}
+
+	static ConstantUninliner createUnInliner(IClassResolver chainedInputClassResolver, Reader unpickDefinitionReader) {
+		IConstantResolver unpickConstantResolver = chainedInputClassResolver.asConstantResolver();
+		IInheritanceChecker unpickInheritanceChecker = chainedInputClassResolver.asInheritanceChecker();
+		DataDrivenConstantGrouper constantGrouper = (DataDrivenConstantGrouper) ConstantGroupers.dataDriven().lenient(true).constantResolver(unpickConstantResolver).inheritanceChecker(unpickInheritanceChecker).mappingSource(unpickDefinitionReader).build();
+		return ConstantUninliner.builder().logger(Library.getSubLogger("GitCraft/Unpicker", Level.ALL)).classResolver(chainedInputClassResolver).constantResolver(unpickConstantResolver).inheritanceChecker(unpickInheritanceChecker).grouper(constantGrouper).build();
+	}
+
+	static byte[] transformClass(ConstantUninliner unInliner, byte[] classBytes, String className) {
+		ClassReader classReader = new ClassReader(classBytes);
+		ClassNode classNode = new ClassNode();
+		classReader.accept(classNode, 0);
+
+		try {
+			unInliner.transform(classNode);
+		} catch (Exception e) {
+			MiscHelper.println("Only partially transformed class: %s; An exception occurred while unpicking: %s", className, e);
+		}
+
+		ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		classNode.accept(classWriter);
+		return classWriter.toByteArray();
+	}
+
+	// Classes are transformed in batches, so that scheduling overhead does not dominate for small classes
+	private static final int CLASSES_PER_BATCH = 64;
+
+	/**
+	 * Unpicks classes in parallel. Every worker thread creates its own uninliner, as uninliners and their class resolvers
+	 * look up and memoize classes lazily, and unpick does not document them as safe for concurrent use.
+	 * Workers take batches of classes until all classes are transformed.
+	 *
+	 * @param threads    Amount of worker threads
+	 * @param unInliners Factory of uninliners, called once by every worker thread
+	 * @param classes    Classes to transform, by internal name
+	 * @param output     Receiver of the transformed classes, called concurrently in no particular order
+	 */
+	static void transformClasses(ExecutorService executorService, int threads, Supplier<ConstantUninliner> unInliners, Map<String, byte[]> classes, BiConsumer<String, byte[]> output) {
+		List<String> classNames = classes.keySet().stream().sorted().toList();
+		int batchCount = (classNames.size() + CLASSES_PER_BATCH - 1) / CLASSES_PER_BATCH;
+		AtomicInteger nextBatch = new AtomicInteger();
+		List<Callable<Void>> workers = new ArrayList<>();
+		for (int i = 0; i < Math.min(threads, batchCount); ++i) {
+			workers.add(() -> {
+				ConstantUninliner unInliner = unInliners.get();
+				for (int batch = nextBatch.getAndIncrement(); batch < batchCount; batch = nextBatch.getAndIncrement()) {
+					for (String className : classNames.subList(batch * CLASSES_PER_BATCH, Math.min((batch + 1) * CLASSES_PER_BATCH, classNames.size()))) {
+						output.accept(className, transformClass(unInliner, classes.get(className), className + ".class"));
 					}
 				}
-			} finally {
-				openedLibraries.forEach(Unpicker::closeNoExcept);
-			}
+				return null;
+			});
+		}
+		if (!workers.isEmpty()) {
+			MiscHelper.runTasksInParallelAndAwaitResult(workers.size(), executorService, workers);
 		}
 	}
 }
@@ -14,7 +14,6 @@ import java.time.ZonedDateTime;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 
@@ -91,12 +90,9 @@ public record OrderedVersion(
 		}
 		// Ignores natives, not needed as we don't have a runtime
 		Set<Artifact> libs = new HashSet<>();
-		for (LibraryMetadata library : versionInfo.libraries()) {
-			List<ArtifactMetadata> artifactMeta = library.getArtifact();
-			for (ArtifactMetadata singleArtifactMeta : artifactMeta) {
-				if (singleArtifactMeta != null) {
-					libs.add(Artifact.fromURL(singleArtifactMeta.url(), singleArtifactMeta.sha1()));
-				}
+		for (ArtifactMetadata singleArtifactMeta : LibraryMetadata.getArtifacts(versionInfo.libraries())) {
+			if (singleArtifactMeta != null) {
+				libs.add(Artifact.fromURL(singleArtifactMeta.url(), singleArtifactMeta.sha1()));
 			}
 		}
 		String assetsIndexId = versionInfo.assetIndex() != null ? versionInfo.id() + "_" + versionInfo.assets() + "_" + versionInfo.assetIndex().sha1() : null;
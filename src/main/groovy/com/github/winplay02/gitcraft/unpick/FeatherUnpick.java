@@ -58,6 +58,7 @@ public class FeatherUnpick implements Unpick {
 		Files.deleteIfExists(unpickConstantsJarFile);
 
 		Path mappingsJarFile = FeatherMappings.getMappingsJarPath(this.generation, versionContext.targetVersion(), minecraftJar);
+		RemoteHelper.prefetchMavenChecksums(versionContext.executorService(), featherVersion.makeMergedV2JarMavenUrl(GitCraft.ORNITHE_MAVEN), featherVersion.makeConstantsJarMavenUrl(GitCraft.ORNITHE_MAVEN));
 		StepStatus downloadStatus = RemoteHelper.downloadToFileWithChecksumIfNotExistsNoRetryMaven(versionContext.executorService(), featherVersion.makeMergedV2JarMavenUrl(GitCraft.ORNITHE_MAVEN), new FileSystemNetworkManager.LocalFileInfo(mappingsJarFile, null, null, "feather gen " + generation + " mapping", versionContext.targetVersion().launcherFriendlyVersionName()));
 		try (FileSystem fs = FileSystems.newFileSystem(mappingsJarFile)) {
 			Path unpickDefinitionsPathInJar = fs.getPath("extras", "definitions.unpick");
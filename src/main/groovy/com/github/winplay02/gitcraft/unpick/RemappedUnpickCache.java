@@ -0,0 +1,96 @@
+package com.github.winplay02.gitcraft.unpick;
+
+import com.github.winplay02.gitcraft.pipeline.GitCraftPipelineFilesystemRoot;
+import com.github.winplay02.gitcraft.pipeline.GitCraftPipelineFilesystemStorage;
+import com.github.winplay02.gitcraft.pipeline.StepFingerprint;
+import com.github.winplay02.gitcraft.util.MiscHelper;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Persistent cache of unpick artifacts that were remapped across namespaces, i.e. unpick definitions remapped to the configured
+ * mapping flavour and jars remapped to the namespace of the unpick definitions.
+ * <p>
+ * Artifacts are keyed by a digest of all inputs of the remapping, so that repeated runs with the same inputs skip building the fused
+ * mapping trees and remapping altogether. Only the most recently used artifacts are kept.
+ */
+public final class RemappedUnpickCache {
+	private static final String CACHE_DIRECTORY = "unpick-remapped";
+	private static final String TMP_MARKER = ".tmp";
+	private static final int MAX_ENTRIES = 64;
+
+	@FunctionalInterface
+	public interface ArtifactFactory {
+		/**
+		 * @param target Path to write the artifact to, does not exist yet
+		 */
+		void create(Path target) throws IOException, URISyntaxException, InterruptedException;
+	}
+
+	private RemappedUnpickCache() {
+	}
+
+	/**
+	 * @param kind      Kind of the artifact, part of the file name
+	 * @param key       Fingerprint of all inputs of the artifact
+	 * @param extension File extension of the artifact, including the dot
+	 * @param factory   Creates the artifact, if it is not cached yet
+	 * @return Path of the cached artifact, which must not be modified
+	 */
+	public static Path getOrCreate(String kind, StepFingerprint key, String extension, ArtifactFactory factory) throws IOException, URISyntaxException, InterruptedException {
+		Path cacheDirectory = GitCraftPipelineFilesystemRoot.getMappings().apply(GitCraftPipelineFilesystemStorage.DEFAULT.get().rootFilesystem()).resolve(CACHE_DIRECTORY);
+		String baseName = "%s-%s".formatted(kind, key.digest());
+		Path cached = cacheDirectory.resolve(baseName + extension);
+		if (Files.isRegularFile(cached) && Files.size(cached) > 0) {
+			// the modification time tracks the last use
+			Files.setLastModifiedTime(cached, FileTime.fromMillis(System.currentTimeMillis()));
+			return cached;
+		}
+		Files.createDirectories(cacheDirectory);
+		// the extension is kept, as some tools derive the output format from it
+		Path tmpFile = cacheDirectory.resolve("%s-%d%s%s".formatted(baseName, System.nanoTime(), TMP_MARKER, extension));
+		try {
+			factory.create(tmpFile);
+			// concurrent creations of the same artifact produce identical results, the last one wins
+			Files.move(tmpFile, cached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmpFile);
+		}
+		prune(cacheDirectory);
+		return cached;
+	}
+
+	private static void prune(Path cacheDirectory) {
+		try {
+			List<Path> entries;
+			try (Stream<Path> list = Files.list(cacheDirectory)) {
+				entries = list.filter(path -> !path.getFileName().toString().contains(TMP_MARKER)).toList();
+			}
+			if (entries.size() <= MAX_ENTRIES) {
+				return;
+			}
+			List<Path> leastRecentlyUsed = entries.stream().sorted(Comparator.comparing(RemappedUnpickCache::lastModified)).limit(entries.size() - MAX_ENTRIES).toList();
+			for (Path entry : leastRecentlyUsed) {
+				Files.deleteIfExists(entry);
+			}
+		} catch (IOException e) {
+			MiscHelper.println("WARNING: Remapped unpick cache %s cannot be pruned: %s", cacheDirectory, e.getMessage());
+		}
+	}
+
+	private static FileTime lastModified(Path path) {
+		try {
+			return Files.getLastModifiedTime(path);
+		} catch (IOException e) {
+			return FileTime.fromMillis(0L);
+		}
+	}
+}
@@ -0,0 +1,378 @@
+package com.github.winplay02.gitcraft.util;
+
+import com.github.winplay02.gitcraft.types.Artifact;
+import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.mappingio.MappingReader;
+import net.fabricmc.mappingio.tree.MappingTree;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.RecordComponentVisitor;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.Remapper;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Digests of all sources that result from decompiling a jar, used to reuse sources of a previously decompiled version.
+ * <p>
+ * A source consists of a top-level class and all of its nested classes. The digest of a source covers:
+ * <ul>
+ *     <li>the bytecode of all classes of the source</li>
+ *     <li>the signatures (API) of all classes referenced by the source and of their supertypes, if they are part of the jar</li>
+ *     <li>the library artifact providing each referenced class, if it is part of a library</li>
+ *     <li>the names of all top-level classes in the same package, as these influence how imports are emitted</li>
+ *     <li>all comments of the mappings for classes of the source</li>
+ *     <li>a global key, which describes the decompiler and its configuration</li>
+ * </ul>
+ * If the digest of a source equals the digest of the source with the same name of a previous version, the previously decompiled source can be reused.
+ *
+ * @param globalKey     Digest of the decompiler and its configuration
+ * @param sourceDigests Digests of all sources by the internal name of their top-level class
+ */
+public record DecompilationIndex(String globalKey, Map<String, String> sourceDigests) {
+	private static final String INDEX_SUFFIX = ".sources.json";
+
+	/**
+	 * Shape of a single class of the jar.
+	 *
+	 * @param name          Internal name
+	 * @param supertypes    Super class and interfaces
+	 * @param codeDigest    Digest of the entire class file
+	 * @param apiDigest     Digest of the signature of the class and its members
+	 * @param references    All classes referenced by this class
+	 */
+	private record ClassShape(String name, List<String> supertypes, byte[] codeDigest, byte[] apiDigest, Set<String> references) {
+	}
+
+	/**
+	 * Creates the index for a jar.
+	 *
+	 * @param jar          Jar to decompile
+	 * @param librariesDir Directory containing the libraries
+	 * @param libraries    Libraries, which are passed to the decompiler
+	 * @param mappingsFile Mappings containing comments, which are passed to the decompiler. May be null.
+	 * @param globalKey    Digest of the decompiler and its configuration
+	 * @return Index
+	 */
+	public static DecompilationIndex create(Path jar, Path librariesDir, Collection<Artifact> libraries, Path mappingsFile, String globalKey) throws IOException {
+		Map<String, ClassShape> classes = new HashMap<>();
+		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(jar); Stream<Path> walk = Files.walk(fs.getPath("/"))) {
+			for (Path path : (Iterable<? extends Path>) walk::iterator) {
+				if (Files.isRegularFile(path) && path.toString().endsWith(".class")) {
+					ClassShape shape = readClass(Files.readAllBytes(path));
+					classes.put(shape.name(), shape);
+				}
+			}
+		}
+		Map<String, String> libraryClasses = indexLibraries(librariesDir, libraries);
+		Map<String, byte[]> comments = mappingsFile != null ? digestComments(mappingsFile) : Map.of();
+
+		Map<String, Set<String>> sources = new HashMap<>();
+		Map<String, Set<String>> packages = new HashMap<>();
+		for (String name : classes.keySet()) {
+			String topLevel = topLevelClass(name, classes.keySet());
+			sources.computeIfAbsent(topLevel, __ -> new TreeSet<>()).add(name);
+			packages.computeIfAbsent(packageOf(topLevel), __ -> new TreeSet<>()).add(topLevel);
+		}
+
+		Map<String, byte[]> hierarchyDigests = new HashMap<>();
+		Map<String, String> sourceDigests = new TreeMap<>();
+		for (Map.Entry<String, Set<String>> source : sources.entrySet()) {
+			MessageDigest digest = newDigest();
+			update(digest, globalKey);
+			update(digest, String.join(";", packages.get(packageOf(source.getKey()))));
+			Set<String> references = new TreeSet<>();
+			for (String name : source.getValue()) {
+				ClassShape shape = classes.get(name);
+				update(digest, name);
+				digest.update(shape.codeDigest());
+				digest.update(comments.getOrDefault(name, new byte[0]));
+				references.addAll(shape.references());
+				references.addAll(shape.supertypes());
+			}
+			references.removeAll(source.getValue());
+			for (String reference : references) {
+				update(digest, reference);
+				if (classes.containsKey(reference)) {
+					digest.update(hierarchyDigest(reference, classes, libraryClasses, hierarchyDigests));
+				} else {
+					update(digest, Objects.requireNonNullElse(libraryClasses.get(reference), ""));
+				}
+			}
+			sourceDigests.put(source.getKey(), HexFormat.of().formatHex(digest.digest()));
+		}
+		return new DecompilationIndex(globalKey, sourceDigests);
+	}
+
+	/**
+	 * @param previous Index of a previously decompiled jar, may be null
+	 * @return Top-level classes of this index, whose sources are equal to the sources of the previous index
+	 */
+	public Set<String> reusableSources(DecompilationIndex previous) {
+		if (previous == null || !Objects.equals(this.globalKey(), previous.globalKey())) {
+			return Set.of();
+		}
+		return this.sourceDigests().entrySet().stream()
+			.filter(entry -> Objects.equals(entry.getValue(), previous.sourceDigests().get(entry.getKey())))
+			.map(Map.Entry::getKey)
+			.collect(Collectors.toSet());
+	}
+
+	/**
+	 * @param decompiledJar Decompiled jar
+	 * @return Path of the index belonging to the decompiled jar
+	 */
+	public static Path indexPath(Path decompiledJar) {
+		return decompiledJar.resolveSibling(decompiledJar.getFileName().toString() + INDEX_SUFFIX);
+	}
+
+	/**
+	 * @param decompiledJar Decompiled jar
+	 * @return Index belonging to the decompiled jar or null, if the jar or the index does not exist or the index cannot be read
+	 */
+	public static DecompilationIndex read(Path decompiledJar) {
+		Path indexPath = indexPath(decompiledJar);
+		if (!Files.exists(decompiledJar) || !Files.exists(indexPath)) {
+			return null;
+		}
+		try {
+			return SerializationHelper.deserialize(SerializationHelper.fetchAllFromPath(indexPath), DecompilationIndex.class);
+		} catch (IOException | RuntimeException e) {
+			MiscHelper.println("WARNING: Decompilation index %s cannot be read, ignoring", indexPath);
+			return null;
+		}
+	}
+
+	/**
+	 * Stores this index next to the decompiled jar.
+	 *
+	 * @param decompiledJar Decompiled jar
+	 */
+	public void write(Path decompiledJar) throws IOException {
+		SerializationHelper.writeAllToPath(indexPath(decompiledJar), SerializationHelper.serialize(this));
+	}
+
+	/**
+	 * @param internalName Internal name of a class
+	 * @param classNames   Names of all classes in the same jar
+	 * @return Internal name of the top-level class, containing the provided class
+	 */
+	public static String topLevelClass(String internalName, Set<String> classNames) {
+		int simpleNameStart = internalName.lastIndexOf('/') + 1;
+		int separator = internalName.indexOf('$', simpleNameStart);
+		while (separator > simpleNameStart) {
+			String candidate = internalName.substring(0, separator);
+			if (classNames.contains(candidate)) {
+				return candidate;
+			}
+			separator = internalName.indexOf('$', separator + 1);
+		}
+		return internalName;
+	}
+
+	private static String packageOf(String internalName) {
+		int packageEnd = internalName.lastIndexOf('/');
+		return packageEnd < 0 ? "" : internalName.substring(0, packageEnd);
+	}
+
+	private static byte[] hierarchyDigest(String name, Map<String, ClassShape> classes, Map<String, String> libraryClasses, Map<String, byte[]> hierarchyDigests) {
+		byte[] cached = hierarchyDigests.get(name);
+		if (cached != null) {
+			return cached;
+		}
+		// placeholder, guards against (invalid) cyclic hierarchies
+		hierarchyDigests.put(name, new byte[0]);
+		ClassShape shape = classes.get(name);
+		MessageDigest digest = newDigest();
+		digest.update(shape.apiDigest());
+		for (String supertype : shape.supertypes()) {
+			update(digest, supertype);
+			if (classes.containsKey(supertype)) {
+				digest.update(hierarchyDigest(supertype, classes, libraryClasses, hierarchyDigests));
+			} else {
+				update(digest, Objects.requireNonNullElse(libraryClasses.get(supertype), ""));
+			}
+		}
+		byte[] result = digest.digest();
+		hierarchyDigests.put(name, result);
+		return result;
+	}
+
+	private static ClassShape readClass(byte[] bytes) {
+		ClassReader reader = new ClassReader(bytes);
+		MessageDigest codeDigest = newDigest();
+		codeDigest.update(bytes);
+		MessageDigest apiDigest = newDigest();
+		reader.accept(new ApiDigestVisitor(apiDigest), ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+		Set<String> references = new HashSet<>();
+		reader.accept(new ClassRemapper(new ClassNode(), new Remapper() {
+			@Override
+			public String map(String internalName) {
+				references.add(internalName);
+				return internalName;
+			}
+		}), ClassReader.SKIP_FRAMES);
+		List<String> supertypes = Stream.concat(Stream.ofNullable(reader.getSuperName()), Arrays.stream(reader.getInterfaces())).toList();
+		return new ClassShape(reader.getClassName(), supertypes, codeDigest.digest(), apiDigest.digest(), references);
+	}
+
+	private static Map<String, String> indexLibraries(Path librariesDir, Collection<Artifact> libraries) throws IOException {
+		Map<String, String> libraryClasses = new HashMap<>();
+		for (Artifact library : libraries) {
+			Path libraryPath = library.resolve(librariesDir);
+			if (!Files.exists(libraryPath)) {
+				continue;
+			}
+			String owner = library.name() + "@" + library.sha1sum();
+			try (ZipFile zipFile = new ZipFile(libraryPath.toFile())) {
+				Enumeration<? extends ZipEntry> entries = zipFile.entries();
+				while (entries.hasMoreElements()) {
+					ZipEntry entry = entries.nextElement();
+					if (entry.getName().endsWith(".class")) {
+						libraryClasses.putIfAbsent(entry.getName().substring(0, entry.getName().length() - ".class".length()), owner);
+					}
+				}
+			}
+		}
+		return libraryClasses;
+	}
+
+	private static Map<String, byte[]> digestComments(Path mappingsFile) throws IOException {
+		MemoryMappingTree mappings = new MemoryMappingTree();
+		MappingReader.read(mappingsFile, mappings);
+		int namespace = mappings.getNamespaceId(MappingsNamespace.NAMED.toString());
+		if (namespace == MappingTree.NULL_NAMESPACE_ID) {
+			namespace = MappingTree.MIN_NAMESPACE_ID;
+		}
+		Map<String, byte[]> comments = new HashMap<>();
+		for (MappingTree.ClassMapping classMapping : mappings.getClasses()) {
+			String className = classMapping.getName(namespace);
+			if (className == null) {
+				continue;
+			}
+			MessageDigest digest = newDigest();
+			boolean hasComments = updateComment(digest, "", classMapping.getComment());
+			for (MappingTree.FieldMapping field : classMapping.getFields()) {
+				hasComments |= updateComment(digest, field.getName(namespace) + field.getDesc(namespace), field.getComment());
+			}
+			for (MappingTree.MethodMapping method : classMapping.getMethods()) {
+				String methodKey = method.getName(namespace) + method.getDesc(namespace);
+				hasComments |= updateComment(digest, methodKey, method.getComment());
+				for (MappingTree.MethodArgMapping arg : method.getArgs()) {
+					hasComments |= updateComment(digest, methodKey + "#" + arg.getLvIndex(), arg.getComment());
+				}
+				for (MappingTree.MethodVarMapping var : method.getVars()) {
+					hasComments |= updateComment(digest, methodKey + "@" + var.getLvIndex() + ":" + var.getStartOpIdx(), var.getComment());
+				}
+			}
+			if (hasComments) {
+				comments.put(className, digest.digest());
+			}
+		}
+		return comments;
+	}
+
+	private static boolean updateComment(MessageDigest digest, String key, String comment) {
+		if (comment == null) {
+			return false;
+		}
+		update(digest, key);
+		update(digest, comment);
+		return true;
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		byte[] bytes = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+		digest.update((byte) (bytes.length >>> 24));
+		digest.update((byte) (bytes.length >>> 16));
+		digest.update((byte) (bytes.length >>> 8));
+		digest.update((byte) bytes.length);
+		digest.update(bytes);
+	}
+
+	/**
+	 * Digests everything that is visible to other classes: the class header, inner class attributes, record components and member signatures.
+	 */
+	private static final class ApiDigestVisitor extends ClassVisitor {
+		private final MessageDigest digest;
+
+		private ApiDigestVisitor(MessageDigest digest) {
+			super(Opcodes.ASM9);
+			this.digest = digest;
+		}
+
+		private void update(Object... values) {
+			for (Object value : values) {
+				DecompilationIndex.update(this.digest, value instanceof String[] array ? String.join(",", array) : String.valueOf(value));
+			}
+		}
+
+		@Override
+		public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+			this.update("class", access, name, signature, superName, interfaces);
+		}
+
+		@Override
+		public void visitInnerClass(String name, String outerName, String innerName, int access) {
+			this.update("inner", name, outerName, innerName, access);
+		}
+
+		@Override
+		public void visitPermittedSubclass(String permittedSubclass) {
+			this.update("permits", permittedSubclass);
+		}
+
+		@Override
+		public RecordComponentVisitor visitRecordComponent(String name, String descriptor, String signature) {
+			this.update("component", name, descriptor, signature);
+			return null;
+		}
+
+		@Override
+		public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+			this.update("field", access, name, descriptor, signature, value);
+			return null;
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+			this.update("method", access, name, descriptor, signature, exceptions);
+			return null;
+		}
+	}
+}
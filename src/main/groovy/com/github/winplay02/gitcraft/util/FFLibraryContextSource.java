@@ -0,0 +1,51 @@
+package com.github.winplay02.gitcraft.util;
+
+import org.jetbrains.java.decompiler.main.extern.IContextSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Decompiler context source of library classes, backed by a shared {@link LibraryClasspath}.
+ * <p>
+ * Class names are taken from the persisted index of each jar, class bytes are read on demand. Library jars are therefore neither
+ * parsed again for every decompilation, nor kept open more than once. Only classes are provided, as resources of libraries are not needed for decompilation.
+ */
+public class FFLibraryContextSource implements IContextSource {
+	private final LibraryClasspath classpath;
+
+	public FFLibraryContextSource(LibraryClasspath classpath) {
+		this.classpath = classpath;
+	}
+
+	@Override
+	public String getName() {
+		return "library classpath (%d jars)".formatted(this.classpath.jars().size());
+	}
+
+	@Override
+	public Entries getEntries() {
+		return new Entries(this.classpath.classNames().stream().map(Entry::atBase).toList(), List.of(), List.of());
+	}
+
+	@Override
+	public boolean hasClass(String className) {
+		return this.classpath.locate(className) != null;
+	}
+
+	@Override
+	public byte[] getClassBytes(String className) throws IOException {
+		return this.classpath.getClassBytes(className);
+	}
+
+	@Override
+	public InputStream getInputStream(String resource) throws IOException {
+		if (!resource.endsWith(CLASS_SUFFIX)) {
+			return null;
+		}
+		byte[] classBytes = this.classpath.getClassBytes(resource.substring(0, resource.length() - CLASS_SUFFIX.length()));
+		return classBytes != null ? new ByteArrayInputStream(classBytes) : null;
+	}
+}
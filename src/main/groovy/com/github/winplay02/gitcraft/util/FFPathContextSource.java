@@ -0,0 +1,128 @@
+package com.github.winplay02.gitcraft.util;
+
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.extern.IContextSource;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
+import org.jetbrains.java.decompiler.main.extern.IResultSaver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Decompiler context source, that reads classes and resources from a {@link Path}, e.g. the root of an already open zip filesystem.
+ * <p>
+ * Classes can be filtered by their name (without {@code .class} suffix), so that a single archive can be split into sources and libraries without copying it.
+ * Decompiled sources are written to the result saver with an empty path, resources are copied byte-wise if the saver is a {@link FFZipResultSaver}.
+ */
+public class FFPathContextSource implements IContextSource {
+	private final String name;
+	private final Path root;
+	private final Predicate<String> classFilter;
+	private final boolean includeResources;
+
+	/**
+	 * @param name             Name of this source, used for logging
+	 * @param root             Root of the archive or directory
+	 * @param classFilter      Filter of the classes to provide, by name without {@code .class} suffix
+	 * @param includeResources Whether directories and non-class entries are provided
+	 */
+	public FFPathContextSource(String name, Path root, Predicate<String> classFilter, boolean includeResources) {
+		this.name = name;
+		this.root = root;
+		this.classFilter = classFilter;
+		this.includeResources = includeResources;
+	}
+
+	public FFPathContextSource(String name, Path root) {
+		this(name, root, className -> true, true);
+	}
+
+	@Override
+	public String getName() {
+		return this.name;
+	}
+
+	private String entryName(Path path) {
+		String entryName = this.root.relativize(path).toString().replace('\\', '/');
+		return entryName.endsWith("/") ? entryName.substring(0, entryName.length() - 1) : entryName;
+	}
+
+	@Override
+	public Entries getEntries() {
+		List<Entry> classes = new ArrayList<>();
+		List<String> directories = new ArrayList<>();
+		List<Entry> others = new ArrayList<>();
+		try (Stream<Path> walk = Files.walk(this.root)) {
+			for (Path path : (Iterable<Path>) walk.sorted()::iterator) {
+				String entryName = this.entryName(path);
+				if (entryName.isEmpty()) {
+					continue;
+				}
+				if (Files.isDirectory(path)) {
+					if (this.includeResources) {
+						directories.add(entryName);
+					}
+				} else if (entryName.endsWith(CLASS_SUFFIX)) {
+					String className = entryName.substring(0, entryName.length() - CLASS_SUFFIX.length());
+					if (this.classFilter.test(className)) {
+						classes.add(Entry.parse(className));
+					}
+				} else if (this.includeResources) {
+					others.add(Entry.parse(entryName));
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return new Entries(classes, directories, others);
+	}
+
+	@Override
+	public InputStream getInputStream(String resource) throws IOException {
+		Path path = this.root.resolve(resource);
+		return Files.isRegularFile(path) ? Files.newInputStream(path) : null;
+	}
+
+	@Override
+	public IOutputSink createOutputSink(IResultSaver saver) {
+		return new IOutputSink() {
+			@Override
+			public void begin() {
+			}
+
+			@Override
+			public void acceptClass(String qualifiedName, String fileName, String content, int[] mapping) {
+				saver.saveClassEntry("", FFPathContextSource.this.name, qualifiedName, fileName, content, mapping);
+			}
+
+			@Override
+			public void acceptDirectory(String directory) {
+				saver.saveDirEntry("", FFPathContextSource.this.name, directory);
+			}
+
+			@Override
+			public void acceptOther(String path) {
+				if (!(saver instanceof FFZipResultSaver zipSaver)) {
+					DecompilerContext.getLogger().writeMessage("Cannot copy entry " + path + " from " + FFPathContextSource.this.name + ", unsupported result saver", IFernflowerLogger.Severity.WARN);
+					return;
+				}
+				try {
+					zipSaver.saveEntry(path, Files.readAllBytes(FFPathContextSource.this.root.resolve(path)));
+				} catch (IOException ex) {
+					DecompilerContext.getLogger().writeMessage("Cannot copy entry " + path + " from " + FFPathContextSource.this.name, ex);
+				}
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+	}
+}
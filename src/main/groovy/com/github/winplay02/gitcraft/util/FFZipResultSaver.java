@@ -0,0 +1,112 @@
+package com.github.winplay02.gitcraft.util;
+
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.extern.IResultSaver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Result saver, that writes all results into a {@link ParallelZipWriter}. Results are compressed on the worker threads of the decompiler.
+ * The writer is not closed by this saver, so that further entries can be added after decompilation.
+ */
+public class FFZipResultSaver implements IResultSaver {
+	private final ParallelZipWriter writer;
+	private final Map<String, ZipFile> sourceArchives = new HashMap<>();
+
+	public FFZipResultSaver(ParallelZipWriter writer) {
+		this.writer = writer;
+	}
+
+	private static String entryName(String path, String entryName) {
+		return path == null || path.isEmpty() ? entryName : path + "/" + entryName;
+	}
+
+	@Override
+	public void saveClassEntry(String path, String archiveName, String qualifiedName, String entryName, String content) {
+		this.writer.addEntry(entryName, content != null ? content : "");
+	}
+
+	@Override
+	public void saveDirEntry(String path, String archiveName, String entryName) {
+		this.writer.addDirectory(entryName);
+	}
+
+	@Override
+	public void createArchive(String path, String archiveName, Manifest manifest) {
+
+	}
+
+	@Override
+	public void saveFolder(String path) {
+		this.writer.addDirectory(path);
+	}
+
+	@Override
+	public void copyFile(String source, String path, String entryName) {
+		try {
+			this.writer.addEntry(entryName, Files.readAllBytes(Path.of(source)));
+		} catch (IOException ex) {
+			DecompilerContext.getLogger().writeMessage("Cannot copy " + source + " to " + entryName, ex);
+		}
+	}
+
+	@Override
+	public void saveClassFile(String path, String qualifiedName, String entryName, String content, int[] mapping) {
+		this.writer.addEntry(entryName(path, entryName), content != null ? content : "");
+	}
+
+	@Override
+	public void copyEntry(String source, String path, String archiveName, String entryName) {
+		try {
+			ZipFile sourceArchive;
+			// source archives are kept open, as the decompiler copies all non-class entries one by one
+			synchronized (this.sourceArchives) {
+				sourceArchive = this.sourceArchives.get(source);
+				if (sourceArchive == null) {
+					sourceArchive = new ZipFile(source);
+					this.sourceArchives.put(source, sourceArchive);
+				}
+			}
+			ZipEntry zipEntry = sourceArchive.getEntry(entryName);
+			if (zipEntry != null) {
+				try (InputStream input = sourceArchive.getInputStream(zipEntry)) {
+					this.writer.addEntry(entryName, input.readAllBytes());
+				}
+			}
+		} catch (IOException ex) {
+			String message = "Cannot copy entry " + entryName + " from " + source;
+			DecompilerContext.getLogger().writeMessage(message, ex);
+		}
+	}
+
+	/**
+	 * Adds a non-class entry, that was already read by the caller (see {@link FFPathContextSource}).
+	 */
+	public void saveEntry(String entryName, byte[] content) {
+		this.writer.addEntry(entryName, content);
+	}
+
+	@Override
+	public void closeArchive(String path, String archiveName) {
+
+	}
+
+	@Override
+	public void close() throws IOException {
+		IResultSaver.super.close();
+		synchronized (this.sourceArchives) {
+			for (ZipFile sourceArchive : this.sourceArchives.values()) {
+				sourceArchive.close();
+			}
+			this.sourceArchives.clear();
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.github.winplay02.gitcraft;
+
+import com.github.winplay02.gitcraft.pipeline.StepStatus;
+import com.github.winplay02.gitcraft.util.FileSystemNetworkManager;
+import com.github.winplay02.gitcraft.util.NetworkMirror;
+import com.github.winplay02.gitcraft.util.UrlResolver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@ExtendWith({GitCraftTestingFs.class})
+public class DownloadResumeTest {
+
+	static final int TRUNCATED_LENGTH = 16 * 1024;
+
+	static byte[] content(long seed) {
+		byte[] content = new byte[64 * 1024];
+		new Random(seed).nextBytes(content);
+		return content;
+	}
+
+	static MirrorHttpServer startServer(Path mirrorRoot, URI uri, byte[] content) throws Exception {
+		NetworkMirror mirror = NetworkMirror.open(mirrorRoot);
+		mirror.record(uri, content);
+		MirrorHttpServer server = MirrorHttpServer.start(mirror);
+		FileSystemNetworkManager.setUrlResolver(server.resolver());
+		return server;
+	}
+
+	static void assertNoPartialDownload(Path targetFile) {
+		assertFalse(Files.exists(targetFile.resolveSibling(targetFile.getFileName() + ".part")));
+		assertFalse(Files.exists(targetFile.resolveSibling(targetFile.getFileName() + ".part.json")));
+	}
+
+	@AfterEach
+	public void restoreNetwork() {
+		FileSystemNetworkManager.setUrlResolver(GitCraftTestingFs.mirrorHttpServer != null ? GitCraftTestingFs.mirrorHttpServer.resolver() : UrlResolver.DIRECT);
+	}
+
+	@Test
+	public void truncatedDownloadIsResumed(@TempDir Path tempDir) throws Exception {
+		URI uri = URI.create("https://origin.invalid/resume/artifact.jar");
+		byte[] content = content(1L);
+		Path targetFile = tempDir.resolve("store").resolve("artifact.jar");
+		try (MirrorHttpServer server = startServer(tempDir.resolve("mirror"), uri, content)) {
+			server.truncateNextResponse(uri, TRUNCATED_LENGTH, false);
+			assertEquals(StepStatus.SUCCESS, NetworkMirrorTest.fetch(uri, targetFile, content));
+			assertEquals(List.of(
+				new MirrorHttpServer.Response(null, 200),
+				new MirrorHttpServer.Response("bytes=%d-".formatted(TRUNCATED_LENGTH), 206)
+			), server.responses(uri));
+		}
+		assertArrayEquals(content, Files.readAllBytes(targetFile));
+		assertEquals(NetworkMirrorTest.sha1(content), Library.IA_SHA1.getChecksumFile(targetFile));
+		assertNoPartialDownload(targetFile);
+	}
+
+	@Test
+	public void changedDownloadIsRestarted(@TempDir Path tempDir) throws Exception {
+		URI uri = URI.create("https://origin.invalid/resume/changed.jar");
+		byte[] content = content(2L);
+		Path targetFile = tempDir.resolve("store").resolve("changed.jar");
+		try (MirrorHttpServer server = startServer(tempDir.resolve("mirror"), uri, content)) {
+			server.truncateNextResponse(uri, TRUNCATED_LENGTH, true);
+			assertEquals(StepStatus.SUCCESS, NetworkMirrorTest.fetch(uri, targetFile, content));
+			// the resumed request does not match the new ETag, so the whole file is sent again
+			assertEquals(List.of(
+				new MirrorHttpServer.Response(null, 200),
+				new MirrorHttpServer.Response("bytes=%d-".formatted(TRUNCATED_LENGTH), 200)
+			), server.responses(uri));
+		}
+		assertArrayEquals(content, Files.readAllBytes(targetFile));
+		assertEquals(NetworkMirrorTest.sha1(content), Library.IA_SHA1.getChecksumFile(targetFile));
+		assertNoPartialDownload(targetFile);
+	}
+}
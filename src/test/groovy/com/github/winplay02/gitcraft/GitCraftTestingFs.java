@@ -6,10 +6,13 @@ import com.github.winplay02.gitcraft.config.DataConfiguration;
 import com.github.winplay02.gitcraft.config.RepositoryConfiguration;
 import com.github.winplay02.gitcraft.config.TransientApplicationConfiguration;
 import com.github.winplay02.gitcraft.manifest.metadata.VersionInfo;
+import com.github.winplay02.gitcraft.util.FileSystemNetworkManager;
 import com.github.winplay02.gitcraft.util.GitCraftPaths;
 import com.github.winplay02.gitcraft.util.MiscHelper;
+import com.github.winplay02.gitcraft.util.NetworkMirror;
 import com.github.winplay02.gitcraft.util.SerializationHelper;
 import com.github.winplay02.gitcraft.util.SerializationTypes;
+import com.github.winplay02.gitcraft.util.UrlResolver;
 import org.junit.jupiter.api.extension.BeforeAllCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
 
@@ -20,6 +23,7 @@ import java.nio.file.Path;
 public class GitCraftTestingFs implements BeforeAllCallback, AutoCloseable {
 
 	protected static Path temporaryTestingFsPath = null;
+	protected static MirrorHttpServer mirrorHttpServer = null;
 	//protected static FileSystemUtil.Delegate temporaryTestingFs;
 
 	@Override
@@ -34,6 +38,12 @@ public class GitCraftTestingFs implements BeforeAllCallback, AutoCloseable {
 			Configuration.register("gitcraft_application_transient", TransientApplicationConfiguration.class, TransientApplicationConfiguration::deserialize);
 			SerializationHelper.registerTypeAdapter(VersionInfo.VersionArgumentWithRules.class, SerializationTypes.VersionArgumentWithRulesAdapter::new);
 			Library.applyConfiguration();
+			// network-free test runs, all origins are replaced by a local server serving a previously recorded mirror
+			String networkMirror = System.getProperty("gitcraft.test.networkMirror");
+			if (networkMirror != null && !networkMirror.isEmpty()) {
+				mirrorHttpServer = MirrorHttpServer.start(NetworkMirror.open(Path.of(networkMirror)));
+				FileSystemNetworkManager.setUrlResolver(mirrorHttpServer.resolver());
+			}
 
 			//temporaryTestingFs = FileSystemUtil.getJarFileSystem(temporaryTestingFsPath.resolve("testingfs.jar"), true);
 			//GitCraftPaths.initializePaths(temporaryTestingFs.getPath("."));
@@ -45,6 +55,11 @@ public class GitCraftTestingFs implements BeforeAllCallback, AutoCloseable {
 
 	@Override
 	public void close() throws IOException {
+		if (mirrorHttpServer != null) {
+			FileSystemNetworkManager.setUrlResolver(UrlResolver.DIRECT);
+			mirrorHttpServer.close();
+			mirrorHttpServer = null;
+		}
 		if (temporaryTestingFsPath != null) {
 			// temporaryTestingFs.close();
 			// Files.delete(temporaryTestingFsPath.resolve("testingfs.jar"));
@@ -0,0 +1,171 @@
+package com.github.winplay02.gitcraft;
+
+import com.github.winplay02.gitcraft.util.NetworkMirror;
+import com.github.winplay02.gitcraft.util.UrlResolver;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local HTTP server, that stands in for all remote origins during tests, by serving the contents of a {@link NetworkMirror}.
+ * <p>
+ * Requests are redirected to this server using {@link #resolver()}, the original URL is encoded into the path of the request.
+ * Contrary to using the mirror directly in offline mode, all requests still go through the HTTP client, including range requests of resumed downloads.
+ * Interrupted transfers can be simulated using {@link #truncateNextResponse(URI, long, boolean)}.
+ */
+public class MirrorHttpServer implements AutoCloseable {
+	private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-");
+
+	private final NetworkMirror mirror;
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final Map<URI, Truncation> truncations = new ConcurrentHashMap<>();
+	private final Map<URI, Integer> etagVersions = new ConcurrentHashMap<>();
+	private final Map<URI, List<Response>> responses = new ConcurrentHashMap<>();
+
+	/**
+	 * @param range      Range header of the request, or null
+	 * @param statusCode Status code of the response
+	 */
+	public record Response(String range, int statusCode) {
+	}
+
+	private record Truncation(long length, boolean changeEtag) {
+	}
+
+	private MirrorHttpServer(NetworkMirror mirror) throws IOException {
+		this.mirror = mirror;
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Mirror-Http-Server-", 0).factory());
+		this.server.setExecutor(this.executor);
+		this.server.createContext("/", this::handle);
+	}
+
+	/**
+	 * Starts a server on a free port of the loopback interface.
+	 *
+	 * @param mirror Mirror to serve
+	 * @return Started server
+	 */
+	public static MirrorHttpServer start(NetworkMirror mirror) throws IOException {
+		MirrorHttpServer server = new MirrorHttpServer(mirror);
+		server.server.start();
+		return server;
+	}
+
+	/**
+	 * @return Resolver, that redirects all requests to this server (see {@link com.github.winplay02.gitcraft.util.FileSystemNetworkManager#setUrlResolver(UrlResolver)})
+	 */
+	public UrlResolver resolver() {
+		InetSocketAddress address = this.server.getAddress();
+		return uri -> URI.create("http://%s:%d/%s".formatted(address.getHostString(), address.getPort(), URLEncoder.encode(uri.toString(), StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Cuts the next response to a URL short, by closing the connection after a part of the body was sent.
+	 *
+	 * @param uri        Original URL
+	 * @param length     Number of bytes of the body, that are sent before the connection is closed
+	 * @param changeEtag Whether the ETag of the resource changes afterwards, as if the resource changed on the origin
+	 */
+	public void truncateNextResponse(URI uri, long length, boolean changeEtag) {
+		this.truncations.put(uri, new Truncation(length, changeEtag));
+	}
+
+	/**
+	 * @param uri Original URL
+	 * @return All responses to requests of the URL, in the order they were sent
+	 */
+	public List<Response> responses(URI uri) {
+		return List.copyOf(this.responses.getOrDefault(uri, List.of()));
+	}
+
+	private void sendResponseHeaders(HttpExchange exchange, URI originalUri, int statusCode, long responseLength) throws IOException {
+		this.responses.computeIfAbsent(originalUri, $ -> new CopyOnWriteArrayList<>()).add(new Response(exchange.getRequestHeaders().getFirst("Range"), statusCode));
+		exchange.sendResponseHeaders(statusCode, responseLength);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			if (!exchange.getRequestMethod().equals("GET")) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			URI originalUri = URI.create(URLDecoder.decode(exchange.getRequestURI().getRawPath().substring(1), StandardCharsets.UTF_8));
+			Path content;
+			try {
+				content = Path.of(this.mirror.resolve(originalUri));
+			} catch (FileNotFoundException e) {
+				this.sendResponseHeaders(exchange, originalUri, 404, -1);
+				return;
+			}
+			long length = Files.size(content);
+			// objects of the mirror are named by the digest of their content
+			int etagVersion = this.etagVersions.getOrDefault(originalUri, 0);
+			String etag = etagVersion == 0 ? "\"%s\"".formatted(content.getFileName()) : "\"%s-%d\"".formatted(content.getFileName(), etagVersion);
+			exchange.getResponseHeaders().set("ETag", etag);
+			long offset = 0L;
+			String range = exchange.getRequestHeaders().getFirst("Range");
+			String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+			Matcher rangeMatcher = range != null ? RANGE.matcher(range) : null;
+			if (rangeMatcher != null && rangeMatcher.matches() && (ifRange == null || ifRange.equals(etag))) {
+				offset = Long.parseLong(rangeMatcher.group(1));
+				if (offset >= length) {
+					exchange.getResponseHeaders().set("Content-Range", "bytes */%d".formatted(length));
+					this.sendResponseHeaders(exchange, originalUri, 416, -1);
+					return;
+				}
+				exchange.getResponseHeaders().set("Content-Range", "bytes %d-%d/%d".formatted(offset, length - 1, length));
+				this.sendResponseHeaders(exchange, originalUri, 206, length - offset);
+			} else {
+				this.sendResponseHeaders(exchange, originalUri, 200, length == 0 ? -1 : length);
+			}
+			if (length == 0) {
+				return;
+			}
+			Truncation truncation = this.truncations.remove(originalUri);
+			OutputStream outputStream = exchange.getResponseBody();
+			try (InputStream inputStream = Files.newInputStream(content)) {
+				inputStream.skipNBytes(offset);
+				if (truncation == null) {
+					inputStream.transferTo(outputStream);
+					outputStream.close();
+					return;
+				}
+				outputStream.write(inputStream.readNBytes((int) Math.min(truncation.length(), length - offset - 1)));
+				outputStream.flush();
+			}
+			if (truncation.changeEtag()) {
+				this.etagVersions.merge(originalUri, 1, Integer::sum);
+			}
+			// closing the exchange before the whole body was written closes the connection
+			exchange.close();
+		}
+	}
+
+	@Override
+	public void close() {
+		this.server.stop(0);
+		this.executor.close();
+	}
+}
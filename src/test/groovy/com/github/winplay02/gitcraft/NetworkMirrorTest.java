@@ -0,0 +1,92 @@
+package com.github.winplay02.gitcraft;
+
+import com.github.winplay02.gitcraft.pipeline.StepStatus;
+import com.github.winplay02.gitcraft.util.FileSystemNetworkManager;
+import com.github.winplay02.gitcraft.util.MavenCache;
+import com.github.winplay02.gitcraft.util.NetworkMirror;
+import com.github.winplay02.gitcraft.util.UrlResolver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith({GitCraftTestingFs.class})
+public class NetworkMirrorTest {
+
+	static final byte[] CONTENT = "content of a file, that already exists in the local store".getBytes(StandardCharsets.UTF_8);
+
+	static String sha1(byte[] content) throws Exception {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(content));
+	}
+
+	static StepStatus fetch(URI uri, Path targetFile, byte[] expectedContent) throws Exception {
+		try (ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Testing-Executor").factory())) {
+			return FileSystemNetworkManager.fetchRemoteSerialFSAccess(executor, uri, new FileSystemNetworkManager.LocalFileInfo(targetFile, sha1(expectedContent), Library.IA_SHA1, "testing file", targetFile.getFileName().toString()), true, false).join();
+		}
+	}
+
+	@AfterEach
+	public void restoreNetwork() {
+		FileSystemNetworkManager.setRecordingMirror(null);
+		FileSystemNetworkManager.setUrlResolver(GitCraftTestingFs.mirrorHttpServer != null ? GitCraftTestingFs.mirrorHttpServer.resolver() : UrlResolver.DIRECT);
+	}
+
+	@Test
+	public void recordingWithExistingFilesCanBeReplayedOffline(@TempDir Path tempDir) throws Exception {
+		// the origin does not exist, existing files are never fetched
+		URI recordedUri = URI.create("https://origin.invalid/warm-store/artifact.jar");
+		URI unrecordedUri = URI.create("https://origin.invalid/warm-store/unrecorded.jar");
+		Path existingFile = Files.createDirectories(tempDir.resolve("store")).resolve("artifact.jar");
+		Files.write(existingFile, CONTENT);
+
+		FileSystemNetworkManager.setRecordingMirror(NetworkMirror.open(tempDir.resolve("mirror")));
+		assertEquals(StepStatus.UP_TO_DATE, fetch(recordedUri, existingFile, CONTENT));
+		FileSystemNetworkManager.setRecordingMirror(null);
+
+		// replay into an empty store
+		NetworkMirror mirror = NetworkMirror.open(tempDir.resolve("mirror"));
+		assertNotNull(mirror.lookup(recordedUri));
+		FileSystemNetworkManager.setUrlResolver(mirror);
+		Path replayedFile = tempDir.resolve("replay").resolve("artifact.jar");
+		assertEquals(StepStatus.SUCCESS, fetch(recordedUri, replayedFile, CONTENT));
+		assertArrayEquals(CONTENT, Files.readAllBytes(replayedFile));
+		assertThrows(CompletionException.class, () -> fetch(unrecordedUri, tempDir.resolve("replay").resolve("unrecorded.jar"), CONTENT));
+	}
+
+	@Test
+	public void checksumsMissingInOfflineMirrorAreNotPersisted(@TempDir Path tempDir) throws Exception {
+		String recordedUrl = "https://origin.invalid/maven/artifact/1.0/artifact-1.0.jar.sha1";
+		String unrecordedUrl = "https://origin.invalid/maven/artifact/1.1/artifact-1.1.jar.sha1";
+		NetworkMirror mirror = NetworkMirror.open(tempDir.resolve("mirror"));
+		mirror.record(URI.create(recordedUrl), sha1(CONTENT).getBytes(StandardCharsets.UTF_8));
+		FileSystemNetworkManager.setUrlResolver(mirror);
+
+		Path cacheFile = tempDir.resolve("maven-cache.json");
+		MavenCache cache = MavenCache.load(cacheFile);
+		assertEquals(sha1(CONTENT), cache.getSha1ForURL(recordedUrl));
+		assertNull(cache.getSha1ForURL(unrecordedUrl));
+		cache.save();
+		// the checksum is persisted, the artifact that is only missing in the mirror is not
+		String persisted = Files.readString(cacheFile);
+		assertTrue(persisted.contains(recordedUrl));
+		assertFalse(persisted.contains(unrecordedUrl));
+	}
+}
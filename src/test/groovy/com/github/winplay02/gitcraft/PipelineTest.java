@@ -24,10 +24,13 @@ import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.TestMethodOrder;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
@@ -61,7 +64,7 @@ public class PipelineTest {
 		}
 	}
 
-	record TestingVersion(int num) implements AbstractVersion<TestingVersion> {
+	public record TestingVersion(int num) implements AbstractVersion<TestingVersion> {
 
 		@Override
 		public String semanticVersion() {
@@ -84,7 +87,7 @@ public class PipelineTest {
 		}
 	}
 
-	static class TestingVersionGraph extends AbstractVersionGraph<TestingVersion> {
+	public static class TestingVersionGraph extends AbstractVersionGraph<TestingVersion> {
 		public TestingVersionGraph(List<Tuple2<TestingVersion, TestingVersion>> edgesFw) {
 			super();
 			this.repoTags = new HashSet<>();
@@ -223,6 +226,104 @@ public class PipelineTest {
 		testingVersion -> new EmptyConfig(SEQ_TIMING[0], SEQ_TIMING[1], SEQ_TIMING[2])
 	);
 
+	record ExecutionEvent(TestingStepsRecorded step, TestingVersion version, boolean begin) {
+	}
+
+	static class ExecutionLog {
+		private final List<ExecutionEvent> events = Collections.synchronizedList(new ArrayList<>());
+
+		public void record(TestingStepsRecorded step, TestingVersion version, boolean begin) {
+			this.events.add(new ExecutionEvent(step, version, begin));
+		}
+
+		public boolean began(TestingStepsRecorded step, TestingVersion version) {
+			return this.events.contains(new ExecutionEvent(step, version, true));
+		}
+
+		public boolean finishedBefore(TestingStepsRecorded step1, TestingVersion version1, TestingStepsRecorded step2, TestingVersion version2) {
+			int end = this.events.indexOf(new ExecutionEvent(step1, version1, false));
+			int begin = this.events.indexOf(new ExecutionEvent(step2, version2, true));
+			return end >= 0 && begin >= 0 && end < begin;
+		}
+	}
+
+	record RecordingConfig(ExecutionLog log, TestingVersion failingVersion) implements IStepConfig {
+		@Override
+		public String createArtifactComponentString(KeyInformation<?> dist, KeyInformation<?>... matchingFlavours) {
+			return "";
+		}
+	}
+
+	record RecordingStepWorker(RecordingConfig config, TestingStepsRecorded step) implements IStepWorker<TestingVersion, StepInput.Empty, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig> {
+		@Override
+		public StepOutput<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig> run(IPipeline<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig> pipeline, IStepContext.SimpleStepContext<TestingVersion> context, StepInput.Empty input, StepResults<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig> results) throws Exception {
+			this.config.log().record(this.step, context.targetVersion(), true);
+			Thread.sleep(50);
+			if (this.step == TestingStepsRecorded.FAILING && context.targetVersion().equals(this.config.failingVersion())) {
+				throw new IllegalStateException("Intentional failure of " + context.targetVersion());
+			}
+			this.config.log().record(this.step, context.targetVersion(), false);
+			return StepOutput.ofEmptyResultSet(StepStatus.SUCCESS);
+		}
+	}
+
+	enum TestingStepsRecorded implements IStep<TestingVersion, StepInput.Empty, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig> {
+		FETCH("Fetch", ParallelismPolicy.SAFELY_FULLY_PARALLEL),
+		SEQUENTIAL("Sequential", ParallelismPolicy.UNSAFE_RESTRICTED_TO_SEQUENTIAL),
+		FAILING("Failing", ParallelismPolicy.SAFELY_FULLY_PARALLEL),
+		FINAL("Final", ParallelismPolicy.SAFELY_FULLY_PARALLEL),
+		// never part of a pipeline description
+		MISSING("Missing", ParallelismPolicy.SAFELY_FULLY_PARALLEL);
+
+		private final String name;
+		private final ParallelismPolicy parallelismPolicy;
+
+		TestingStepsRecorded(String name, ParallelismPolicy policy) {
+			this.name = name;
+			this.parallelismPolicy = policy;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public ParallelismPolicy getParallelismPolicy() {
+			return this.parallelismPolicy;
+		}
+
+		public IStepWorker<TestingVersion, StepInput.Empty, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig> createWorker(RecordingConfig config) {
+			return new RecordingStepWorker(config, this);
+		}
+	}
+
+	static PipelineDescription<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig> createRecordingDescription(RecordingConfig config, StepDependencies<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig> finalDependencies) {
+		return new PipelineDescription<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig>(
+			"recording-pipeline",
+			List.of(TestingStepsRecorded.FETCH, TestingStepsRecorded.SEQUENTIAL, TestingStepsRecorded.FAILING, TestingStepsRecorded.FINAL),
+			Map.of(
+				TestingStepsRecorded.FETCH, ($, $$) -> new StepInput.Empty(),
+				TestingStepsRecorded.SEQUENTIAL, ($, $$) -> new StepInput.Empty(),
+				TestingStepsRecorded.FAILING, ($, $$) -> new StepInput.Empty(),
+				TestingStepsRecorded.FINAL, ($, $$) -> new StepInput.Empty()
+			),
+			Map.of(
+				TestingStepsRecorded.SEQUENTIAL, StepDependencies.ofHardIntraVersionOnly(TestingStepsRecorded.FETCH),
+				// optional dependencies on steps, that are not part of the pipeline, are not waited on
+				TestingStepsRecorded.FAILING, StepDependencies.ofIntraVersion(Set.of(TestingStepsRecorded.FETCH), Set.of(TestingStepsRecorded.MISSING)),
+				TestingStepsRecorded.FINAL, finalDependencies
+			),
+			(version, repository, versionGraph, executorService) -> new IStepContext.SimpleStepContext<TestingVersion>(repository, versionGraph, version, executorService),
+			testingVersion -> config
+		);
+	}
+
+	static StepDependencies<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig> finalStepDependencies() {
+		return StepDependencies.merge(
+			StepDependencies.ofHardIntraVersionOnly(TestingStepsRecorded.SEQUENTIAL, TestingStepsRecorded.FAILING),
+			StepDependencies.ofInterVersion(TestingStepsRecorded.FINAL)
+		);
+	}
+
 	static TestingVersionGraph createVersionGraph() {
 		return new TestingVersionGraph(
 			List.of(
@@ -268,4 +369,62 @@ public class PipelineTest {
 		Assertions.assertFalse(SEQ_TIMING[2].isOverlapping(new TestingVersion(2), new TestingVersion(3)));
 		Assertions.assertFalse(SEQ_TIMING[2].isOverlapping(new TestingVersion(1), new TestingVersion(2)));
 	}
+
+	@Test
+	public void pipelineExecutionDependencyOrder() throws Exception {
+		TestingVersionGraph graph = createVersionGraph();
+		ExecutionLog log = new ExecutionLog();
+		IPipeline.run(createRecordingDescription(new RecordingConfig(log, null), finalStepDependencies()), new PipelineFilesystemStorage<>(null, null), null, graph);
+		for (int num = 1; num <= 4; ++num) {
+			TestingVersion version = new TestingVersion(num);
+			// Intra-Version
+			Assertions.assertTrue(log.finishedBefore(TestingStepsRecorded.FETCH, version, TestingStepsRecorded.SEQUENTIAL, version));
+			Assertions.assertTrue(log.finishedBefore(TestingStepsRecorded.FETCH, version, TestingStepsRecorded.FAILING, version));
+			Assertions.assertTrue(log.finishedBefore(TestingStepsRecorded.SEQUENTIAL, version, TestingStepsRecorded.FINAL, version));
+			Assertions.assertTrue(log.finishedBefore(TestingStepsRecorded.FAILING, version, TestingStepsRecorded.FINAL, version));
+		}
+		// Inter-Version
+		Assertions.assertTrue(log.finishedBefore(TestingStepsRecorded.FINAL, new TestingVersion(1), TestingStepsRecorded.FINAL, new TestingVersion(2)));
+		Assertions.assertTrue(log.finishedBefore(TestingStepsRecorded.FINAL, new TestingVersion(2), TestingStepsRecorded.FINAL, new TestingVersion(3)));
+		Assertions.assertTrue(log.finishedBefore(TestingStepsRecorded.FINAL, new TestingVersion(2), TestingStepsRecorded.FINAL, new TestingVersion(4)));
+	}
+
+	@Test
+	public void pipelineExecutionSequentialNeverOverlaps() throws Exception {
+		TestingVersionGraph graph = createVersionGraph();
+		ExecutionLog log = new ExecutionLog();
+		IPipeline.run(createRecordingDescription(new RecordingConfig(log, null), finalStepDependencies()), new PipelineFilesystemStorage<>(null, null), null, graph);
+		for (int num1 = 1; num1 <= 4; ++num1) {
+			for (int num2 = num1 + 1; num2 <= 4; ++num2) {
+				TestingVersion version1 = new TestingVersion(num1);
+				TestingVersion version2 = new TestingVersion(num2);
+				Assertions.assertTrue(
+					log.finishedBefore(TestingStepsRecorded.SEQUENTIAL, version1, TestingStepsRecorded.SEQUENTIAL, version2) || log.finishedBefore(TestingStepsRecorded.SEQUENTIAL, version2, TestingStepsRecorded.SEQUENTIAL, version1),
+					String.format("Sequential step overlaps for %s and %s", version1, version2)
+				);
+			}
+		}
+	}
+
+	@Test
+	public void pipelineExecutionFailureStopsDependents() {
+		TestingVersionGraph graph = createVersionGraph();
+		ExecutionLog log = new ExecutionLog();
+		Assertions.assertThrows(RuntimeException.class, () -> IPipeline.run(createRecordingDescription(new RecordingConfig(log, new TestingVersion(2)), finalStepDependencies()), new PipelineFilesystemStorage<>(null, null), null, graph));
+		Assertions.assertTrue(log.began(TestingStepsRecorded.FAILING, new TestingVersion(2)));
+		// Intra-Version dependent
+		Assertions.assertFalse(log.began(TestingStepsRecorded.FINAL, new TestingVersion(2)));
+		// Inter-Version dependents
+		Assertions.assertFalse(log.began(TestingStepsRecorded.FINAL, new TestingVersion(3)));
+		Assertions.assertFalse(log.began(TestingStepsRecorded.FINAL, new TestingVersion(4)));
+	}
+
+	@Test
+	public void pipelineExecutionMissingInterVersionDependency() {
+		TestingVersionGraph graph = createVersionGraph();
+		ExecutionLog log = new ExecutionLog();
+		// would never complete, the pipeline is rejected instead of waiting forever
+		Assertions.assertThrows(RuntimeException.class, () -> IPipeline.run(createRecordingDescription(new RecordingConfig(log, null), StepDependencies.ofInterVersion(TestingStepsRecorded.MISSING)), new PipelineFilesystemStorage<>(null, null), null, graph));
+		Assertions.assertFalse(log.began(TestingStepsRecorded.FETCH, new TestingVersion(1)));
+	}
 }
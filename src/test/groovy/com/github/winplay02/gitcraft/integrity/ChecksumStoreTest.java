@@ -0,0 +1,124 @@
+package com.github.winplay02.gitcraft.integrity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+public class ChecksumStoreTest {
+
+	static ChecksumStore.Entry entry(long size, String hashValue) {
+		return new ChecksumStore.Entry(new ChecksumStore.FileState(size, 1700000000L, 123, "(dev=1,ino=" + size + ")"), hashValue);
+	}
+
+	/**
+	 * @return Offset of the record with the provided index
+	 */
+	static int recordOffset(byte[] store, int index) {
+		int offset = Integer.BYTES;
+		for (int i = 0; i < index; ++i) {
+			offset += Integer.BYTES + ByteBuffer.wrap(store, offset, Integer.BYTES).getInt();
+		}
+		return offset;
+	}
+
+	@Test
+	public void roundTrip(@TempDir Path tempDir) {
+		Path storePath = tempDir.resolve("checksums.bin");
+		ChecksumStore store = new ChecksumStore(storePath);
+		Assertions.assertEquals(Map.of(), store.open());
+		store.append("/a", entry(1, "aa"));
+		store.append("/b", entry(2, "bb"));
+		store.append("/a", entry(3, "cc"));
+		store.append("/c", entry(4, "dd"));
+		store.append("/c", null);
+		Assertions.assertEquals(Map.of("/a", entry(3, "cc"), "/b", entry(2, "bb")), new ChecksumStore(storePath).open());
+
+		store.clear();
+		Assertions.assertEquals(Map.of(), new ChecksumStore(storePath).open());
+	}
+
+	@Test
+	public void tornTailIsDiscarded(@TempDir Path tempDir) throws Exception {
+		Path storePath = tempDir.resolve("checksums.bin");
+		ChecksumStore store = new ChecksumStore(storePath);
+		store.open();
+		store.append("/a", entry(1, "aa"));
+		store.append("/b", entry(2, "bb"));
+		byte[] complete = Files.readAllBytes(storePath);
+		Files.write(storePath, Arrays.copyOf(complete, complete.length - 3));
+
+		ChecksumStore reopened = new ChecksumStore(storePath);
+		Assertions.assertEquals(Map.of("/a", entry(1, "aa")), reopened.open());
+		Assertions.assertEquals(recordOffset(complete, 1), Files.size(storePath));
+		// appending continues after the last valid record
+		reopened.append("/c", entry(3, "cc"));
+		Assertions.assertEquals(Map.of("/a", entry(1, "aa"), "/c", entry(3, "cc")), new ChecksumStore(storePath).open());
+	}
+
+	@Test
+	public void unreadableRecordTruncatesTheStore(@TempDir Path tempDir) throws Exception {
+		Path storePath = tempDir.resolve("checksums.bin");
+		ChecksumStore store = new ChecksumStore(storePath);
+		store.open();
+		store.append("/a", entry(1, "aa"));
+		store.append("/b", entry(2, "bb"));
+		store.append("/c", entry(3, "cc"));
+		byte[] bytes = Files.readAllBytes(storePath);
+		// path length of the second record exceeds the record
+		int offset = recordOffset(bytes, 1) + Integer.BYTES;
+		bytes[offset] = (byte) 0xFF;
+		bytes[offset + 1] = (byte) 0xFF;
+		Files.write(storePath, bytes);
+
+		// records before the unreadable record are retained
+		Assertions.assertEquals(Map.of("/a", entry(1, "aa")), new ChecksumStore(storePath).open());
+		Assertions.assertEquals(recordOffset(bytes, 1), Files.size(storePath));
+	}
+
+	@Test
+	public void unknownFormatIsDiscarded(@TempDir Path tempDir) throws Exception {
+		Path storePath = Files.writeString(tempDir.resolve("checksums.bin"), "not a checksum store");
+		ChecksumStore store = new ChecksumStore(storePath);
+		Assertions.assertEquals(Map.of(), store.open());
+		store.append("/a", entry(1, "aa"));
+		Assertions.assertEquals(Map.of("/a", entry(1, "aa")), new ChecksumStore(storePath).open());
+	}
+
+	@Test
+	public void compaction(@TempDir Path tempDir) throws Exception {
+		Path storePath = tempDir.resolve("checksums.bin");
+		ChecksumStore store = new ChecksumStore(storePath);
+		store.open();
+		for (int i = 0; i < 2000; ++i) {
+			store.append("/a", entry(i, "aa" + i));
+		}
+		store.append("/b", entry(1, "bb"));
+		long uncompactedSize = Files.size(storePath);
+
+		Map<String, ChecksumStore.Entry> expected = Map.of("/a", entry(1999, "aa1999"), "/b", entry(1, "bb"));
+		ChecksumStore compacted = new ChecksumStore(storePath);
+		Assertions.assertEquals(expected, compacted.open());
+		Assertions.assertTrue(Files.size(storePath) < uncompactedSize / 100);
+		Assertions.assertFalse(Files.exists(storePath.resolveSibling("checksums.bin.tmp")));
+		// the compacted store remains appendable
+		compacted.append("/c", entry(2, "cc"));
+		Assertions.assertEquals(Map.of("/a", entry(1999, "aa1999"), "/b", entry(1, "bb"), "/c", entry(2, "cc")), new ChecksumStore(storePath).open());
+	}
+
+	@Test
+	public void reopeningReloadsEntries(@TempDir Path tempDir) {
+		Path storePath = tempDir.resolve("checksums.bin");
+		ChecksumStore store = new ChecksumStore(storePath);
+		store.open();
+		store.append("/a", entry(1, "aa"));
+		Assertions.assertEquals(Map.of("/a", entry(1, "aa")), store.open());
+		store.append("/b", entry(2, "bb"));
+		Assertions.assertEquals(Map.of("/a", entry(1, "aa"), "/b", entry(2, "bb")), store.open());
+	}
+}
@@ -0,0 +1,129 @@
+package com.github.winplay02.gitcraft.mappings;
+
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.MappingVisitor;
+import net.fabricmc.mappingio.MappingWriter;
+import net.fabricmc.mappingio.adapter.ForwardingMappingVisitor;
+import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
+import net.fabricmc.mappingio.format.MappingFormat;
+import net.fabricmc.mappingio.tree.MappingTreeView;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class BinaryMappingFormatTest {
+
+	static final String STAMP = "test|MERGED:1234:5678";
+
+	static MemoryMappingTree sourceTree() throws IOException {
+		MemoryMappingTree tree = new MemoryMappingTree();
+		tree.visitHeader();
+		tree.visitNamespaces("official", List.of("intermediary", "named"));
+		tree.visitContent();
+		tree.visitClass("a");
+		tree.visitDstName(MappedElementKind.CLASS, 0, "net/minecraft/class_1");
+		tree.visitDstName(MappedElementKind.CLASS, 1, "net/minecraft/block/Block");
+		tree.visitComment(MappedElementKind.CLASS, "A block, which is placed in the world.");
+		tree.visitField("a", "I");
+		tree.visitDstName(MappedElementKind.FIELD, 0, "field_1");
+		tree.visitDstName(MappedElementKind.FIELD, 1, "hardness");
+		tree.visitMethod("a", "(La;)V");
+		tree.visitDstName(MappedElementKind.METHOD, 0, "method_1");
+		tree.visitDstName(MappedElementKind.METHOD, 1, "copyFrom");
+		tree.visitComment(MappedElementKind.METHOD, "Copies the properties of another block.\nLine breaks are retained.");
+		tree.visitMethodArg(0, 1, null);
+		tree.visitDstName(MappedElementKind.METHOD_ARG, 1, "other");
+		tree.visitMethodVar(0, 2, 3, 10, null);
+		tree.visitDstName(MappedElementKind.METHOD_VAR, 1, "copied");
+		tree.visitClass("b");
+		tree.visitDstName(MappedElementKind.CLASS, 0, "net/minecraft/class_2");
+		// missing names of a namespace remain missing
+		tree.visitMethod("b", "()La;");
+		tree.visitDstName(MappedElementKind.METHOD, 1, "getBlock");
+		tree.visitEnd();
+		return tree;
+	}
+
+	static String tiny(MappingTreeView tree) throws IOException {
+		StringWriter output = new StringWriter();
+		try (MappingWriter writer = MappingWriter.create(output, MappingFormat.TINY_2_FILE)) {
+			tree.accept(writer);
+		}
+		return output.toString();
+	}
+
+	@Test
+	public void roundTrip(@TempDir Path tempDir) throws Exception {
+		MemoryMappingTree source = sourceTree();
+		Path path = tempDir.resolve("prepared").resolve("mappings.mapbin");
+		BinaryMappingFormat.write(source, path, STAMP);
+
+		MemoryMappingTree read = new MemoryMappingTree();
+		Assertions.assertTrue(BinaryMappingFormat.read(path, STAMP, read));
+		Assertions.assertEquals(tiny(source), tiny(read));
+		Assertions.assertEquals("A block, which is placed in the world.", read.getClass("a").getComment());
+		// the file is no longer mapped, so that it can be replaced
+		BinaryMappingFormat.write(source, path, STAMP + "|changed");
+		Files.delete(path);
+		try (Stream<Path> files = Files.list(path.getParent())) {
+			Assertions.assertEquals(0L, files.count());
+		}
+	}
+
+	@Test
+	public void multiplePassesAreReplayed(@TempDir Path tempDir) throws Exception {
+		MemoryMappingTree source = sourceTree();
+		Path path = tempDir.resolve("mappings.mapbin");
+		BinaryMappingFormat.write(source, path, STAMP);
+
+		// switching the source namespace requires two passes
+		MemoryMappingTree expected = new MemoryMappingTree();
+		source.accept(new MappingSourceNsSwitch(expected, "named"));
+		MemoryMappingTree read = new MemoryMappingTree();
+		Assertions.assertTrue(BinaryMappingFormat.read(path, STAMP, new MappingSourceNsSwitch(read, "named")));
+		Assertions.assertEquals(tiny(expected), tiny(read));
+	}
+
+	@Test
+	public void declinedElementsAreSkipped(@TempDir Path tempDir) throws Exception {
+		MemoryMappingTree source = sourceTree();
+		Path path = tempDir.resolve("mappings.mapbin");
+		BinaryMappingFormat.write(source, path, STAMP);
+
+		MemoryMappingTree read = new MemoryMappingTree();
+		MappingVisitor withoutClassA = new ForwardingMappingVisitor(read) {
+			@Override
+			public boolean visitClass(String srcName) throws IOException {
+				return !srcName.equals("a") && super.visitClass(srcName);
+			}
+		};
+		Assertions.assertTrue(BinaryMappingFormat.read(path, STAMP, withoutClassA));
+		Assertions.assertNull(read.getClass("a"));
+		Assertions.assertEquals("net/minecraft/class_2", read.getClass("b").getDstName(0));
+		Assertions.assertEquals("getBlock", read.getClass("b").getMethod("b", "()La;").getDstName(1));
+	}
+
+	@Test
+	public void staleStampIsRejected(@TempDir Path tempDir) throws Exception {
+		Path path = tempDir.resolve("mappings.mapbin");
+		MemoryMappingTree read = new MemoryMappingTree();
+		Assertions.assertFalse(BinaryMappingFormat.read(path, STAMP, read));
+
+		BinaryMappingFormat.write(sourceTree(), path, STAMP);
+		Assertions.assertFalse(BinaryMappingFormat.read(path, "test|MERGED:1234:9999", read));
+		Assertions.assertNull(read.getSrcNamespace());
+		Assertions.assertEquals(0, read.getClasses().size());
+
+		Files.writeString(path, "not prepared mappings");
+		Assertions.assertFalse(BinaryMappingFormat.read(path, STAMP, read));
+		Assertions.assertEquals(0, read.getClasses().size());
+	}
+}
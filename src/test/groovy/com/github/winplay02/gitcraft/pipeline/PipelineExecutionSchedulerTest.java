@@ -0,0 +1,143 @@
+package com.github.winplay02.gitcraft.pipeline;
+
+import com.github.winplay02.gitcraft.PipelineTest.TestingVersion;
+import com.github.winplay02.gitcraft.PipelineTest.TestingVersionGraph;
+import com.github.winplay02.gitcraft.pipeline.key.KeyInformation;
+import com.github.winplay02.gitcraft.util.Tuple2;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class PipelineExecutionSchedulerTest {
+
+	record EmptyConfig() implements IStepConfig {
+		@Override
+		public String createArtifactComponentString(KeyInformation<?> dist, KeyInformation<?>... matchingFlavours) {
+			return "";
+		}
+	}
+
+	enum TestingSteps implements IStep<TestingVersion, StepInput.Empty, IStepContext.SimpleStepContext<TestingVersion>, EmptyConfig> {
+		SHORT("Short", 1L, ParallelismPolicy.SAFELY_FULLY_PARALLEL),
+		MEDIUM("Medium", 2L, ParallelismPolicy.SAFELY_FULLY_PARALLEL),
+		LONG("Long", 10L, ParallelismPolicy.SAFELY_FULLY_PARALLEL),
+		AFTER_SHORT("AfterShort", 100L, ParallelismPolicy.SAFELY_FULLY_PARALLEL),
+		SEQUENTIAL("Sequential", 1L, ParallelismPolicy.UNSAFE_RESTRICTED_TO_SEQUENTIAL);
+
+		private final String name;
+		private final long duration;
+		private final ParallelismPolicy parallelismPolicy;
+
+		TestingSteps(String name, long duration, ParallelismPolicy parallelismPolicy) {
+			this.name = name;
+			this.duration = duration;
+			this.parallelismPolicy = parallelismPolicy;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public ParallelismPolicy getParallelismPolicy() {
+			return this.parallelismPolicy;
+		}
+
+		public IStepWorker<TestingVersion, StepInput.Empty, IStepContext.SimpleStepContext<TestingVersion>, EmptyConfig> createWorker(EmptyConfig config) {
+			return null;
+		}
+	}
+
+	static PipelineExecutionScheduler<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, EmptyConfig> createScheduler(List<IStep<TestingVersion, ?, IStepContext.SimpleStepContext<TestingVersion>, EmptyConfig>> steps, Map<IStep<TestingVersion, ?, IStepContext.SimpleStepContext<TestingVersion>, EmptyConfig>, StepDependencies<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, EmptyConfig>> dependencies, TestingVersionGraph versionGraph) {
+		PipelineDescription<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, EmptyConfig> description = new PipelineDescription<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, EmptyConfig>(
+			"scheduler",
+			steps,
+			Map.of(),
+			dependencies,
+			(version, repository, graph, executorService) -> new IStepContext.SimpleStepContext<TestingVersion>(repository, graph, version, executorService),
+			version -> new EmptyConfig()
+		);
+		return new PipelineExecutionScheduler<>(PipelineExecutionGraph.populate(description, versionGraph), step -> ((TestingSteps) step).duration);
+	}
+
+	static IPipeline.TupleVersionStep<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, EmptyConfig> task(TestingSteps step, int version) {
+		return new IPipeline.TupleVersionStep<>(step, new TestingVersion(version));
+	}
+
+	static TestingVersionGraph createVersionGraph(int versions) {
+		List<Tuple2<TestingVersion, TestingVersion>> edges = new ArrayList<>();
+		for (int num = 1; num < versions; ++num) {
+			edges.add(Tuple2.tuple(new TestingVersion(num), new TestingVersion(num + 1)));
+		}
+		return new TestingVersionGraph(edges);
+	}
+
+	@Test
+	public void criticalPathIsPreferred() {
+		PipelineExecutionScheduler<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, EmptyConfig> scheduler = createScheduler(
+			List.of(TestingSteps.SHORT, TestingSteps.LONG, TestingSteps.AFTER_SHORT),
+			Map.of(TestingSteps.AFTER_SHORT, StepDependencies.ofHardIntraVersionOnly(TestingSteps.SHORT)),
+			createVersionGraph(2)
+		);
+		// the short step is followed by the longest step, the remaining path is longer than the one of the long step
+		Assertions.assertEquals(Set.of(task(TestingSteps.SHORT, 1), task(TestingSteps.SHORT, 2)), Set.of(scheduler.poll(Set.of()), scheduler.poll(Set.of())));
+		Assertions.assertEquals(Set.of(task(TestingSteps.LONG, 1), task(TestingSteps.LONG, 2)), Set.of(scheduler.poll(Set.of()), scheduler.poll(Set.of())));
+		Assertions.assertNull(scheduler.poll(Set.of()));
+		scheduler.complete(task(TestingSteps.SHORT, 1));
+		Assertions.assertEquals(task(TestingSteps.AFTER_SHORT, 1), scheduler.poll(Set.of()));
+		Assertions.assertNull(scheduler.poll(Set.of()));
+	}
+
+	@Test
+	public void criticalPathIncludesLaterVersions() {
+		// the chain of the short step over all versions (1 -> 2 -> 3) is longer than a single medium step
+		PipelineExecutionScheduler<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, EmptyConfig> scheduler = createScheduler(
+			List.of(TestingSteps.SHORT, TestingSteps.MEDIUM),
+			Map.of(TestingSteps.SHORT, StepDependencies.ofInterVersion(TestingSteps.SHORT)),
+			createVersionGraph(3)
+		);
+		Assertions.assertEquals(task(TestingSteps.SHORT, 1), scheduler.poll(Set.of()));
+		Assertions.assertEquals(Set.of(task(TestingSteps.MEDIUM, 1), task(TestingSteps.MEDIUM, 2), task(TestingSteps.MEDIUM, 3)), Set.of(scheduler.poll(Set.of()), scheduler.poll(Set.of()), scheduler.poll(Set.of())));
+		Assertions.assertNull(scheduler.poll(Set.of()));
+		scheduler.complete(task(TestingSteps.SHORT, 1));
+		Assertions.assertEquals(task(TestingSteps.SHORT, 2), scheduler.poll(Set.of()));
+		Assertions.assertNull(scheduler.poll(Set.of()));
+	}
+
+	@Test
+	public void sequentialStepIsHeldBack() {
+		PipelineExecutionScheduler<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, EmptyConfig> scheduler = createScheduler(
+			List.of(TestingSteps.SEQUENTIAL),
+			Map.of(),
+			createVersionGraph(2)
+		);
+		IPipeline.TupleVersionStep<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, EmptyConfig> first = scheduler.poll(Set.of());
+		Assertions.assertNotNull(first);
+		Assertions.assertNull(scheduler.poll(Set.of(TestingSteps.SEQUENTIAL)));
+		scheduler.complete(first);
+		IPipeline.TupleVersionStep<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, EmptyConfig> second = scheduler.poll(Set.of());
+		Assertions.assertNotNull(second);
+		Assertions.assertNotEquals(first, second);
+		Assertions.assertNull(scheduler.poll(Set.of()));
+	}
+
+	@Test
+	public void conditionalDependencyIsDecidedOnGraphCreation() {
+		AtomicBoolean condition = new AtomicBoolean(false);
+		Map<IStep<TestingVersion, ?, IStepContext.SimpleStepContext<TestingVersion>, EmptyConfig>, StepDependencies<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, EmptyConfig>> dependencies = Map.of(
+			TestingSteps.SHORT, StepDependencies.ofConditionalInterVersion(condition::get, TestingSteps.SHORT)
+		);
+		// the condition is checked after the dependencies were declared
+		condition.set(true);
+		PipelineExecutionScheduler<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, EmptyConfig> dependentScheduler = createScheduler(List.of(TestingSteps.SHORT), dependencies, createVersionGraph(2));
+		Assertions.assertEquals(task(TestingSteps.SHORT, 1), dependentScheduler.poll(Set.of()));
+		Assertions.assertNull(dependentScheduler.poll(Set.of()));
+		condition.set(false);
+		PipelineExecutionScheduler<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, EmptyConfig> independentScheduler = createScheduler(List.of(TestingSteps.SHORT), dependencies, createVersionGraph(2));
+		Assertions.assertEquals(Set.of(task(TestingSteps.SHORT, 1), task(TestingSteps.SHORT, 2)), Set.of(independentScheduler.poll(Set.of()), independentScheduler.poll(Set.of())));
+	}
+}
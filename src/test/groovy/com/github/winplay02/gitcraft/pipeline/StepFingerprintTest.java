@@ -0,0 +1,79 @@
+package com.github.winplay02.gitcraft.pipeline;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class StepFingerprintTest {
+
+	static StepFingerprint fingerprint(Path input, Object configValue, Class<?> tool) {
+		return StepFingerprint.of("step")
+			.file("input", input)
+			.value("config", configValue)
+			.tool(tool);
+	}
+
+	@Test
+	public void unchangedInputsGiveTheSameFingerprint(@TempDir Path tempDir) throws Exception {
+		Path input = Files.writeString(tempDir.resolve("input.txt"), "input");
+		Assertions.assertEquals(fingerprint(input, 1, Test.class).digest(), fingerprint(input, 1, Test.class).digest());
+		// digests can be taken at any point, without affecting the fingerprint
+		StepFingerprint fingerprint = fingerprint(input, 1, Test.class);
+		Assertions.assertEquals(fingerprint.digest(), fingerprint.digest());
+	}
+
+	@Test
+	public void changedInputsGiveDifferentFingerprints(@TempDir Path tempDir) throws Exception {
+		Path input = Files.writeString(tempDir.resolve("input.txt"), "input");
+		String digest = fingerprint(input, 1, Test.class).digest();
+		Assertions.assertNotEquals(digest, fingerprint(input, 2, Test.class).digest());
+		Assertions.assertNotEquals(digest, fingerprint(input, null, Test.class).digest());
+		Assertions.assertNotEquals(digest, fingerprint(input, 1, StepFingerprintTest.class).digest());
+		Assertions.assertNotEquals(digest, fingerprint(tempDir.resolve("absent.txt"), 1, Test.class).digest());
+		Assertions.assertNotEquals(digest, fingerprint(null, 1, Test.class).digest());
+		Assertions.assertNotEquals(digest, StepFingerprint.of("other step").file("input", input).value("config", 1).tool(Test.class).digest());
+
+		Files.writeString(input, "changed input");
+		Assertions.assertNotEquals(digest, fingerprint(input, 1, Test.class).digest());
+	}
+
+	@Test
+	public void valuesAreDelimited() {
+		Assertions.assertNotEquals(StepFingerprint.of("step").value("a", "bc").digest(), StepFingerprint.of("step").value("ab", "c").digest());
+	}
+
+	@Test
+	public void resultIsUpToDateOnlyWithMatchingFingerprint(@TempDir Path tempDir) throws Exception {
+		Path input = Files.writeString(tempDir.resolve("input.txt"), "input");
+		Path result = tempDir.resolve("results").resolve("result.jar");
+		StepFingerprint fingerprint = fingerprint(input, 1, Test.class);
+		Assertions.assertFalse(StepFingerprint.isUpToDate(result, fingerprint));
+
+		// an interrupted run leaves a result behind, that is not up-to-date
+		StepFingerprint.markPending(result);
+		Files.writeString(result, "partial result");
+		Assertions.assertFalse(StepFingerprint.isUpToDate(result, fingerprint));
+
+		StepFingerprint.store(result, fingerprint);
+		Assertions.assertTrue(StepFingerprint.isUpToDate(result, fingerprint(input, 1, Test.class)));
+		Assertions.assertFalse(StepFingerprint.isUpToDate(result, fingerprint(input, 2, Test.class)));
+		Files.writeString(input, "changed input");
+		Assertions.assertFalse(StepFingerprint.isUpToDate(result, fingerprint(input, 1, Test.class)));
+	}
+
+	@Test
+	public void resultWithoutFingerprintIsOutOfDate(@TempDir Path tempDir) throws Exception {
+		Path result = Files.writeString(tempDir.resolve("result.jar"), "result of an unknown run");
+		StepFingerprint fingerprint = StepFingerprint.of("step").value("config", 1);
+		Assertions.assertFalse(StepFingerprint.isUpToDate(result, fingerprint));
+		// the result is not adopted
+		Assertions.assertFalse(StepFingerprint.isUpToDate(result, fingerprint));
+
+		Files.delete(result);
+		StepFingerprint.store(result, fingerprint);
+		Assertions.assertFalse(StepFingerprint.isUpToDate(result, fingerprint));
+	}
+}
@@ -0,0 +1,53 @@
+package com.github.winplay02.gitcraft.pipeline.workers;
+
+import com.github.winplay02.gitcraft.util.CommitTreeBuilder;
+import com.github.winplay02.gitcraft.util.RepoWrapper;
+import com.github.winplay02.gitcraft.util.SerializationHelper;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.TimeZone;
+
+public class CommitterTest {
+
+	static final String UNSORTED_JSON = "{\"b\": \"second\", \"a\": {\"d\": 2, \"c\": 1}}";
+
+	static String readCommittedFile(RepoWrapper repo, String repoPath) throws IOException {
+		Repository repository = repo.getGit().getRepository();
+		try (RevWalk walk = new RevWalk(repository); TreeWalk treeWalk = TreeWalk.forPath(repository, repoPath, walk.parseCommit(repository.resolve(Constants.HEAD)).getTree())) {
+			Assertions.assertNotNull(treeWalk, repoPath);
+			return new String(repository.open(treeWalk.getObjectId(0)).getBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@Test
+	public void jsonFilesAreSortedByTheirPathInTheRepository(@TempDir Path tempDir) throws Exception {
+		// external assets are stored by their hash, without a file extension
+		Path objectStore = Files.createDirectories(tempDir.resolve("objects"));
+		Path hashNamedAsset = Files.writeString(objectStore.resolve("0a1b2c3d4e5f60718293a4b5c6d7e8f901234567"), UNSORTED_JSON);
+		Path hashNamedText = Files.writeString(objectStore.resolve("1a1b2c3d4e5f60718293a4b5c6d7e8f901234567"), UNSORTED_JSON);
+		Path jsonNamedText = Files.writeString(objectStore.resolve("unsorted.json"), UNSORTED_JSON);
+		try (RepoWrapper repo = new RepoWrapper(tempDir.resolve("repo"), "main")) {
+			try (CommitTreeBuilder tree = repo.newCommitTree()) {
+				tree.setContentTransformer(new Committer.SortJSONTransformer());
+				tree.addFile("minecraft/external-resources/assets/minecraft/lang/en_us.json", hashNamedAsset);
+				tree.addFile("minecraft/external-resources/assets/minecraft/texts/credits.txt", hashNamedText);
+				tree.addFile("minecraft/external-resources/assets/minecraft/texts/unsorted.txt", jsonNamedText);
+				repo.createCommitFromTree(tree, "test", "test@example.com", new Date(0L), TimeZone.getTimeZone("UTC"), "Test");
+			}
+			Assertions.assertEquals(SerializationHelper.sortJSON(UNSORTED_JSON), readCommittedFile(repo, "minecraft/external-resources/assets/minecraft/lang/en_us.json"));
+			Assertions.assertEquals(UNSORTED_JSON, readCommittedFile(repo, "minecraft/external-resources/assets/minecraft/texts/credits.txt"));
+			Assertions.assertEquals(UNSORTED_JSON, readCommittedFile(repo, "minecraft/external-resources/assets/minecraft/texts/unsorted.txt"));
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package com.github.winplay02.gitcraft.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+	static final long LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+	static void complete(AdaptiveConcurrencyLimiter limiter, int requests, long latencyNanos, boolean success) {
+		for (int i = 0; i < requests; ++i) {
+			limiter.acquireUninterruptibly();
+			limiter.release(latencyNanos, success);
+		}
+	}
+
+	@Test
+	public void limitIsBoundByMaximum() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4);
+		complete(limiter, 100, LATENCY_NANOS, true);
+		Assertions.assertEquals(4, limiter.limit());
+		Assertions.assertEquals(1, new AdaptiveConcurrencyLimiter(0).limit());
+	}
+
+	@Test
+	public void limitGrowsWhileLatencyIsStable() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4);
+		// e.g. requests are multiplexed
+		limiter.raiseMaxLimit(64);
+		limiter.raiseMaxLimit(8);
+		complete(limiter, 10, LATENCY_NANOS, true);
+		int grown = limiter.limit();
+		Assertions.assertTrue(grown > 4, "limit " + grown);
+		complete(limiter, 200, LATENCY_NANOS, true);
+		Assertions.assertEquals(64, limiter.limit());
+	}
+
+	@Test
+	public void limitIsLoweredWhenLatencyRises() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4);
+		limiter.raiseMaxLimit(64);
+		complete(limiter, 200, LATENCY_NANOS, true);
+		Assertions.assertEquals(64, limiter.limit());
+		// requests queue up at the origin
+		complete(limiter, 100, LATENCY_NANOS * 10, true);
+		Assertions.assertTrue(limiter.limit() < 64 / 2, "limit " + limiter.limit());
+	}
+
+	@Test
+	public void failuresHalveTheLimit() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(16);
+		complete(limiter, 1, LATENCY_NANOS, false);
+		Assertions.assertEquals(8, limiter.limit());
+		complete(limiter, 1, -1L, false);
+		Assertions.assertEquals(4, limiter.limit());
+		complete(limiter, 10, LATENCY_NANOS, false);
+		Assertions.assertEquals(1, limiter.limit());
+		// the limit recovers once requests succeed again
+		complete(limiter, 100, LATENCY_NANOS, true);
+		Assertions.assertEquals(16, limiter.limit());
+	}
+
+	@Test
+	public void unsentRequestReturnsItsPermit() throws Exception {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1);
+		limiter.acquireUninterruptibly();
+		CountDownLatch acquired = new CountDownLatch(1);
+		Thread waiting = Thread.ofVirtual().start(() -> {
+			limiter.acquireUninterruptibly();
+			acquired.countDown();
+		});
+		Assertions.assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+		// a request, that could not be sent, releases its permit without a latency sample
+		limiter.release(-1L, true);
+		Assertions.assertTrue(acquired.await(10, TimeUnit.SECONDS));
+		waiting.join();
+		Assertions.assertEquals(1, limiter.limit());
+		limiter.release(-1L, true);
+	}
+}
@@ -0,0 +1,120 @@
+package com.github.winplay02.gitcraft.util;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+public class CommitMessageIndexTest {
+
+	static final String MAIN = "main";
+
+	static RevCommit commit(RepoWrapper repo, String message) throws Exception {
+		try (CommitTreeBuilder tree = repo.newCommitTree()) {
+			repo.createCommitFromTree(tree, "test", "test@example.com", new Date(0L), TimeZone.getTimeZone("UTC"), message);
+		}
+		return repo.getGit().getRepository().parseCommit(repo.getGit().getRepository().resolve(Constants.HEAD));
+	}
+
+	static Path indexPath(Path repoPath) {
+		return repoPath.resolve(".git").resolve("gitcraft").resolve("commit-messages.json");
+	}
+
+	@Test
+	public void indexFollowsMovingRefs(@TempDir Path tempDir) throws Exception {
+		try (RepoWrapper repo = new RepoWrapper(tempDir.resolve("repo"), MAIN)) {
+			Assertions.assertFalse(repo.existsRevWithCommitMessage("1.0"));
+			RevCommit first = commit(repo, "1.0");
+			RevCommit second = commit(repo, "1.1");
+			Assertions.assertEquals(first, second.getParent(0));
+			Assertions.assertEquals(first, repo.findRevByCommitMessage("1.0"));
+			Assertions.assertEquals(List.of(MAIN), repo.findBranchesByCommitMessage("1.1"));
+			Assertions.assertEquals(List.of(), repo.findBranchesByCommitMessage("1.0"));
+
+			repo.createBranchFromCurrentCommit("1.1");
+			Assertions.assertEquals(List.of("1.1", MAIN), repo.findBranchesByCommitMessage("1.1"));
+
+			// the main branch moves on, the version branch stays
+			RevCommit third = commit(repo, "1.2");
+			Assertions.assertEquals(third, repo.findRevByCommitMessage("1.2"));
+			Assertions.assertEquals(List.of("1.1"), repo.findBranchesByCommitMessage("1.1"));
+			Assertions.assertEquals(List.of(MAIN), repo.findBranchesByCommitMessage("1.2"));
+
+			// commits that are no longer reachable are removed
+			repo.resetRef(Constants.R_HEADS + MAIN, first);
+			Assertions.assertNull(repo.findRevByCommitMessage("1.2"));
+			Assertions.assertEquals(second, repo.findRevByCommitMessage("1.1"));
+			Assertions.assertEquals(List.of(MAIN), repo.findBranchesByCommitMessage("1.0"));
+			Assertions.assertEquals(List.of(), repo.findBranchesByCommitMessage("1.2"));
+
+			repo.deleteRef(Constants.R_HEADS + "1.1");
+			Assertions.assertNull(repo.findRevByCommitMessage("1.1"));
+			Assertions.assertEquals(List.of(), repo.findBranchesByCommitMessage("1.1"));
+			Assertions.assertEquals(first, repo.findRevByCommitMessage("1.0"));
+		}
+	}
+
+	@Test
+	public void commitsWithTheSameMessageAreKept(@TempDir Path tempDir) throws Exception {
+		try (RepoWrapper repo = new RepoWrapper(tempDir.resolve("repo"), MAIN)) {
+			RevCommit first = commit(repo, "same");
+			repo.createBranchFromCurrentCommit("first");
+			commit(repo, "other");
+			RevCommit second = commit(repo, "same");
+			Assertions.assertNotEquals(first, second);
+			Assertions.assertEquals(List.of("first", MAIN), repo.findBranchesByCommitMessage("same"));
+			// the other commit with the same message is still reachable
+			repo.resetRef(Constants.R_HEADS + MAIN, first);
+			Assertions.assertEquals(first, repo.findRevByCommitMessage("same"));
+		}
+	}
+
+	@Test
+	public void persistedSnapshotIsReloaded(@TempDir Path tempDir) throws Exception {
+		Path repoPath = tempDir.resolve("repo");
+		RevCommit first;
+		try (RepoWrapper repo = new RepoWrapper(repoPath, MAIN)) {
+			first = commit(repo, "1.0");
+			commit(repo, "1.1");
+		}
+		Path indexPath = indexPath(repoPath);
+		Assertions.assertTrue(Files.exists(indexPath));
+		// a modified snapshot shows that the stored index is used, instead of rebuilding it
+		Files.writeString(indexPath, Files.readString(indexPath).replace("\"1.0\"", "\"stored\""));
+		// refs moved while the index was not open, the commits in between are added
+		try (Git git = Git.open(repoPath.toFile())) {
+			git.commit().setMessage("1.2").setAllowEmpty(true).setSign(false).call();
+		}
+		try (RepoWrapper repo = new RepoWrapper(repoPath, MAIN)) {
+			Assertions.assertEquals(first, repo.findRevByCommitMessage("stored"));
+			Assertions.assertNull(repo.findRevByCommitMessage("1.0"));
+			Assertions.assertNotNull(repo.findRevByCommitMessage("1.1"));
+			Assertions.assertNotNull(repo.findRevByCommitMessage("1.2"));
+			Assertions.assertEquals(List.of(), repo.findBranchesByCommitMessage("1.1"));
+			Assertions.assertEquals(List.of(MAIN), repo.findBranchesByCommitMessage("1.2"));
+		}
+	}
+
+	@Test
+	public void unreadableSnapshotIsRebuilt(@TempDir Path tempDir) throws Exception {
+		Path repoPath = tempDir.resolve("repo");
+		ObjectId first;
+		try (RepoWrapper repo = new RepoWrapper(repoPath, MAIN)) {
+			first = commit(repo, "1.0");
+		}
+		Files.writeString(indexPath(repoPath), "{ not json");
+		try (RepoWrapper repo = new RepoWrapper(repoPath, MAIN)) {
+			Assertions.assertEquals(first, repo.findRevByCommitMessage("1.0"));
+			Assertions.assertEquals(List.of(MAIN), repo.findBranchesByCommitMessage("1.0"));
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package com.github.winplay02.gitcraft.util;
+
+import com.github.winplay02.gitcraft.types.Artifact;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class DecompilationIndexTest {
+
+	static final String GLOBAL_KEY = "decompiler";
+	static final Set<String> ALL_SOURCES = Set.of("pkg/Base", "pkg/Middle", "pkg/Leaf", "pkg/Helper", "pkg/User", "pkg/Outer", "other/Unrelated");
+
+	/**
+	 * Classes of a jar, which can be modified to create the next version.
+	 */
+	static final class TestingJar {
+		int helperResult = 1;
+		boolean helperApiChanged = false;
+		boolean baseApiChanged = false;
+		final Map<String, byte[]> classes = new TreeMap<>();
+
+		Path write(Path jar) throws IOException {
+			this.classes.clear();
+			this.addClass("pkg/Base", "java/lang/Object", writer -> {
+				method(writer, Opcodes.ACC_PUBLIC, "value", "()I", method -> {
+					method.visitInsn(Opcodes.ICONST_1);
+					method.visitInsn(Opcodes.IRETURN);
+				});
+				if (this.baseApiChanged) {
+					method(writer, Opcodes.ACC_PUBLIC, "added", "()V", method -> method.visitInsn(Opcodes.RETURN));
+				}
+			});
+			this.addClass("pkg/Middle", "pkg/Base", writer -> {
+			});
+			this.addClass("pkg/Leaf", "pkg/Middle", writer -> {
+			});
+			this.addClass("pkg/Helper", "java/lang/Object", writer -> {
+				method(writer, Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "help", "()I", method -> {
+					method.visitLdcInsn(this.helperResult);
+					method.visitInsn(Opcodes.IRETURN);
+				});
+				if (this.helperApiChanged) {
+					method(writer, Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "added", "()V", method -> method.visitInsn(Opcodes.RETURN));
+				}
+			});
+			this.addClass("pkg/User", "java/lang/Object", writer -> {
+				method(writer, Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "use", "(Llib/External;)I", method -> {
+					method.visitMethodInsn(Opcodes.INVOKESTATIC, "pkg/Helper", "help", "()I", false);
+					method.visitInsn(Opcodes.IRETURN);
+				});
+			});
+			this.addClass("pkg/Outer", "java/lang/Object", writer -> writer.visitInnerClass("pkg/Outer$Inner", "pkg/Outer", "Inner", Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC));
+			this.addClass("pkg/Outer$Inner", "java/lang/Object", writer -> writer.visitInnerClass("pkg/Outer$Inner", "pkg/Outer", "Inner", Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC));
+			this.addClass("other/Unrelated", "java/lang/Object", writer -> {
+			});
+			return writeJar(jar, this.classes);
+		}
+
+		private void addClass(String name, String superName, Consumer<ClassWriter> members) {
+			ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+			writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, superName, null);
+			members.accept(writer);
+			writer.visitEnd();
+			this.classes.put(name, writer.toByteArray());
+		}
+	}
+
+	static void method(ClassWriter writer, int access, String name, String descriptor, Consumer<MethodVisitor> body) {
+		MethodVisitor method = writer.visitMethod(access, name, descriptor, null, null);
+		method.visitCode();
+		body.accept(method);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+	}
+
+	static Path writeJar(Path jar, Map<String, byte[]> classes) throws IOException {
+		Files.createDirectories(jar.getParent());
+		try (OutputStream output = Files.newOutputStream(jar); ZipOutputStream zip = new ZipOutputStream(output)) {
+			for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+				zip.putNextEntry(new ZipEntry(entry.getKey() + ".class"));
+				zip.write(entry.getValue());
+				zip.closeEntry();
+			}
+		}
+		return jar;
+	}
+
+	static DecompilationIndex index(Path jar, Path librariesDir, String librarySha1) throws IOException {
+		writeJar(librariesDir.resolve("external.jar"), Map.of("lib/External", new byte[0]));
+		return DecompilationIndex.create(jar, librariesDir, List.of(new Artifact("https://libraries.invalid/external.jar", "external.jar", librarySha1)), null, GLOBAL_KEY);
+	}
+
+	@Test
+	public void unchangedJarIsReusedEntirely(@TempDir Path tempDir) throws Exception {
+		TestingJar jar = new TestingJar();
+		DecompilationIndex previous = index(jar.write(tempDir.resolve("1.jar")), tempDir.resolve("libraries"), "1");
+		DecompilationIndex current = index(jar.write(tempDir.resolve("2.jar")), tempDir.resolve("libraries"), "1");
+		Assertions.assertEquals(ALL_SOURCES, previous.sourceDigests().keySet());
+		Assertions.assertEquals(ALL_SOURCES, current.reusableSources(previous));
+		Assertions.assertEquals(Set.of(), current.reusableSources(null));
+		Assertions.assertEquals(Set.of(), new DecompilationIndex("other decompiler", current.sourceDigests()).reusableSources(previous));
+	}
+
+	@Test
+	public void bodyChangeOnlyAffectsItsSource(@TempDir Path tempDir) throws Exception {
+		TestingJar jar = new TestingJar();
+		DecompilationIndex previous = index(jar.write(tempDir.resolve("1.jar")), tempDir.resolve("libraries"), "1");
+		jar.helperResult = 2;
+		DecompilationIndex current = index(jar.write(tempDir.resolve("2.jar")), tempDir.resolve("libraries"), "1");
+		// the user of the helper only depends on its API
+		Assertions.assertEquals(Set.of("pkg/Base", "pkg/Middle", "pkg/Leaf", "pkg/User", "pkg/Outer", "other/Unrelated"), current.reusableSources(previous));
+	}
+
+	@Test
+	public void apiChangeAffectsReferencingSources(@TempDir Path tempDir) throws Exception {
+		TestingJar jar = new TestingJar();
+		DecompilationIndex previous = index(jar.write(tempDir.resolve("1.jar")), tempDir.resolve("libraries"), "1");
+		jar.helperApiChanged = true;
+		DecompilationIndex current = index(jar.write(tempDir.resolve("2.jar")), tempDir.resolve("libraries"), "1");
+		Assertions.assertEquals(Set.of("pkg/Base", "pkg/Middle", "pkg/Leaf", "pkg/Outer", "other/Unrelated"), current.reusableSources(previous));
+	}
+
+	@Test
+	public void hierarchyChangeAffectsSubclasses(@TempDir Path tempDir) throws Exception {
+		TestingJar jar = new TestingJar();
+		DecompilationIndex previous = index(jar.write(tempDir.resolve("1.jar")), tempDir.resolve("libraries"), "1");
+		jar.baseApiChanged = true;
+		DecompilationIndex current = index(jar.write(tempDir.resolve("2.jar")), tempDir.resolve("libraries"), "1");
+		// the leaf only references the unchanged middle class, but inherits the members of the base class
+		Assertions.assertEquals(Set.of("pkg/Helper", "pkg/User", "pkg/Outer", "other/Unrelated"), current.reusableSources(previous));
+	}
+
+	@Test
+	public void libraryChangeAffectsReferencingSources(@TempDir Path tempDir) throws Exception {
+		TestingJar jar = new TestingJar();
+		DecompilationIndex previous = index(jar.write(tempDir.resolve("1.jar")), tempDir.resolve("libraries"), "1");
+		DecompilationIndex current = index(jar.write(tempDir.resolve("2.jar")), tempDir.resolve("libraries"), "2");
+		Assertions.assertEquals(Set.of("pkg/Base", "pkg/Middle", "pkg/Leaf", "pkg/Helper", "pkg/Outer", "other/Unrelated"), current.reusableSources(previous));
+	}
+
+	@Test
+	public void nestedClassesBelongToTheirTopLevelClass() {
+		Set<String> classNames = Set.of("pkg/Outer", "pkg/Outer$Inner", "pkg/Outer$Inner$Deep", "pkg/Named$Dollar");
+		Assertions.assertEquals("pkg/Outer", DecompilationIndex.topLevelClass("pkg/Outer$Inner", classNames));
+		Assertions.assertEquals("pkg/Outer", DecompilationIndex.topLevelClass("pkg/Outer$Inner$Deep", classNames));
+		// a dollar sign, that does not separate a nested class, is part of the name
+		Assertions.assertEquals("pkg/Named$Dollar", DecompilationIndex.topLevelClass("pkg/Named$Dollar", classNames));
+		Assertions.assertEquals("pkg/$Leading", DecompilationIndex.topLevelClass("pkg/$Leading", classNames));
+	}
+}
@@ -0,0 +1,124 @@
+package com.github.winplay02.gitcraft.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class JarClassIndexTest {
+
+	static final byte[] DEFLATED_CLASS = "deflated class content, ".repeat(64).getBytes(StandardCharsets.UTF_8);
+	static final byte[] STORED_CLASS = "stored class content".getBytes(StandardCharsets.UTF_8);
+
+	static Path writeJar(Path jar, int resourceCount) throws IOException {
+		try (OutputStream output = Files.newOutputStream(jar); ZipOutputStream zip = new ZipOutputStream(output)) {
+			zip.putNextEntry(new ZipEntry("pkg/Deflated.class"));
+			zip.write(DEFLATED_CLASS);
+			zip.closeEntry();
+			ZipEntry stored = new ZipEntry("pkg/Stored.class");
+			stored.setMethod(ZipEntry.STORED);
+			stored.setSize(STORED_CLASS.length);
+			CRC32 crc = new CRC32();
+			crc.update(STORED_CLASS);
+			stored.setCrc(crc.getValue());
+			zip.putNextEntry(stored);
+			zip.write(STORED_CLASS);
+			zip.closeEntry();
+			// neither are classes of the jar
+			zip.putNextEntry(new ZipEntry("META-INF/versions/21/pkg/Deflated.class"));
+			zip.closeEntry();
+			for (int i = 0; i < resourceCount; ++i) {
+				zip.putNextEntry(new ZipEntry("assets/%d.txt".formatted(i)));
+				zip.closeEntry();
+			}
+		}
+		return jar;
+	}
+
+	static void assertClasses(JarClassIndex index) throws IOException {
+		Assertions.assertEquals(Set.of("pkg/Deflated", "pkg/Stored"), index.classNames());
+		Assertions.assertArrayEquals(DEFLATED_CLASS, index.readClass("pkg/Deflated"));
+		Assertions.assertArrayEquals(STORED_CLASS, index.readClass("pkg/Stored"));
+		Assertions.assertNull(index.readClass("pkg/Missing"));
+	}
+
+	static Path indexPath(Path jar) {
+		return jar.resolveSibling(jar.getFileName() + ".classindex");
+	}
+
+	@Test
+	public void classesAreReadUsingTheCentralDirectory(@TempDir Path tempDir) throws Exception {
+		Path jar = writeJar(tempDir.resolve("classes.jar"), 1);
+		try (JarClassIndex index = JarClassIndex.load(jar)) {
+			assertClasses(index);
+			Assertions.assertTrue(index.entry("pkg/Deflated").offset() >= 0);
+			Assertions.assertTrue(index.entry("pkg/Stored").offset() >= 0);
+		}
+		Assertions.assertTrue(Files.exists(indexPath(jar)));
+	}
+
+	@Test
+	public void zip64JarsFallBackToZipFile(@TempDir Path tempDir) throws Exception {
+		// the entry count does not fit into the end of central directory record
+		Path jar = writeJar(tempDir.resolve("zip64.jar"), 0xFFFF);
+		try (JarClassIndex index = JarClassIndex.load(jar)) {
+			assertClasses(index);
+			Assertions.assertEquals(-1, index.entry("pkg/Deflated").offset());
+			Assertions.assertEquals(-1, index.entry("pkg/Stored").offset());
+		}
+		// the fallback is persisted as well
+		try (JarClassIndex index = JarClassIndex.load(jar)) {
+			assertClasses(index);
+		}
+	}
+
+	@Test
+	public void persistedIndexIsReused(@TempDir Path tempDir) throws Exception {
+		Path jar = writeJar(tempDir.resolve("classes.jar"), 1);
+		JarClassIndex.load(jar).close();
+		// break the central directory without changing size or modification time, so that the jar can only be read using the persisted index
+		FileTime lastModified = Files.getLastModifiedTime(jar);
+		byte[] bytes = Files.readAllBytes(jar);
+		int eocd = bytes.length - 22;
+		Assertions.assertEquals(0x06054b50, (bytes[eocd] & 0xFF) | (bytes[eocd + 1] & 0xFF) << 8 | (bytes[eocd + 2] & 0xFF) << 16 | (bytes[eocd + 3] & 0xFF) << 24);
+		bytes[eocd] = 0;
+		Files.write(jar, bytes);
+		Files.setLastModifiedTime(jar, lastModified);
+		try (JarClassIndex index = JarClassIndex.load(jar)) {
+			assertClasses(index);
+		}
+
+		// a changed jar is indexed again
+		Path otherJar = writeJar(tempDir.resolve("other.jar"), 1);
+		Files.move(otherJar, jar, StandardCopyOption.REPLACE_EXISTING);
+		Files.setLastModifiedTime(jar, FileTime.fromMillis(lastModified.toMillis() + 1000));
+		try (JarClassIndex index = JarClassIndex.load(jar)) {
+			assertClasses(index);
+		}
+	}
+
+	@Test
+	public void failedIndexWriteLeavesNoTemporaryFiles(@TempDir Path tempDir) throws Exception {
+		Path jar = writeJar(tempDir.resolve("classes.jar"), 1);
+		// the index cannot replace a non-empty directory
+		Files.createFile(Files.createDirectories(indexPath(jar)).resolve("occupied"));
+		try (JarClassIndex index = JarClassIndex.load(jar)) {
+			assertClasses(index);
+		}
+		try (Stream<Path> files = Files.list(tempDir)) {
+			Assertions.assertEquals(Set.of(jar, indexPath(jar)), Set.copyOf(files.toList()));
+		}
+	}
+}
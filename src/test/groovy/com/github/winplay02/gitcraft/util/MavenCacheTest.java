@@ -0,0 +1,117 @@
+package com.github.winplay02.gitcraft.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+public class MavenCacheTest {
+
+	static final String SHA1_A = "0123456789abcdef0123456789abcdef01234567";
+	static final String SHA1_B = "fedcba9876543210fedcba9876543210fedcba98";
+
+	static String publish(Path repository, String name, String content) throws IOException {
+		Path file = repository.resolve(name + ".sha1");
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, content, StandardCharsets.UTF_8);
+		return file.toUri().toString();
+	}
+
+	static Path journal(Path cacheFile) {
+		return cacheFile.resolveSibling(cacheFile.getFileName() + ".journal");
+	}
+
+	@Test
+	public void journalIsReplayed(@TempDir Path tempDir) throws Exception {
+		Path repository = tempDir.resolve("repository");
+		Path cacheFile = tempDir.resolve("maven-cache.json");
+		String present = publish(repository, "present.jar", SHA1_A.toUpperCase() + "  present.jar\n");
+		String missing = repository.resolve("missing.jar.sha1").toUri().toString();
+
+		MavenCache cache = MavenCache.load(cacheFile);
+		Assertions.assertEquals(SHA1_A, cache.getSha1ForURL(present));
+		Assertions.assertNull(cache.getSha1ForURL(missing));
+		// not saved, as if the previous run crashed
+		Assertions.assertFalse(Files.exists(cacheFile));
+		Assertions.assertTrue(Files.exists(journal(cacheFile)));
+
+		// cached entries are not fetched again, an incomplete last line is ignored
+		publish(repository, "present.jar", SHA1_B);
+		publish(repository, "missing.jar", SHA1_B);
+		Files.writeString(journal(cacheFile), "12", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+		MavenCache reloaded = MavenCache.load(cacheFile);
+		Assertions.assertEquals(SHA1_A, reloaded.getSha1ForURL(present));
+		Assertions.assertNull(reloaded.getSha1ForURL(missing));
+	}
+
+	@Test
+	public void invalidChecksumsAreNotCached(@TempDir Path tempDir) throws Exception {
+		Path repository = tempDir.resolve("repository");
+		Path cacheFile = tempDir.resolve("maven-cache.json");
+		String url = publish(repository, "artifact.jar", "<html>Service Unavailable</html>");
+
+		MavenCache cache = MavenCache.load(cacheFile);
+		Assertions.assertThrows(IOException.class, () -> cache.getSha1ForURL(url));
+		Assertions.assertFalse(Files.exists(journal(cacheFile)));
+		publish(repository, "artifact.jar", SHA1_A);
+		Assertions.assertEquals(SHA1_A, cache.getSha1ForURL(url));
+
+		// invalid journal entries of older versions are ignored as well
+		Files.writeString(journal(cacheFile), "%d\t%s\t%s\n".formatted(System.currentTimeMillis(), "not-a-checksum", url), StandardCharsets.UTF_8);
+		Assertions.assertEquals(SHA1_A, MavenCache.load(cacheFile).getSha1ForURL(url));
+	}
+
+	@Test
+	public void journalIsCompactedIntoCacheFile(@TempDir Path tempDir) throws Exception {
+		Path repository = tempDir.resolve("repository");
+		Path cacheFile = tempDir.resolve("maven-cache.json");
+		MavenCache cache = MavenCache.load(cacheFile);
+		String first = publish(repository, "0.jar", SHA1_A);
+		cache.getSha1ForURL(first);
+		// the journal is merged into the cache file after 512 entries
+		for (int i = 1; i < 512; ++i) {
+			cache.getSha1ForURL(publish(repository, i + ".jar", SHA1_B));
+		}
+		Assertions.assertTrue(Files.exists(cacheFile));
+		Assertions.assertFalse(Files.exists(journal(cacheFile)));
+
+		String last = publish(repository, "512.jar", SHA1_A);
+		cache.getSha1ForURL(last);
+		Assertions.assertTrue(Files.exists(journal(cacheFile)));
+		cache.save();
+		Assertions.assertFalse(Files.exists(journal(cacheFile)));
+
+		// everything is read from the cache file
+		MiscHelper.deleteDirectory(repository);
+		MavenCache reloaded = MavenCache.load(cacheFile);
+		Assertions.assertEquals(SHA1_A, reloaded.getSha1ForURL(first));
+		Assertions.assertEquals(SHA1_B, reloaded.getSha1ForURL(repository.resolve("511.jar.sha1").toUri().toString()));
+		Assertions.assertEquals(SHA1_A, reloaded.getSha1ForURL(last));
+	}
+
+	@Test
+	public void missingArtifactsAreCheckedAgainAfterADay(@TempDir Path tempDir) throws Exception {
+		Path repository = tempDir.resolve("repository");
+		Path cacheFile = tempDir.resolve("maven-cache.json");
+		String recentlyMissing = publish(repository, "recent.jar", SHA1_A);
+		String longMissing = publish(repository, "old.jar", SHA1_B);
+		long now = System.currentTimeMillis();
+		Files.writeString(journal(cacheFile), "%d\t-\t%s\n%d\t-\t%s\n".formatted(now - Duration.ofHours(1).toMillis(), recentlyMissing, now - Duration.ofHours(25).toMillis(), longMissing), StandardCharsets.UTF_8);
+
+		MavenCache cache = MavenCache.load(cacheFile);
+		Assertions.assertNull(cache.getSha1ForURL(recentlyMissing));
+		Assertions.assertEquals(SHA1_B, cache.getSha1ForURL(longMissing));
+
+		// missing artifacts are kept in the cache file until they are checked again
+		cache.save();
+		String persisted = Files.readString(cacheFile);
+		Assertions.assertTrue(persisted.contains(recentlyMissing));
+		Assertions.assertNull(MavenCache.load(cacheFile).getSha1ForURL(recentlyMissing));
+	}
+}
@@ -0,0 +1,180 @@
+package com.github.winplay02.gitcraft.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+public class ParallelZipWriterTest {
+
+	static Map<String, byte[]> contents(Random random) {
+		Map<String, byte[]> contents = new LinkedHashMap<>();
+		for (int i = 0; i < 200; ++i) {
+			contents.put("com/example/package%d/Class%d.java".formatted(i % 7, i), "class Class%d { int value = %d; }\n".formatted(i, i).repeat(i % 13 + 1).getBytes(StandardCharsets.UTF_8));
+		}
+		// incompressible content is stored
+		byte[] random1 = new byte[100 * 1024];
+		random.nextBytes(random1);
+		contents.put("assets/random.bin", random1);
+		contents.put("empty.txt", new byte[0]);
+		return contents;
+	}
+
+	static Map<String, byte[]> read(Path archive) throws IOException {
+		Map<String, byte[]> contents = new LinkedHashMap<>();
+		try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+			for (ZipEntry entry : Collections.list(zipFile.entries())) {
+				contents.put(entry.getName(), entry.isDirectory() ? null : zipFile.getInputStream(entry).readAllBytes());
+			}
+		}
+		return contents;
+	}
+
+	static void assertContents(Map<String, byte[]> expected, Map<String, byte[]> actual) {
+		Assertions.assertEquals(expected.keySet(), actual.keySet());
+		for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+			Assertions.assertArrayEquals(entry.getValue(), actual.get(entry.getKey()), entry.getKey());
+		}
+	}
+
+	static List<Path> leftovers(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.getFileName().toString().endsWith(".spill") || file.getFileName().toString().endsWith(".tmp")).toList();
+		}
+	}
+
+	@Test
+	public void outputDoesNotDependOnInsertionOrder(@TempDir Path tempDir) throws Exception {
+		Map<String, byte[]> contents = contents(new Random(1L));
+		Path sequential = tempDir.resolve("sequential.zip");
+		try (ParallelZipWriter writer = new ParallelZipWriter(sequential)) {
+			writer.addDirectory("com/example/");
+			contents.forEach(writer::addEntry);
+			writer.finish();
+		}
+
+		List<String> shuffled = new ArrayList<>(contents.keySet());
+		Collections.shuffle(shuffled, new Random(2L));
+		Path parallel = tempDir.resolve("parallel.zip");
+		try (ParallelZipWriter writer = new ParallelZipWriter(parallel); ExecutorService executor = Executors.newFixedThreadPool(8)) {
+			List<Future<?>> futures = new ArrayList<>();
+			for (String name : shuffled) {
+				futures.add(executor.submit(() -> writer.addEntry(name, contents.get(name))));
+			}
+			futures.add(executor.submit(() -> writer.addDirectory("/com/example")));
+			for (Future<?> future : futures) {
+				future.get();
+			}
+			writer.finish();
+		}
+
+		Assertions.assertArrayEquals(Files.readAllBytes(sequential), Files.readAllBytes(parallel));
+		Map<String, byte[]> read = read(parallel);
+		List<String> names = new ArrayList<>(read.keySet());
+		Assertions.assertEquals(names.stream().sorted().toList(), names);
+		Map<String, byte[]> expected = new LinkedHashMap<>(contents);
+		expected.put("com/example/", null);
+		assertContents(expected, read);
+		Assertions.assertEquals(List.of(), leftovers(tempDir));
+	}
+
+	@Test
+	public void spilledEntriesAreCopiedIntoTheArchive(@TempDir Path tempDir) throws Exception {
+		Random random = new Random(3L);
+		Map<String, byte[]> contents = new LinkedHashMap<>();
+		// larger than the copy buffer, so that each entry is copied in multiple chunks
+		for (int i = 0; i < 4; ++i) {
+			byte[] content = new byte[(1 << 18) + i];
+			random.nextBytes(content);
+			contents.put("large/" + i + ".bin", content);
+		}
+		contents.put("compressible.txt", "compressible\n".repeat(100000).getBytes(StandardCharsets.UTF_8));
+		Path archive = tempDir.resolve("spilled.zip");
+		try (ParallelZipWriter writer = new ParallelZipWriter(archive, 9)) {
+			writer.addEntry("large/0.bin", "replaced");
+			contents.forEach(writer::addEntry);
+			writer.finish();
+		}
+		assertContents(contents, read(archive));
+		Assertions.assertEquals(List.of(), leftovers(tempDir));
+	}
+
+	@Test
+	public void manyEntriesUseZip64Records(@TempDir Path tempDir) throws Exception {
+		int entryCount = 0x10000 + 10;
+		Path archive = tempDir.resolve("zip64.zip");
+		try (ParallelZipWriter writer = new ParallelZipWriter(archive)) {
+			for (int i = 0; i < entryCount; ++i) {
+				writer.addEntry("entries/%06d.txt".formatted(i), Integer.toString(i));
+			}
+			writer.finish();
+		}
+		byte[] bytes = Files.readAllBytes(archive);
+		ByteBuffer end = ByteBuffer.wrap(bytes, bytes.length - 22, 22).slice().order(ByteOrder.LITTLE_ENDIAN);
+		Assertions.assertEquals(0x06054b50, end.getInt(0));
+		// the entry count does not fit into the regular end of central directory record
+		Assertions.assertEquals(0xFFFF, Short.toUnsignedInt(end.getShort(10)));
+		ByteBuffer locator = ByteBuffer.wrap(bytes, bytes.length - 22 - 20, 20).slice().order(ByteOrder.LITTLE_ENDIAN);
+		Assertions.assertEquals(0x07064b50, locator.getInt(0));
+		ByteBuffer zip64End = ByteBuffer.wrap(bytes, (int) locator.getLong(8), 56).slice().order(ByteOrder.LITTLE_ENDIAN);
+		Assertions.assertEquals(0x06064b50, zip64End.getInt(0));
+		Assertions.assertEquals(entryCount, zip64End.getLong(32));
+
+		try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+			Assertions.assertEquals(entryCount, zipFile.size());
+			ZipEntry last = zipFile.getEntry("entries/%06d.txt".formatted(entryCount - 1));
+			Assertions.assertEquals(Integer.toString(entryCount - 1), new String(zipFile.getInputStream(last).readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	public void failedProducerDoesNotPublishArchive(@TempDir Path tempDir) throws Exception {
+		Path archive = tempDir.resolve("existing.zip");
+		try (ParallelZipWriter writer = new ParallelZipWriter(archive)) {
+			writer.addEntry("previous.txt", "previous");
+			writer.finish();
+		}
+		byte[] previous = Files.readAllBytes(archive);
+
+		Assertions.assertThrows(IllegalStateException.class, () -> {
+			try (ParallelZipWriter writer = new ParallelZipWriter(archive)) {
+				writer.addEntry("incomplete.txt", "incomplete");
+				throw new IllegalStateException("producer failed");
+			}
+		});
+		Assertions.assertArrayEquals(previous, Files.readAllBytes(archive));
+
+		Path missing = tempDir.resolve("missing.zip");
+		new ParallelZipWriter(missing).close();
+		Assertions.assertFalse(Files.exists(missing));
+		Assertions.assertEquals(List.of(), leftovers(tempDir));
+	}
+
+	@Test
+	public void closedWriterRejectsEntries(@TempDir Path tempDir) throws Exception {
+		ParallelZipWriter writer = new ParallelZipWriter(tempDir.resolve("closed.zip"));
+		writer.finish();
+		writer.close();
+		Assertions.assertThrows(IllegalStateException.class, () -> writer.addEntry("late.txt", "late"));
+		Assertions.assertThrows(IllegalStateException.class, () -> writer.addDirectory("late"));
+		Assertions.assertEquals(Map.of(), read(tempDir.resolve("closed.zip")));
+	}
+}
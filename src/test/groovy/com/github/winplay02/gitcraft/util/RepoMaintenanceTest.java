@@ -0,0 +1,148 @@
+package com.github.winplay02.gitcraft.util;
+
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.Pack;
+import org.eclipse.jgit.internal.storage.pack.PackExt;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+public class RepoMaintenanceTest {
+
+	static final int FILE_SIZE = 16 * 1024;
+
+	@Test
+	public void geometricRollUp() {
+		Assertions.assertEquals(0, RepoMaintenance.geometricRollUp(new long[0]));
+		Assertions.assertEquals(0, RepoMaintenance.geometricRollUp(new long[]{10}));
+		Assertions.assertEquals(0, RepoMaintenance.geometricRollUp(new long[]{1, 2, 6, 18}));
+		// a pack smaller than twice the smaller packs combined is rolled up together with them
+		Assertions.assertEquals(2, RepoMaintenance.geometricRollUp(new long[]{1, 1, 100, 1000}));
+		Assertions.assertEquals(3, RepoMaintenance.geometricRollUp(new long[]{1, 2, 5, 100}));
+		Assertions.assertEquals(4, RepoMaintenance.geometricRollUp(new long[]{5, 5, 5, 5}));
+		// a single violating pack requires all smaller packs to be rolled up, even if they satisfy the progression among themselves
+		Assertions.assertEquals(4, RepoMaintenance.geometricRollUp(new long[]{1, 3, 9, 20}));
+	}
+
+	static void commitRandomFiles(RepoWrapper repo, Path sources, Random random, int files) throws IOException {
+		Path directory = Files.createDirectories(sources.resolve(Integer.toString(random.nextInt(Integer.MAX_VALUE))));
+		try (CommitTreeBuilder tree = repo.newCommitTree()) {
+			for (int i = 0; i < files; ++i) {
+				// random content does not compress, so that the size of each pack is known
+				byte[] content = new byte[FILE_SIZE];
+				random.nextBytes(content);
+				tree.addFile("%s/%d.bin".formatted(directory.getFileName(), i), Files.write(directory.resolve(i + ".bin"), content));
+			}
+			repo.createCommitFromTree(tree, "test", "test@example.com", new Date(0L), TimeZone.getTimeZone("UTC"), "Commit " + directory.getFileName());
+		}
+	}
+
+	static List<Pack> packs(RepoWrapper repo) {
+		FileRepository repository = (FileRepository) repo.getGit().getRepository();
+		return repository.getObjectDatabase().getPacks().stream().sorted(Comparator.comparingLong(pack -> pack.getPackFile().length())).toList();
+	}
+
+	static RepoMaintenance.Result run(RepoWrapper repo, boolean concurrent) throws IOException {
+		return RepoMaintenance.run((FileRepository) repo.getGit().getRepository(), concurrent);
+	}
+
+	@Test
+	public void strategyDependsOnPackSizes(@TempDir Path tempDir) throws Exception {
+		Random random = new Random(1L);
+		try (RepoWrapper repo = new RepoWrapper(tempDir.resolve("repo"), "main")) {
+			// packs of similar size violate the progression
+			for (int i = 0; i < 3; ++i) {
+				commitRandomFiles(repo, tempDir.resolve("sources"), random, 8);
+			}
+			Assertions.assertEquals(3, packs(repo).size());
+			RepoMaintenance.Result full = run(repo, false);
+			Assertions.assertEquals(RepoMaintenance.Strategy.FULL, full.strategy());
+			Assertions.assertEquals(1L, full.after().packFiles());
+			Assertions.assertTrue(full.after().bitmaps() > 0);
+
+			Assertions.assertEquals(RepoMaintenance.Strategy.SKIPPED, run(repo, false).strategy());
+
+			// small packs are rolled up, the large pack is retained as it is
+			Pack largePack = packs(repo).getLast();
+			long largePackModified = largePack.getPackFile().lastModified();
+			commitRandomFiles(repo, tempDir.resolve("sources"), random, 1);
+			commitRandomFiles(repo, tempDir.resolve("sources"), random, 1);
+			RepoMaintenance.Result geometric = run(repo, false);
+			Assertions.assertEquals(RepoMaintenance.Strategy.GEOMETRIC, geometric.strategy());
+			Assertions.assertEquals(2L, geometric.after().packFiles());
+			Assertions.assertTrue(Files.exists(largePack.getPackFile().toPath()));
+			Assertions.assertEquals(largePackModified, largePack.getPackFile().lastModified());
+			Assertions.assertFalse(Files.exists(largePack.getPackFile().create(PackExt.KEEP).toPath()));
+			Assertions.assertEquals(largePack.getPackFile().getName(), packs(repo).getLast().getPackFile().getName());
+		}
+	}
+
+	@Test
+	public void replacedPacksAreNotRolledUpAgain(@TempDir Path tempDir) throws Exception {
+		Random random = new Random(2L);
+		try (RepoWrapper repo = new RepoWrapper(tempDir.resolve("repo"), "main")) {
+			commitRandomFiles(repo, tempDir.resolve("sources"), random, 12);
+			commitRandomFiles(repo, tempDir.resolve("sources"), random, 12);
+			Assertions.assertEquals(RepoMaintenance.Strategy.FULL, run(repo, false).strategy());
+			commitRandomFiles(repo, tempDir.resolve("sources"), random, 1);
+			commitRandomFiles(repo, tempDir.resolve("sources"), random, 1);
+			// replaced packs are kept until they expire, as commits may be created concurrently
+			RepoMaintenance.Result geometric = run(repo, true);
+			Assertions.assertEquals(RepoMaintenance.Strategy.GEOMETRIC, geometric.strategy());
+			Assertions.assertTrue(geometric.after().packFiles() > 2L);
+			// the remaining packs already satisfy the progression
+			Assertions.assertEquals(RepoMaintenance.Strategy.SKIPPED, run(repo, true).strategy());
+		}
+	}
+
+	@Test
+	public void tooManyPacksDependsOnAutoPackLimit(@TempDir Path tempDir) throws Exception {
+		Random random = new Random(4L);
+		try (RepoWrapper repo = new RepoWrapper(tempDir.resolve("repo"), "main")) {
+			FileRepository repository = (FileRepository) repo.getGit().getRepository();
+			repository.getConfig().setInt(ConfigConstants.CONFIG_GC_SECTION, null, ConfigConstants.CONFIG_KEY_AUTOPACKLIMIT, 2);
+			commitRandomFiles(repo, tempDir.resolve("sources"), random, 1);
+			commitRandomFiles(repo, tempDir.resolve("sources"), random, 1);
+			Assertions.assertFalse(RepoMaintenance.tooManyPacks(repository));
+			commitRandomFiles(repo, tempDir.resolve("sources"), random, 1);
+			Assertions.assertTrue(RepoMaintenance.tooManyPacks(repository));
+
+			// replaced packs, that have not expired yet, are not counted
+			run(repo, true);
+			Assertions.assertTrue(packs(repo).size() > 2);
+			Assertions.assertFalse(RepoMaintenance.tooManyPacks(repository));
+
+			repository.getConfig().setInt(ConfigConstants.CONFIG_GC_SECTION, null, ConfigConstants.CONFIG_KEY_AUTOPACKLIMIT, 0);
+			for (int i = 0; i < 3; ++i) {
+				commitRandomFiles(repo, tempDir.resolve("sources"), random, 1);
+			}
+			Assertions.assertFalse(RepoMaintenance.tooManyPacks(repository));
+		}
+	}
+
+	@Test
+	public void keepFilesOfInterruptedRepacksAreRemoved(@TempDir Path tempDir) throws Exception {
+		Random random = new Random(3L);
+		try (RepoWrapper repo = new RepoWrapper(tempDir.resolve("repo"), "main")) {
+			commitRandomFiles(repo, tempDir.resolve("sources"), random, 4);
+			commitRandomFiles(repo, tempDir.resolve("sources"), random, 4);
+			List<Pack> packs = packs(repo);
+			Path staleKeepFile = Files.writeString(packs.get(0).getPackFile().create(PackExt.KEEP).toPath(), RepoMaintenance.KEEP_MESSAGE);
+			Path foreignKeepFile = Files.writeString(packs.get(1).getPackFile().create(PackExt.KEEP).toPath(), "kept by someone else\n");
+			run(repo, false);
+			Assertions.assertFalse(Files.exists(staleKeepFile));
+			Assertions.assertTrue(Files.exists(foreignKeepFile));
+			Assertions.assertTrue(Files.exists(packs.get(1).getPackFile().toPath()));
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package com.github.winplay02.gitcraft.util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+public class SerializationHelperTest {
+
+	/**
+	 * Previous implementation of {@link SerializationHelper#sortJSON(String)}, which parsed the whole document into a tree.
+	 */
+	static String sortJSONUsingTree(String json) {
+		JsonElement element = SerializationHelper.gson.fromJson(json, JsonElement.class);
+		Queue<JsonElement> queue = new LinkedList<>();
+		queue.add(element);
+		while (!queue.isEmpty()) {
+			JsonElement subject = queue.poll();
+			if (subject instanceof final JsonObject object) {
+				Map<String, JsonElement> mappings = new HashMap<>(object.asMap());
+				object.asMap().clear();
+				mappings.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach((entry) -> object.add(entry.getKey(), entry.getValue()));
+				mappings.values().stream().filter(entry -> entry instanceof JsonObject || entry instanceof JsonArray).forEach(queue::add);
+			}
+			if (subject instanceof final JsonArray array) {
+				array.asList().stream().filter(entry -> entry instanceof JsonObject || entry instanceof JsonArray).forEach(queue::add);
+			}
+		}
+		return SerializationHelper.serialize(element);
+	}
+
+	static final List<String> DOCUMENTS = List.of(
+		"{\"b\": 1, \"a\": {\"d\": [3, 2, 1], \"c\": true}}",
+		"[{\"z\": null, \"y\": [null, 1.50, -0, 1e10]}, [], {}]",
+		"{\"nested\": {\"inner\": {\"deep\": [[{\"b\": 2, \"a\": 1}]]}}}",
+		"{\"escaped\": \"<html> & 'quotes' \\\"double\\\" \\\\ \\n \\t \\u2028 \\u00e9 \\ud83d\\ude00\", \"=\": \"a=b\"}",
+		"{\"multi\nline\": \"key\"}".replace("\n", "\\n"),
+		"{\"dup\": 1, \"other\": 2, \"dup\": {\"x\": 3}}",
+		"{\"\": \"empty key\", \"A\": 1, \"a\": 2, \"_\": 3, \"1\": 4}",
+		"null",
+		"\"top-level string\"",
+		"42",
+		"-1.25E-7",
+		"true",
+		"[]",
+		"  {\"whitespace\" :\t[ 1 ,2 ] }\n\n",
+		// accepted by the lenient parser of gson
+		"{\"a\": 1, /* comment */ \"b\": 2 // line comment\n}",
+		"# hash comment\n{\"b\": 1, \"a\": 2}",
+		"{'single': 'quotes', \"b\": 'mixed'}",
+		"{unquoted: keys, b: value}",
+		"{\"a\": NaN, \"b\": Infinity, \"c\": -Infinity}",
+		"[1, 2, 3,]",
+		"[1,,2]",
+		"{\"a\": 1; \"b\" = 2, \"c\" => 3}",
+		"{\"a\": 01, \"b\": 0x10, \"c\": 1.}",
+		")]}'\n{\"b\": 1, \"a\": 2}"
+	);
+
+	static final List<String> INVALID_DOCUMENTS = List.of(
+		"{\"a\": 1",
+		"[1, 2",
+		"{\"a\": 1} {\"b\": 2}",
+		"{\"a\": 1} // trailing comment",
+		"{\"a\": 1} trailing",
+		"[1] [2]"
+	);
+
+	@Test
+	public void sortJSONMatchesTreeSorting() {
+		for (String document : DOCUMENTS) {
+			Assertions.assertEquals(sortJSONUsingTree(document), SerializationHelper.sortJSON(document), document);
+		}
+	}
+
+	@Test
+	public void sortJSONRejectsInvalidDocuments() {
+		for (String document : INVALID_DOCUMENTS) {
+			Assertions.assertThrows(JsonSyntaxException.class, () -> sortJSONUsingTree(document), document);
+			Assertions.assertThrows(JsonSyntaxException.class, () -> SerializationHelper.sortJSON(document), document);
+		}
+	}
+
+	@Test
+	public void sortJSONRejectsEmptyDocuments() {
+		for (String document : List.of("", " \n\t")) {
+			// parsed as null by gson, which cannot be serialized
+			Assertions.assertThrows(NullPointerException.class, () -> sortJSONUsingTree(document), document);
+			Assertions.assertThrows(JsonSyntaxException.class, () -> SerializationHelper.sortJSON(document), document);
+		}
+	}
+}